@@ -6,8 +6,7 @@
 package net.neoforged.neoforge.attachment;
 
 import com.mojang.logging.LogUtils;
-import java.util.IdentityHashMap;
-import java.util.Map;
+import java.util.Arrays;
 import java.util.Objects;
 import java.util.Optional;
 import net.minecraft.core.HolderLookup;
@@ -28,27 +27,143 @@ public abstract class AttachmentHolder implements IAttachmentHolder {
     public static final String ATTACHMENTS_NBT_KEY = "neoforge:attachments";
     private static final boolean IN_DEV = !FMLLoader.isProduction();
     private static final Logger LOGGER = LogUtils.getLogger();
+    private static final int INITIAL_CAPACITY = 2;
+    /**
+     * Number of attachments above which the holder looks up its attachments through {@link #slotByIndex} instead of scanning {@link #types}.
+     */
+    private static final int INDEXED_LOOKUP_THRESHOLD = 8;
 
     private void validateAttachmentType(AttachmentType<?> type) {
         Objects.requireNonNull(type);
         if (!IN_DEV) return;
 
-        if (!NeoForgeRegistries.ATTACHMENT_TYPES.containsValue(type)) {
+        if (type.index < 0) {
             throw new IllegalArgumentException("Data attachment type with default value " + type.defaultValueSupplier.apply(getExposedHolder()) + " must be registered!");
         }
     }
 
+    /**
+     * Types of the stored attachments, in insertion order. The first {@link #size} entries are in use.
+     * {@code null} until the first attachment is stored.
+     * Holders typically carry very few attachments, which are found by a linear identity scan.
+     * Holders with more than {@link #INDEXED_LOOKUP_THRESHOLD} attachments also build {@link #slotByIndex}.
+     */
+    AttachmentType<?> @Nullable [] types = null;
+    /**
+     * Attachment values, parallel to {@link #types}.
+     */
+    Object @Nullable [] values = null;
+    /**
+     * Last serialized form of the attachments whose type {@linkplain AttachmentType.Builder#trackChanges() tracks changes},
+     * parallel to {@link #types}. An entry is cleared whenever the corresponding attachment is replaced or removed.
+     * {@code null} until the first serialized form is stored.
+     * The tags are owned by the holder: only copies are handed out, since callers may modify the saved tag.
+     */
+    Tag @Nullable [] serializedAttachments = null;
+    /**
+     * Number of stored attachments.
+     */
+    int size = 0;
+    /**
+     * Position in {@link #types} plus one of the stored attachments, indexed by {@link AttachmentType#index} minus {@link #indexBase},
+     * or {@code 0} for the types that are not stored. Only covers the range of indices in use, so a holder does not pay
+     * for the types registered before its attachments.
+     * {@code null} while the holder has few attachments, or if an unregistered type is stored.
+     */
+    private int @Nullable [] slotByIndex = null;
+    private int indexBase = 0;
+
+    /**
+     * Returns the position of the given type in {@link #types}, or {@code -1} if it is not stored.
+     */
+    private int find(AttachmentType<?> type) {
+        var slotByIndex = this.slotByIndex;
+        if (slotByIndex != null) {
+            int i = type.index - indexBase;
+            return i >= 0 && i < slotByIndex.length ? slotByIndex[i] - 1 : -1;
+        }
+        var types = this.types;
+        for (int i = 0; i < size; ++i) {
+            if (types[i] == type) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Stores an attachment value, growing the arrays if needed, and returns the previous value.
+     */
     @Nullable
-    Map<AttachmentType<?>, Object> attachments = null;
+    final Object putAttachment(AttachmentType<?> type, Object value) {
+        int slot = find(type);
+        if (slot >= 0) {
+            Object previous = values[slot];
+            values[slot] = value;
+            if (serializedAttachments != null) {
+                serializedAttachments[slot] = null;
+            }
+            return previous;
+        }
+        if (types == null) {
+            types = new AttachmentType<?>[INITIAL_CAPACITY];
+            values = new Object[INITIAL_CAPACITY];
+        } else if (size == types.length) {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            values = Arrays.copyOf(values, capacity);
+            if (serializedAttachments != null) {
+                serializedAttachments = Arrays.copyOf(serializedAttachments, capacity);
+            }
+        }
+        types[size] = type;
+        values[size] = value;
+        size++;
+        int i = type.index - indexBase;
+        if (slotByIndex != null && i >= 0 && i < slotByIndex.length) {
+            slotByIndex[i] = size;
+        } else if (size > INDEXED_LOOKUP_THRESHOLD) {
+            rebuildSlotIndex();
+        }
+        return null;
+    }
 
     /**
-     * Create the attachment map if it does not yet exist, or return the current map.
+     * Rebuilds {@link #slotByIndex} for the stored attachments, or drops it if the holder has few attachments.
      */
-    final Map<AttachmentType<?>, Object> getAttachmentMap() {
-        if (attachments == null) {
-            attachments = new IdentityHashMap<>(4);
+    private void rebuildSlotIndex() {
+        slotByIndex = null;
+        if (size <= INDEXED_LOOKUP_THRESHOLD) {
+            return;
+        }
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int slot = 0; slot < size; ++slot) {
+            int index = types[slot].index;
+            // Unregistered types have no index, they can only be found by scanning
+            if (index < 0) {
+                return;
+            }
+            min = Math.min(min, index);
+            max = Math.max(max, index);
         }
-        return attachments;
+        int[] table = new int[max - min + 1];
+        for (int slot = 0; slot < size; ++slot) {
+            table[types[slot].index - min] = slot + 1;
+        }
+        indexBase = min;
+        slotByIndex = table;
+    }
+
+    private void storeSerialized(AttachmentType<?> type, Tag serialized) {
+        int slot = find(type);
+        if (slot < 0) {
+            return;
+        }
+        if (serializedAttachments == null) {
+            serializedAttachments = new Tag[types.length];
+        }
+        serializedAttachments[slot] = serialized;
     }
 
     /**
@@ -62,33 +177,32 @@ public abstract class AttachmentHolder implements IAttachmentHolder {
 
     @Override
     public final boolean hasAttachments() {
-        return attachments != null && !attachments.isEmpty();
+        return size > 0;
     }
 
     @Override
     public final boolean hasData(AttachmentType<?> type) {
         validateAttachmentType(type);
-        return attachments != null && attachments.containsKey(type);
+        return find(type) >= 0;
     }
 
     @Override
     public final <T> T getData(AttachmentType<T> type) {
         validateAttachmentType(type);
-        T ret = (T) getAttachmentMap().get(type);
-        if (ret == null) {
-            ret = type.defaultValueSupplier.apply(getExposedHolder());
-            attachments.put(type, ret);
+        int slot = find(type);
+        if (slot >= 0) {
+            return (T) values[slot];
         }
+        T ret = type.defaultValueSupplier.apply(getExposedHolder());
+        putAttachment(type, ret);
         return ret;
     }
 
     @Override
     public <T> Optional<T> getExistingData(AttachmentType<T> type) {
         validateAttachmentType(type);
-        if (attachments == null) {
-            return Optional.empty();
-        }
-        return Optional.ofNullable((T) this.attachments.get(type));
+        int slot = find(type);
+        return slot >= 0 ? Optional.of((T) values[slot]) : Optional.empty();
     }
 
     @Override
@@ -96,17 +210,41 @@ public abstract class AttachmentHolder implements IAttachmentHolder {
     public <T> @Nullable T setData(AttachmentType<T> type, T data) {
         validateAttachmentType(type);
         Objects.requireNonNull(data);
-        return (T) getAttachmentMap().put(type, data);
+        T previous = (T) putAttachment(type, data);
+        if (type.syncCodec != null) {
+            AttachmentSync.onDataChanged(getExposedHolder(), type);
+        }
+        return previous;
     }
 
     @Override
     @MustBeInvokedByOverriders
     public <T> @Nullable T removeData(AttachmentType<T> type) {
         validateAttachmentType(type);
-        if (attachments == null) {
+        int slot = find(type);
+        if (slot < 0) {
             return null;
         }
-        return (T) attachments.remove(type);
+        T previous = (T) values[slot];
+        // Shift the following entries down to keep the insertion order
+        int moved = size - slot - 1;
+        System.arraycopy(types, slot + 1, types, slot, moved);
+        System.arraycopy(values, slot + 1, values, slot, moved);
+        if (serializedAttachments != null) {
+            System.arraycopy(serializedAttachments, slot + 1, serializedAttachments, slot, moved);
+            serializedAttachments[size - 1] = null;
+        }
+        size--;
+        types[size] = null;
+        values[size] = null;
+        if (slotByIndex != null) {
+            // The following attachments moved down
+            rebuildSlotIndex();
+        }
+        if (type.syncCodec != null) {
+            AttachmentSync.onDataChanged(getExposedHolder(), type);
+        }
+        return previous;
     }
 
     /**
@@ -115,20 +253,35 @@ public abstract class AttachmentHolder implements IAttachmentHolder {
      */
     @Nullable
     public final CompoundTag serializeAttachments(HolderLookup.Provider provider) {
-        if (attachments == null) {
-            return null;
-        }
         CompoundTag tag = null;
-        for (var entry : attachments.entrySet()) {
-            var type = entry.getKey();
-            if (type.serializer != null) {
-                Tag serialized = ((IAttachmentSerializer<?, Object>) type.serializer).write(entry.getValue(), provider);
-                if (serialized != null) {
-                    if (tag == null)
-                        tag = new CompoundTag();
-                    tag.put(NeoForgeRegistries.ATTACHMENT_TYPES.getKey(type).toString(), serialized);
+        for (int i = 0; i < size; ++i) {
+            var type = types[i];
+            // Unregistered types have no key to be saved under
+            if (type.serializer == null || type.serializedKey == null) {
+                continue;
+            }
+            Tag serialized = null;
+            if (type.trackChanges && serializedAttachments != null) {
+                serialized = serializedAttachments[i];
+            }
+            if (serialized != null) {
+                serialized = serialized.copy();
+                AttachmentInternals.reusedAttachments.increment();
+            } else {
+                serialized = ((IAttachmentSerializer<?, Object>) type.serializer).write(values[i], provider);
+                AttachmentInternals.serializedAttachments.increment();
+                if (serialized != null && type.trackChanges) {
+                    if (serializedAttachments == null) {
+                        serializedAttachments = new Tag[types.length];
+                    }
+                    serializedAttachments[i] = serialized.copy();
                 }
             }
+            if (serialized != null) {
+                if (tag == null)
+                    tag = new CompoundTag();
+                tag.put(type.serializedKey, serialized);
+            }
         }
         return tag;
     }
@@ -152,7 +305,12 @@ public abstract class AttachmentHolder implements IAttachmentHolder {
             }
 
             try {
-                getAttachmentMap().put(type, ((IAttachmentSerializer<Tag, ?>) type.serializer).read(getExposedHolder(), tag.get(key), provider));
+                Tag serialized = tag.get(key);
+                putAttachment(type, ((IAttachmentSerializer<Tag, ?>) type.serializer).read(getExposedHolder(), serialized, provider));
+                if (type.trackChanges) {
+                    // Until it is replaced, the attachment can be saved exactly as it was loaded
+                    storeSerialized(type, serialized.copy());
+                }
             } catch (Exception exception) {
                 LOGGER.error("Failed to deserialize data attachment {}. Skipping.", key, exception);
             }
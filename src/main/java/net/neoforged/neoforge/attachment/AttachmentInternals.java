@@ -5,43 +5,76 @@
 
 package net.neoforged.neoforge.attachment;
 
+import com.mojang.logging.LogUtils;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Predicate;
 import net.minecraft.core.HolderLookup;
+import net.minecraft.core.Registry;
+import net.minecraft.resources.ResourceKey;
 import net.minecraft.world.entity.Entity;
 import net.neoforged.bus.api.SubscribeEvent;
 import net.neoforged.fml.common.EventBusSubscriber;
 import net.neoforged.neoforge.common.extensions.IEntityExtension;
 import net.neoforged.neoforge.event.entity.living.LivingConversionEvent;
 import net.neoforged.neoforge.event.entity.player.PlayerEvent;
+import net.neoforged.neoforge.event.level.LevelEvent;
 import net.neoforged.neoforge.internal.versions.neoforge.NeoForgeVersion;
 import org.jetbrains.annotations.ApiStatus;
+import org.slf4j.Logger;
 
 @ApiStatus.Internal
 @EventBusSubscriber(modid = NeoForgeVersion.MOD_ID)
 public final class AttachmentInternals {
+    private static final Logger LOGGER = LogUtils.getLogger();
+
     /**
      * Copy some attachments to another holder.
      */
     private static <H extends AttachmentHolder> void copyAttachments(HolderLookup.Provider provider, H from, H to, Predicate<AttachmentType<?>> filter) {
-        if (from.attachments == null) {
-            return;
-        }
-        for (var entry : from.attachments.entrySet()) {
-            AttachmentType<?> type = entry.getKey();
+        for (int i = 0; i < from.size; ++i) {
+            Object attachment = from.values[i];
+            AttachmentType<?> type = from.types[i];
             if (type.serializer == null) {
                 continue;
             }
             @SuppressWarnings("unchecked")
             var copyHandler = (IAttachmentCopyHandler<Object>) type.copyHandler;
             if (filter.test(type)) {
-                Object copy = copyHandler.copy(entry.getValue(), to.getExposedHolder(), provider);
+                Object copy = copyHandler.copy(attachment, to.getExposedHolder(), provider);
                 if (copy != null) {
-                    to.getAttachmentMap().put(type, copy);
+                    to.putAttachment(type, copy);
                 }
             }
         }
     }
 
+    /**
+     * Assigns the dense {@linkplain AttachmentType#index index} of each attachment type as it gets registered.
+     */
+    public static void onAttachmentTypeAdded(Registry<AttachmentType<?>> registry, int id, ResourceKey<AttachmentType<?>> key, AttachmentType<?> value) {
+        if (value.index != -1 && value.index != id) {
+            throw new IllegalStateException("Data attachment type " + key.location() + " is already registered as " + registry.getKey(value));
+        }
+        value.index = id;
+        value.serializedKey = key.location().toString();
+        AttachmentSync.onTypeRegistered(value);
+    }
+
+    /**
+     * Number of attachments that were serialized, and that reused their previous serialized form, since the last level save.
+     */
+    static final LongAdder serializedAttachments = new LongAdder();
+    static final LongAdder reusedAttachments = new LongAdder();
+
+    @SubscribeEvent
+    public static void onLevelSave(LevelEvent.Save event) {
+        long serialized = serializedAttachments.sumThenReset();
+        long reused = reusedAttachments.sumThenReset();
+        if (serialized != 0 || reused != 0) {
+            LOGGER.debug("Data attachments saved since the last level save: {} written, {} skipped because unchanged", serialized, reused);
+        }
+    }
+
     public static void copyChunkAttachmentsOnPromotion(HolderLookup.Provider provider, AttachmentHolder.AsField from, AttachmentHolder.AsField to) {
         copyAttachments(provider, from, to, type -> true);
     }
@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.attachment;
+
+import io.netty.handler.codec.DecoderException;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceArraySet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.neoforged.bus.api.SubscribeEvent;
+import net.neoforged.fml.common.EventBusSubscriber;
+import net.neoforged.neoforge.event.entity.player.PlayerEvent;
+import net.neoforged.neoforge.event.level.ChunkWatchEvent;
+import net.neoforged.neoforge.event.server.ServerStoppedEvent;
+import net.neoforged.neoforge.event.tick.ServerTickEvent;
+import net.neoforged.neoforge.internal.versions.neoforge.NeoForgeVersion;
+import net.neoforged.neoforge.network.PacketDistributor;
+import net.neoforged.neoforge.network.payload.SyncChunkAttachmentsPayload;
+import net.neoforged.neoforge.network.payload.SyncEntityAttachmentsPayload;
+import net.neoforged.neoforge.registries.NeoForgeRegistries;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Syncs the attachments of types registered with {@link AttachmentType.Builder#sync} to the clients.
+ *
+ * <p>Changes made on the server thread are collected per holder during the tick,
+ * and only the changed attachments are sent at the end of the tick, to the players tracking the holder.
+ */
+@ApiStatus.Internal
+@EventBusSubscriber(modid = NeoForgeVersion.MOD_ID)
+public final class AttachmentSync {
+    /**
+     * A synced attachment value. A {@code null} value means that the attachment was removed.
+     */
+    public record Entry(AttachmentType<?> type, @Nullable Object value) {}
+
+    public static final StreamCodec<RegistryFriendlyByteBuf, Entry> ENTRY_STREAM_CODEC = StreamCodec.of(AttachmentSync::encodeEntry, AttachmentSync::decodeEntry);
+    public static final StreamCodec<RegistryFriendlyByteBuf, List<Entry>> ENTRIES_STREAM_CODEC = ENTRY_STREAM_CODEC.apply(ByteBufCodecs.list());
+
+    /**
+     * All the registered attachment types that have a sync codec.
+     */
+    private static final List<AttachmentType<?>> syncedTypes = new ArrayList<>();
+
+    private static final Map<Entity, Set<AttachmentType<?>>> dirtyEntities = new Reference2ObjectLinkedOpenHashMap<>();
+    private static final Map<LevelChunk, Set<AttachmentType<?>>> dirtyChunks = new Reference2ObjectLinkedOpenHashMap<>();
+
+    static void onTypeRegistered(AttachmentType<?> type) {
+        if (type.syncCodec != null) {
+            syncedTypes.add(type);
+        }
+    }
+
+    /**
+     * Records that a synced attachment of a holder was set or removed.
+     */
+    static void onDataChanged(IAttachmentHolder holder, AttachmentType<?> type) {
+        if (holder instanceof Entity entity) {
+            if (entity.level() instanceof ServerLevel level && level.getServer().isSameThread()) {
+                dirtyEntities.computeIfAbsent(entity, e -> new ReferenceArraySet<>()).add(type);
+            }
+        } else if (holder instanceof LevelChunk chunk) {
+            if (chunk.getLevel() instanceof ServerLevel level && level.getServer().isSameThread()) {
+                dirtyChunks.computeIfAbsent(chunk, c -> new ReferenceArraySet<>()).add(type);
+            }
+        }
+        // Other holders are not synced
+    }
+
+    @SubscribeEvent
+    public static void flushChanges(ServerTickEvent.Post event) {
+        if (!dirtyEntities.isEmpty()) {
+            for (var dirty : dirtyEntities.entrySet()) {
+                var entity = dirty.getKey();
+                if (!entity.isRemoved()) {
+                    PacketDistributor.sendToPlayersTrackingEntityAndSelf(entity, new SyncEntityAttachmentsPayload(entity.getId(), collect(entity, dirty.getValue())));
+                }
+            }
+            dirtyEntities.clear();
+        }
+
+        if (!dirtyChunks.isEmpty()) {
+            for (var dirty : dirtyChunks.entrySet()) {
+                var chunk = dirty.getKey();
+                PacketDistributor.sendToPlayersTrackingChunk((ServerLevel) chunk.getLevel(), chunk.getPos(), new SyncChunkAttachmentsPayload(chunk.getPos(), collect(chunk, dirty.getValue())));
+            }
+            dirtyChunks.clear();
+        }
+    }
+
+    private static List<Entry> collect(IAttachmentHolder holder, Iterable<AttachmentType<?>> types) {
+        List<Entry> entries = new ArrayList<>();
+        for (var type : types) {
+            entries.add(new Entry(type, holder.getExistingData(type).orElse(null)));
+        }
+        return entries;
+    }
+
+    /**
+     * Collects all the synced attachments that are present in the holder.
+     */
+    private static List<Entry> collectAll(IAttachmentHolder holder) {
+        List<Entry> entries = new ArrayList<>();
+        if (holder.hasAttachments()) {
+            for (var type : syncedTypes) {
+                var value = holder.getExistingData(type);
+                if (value.isPresent()) {
+                    entries.add(new Entry(type, value.get()));
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static void sendFullState(ServerPlayer player, Entity entity) {
+        var entries = collectAll(entity);
+        if (!entries.isEmpty()) {
+            PacketDistributor.sendToPlayer(player, new SyncEntityAttachmentsPayload(entity.getId(), entries));
+        }
+    }
+
+    @SubscribeEvent
+    public static void onStartTracking(PlayerEvent.StartTracking event) {
+        if (event.getEntity() instanceof ServerPlayer player) {
+            sendFullState(player, event.getTarget());
+        }
+    }
+
+    @SubscribeEvent
+    public static void onChunkSent(ChunkWatchEvent.Sent event) {
+        var entries = collectAll(event.getChunk());
+        if (!entries.isEmpty()) {
+            PacketDistributor.sendToPlayer(event.getPlayer(), new SyncChunkAttachmentsPayload(event.getPos(), entries));
+        }
+    }
+
+    @SubscribeEvent
+    public static void onPlayerLoggedIn(PlayerEvent.PlayerLoggedInEvent event) {
+        if (event.getEntity() instanceof ServerPlayer player) {
+            sendFullState(player, player);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onPlayerRespawn(PlayerEvent.PlayerRespawnEvent event) {
+        if (event.getEntity() instanceof ServerPlayer player) {
+            sendFullState(player, player);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onPlayerChangedDimension(PlayerEvent.PlayerChangedDimensionEvent event) {
+        if (event.getEntity() instanceof ServerPlayer player) {
+            sendFullState(player, player);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        dirtyEntities.clear();
+        dirtyChunks.clear();
+    }
+
+    /**
+     * Applies synced attachments received from the server.
+     */
+    @SuppressWarnings("unchecked")
+    public static void apply(IAttachmentHolder holder, List<Entry> entries) {
+        for (var entry : entries) {
+            var type = (AttachmentType<Object>) entry.type();
+            if (entry.value() == null) {
+                holder.removeData(type);
+            } else {
+                holder.setData(type, entry.value());
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void encodeEntry(RegistryFriendlyByteBuf buf, Entry entry) {
+        var type = entry.type();
+        ResourceLocation.STREAM_CODEC.encode(buf, NeoForgeRegistries.ATTACHMENT_TYPES.getKey(type));
+        buf.writeBoolean(entry.value() != null);
+        if (entry.value() != null) {
+            ((StreamCodec<? super RegistryFriendlyByteBuf, Object>) type.syncCodec).encode(buf, entry.value());
+        }
+    }
+
+    private static Entry decodeEntry(RegistryFriendlyByteBuf buf) {
+        var key = ResourceLocation.STREAM_CODEC.decode(buf);
+        var type = NeoForgeRegistries.ATTACHMENT_TYPES.getValue(key);
+        if (type == null || type.syncCodec == null) {
+            throw new DecoderException("Received unknown or non-synced data attachment " + key);
+        }
+        Object value = buf.readBoolean() ? type.syncCodec.decode(buf) : null;
+        return new Entry(type, value);
+    }
+
+    private AttachmentSync() {}
+}
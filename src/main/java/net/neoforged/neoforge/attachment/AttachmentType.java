@@ -14,6 +14,8 @@ import java.util.function.Supplier;
 import net.minecraft.core.HolderLookup;
 import net.minecraft.nbt.NbtOps;
 import net.minecraft.nbt.Tag;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.codec.StreamCodec;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.Level;
@@ -54,19 +56,38 @@ import org.jetbrains.annotations.Nullable;
  * <li>Modifications to attachments should be followed by a call to {@link ChunkAccess#setUnsaved(boolean)}.</li>
  * <li>Serializable attachments are copied from a {@link ProtoChunk} to a {@link LevelChunk} on promotion.</li>
  * </ul>
+ * <h3>Client syncing:</h3>
+ * <ul>
+ * <li>Entity and level chunk attachments can opt into syncing to the clients via {@link Builder#sync(StreamCodec)}.</li>
+ * </ul>
  */
 public final class AttachmentType<T> {
     final Function<IAttachmentHolder, T> defaultValueSupplier;
     @Nullable
     final IAttachmentSerializer<?, T> serializer;
     final boolean copyOnDeath;
+    final boolean trackChanges;
     final IAttachmentCopyHandler<T> copyHandler;
+    @Nullable
+    final StreamCodec<? super RegistryFriendlyByteBuf, T> syncCodec;
+    /**
+     * Dense index of this type, equal to its id in {@link NeoForgeRegistries#ATTACHMENT_TYPES}.
+     * {@code -1} until registered.
+     */
+    int index = -1;
+    /**
+     * Registry name of this type, as used for the key of the serialized attachment. {@code null} until registered.
+     */
+    @Nullable
+    String serializedKey;
 
     private AttachmentType(Builder<T> builder) {
         this.defaultValueSupplier = builder.defaultValueSupplier;
         this.serializer = builder.serializer;
         this.copyOnDeath = builder.copyOnDeath;
+        this.trackChanges = builder.trackChanges;
         this.copyHandler = builder.copyHandler != null ? builder.copyHandler : defaultCopyHandler(serializer);
+        this.syncCodec = builder.syncCodec;
     }
 
     private static <T, H extends Tag> IAttachmentCopyHandler<T> defaultCopyHandler(@Nullable IAttachmentSerializer<H, T> serializer) {
@@ -150,8 +171,11 @@ public final class AttachmentType<T> {
         @Nullable
         private IAttachmentSerializer<?, T> serializer;
         private boolean copyOnDeath;
+        private boolean trackChanges;
         @Nullable
         private IAttachmentCopyHandler<T> copyHandler;
+        @Nullable
+        private StreamCodec<? super RegistryFriendlyByteBuf, T> syncCodec;
 
         private Builder(Function<IAttachmentHolder, T> defaultValueSupplier) {
             this.defaultValueSupplier = defaultValueSupplier;
@@ -223,6 +247,22 @@ public final class AttachmentType<T> {
             return this;
         }
 
+        /**
+         * Requests that the serialized form of this attachment be reused across saves,
+         * until the attachment is replaced or removed.
+         *
+         * <p>With this option, the attachment is only serialized again after a call to
+         * {@link IAttachmentHolder#setData(AttachmentType, Object) setData} or {@link IAttachmentHolder#removeData(AttachmentType) removeData}.
+         * It is best suited to immutable values. Mutable values must be passed to {@code setData} again after each modification,
+         * otherwise the modifications will not be saved.
+         */
+        public Builder<T> trackChanges() {
+            if (this.serializer == null)
+                throw new IllegalStateException("trackChanges requires a serializer");
+            this.trackChanges = true;
+            return this;
+        }
+
         /**
          * Overrides the copyHandler for this attachment type.
          *
@@ -239,6 +279,27 @@ public final class AttachmentType<T> {
             return this;
         }
 
+        /**
+         * Requests that this attachment be synced to the clients, for entities and level chunks.
+         *
+         * <p>The full state of the synced attachments is sent when a player starts tracking an entity or receives a chunk.
+         * Afterwards, attachments passed to {@link IAttachmentHolder#setData(AttachmentType, Object) setData}
+         * or {@link IAttachmentHolder#removeData(AttachmentType) removeData} on the server thread are batched,
+         * and sent once at the end of the server tick to the players tracking the holder.
+         * Mutable values must be passed to {@code setData} again after each modification to be synced.
+         *
+         * <p>The attachment type must be registered on both sides.
+         *
+         * @param codec The codec used to send the attachment value.
+         */
+        public Builder<T> sync(StreamCodec<? super RegistryFriendlyByteBuf, T> codec) {
+            Objects.requireNonNull(codec);
+            if (this.syncCodec != null)
+                throw new IllegalStateException("Sync codec already set");
+            this.syncCodec = codec;
+            return this;
+        }
+
         public AttachmentType<T> build() {
             return new AttachmentType<>(this);
         }
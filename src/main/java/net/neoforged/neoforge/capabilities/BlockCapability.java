@@ -37,6 +37,7 @@ import org.jetbrains.annotations.Nullable;
  * }</pre>
  * 
  * <p>For repeated queries at a specific position, use {@link BlockCapabilityCache} to improve performance.
+ * To query all the sides of a position, use {@link SidedBlockCapabilityCache}.
  *
  * <h3>Providing a capability for a block entity</h3>
  * <p>To provide objects of type {@code T}, register providers to {@link RegisterCapabilitiesEvent}. For example:
@@ -135,10 +136,86 @@ public final class BlockCapability<T, C extends @Nullable Object> extends BaseCa
     }
 
     final Map<Block, List<IBlockCapabilityProvider<T, C>>> providers = new IdentityHashMap<>();
+    /**
+     * Frozen view of {@link #providers}, indexed by {@link Block#getCapabilityProviderIndex()}.
+     * {@code null} until {@link #freezeProviders(int)} is called after {@link RegisterCapabilitiesEvent}.
+     * Volatile since it is rebuilt on id remapping while other threads may be querying capabilities.
+     * The block indices never change, so any published table is valid for any block.
+     */
+    private volatile ProviderEntry<T, C> @Nullable [] frozenProviders;
+
+    /**
+     * Rebuilds the frozen provider table from the registered providers.
+     *
+     * @param size the number of block indices assigned so far
+     */
+    @SuppressWarnings("unchecked")
+    void freezeProviders(int size) {
+        ProviderEntry<T, C>[] table = new ProviderEntry[size];
+        for (var entry : providers.entrySet()) {
+            int id = entry.getKey().getCapabilityProviderIndex();
+            // Unregistered blocks can never be placed in a level
+            if (id < 0 || id >= table.length)
+                continue;
+
+            var blockProviders = entry.getValue();
+            boolean blockEntityOnly = true;
+            for (var provider : blockProviders) {
+                if (!(provider instanceof RegisterCapabilitiesEvent.BlockEntityProvider<?, ?, ?>)) {
+                    blockEntityOnly = false;
+                    break;
+                }
+            }
+            table[id] = new ProviderEntry<>(blockProviders.toArray(IBlockCapabilityProvider[]::new), blockEntityOnly);
+        }
+        this.frozenProviders = table;
+    }
 
     @ApiStatus.Internal
     @Nullable
     public T getCapability(Level level, BlockPos pos, @Nullable BlockState state, @Nullable BlockEntity blockEntity, C context) {
+        var table = this.frozenProviders;
+        if (table == null) {
+            return getCapabilityUnfrozen(level, pos, state, blockEntity, context);
+        }
+
+        // Get block state if it was not provided
+        if (state == null)
+            state = blockEntity != null ? blockEntity.getBlockState() : level.getBlockState(pos);
+
+        // Resolve the providers first, so that blocks without providers never need a block entity lookup
+        int id = state.getBlock().getCapabilityProviderIndex();
+        if (id < 0 || id >= table.length)
+            return null;
+        var entry = table[id];
+        if (entry == null)
+            return null;
+
+        // Convert pos to immutable, it's easy to forget otherwise
+        pos = pos.immutable();
+
+        if (blockEntity == null) {
+            if (state.hasBlockEntity())
+                blockEntity = level.getBlockEntity(pos);
+
+            // Block entity providers always return null without a block entity
+            if (blockEntity == null && entry.blockEntityOnly)
+                return null;
+        }
+
+        for (var provider : entry.providers) {
+            var ret = provider.getCapability(level, pos, state, blockEntity, context);
+            if (ret != null)
+                return ret;
+        }
+        return null;
+    }
+
+    /**
+     * Map-based lookup, used before the provider table is frozen.
+     */
+    @Nullable
+    private T getCapabilityUnfrozen(Level level, BlockPos pos, @Nullable BlockState state, @Nullable BlockEntity blockEntity, C context) {
         // Convert pos to immutable, it's easy to forget otherwise
         pos = pos.immutable();
 
@@ -161,4 +238,10 @@ public final class BlockCapability<T, C extends @Nullable Object> extends BaseCa
         }
         return null;
     }
+
+    /**
+     * @param providers       the providers registered for a block, in registration order
+     * @param blockEntityOnly {@code true} if all the providers were registered for block entities
+     */
+    private record ProviderEntry<T, C extends @Nullable Object>(IBlockCapabilityProvider<T, C>[] providers, boolean blockEntityOnly) {}
 }
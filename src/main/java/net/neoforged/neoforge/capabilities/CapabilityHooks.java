@@ -33,12 +33,14 @@ import net.neoforged.neoforge.items.wrapper.ForwardingItemHandler;
 import net.neoforged.neoforge.items.wrapper.InvWrapper;
 import net.neoforged.neoforge.items.wrapper.PlayerInvWrapper;
 import net.neoforged.neoforge.items.wrapper.SidedInvWrapper;
+import net.neoforged.neoforge.registries.IdMappingEvent;
 import org.jetbrains.annotations.ApiStatus;
 
 @ApiStatus.Internal
 public class CapabilityHooks {
     private static boolean initialized = false;
     static boolean initFinished = false;
+    private static int nextBlockProviderIndex = 0;
 
     public static void init() {
         if (initialized)
@@ -49,6 +51,27 @@ public class CapabilityHooks {
         ModLoader.postEventWrapContainerInModOrder(event);
 
         initFinished = true;
+        freezeBlockProviders();
+    }
+
+    private static synchronized void freezeBlockProviders() {
+        // Index the blocks once, so that lookups do not need to go through the registry.
+        // Indices are never reassigned: a thread may still be reading an older table while a new one is built.
+        for (var block : BuiltInRegistries.BLOCK) {
+            if (block.getCapabilityProviderIndex() < 0) {
+                block.setCapabilityProviderIndex(nextBlockProviderIndex++);
+            }
+        }
+        for (var capability : BlockCapability.getAll()) {
+            capability.freezeProviders(nextBlockProviderIndex);
+        }
+    }
+
+    public static void rebuildBlockProvidersOnIdRemap(IdMappingEvent event) {
+        // The provider indices do not follow the registry ids, this only picks up blocks that were not indexed yet.
+        if (initFinished) {
+            freezeBlockProviders();
+        }
     }
 
     public static void registerVanillaProviders(RegisterCapabilitiesEvent event) {
@@ -5,47 +5,78 @@
 
 package net.neoforged.neoforge.capabilities;
 
+import it.unimi.dsi.fastutil.longs.Long2IntMaps;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
 import it.unimi.dsi.fastutil.longs.Long2ReferenceMap;
 import it.unimi.dsi.fastutil.longs.Long2ReferenceOpenHashMap;
-import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
-import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import net.minecraft.core.BlockPos;
 import net.minecraft.world.level.ChunkPos;
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Holder for capability listeners associated to a level.
+ *
+ * <p>Listeners are stored in one {@link ListenerSlab} per chunk: flat arrays of slots,
+ * with the slots of each block position chained together through an index array.
+ * Listeners are still held weakly, but garbage-collected listeners are swept incrementally by {@link #clean()}
+ * instead of going through a reference queue.
  */
 // For now, we don't invalidate the cache when the level is unloaded but the chunk unload events do not fire.
 // This can be re-evaluated in the future.
 @ApiStatus.Internal
 public class CapabilityListenerHolder {
     /**
-     * Map of chunk pos -> block pos -> listeners map.
-     *
-     * <p>We have a two-level map to efficiently invalidate entire chunks at once.
+     * Maximum number of slots visited by a single call to {@link #clean()}.
      */
-    private final Long2ReferenceMap<Long2ReferenceMap<Set<ListenerReference>>> byChunkThenBlock = new Long2ReferenceOpenHashMap<>();
+    private static final int SWEEP_BUDGET = 1024;
+
     /**
-     * Reference queue for the listener references.
-     * This allows us to listen to reference garbage collection, and remove empty entries from {@link #byChunkThenBlock}.
+     * Map of chunk pos -> listener slab.
      */
-    private final ReferenceQueue<ICapabilityInvalidationListener> queue = new ReferenceQueue<>();
+    private final Long2ReferenceMap<ListenerSlab> byChunk = new Long2ReferenceOpenHashMap<>();
+    /**
+     * All the slabs of {@link #byChunk}, in a list so that {@link #clean()} can sweep them round-robin.
+     */
+    private final List<ListenerSlab> slabs = new ArrayList<>();
+    private int sweepIndex = 0;
+
+    /**
+     * Incremented at the start of each invalidation.
+     * Slots are stamped with the generation at the time they are added,
+     * such that listeners registered during an invalidation are not notified by that same invalidation.
+     */
+    private long generation = 0;
+    /**
+     * Number of invalidations currently running. Slots are only freed when no invalidation is running.
+     */
+    private int invalidationDepth = 0;
+
+    // Metrics
+    private long listenersAdded = 0;
+    private long listenersRemoved = 0;
+    private long invalidations = 0;
+    private long invalidationNanos = 0;
+    private long maxInvalidationNanos = 0;
 
     /**
      * Adds a listener.
      */
     public void addListener(BlockPos pos, ICapabilityInvalidationListener listener) {
-        pos = pos.immutable();
-        var chunkHolder = byChunkThenBlock.computeIfAbsent(ChunkPos.asLong(pos), l -> new Long2ReferenceOpenHashMap<>());
-        var listenersSet = chunkHolder.computeIfAbsent(pos.asLong(), l -> new ObjectOpenHashSet<>());
+        long chunkKey = ChunkPos.asLong(pos);
+        var slab = byChunk.get(chunkKey);
+        if (slab == null) {
+            slab = new ListenerSlab(chunkKey, slabs.size());
+            byChunk.put(chunkKey, slab);
+            slabs.add(slab);
+        }
 
-        var reference = new ListenerReference(queue, pos, listener);
-        if (!listenersSet.add(reference)) {
-            // Clear the reference immediately if it was a duplicate.
-            reference.clear();
+        if (slab.add(pos.asLong(), listener, generation)) {
+            listenersAdded++;
         }
     }
 
@@ -53,86 +84,297 @@ public class CapabilityListenerHolder {
      * Invalidates listeners at a specific block position.
      */
     public void invalidatePos(BlockPos pos) {
-        var chunkHolder = byChunkThenBlock.get(ChunkPos.asLong(pos));
-        if (chunkHolder != null) {
-            var caches = chunkHolder.get(pos.asLong());
-            if (caches != null)
-                invalidateList(caches);
+        long chunkKey = ChunkPos.asLong(pos);
+        var slab = byChunk.get(chunkKey);
+        if (slab == null)
+            return;
+
+        long start = beginInvalidation();
+        try {
+            slab.invalidatePos(pos.asLong(), generation);
+        } finally {
+            endInvalidation(start);
         }
+        if (invalidationDepth == 0)
+            sweep(slab, slab.sweepPos(pos.asLong()));
     }
 
     /**
      * Invalidates listeners at a specific chunk position.
      */
     public void invalidateChunk(ChunkPos chunkPos) {
-        var chunkHolder = byChunkThenBlock.get(chunkPos.toLong());
-        if (chunkHolder != null) {
-            for (var caches : chunkHolder.values())
-                invalidateList(caches);
+        var slab = byChunk.get(chunkPos.toLong());
+        if (slab == null)
+            return;
+
+        long start = beginInvalidation();
+        try {
+            slab.invalidateAll(generation);
+        } finally {
+            endInvalidation(start);
         }
+        // Free all the listeners that are gone at once, including the whole slab if it is empty now.
+        if (invalidationDepth == 0)
+            sweep(slab, slab.sweepAll());
     }
 
-    private void invalidateList(Set<ListenerReference> caches) {
-        caches.removeIf(ref -> {
-            var listener = ref.get();
-            return listener == null || !listener.onInvalidate();
-        });
+    private long beginInvalidation() {
+        generation++;
+        invalidationDepth++;
+        return System.nanoTime();
+    }
+
+    private void endInvalidation(long start) {
+        long elapsed = System.nanoTime() - start;
+        invalidationDepth--;
+        invalidations++;
+        invalidationNanos += elapsed;
+        maxInvalidationNanos = Math.max(maxInvalidationNanos, elapsed);
     }
 
     /**
-     * Poll the reference queue, and remove garbage-collected listener references entries from {@link #byChunkThenBlock}.
+     * Sweeps some of the slabs, and frees the slots of garbage-collected or invalid listeners.
      */
     public void clean() {
-        while (true) {
-            ListenerReference ref = (ListenerReference) queue.poll();
-            if (ref == null)
-                return;
+        int visited = 0;
+        while (visited < SWEEP_BUDGET && !slabs.isEmpty()) {
+            if (sweepIndex >= slabs.size())
+                sweepIndex = 0;
 
-            var chunkHolder = byChunkThenBlock.get(ChunkPos.asLong(ref.pos));
-            if (chunkHolder == null)
-                continue;
-
-            var set = chunkHolder.get(ref.pos.asLong());
-            if (set == null)
-                continue;
-            // We might remove a different garbage-collected reference,
-            // or we might remove nothing if the reference was already removed.
-            // Because the hash codes will match, that is fine.
-            boolean removed = set.remove(ref);
-
-            if (removed && set.isEmpty()) {
-                chunkHolder.remove(ref.pos.asLong());
-                if (chunkHolder.isEmpty()) {
-                    byChunkThenBlock.remove(ChunkPos.asLong(ref.pos));
-                }
+            var slab = slabs.get(sweepIndex);
+            visited += slab.highWater;
+            sweep(slab, slab.sweepAll());
+            // If the slab was removed, another slab took its index
+            if (sweepIndex < slabs.size() && slabs.get(sweepIndex) == slab)
+                sweepIndex++;
+
+            // Don't loop over the same slabs multiple times in a single call
+            if (visited >= SWEEP_BUDGET || sweepIndex >= slabs.size())
+                break;
+        }
+    }
+
+    private void sweep(ListenerSlab slab, int freed) {
+        listenersRemoved += freed;
+        if (slab.live == 0) {
+            byChunk.remove(slab.chunkKey);
+            // Swap-remove from the slab list
+            var last = slabs.remove(slabs.size() - 1);
+            if (last != slab) {
+                slabs.set(slab.index, last);
+                last.index = slab.index;
             }
         }
     }
 
-    private static class ListenerReference extends WeakReference<ICapabilityInvalidationListener> {
-        private final BlockPos pos;
-        private final int listenerHashCode;
+    /**
+     * {@return a snapshot of the metrics of this holder}
+     */
+    public Metrics getMetrics() {
+        int listeners = 0;
+        int allocatedSlots = 0;
+        for (var slab : slabs) {
+            listeners += slab.live;
+            allocatedSlots += slab.refs.length;
+        }
+        return new Metrics(slabs.size(), listeners, allocatedSlots, listenersAdded, listenersRemoved, invalidations, invalidationNanos, maxInvalidationNanos);
+    }
+
+    /**
+     * Metrics of a {@link CapabilityListenerHolder}.
+     *
+     * @param chunks                 number of chunks that currently have listeners
+     * @param listeners              number of registered listeners, including garbage-collected listeners that were not swept yet
+     * @param allocatedSlots         total number of slots allocated for listeners
+     * @param listenersAdded         total number of listeners added
+     * @param listenersRemoved       total number of listeners removed
+     * @param invalidations          total number of invalidations of positions or chunks that had listeners
+     * @param totalInvalidationNanos total time spent notifying listeners, in nanoseconds
+     * @param maxInvalidationNanos   maximum time spent in a single invalidation, in nanoseconds
+     */
+    public record Metrics(int chunks, int listeners, int allocatedSlots, long listenersAdded, long listenersRemoved,
+            long invalidations, long totalInvalidationNanos, long maxInvalidationNanos) {}
+
+    /**
+     * Listeners of a single chunk.
+     *
+     * <p>Each slot holds a weak reference to a listener, the generation it was added in,
+     * and the index of the next slot for the same block position (or {@code -1}).
+     * The position of a slot is only known through the {@link #heads} of its chain.
+     * Free slots are chained through the same index array, starting at {@link #freeHead}.
+     */
+    private static final class ListenerSlab {
+        private static final long FREE = -1;
+
+        private final long chunkKey;
+        private int index;
+
+        /**
+         * Block pos -> index of the first slot for that position.
+         */
+        private final Long2IntOpenHashMap heads = new Long2IntOpenHashMap();
+        private long[] stamps = new long[4];
+        private int[] next = new int[4];
+        private WeakReference<ICapabilityInvalidationListener>[] refs = newRefArray(4);
+        /**
+         * Number of slots that were ever used.
+         */
+        private int highWater = 0;
+        private int freeHead = -1;
+        private int live = 0;
 
-        private ListenerReference(ReferenceQueue<ICapabilityInvalidationListener> queue, BlockPos pos, ICapabilityInvalidationListener listener) {
-            super(listener, queue);
-            this.pos = pos;
-            this.listenerHashCode = System.identityHashCode(listener);
+        private ListenerSlab(long chunkKey, int index) {
+            this.chunkKey = chunkKey;
+            this.index = index;
+            this.heads.defaultReturnValue(-1);
         }
 
-        @Override
-        public boolean equals(Object obj) {
-            if (obj instanceof ListenerReference otherRef) {
-                // Equivalent if the hash codes and the listeners match.
-                // Use identity comparisons.
-                return otherRef.listenerHashCode == listenerHashCode && otherRef.get() == get();
-            } else {
-                return false;
+        @SuppressWarnings("unchecked")
+        private static WeakReference<ICapabilityInvalidationListener>[] newRefArray(int size) {
+            return new WeakReference[size];
+        }
+
+        /**
+         * Adds a listener, unless it is already registered at that position.
+         *
+         * @return {@code true} if the listener was added
+         */
+        private boolean add(long pos, ICapabilityInvalidationListener listener, long generation) {
+            int head = heads.get(pos);
+            for (int slot = head; slot != -1; slot = next[slot]) {
+                var ref = refs[slot];
+                if (ref != null && ref.get() == listener)
+                    return false;
+            }
+
+            int slot = allocate();
+            stamps[slot] = generation;
+            refs[slot] = new WeakReference<>(listener);
+            // Prepend, so that running invalidations of this position never reach the new slot
+            next[slot] = head;
+            heads.put(pos, slot);
+            live++;
+            return true;
+        }
+
+        private int allocate() {
+            if (freeHead != -1) {
+                int slot = freeHead;
+                freeHead = next[slot];
+                return slot;
+            }
+
+            if (highWater == refs.length) {
+                int newSize = refs.length * 2;
+                stamps = Arrays.copyOf(stamps, newSize);
+                next = Arrays.copyOf(next, newSize);
+                refs = Arrays.copyOf(refs, newSize);
+            }
+            return highWater++;
+        }
+
+        private void invalidatePos(long pos, long generation) {
+            for (int slot = heads.get(pos); slot != -1; slot = next[slot]) {
+                invalidateSlot(slot, generation);
+            }
+        }
+
+        private void invalidateAll(long generation) {
+            // Slots allocated during the walk are skipped thanks to their stamp
+            int end = highWater;
+            for (int slot = 0; slot < end; ++slot) {
+                if (stamps[slot] != FREE)
+                    invalidateSlot(slot, generation);
+            }
+        }
+
+        private void invalidateSlot(int slot, long generation) {
+            // Added during this invalidation
+            if (stamps[slot] >= generation)
+                return;
+
+            ICapabilityInvalidationListener listener = get(slot);
+            if (listener == null || !listener.onInvalidate()) {
+                // Mark as dead, the slot is freed by the next sweep
+                refs[slot] = null;
+            }
+        }
+
+        @Nullable
+        private ICapabilityInvalidationListener get(int slot) {
+            var ref = refs[slot];
+            return ref == null ? null : ref.get();
+        }
+
+        /**
+         * Frees the dead slots at a specific position.
+         *
+         * @return the number of freed slots
+         */
+        private int sweepPos(long pos) {
+            int head = heads.get(pos);
+            if (head == -1)
+                return 0;
+
+            int before = live;
+            int newHead = sweepChain(head);
+            if (newHead == -1)
+                heads.remove(pos);
+            else if (newHead != head)
+                heads.put(pos, newHead);
+            return before - live;
+        }
+
+        /**
+         * Frees all the dead slots.
+         *
+         * @return the number of freed slots
+         */
+        private int sweepAll() {
+            int before = live;
+            var it = Long2IntMaps.fastIterator(heads);
+            while (it.hasNext()) {
+                var entry = it.next();
+                int newHead = sweepChain(entry.getIntValue());
+                if (newHead == -1)
+                    it.remove();
+                else
+                    entry.setValue(newHead);
+            }
+            return before - live;
+        }
+
+        /**
+         * Frees the dead slots of a chain.
+         *
+         * @return the new head of the chain
+         */
+        private int sweepChain(int head) {
+            int newHead = head;
+            int prev = -1;
+            int slot = head;
+            while (slot != -1) {
+                int nextSlot = next[slot];
+                if (get(slot) == null) {
+                    if (prev == -1)
+                        newHead = nextSlot;
+                    else
+                        next[prev] = nextSlot;
+                    free(slot);
+                } else {
+                    prev = slot;
+                }
+                slot = nextSlot;
             }
+            return newHead;
         }
 
-        @Override
-        public int hashCode() {
-            return listenerHashCode;
+        private void free(int slot) {
+            refs[slot] = null;
+            stamps[slot] = FREE;
+            next[slot] = freeHead;
+            freeHead = slot;
+            live--;
         }
     }
 }
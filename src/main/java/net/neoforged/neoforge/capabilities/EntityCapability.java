@@ -94,6 +94,14 @@ public final class EntityCapability<T, C extends @Nullable Object> extends BaseC
 
     final Map<EntityType<?>, List<ICapabilityProvider<Entity, C, T>>> providers = new IdentityHashMap<>();
 
+    /**
+     * {@return true if a provider is registered for the given entity type}
+     */
+    @ApiStatus.Internal
+    public boolean hasProviders(EntityType<?> entityType) {
+        return providers.containsKey(entityType);
+    }
+
     @ApiStatus.Internal
     @Nullable
     public T getCapability(Entity entity, C context) {
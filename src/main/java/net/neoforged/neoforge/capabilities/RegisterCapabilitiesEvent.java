@@ -17,6 +17,7 @@ import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.block.entity.BlockEntityType;
+import net.minecraft.world.level.block.state.BlockState;
 import net.neoforged.bus.api.Event;
 import net.neoforged.fml.event.IModBusEvent;
 import org.jetbrains.annotations.Nullable;
@@ -58,12 +59,7 @@ public class RegisterCapabilitiesEvent extends Event implements IModBusEvent {
     public <T, C extends @Nullable Object, BE extends BlockEntity> void registerBlockEntity(BlockCapability<T, C> capability, BlockEntityType<BE> blockEntityType, ICapabilityProvider<? super BE, C, T> provider) {
         Objects.requireNonNull(provider);
 
-        IBlockCapabilityProvider<T, C> adaptedProvider = (level, pos, state, blockEntity, context) -> {
-            // The block entity type can change, so we also check for that.
-            if (blockEntity == null || blockEntity.getType() != blockEntityType)
-                return null;
-            return provider.getCapability((BE) blockEntity, context);
-        };
+        var adaptedProvider = new BlockEntityProvider<T, C, BE>(blockEntityType, provider);
 
         for (Block block : blockEntityType.getValidBlocks()) {
             Objects.requireNonNull(block);
@@ -79,6 +75,23 @@ public class RegisterCapabilitiesEvent extends Event implements IModBusEvent {
         return capability.providers.containsKey(block);
     }
 
+    /**
+     * Adapts an {@link ICapabilityProvider} for a block entity type to an {@link IBlockCapabilityProvider}.
+     * Kept as a distinct type so that {@link BlockCapability} can skip these providers when there is no block entity.
+     */
+    record BlockEntityProvider<T, C extends @Nullable Object, BE extends BlockEntity>(
+            BlockEntityType<BE> blockEntityType, ICapabilityProvider<? super BE, C, T> provider) implements IBlockCapabilityProvider<T, C> {
+        @Override
+        @Nullable
+        @SuppressWarnings("unchecked")
+        public T getCapability(Level level, BlockPos pos, BlockState state, @Nullable BlockEntity blockEntity, C context) {
+            // The block entity type can change, so we also check for that.
+            if (blockEntity == null || blockEntity.getType() != blockEntityType)
+                return null;
+            return provider.getCapability((BE) blockEntity, context);
+        }
+    }
+
     // ENTITIES
 
     /**
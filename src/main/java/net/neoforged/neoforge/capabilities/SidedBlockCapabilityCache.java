@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.capabilities;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.Level;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A cache for sided block capabilities, to be used to track capabilities at a specific position, for all sides at once.
+ *
+ * <p>This behaves like one {@link BlockCapabilityCache} per {@link Direction} (plus the {@code null} side),
+ * but all the sides share a single listener registration.
+ * Results are memoized per side, including the absence of a capability,
+ * until the level is notified of a change via {@link Level#invalidateCapabilities(BlockPos)}.
+ *
+ * <p>Instances are automatically cleared by the garbage collector when they are no longer in use.
+ */
+public final class SidedBlockCapabilityCache<T> {
+    /**
+     * Creates a new cache instance and registers it to the level.
+     *
+     * @param capability the capability
+     * @param level      the level
+     * @param pos        the position
+     */
+    public static <T> SidedBlockCapabilityCache<T> create(BlockCapability<T, @Nullable Direction> capability, ServerLevel level, BlockPos pos) {
+        return create(capability, level, pos, () -> true, () -> {});
+    }
+
+    /**
+     * Creates a new cache instance with an invalidation listener, and registers it to the level.
+     *
+     * <p>The same rules as {@link BlockCapabilityCache#create(BlockCapability, ServerLevel, BlockPos, Object, BooleanSupplier, Runnable)} apply.
+     * The listener does not receive notifications before {@link #getCapability(Direction)} is called for at least one side.
+     *
+     * @param capability           the capability
+     * @param level                the level
+     * @param pos                  the position
+     * @param isValid              a function to check if the listener still wants to receive notifications.
+     * @param invalidationListener the invalidation listener. Will be called whenever the capability of any side might have changed.
+     */
+    public static <T> SidedBlockCapabilityCache<T> create(BlockCapability<T, @Nullable Direction> capability, ServerLevel level, BlockPos pos, BooleanSupplier isValid, Runnable invalidationListener) {
+        Objects.requireNonNull(capability);
+        Objects.requireNonNull(isValid);
+        Objects.requireNonNull(invalidationListener);
+        pos = pos.immutable();
+
+        var cache = new SidedBlockCapabilityCache<>(capability, level, pos, isValid, invalidationListener);
+        level.registerCapabilityListener(pos, cache.listener);
+        return cache;
+    }
+
+    /**
+     * Index of the {@code null} side in {@link #cachedCaps}.
+     */
+    private static final int NULL_SIDE = Direction.values().length;
+
+    private final BlockCapability<T, @Nullable Direction> capability;
+    private final ServerLevel level;
+    private final BlockPos pos;
+
+    /**
+     * Bit {@code i} is set if {@code cachedCaps[i]} holds a memoized result, which may be {@code null}.
+     * All bits are cleared after each invalidation.
+     * Notifications are only forwarded to the invalidation listener if at least one bit is set.
+     */
+    private int validSides = 0;
+    private final Object[] cachedCaps = new Object[NULL_SIDE + 1];
+
+    private boolean canQuery = true;
+    private final ICapabilityInvalidationListener listener;
+
+    private SidedBlockCapabilityCache(BlockCapability<T, @Nullable Direction> capability, ServerLevel level, BlockPos pos, BooleanSupplier isValid, Runnable invalidationListener) {
+        this.capability = capability;
+        this.level = level;
+        this.pos = pos;
+
+        this.listener = () -> {
+            if (validSides == 0) {
+                // already invalidated, just check if the cache should be removed
+                return isValid.getAsBoolean();
+            }
+
+            // disable queries for now
+            canQuery = false;
+            // mark all cached caps as invalid, and drop the references
+            validSides = 0;
+            Arrays.fill(cachedCaps, null);
+
+            if (isValid.getAsBoolean()) {
+                // notify
+                invalidationListener.run();
+                // re-enable queries
+                canQuery = true;
+                return true;
+            } else {
+                // not valid anymore: keep queries disabled and return false
+                return false;
+            }
+        };
+    }
+
+    public ServerLevel level() {
+        return level;
+    }
+
+    public BlockPos pos() {
+        return pos;
+    }
+
+    /**
+     * Gets the capability instance for the given side, or {@code null} if the capability is not present.
+     *
+     * <p>If {@linkplain #pos() the target position} is not loaded, this method will return {@code null}.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public T getCapability(@Nullable Direction side) {
+        if (!canQuery)
+            throw new IllegalStateException("Do not call getCapability on an invalid cache or from the invalidation listener!");
+
+        int index = side == null ? NULL_SIDE : side.ordinal();
+        int bit = 1 << index;
+        if ((validSides & bit) == 0) {
+            if (!level.isLoaded(pos)) {
+                // If the position is not loaded, return no capability for now.
+                // The cache will be invalidated when the chunk is loaded.
+                cachedCaps[index] = null;
+            } else {
+                cachedCaps[index] = level.getCapability(capability, pos, side);
+            }
+            validSides |= bit;
+        }
+
+        return (T) cachedCaps[index];
+    }
+}
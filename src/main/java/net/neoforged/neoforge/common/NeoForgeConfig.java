@@ -66,6 +66,14 @@ public class NeoForgeConfig {
         public final ModConfigSpec.EnumValue<TagConventionLogWarning.LogWarningMode> logUntranslatedItemTagWarnings;
         public final ModConfigSpec.EnumValue<TagConventionLogWarning.LogWarningMode> logLegacyTagWarnings;
 
+        public final ModConfigSpec.IntValue payloadWorkerThreads;
+
+        public final ModConfigSpec.IntValue maxSplitPayloadSize;
+
+        public final ModConfigSpec.IntValue maxBufferedSplitPacketSize;
+
+        public final ModConfigSpec.BooleanValue payloadDictionaryCompression;
+
         Common(ModConfigSpec.Builder builder) {
             logUntranslatedItemTagWarnings = builder
                     .comment("A config option mainly for developers. Logs out modded item tags that do not have translations when running on integrated server. Format desired is tag.item.<namespace>.<path> for the translation key. Defaults to SILENCED.")
@@ -76,6 +84,27 @@ public class NeoForgeConfig {
                     .comment("A config option mainly for developers. Logs out modded tags that are using the 'forge' namespace when running on integrated server. Defaults to DEV_SHORT.")
                     .translation("neoforge.configgui.logLegacyTagWarnings")
                     .defineEnum("logLegacyTagWarnings", TagConventionLogWarning.LogWarningMode.DEV_SHORT);
+
+            payloadWorkerThreads = builder
+                    .comment("The number of threads that handle network payloads registered to run on worker threads. Set to 0 to pick a number based on the available processors.")
+                    .translation("neoforge.configgui.payloadWorkerThreads")
+                    .gameRestart()
+                    .defineInRange("payloadWorkerThreads", 0, 0, 64);
+
+            maxSplitPayloadSize = builder
+                    .comment("The maximum size in MiB of a payload that is received in multiple parts, unless its channel declares another limit. Larger payloads cause a disconnect.")
+                    .translation("neoforge.configgui.maxSplitPayloadSize")
+                    .defineInRange("maxSplitPayloadSize", 32, 1, 1024);
+
+            maxBufferedSplitPacketSize = builder
+                    .comment("The maximum size in MiB of the packets received in multiple parts that a connection may buffer, while they are received or waiting to be handled. Reading from the connection is paused when half of it is used, and the connection is closed when it is exceeded.")
+                    .translation("neoforge.configgui.maxBufferedSplitPacketSize")
+                    .defineInRange("maxBufferedSplitPacketSize", 64, 1, 4096);
+
+            payloadDictionaryCompression = builder
+                    .comment("Compress the small modded payloads sent to and from NeoForge clients with a dictionary built from the payloads the server sends. Saves bandwidth on servers that send many repetitive payloads, at the cost of some CPU time.")
+                    .translation("neoforge.configgui.payloadDictionaryCompression")
+                    .define("payloadDictionaryCompression", false);
         }
     }
 
@@ -89,6 +118,8 @@ public class NeoForgeConfig {
 
         public final BooleanValue logUntranslatedConfigurationWarnings;
 
+        public final BooleanValue cacheConfigurationData;
+
         Client(ModConfigSpec.Builder builder) {
             experimentalForgeLightPipelineEnabled = builder
                     .comment("EXPERIMENTAL: Enable the NeoForge block rendering pipeline - fixes the lighting of custom models.")
@@ -104,6 +135,11 @@ public class NeoForgeConfig {
                     .comment("A config option mainly for developers. Logs out configuration values that do not have translations when running a client in a development environment.")
                     .translation("neoforge.configgui.logUntranslatedConfigurationWarnings")
                     .define("logUntranslatedConfigurationWarnings", true);
+
+            cacheConfigurationData = builder
+                    .comment("When enabled, the registry snapshots, config files and data maps received from servers are cached on disk, such that they are not sent again when joining the same server.")
+                    .translation("neoforge.configgui.cacheConfigurationData")
+                    .define("cacheConfigurationData", true);
         }
     }
 
@@ -5,16 +5,9 @@
 
 package net.neoforged.neoforge.common;
 
-import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import net.minecraft.core.Registry;
-import net.minecraft.resources.ResourceKey;
-import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.TickTask;
 import net.minecraft.server.level.ServerLevel;
-import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.Mob;
 import net.minecraft.world.entity.item.ItemEntity;
@@ -34,10 +27,11 @@ import net.neoforged.neoforge.event.entity.EntityJoinLevelEvent;
 import net.neoforged.neoforge.event.entity.player.PlayerEvent;
 import net.neoforged.neoforge.event.level.ChunkEvent;
 import net.neoforged.neoforge.event.level.LevelEvent;
+import net.neoforged.neoforge.event.server.ServerStoppedEvent;
 import net.neoforged.neoforge.event.tick.ServerTickEvent;
-import net.neoforged.neoforge.network.PacketDistributor;
 import net.neoforged.neoforge.network.payload.RegistryDataMapSyncPayload;
 import net.neoforged.neoforge.registries.DataMapLoader;
+import net.neoforged.neoforge.registries.DataMapSync;
 import net.neoforged.neoforge.registries.RegistryManager;
 import net.neoforged.neoforge.server.command.ConfigCommand;
 import net.neoforged.neoforge.server.command.NeoForgeCommand;
@@ -103,9 +97,15 @@ public class NeoForgeEventHandler {
     public void tagsUpdated(TagsUpdatedEvent event) {
         if (event.getUpdateCause() == TagsUpdatedEvent.UpdateCause.SERVER_DATA_LOAD) {
             DATA_MAPS.apply();
+            DataMapSync.onDataMapsReloaded();
         }
     }
 
+    @SubscribeEvent
+    public void onServerStopped(ServerStoppedEvent event) {
+        DataMapSync.clear();
+    }
+
     @SubscribeEvent
     public void onDpSync(final OnDatapackSyncEvent event) {
         RegistryManager.getDataMaps().forEach((registry, values) -> {
@@ -122,24 +122,11 @@ public class NeoForgeEventHandler {
                 }
                 final var playerMaps = player.connection.getConnection().channel().attr(RegistryManager.ATTRIBUTE_KNOWN_DATA_MAPS).get();
                 if (playerMaps == null) return; // Skip gametest players for instance
-                handleSync(player, regOpt.get(), playerMaps.getOrDefault(registry, List.of()));
+                DataMapSync.sync(player, regOpt.get(), playerMaps.getOrDefault(registry, List.of()));
             });
         });
     }
 
-    private <T> void handleSync(ServerPlayer player, Registry<T> registry, Collection<ResourceLocation> attachments) {
-        if (attachments.isEmpty()) return;
-        final Map<ResourceLocation, Map<ResourceKey<T>, ?>> att = new HashMap<>();
-        attachments.forEach(key -> {
-            final var attach = RegistryManager.getDataMap(registry.key(), key);
-            if (attach == null || attach.networkCodec() == null) return;
-            att.put(key, registry.getDataMap(attach));
-        });
-        if (!att.isEmpty()) {
-            PacketDistributor.sendToPlayer(player, new RegistryDataMapSyncPayload<>(registry.key(), att));
-        }
-    }
-
     @SubscribeEvent
     public void onCommandsRegister(RegisterCommandsEvent event) {
         NeoForgeCommand.register(event.getDispatcher());
@@ -579,10 +579,11 @@ public class NeoForgeMod {
         modEventBus.addListener(CapabilityHooks::registerVanillaProviders);
         modEventBus.addListener(EventPriority.LOW, CapabilityHooks::registerFallbackVanillaProviders);
         modEventBus.addListener(CauldronFluidContent::registerCapabilities);
-        // These 3 listeners use the default priority for now, can be re-evaluated later.
+        // These listeners use the default priority for now, can be re-evaluated later.
         NeoForge.EVENT_BUS.addListener(CapabilityHooks::invalidateCapsOnChunkLoad);
         NeoForge.EVENT_BUS.addListener(CapabilityHooks::invalidateCapsOnChunkUnload);
         NeoForge.EVENT_BUS.addListener(CapabilityHooks::cleanCapabilityListenerReferencesOnTick);
+        NeoForge.EVENT_BUS.addListener(CapabilityHooks::rebuildBlockProvidersOnIdRemap);
 
         NeoForge.EVENT_BUS.addListener(DataMapHooks::onDataMapsUpdated);
 
@@ -5,58 +5,230 @@
 
 package net.neoforged.neoforge.common;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
 
+/**
+ * Runs {@linkplain IWorker workers} with the spare time of server ticks.
+ *
+ * <p>Workers that are {@linkplain IWorker#isThreadSafe() thread-safe} run on a small pool of background threads,
+ * in slices of at most 10ms, such that they take turns.
+ *
+ * <p>Other workers run on the server thread at the end of each tick. The time left in the tick
+ * (with a minimum of 10ms when ticks are lagging) is split evenly between them,
+ * and the worker that runs first changes every tick.
+ * Time left unused by a worker is given to the next workers of the same tick.
+ */
 public class WorldWorkerManager {
-    private static List<IWorker> workers = new ArrayList<IWorker>();
-    private static long startTime = -1;
-    private static int index = 0;
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final int MIN_BUDGET_MILLIS = 10;
+    private static final int OFF_THREAD_SLICE_MILLIS = 10;
+    private static final int POOL_SIZE = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+
+    /**
+     * Workers added since the last tick started, from any thread.
+     */
+    private static final Queue<WorkerEntry> added = new ConcurrentLinkedQueue<>();
+    /**
+     * Only accessed from the server thread.
+     */
+    private static final List<WorkerEntry> mainThreadWorkers = new ArrayList<>();
+    private static final Set<WorkerEntry> offThreadWorkers = ConcurrentHashMap.newKeySet();
+    /**
+     * Off-thread workers that returned {@code false} from {@link IWorker#doWork()}, to be resumed on the next tick.
+     */
+    private static final Queue<WorkerEntry> parked = new ConcurrentLinkedQueue<>();
+    @Nullable
+    private static ExecutorService pool;
+    private static long tickStart = -1;
+    private static int firstWorker = 0;
 
     public static void tick(boolean start) {
         if (start) {
-            startTime = System.currentTimeMillis();
+            tickStart = System.nanoTime();
+
+            WorkerEntry entry;
+            while ((entry = added.poll()) != null) {
+                if (entry.offThread) {
+                    offThreadWorkers.add(entry);
+                    submit(entry);
+                } else {
+                    mainThreadWorkers.add(entry);
+                }
+            }
+            while ((entry = parked.poll()) != null) {
+                submit(entry);
+            }
             return;
         }
 
-        index = 0;
-        IWorker task = getNext();
-        if (task == null)
+        int count = mainThreadWorkers.size();
+        if (count == 0)
             return;
 
-        long time = 50 - (System.currentTimeMillis() - startTime);
-        if (time < 10)
-            time = 10; //If ticks are lagging, give us at least 10ms to do something.
-        time += System.currentTimeMillis();
+        long now = System.nanoTime();
+        long elapsed = tickStart == -1 ? 0 : now - tickStart;
+        //If ticks are lagging, give us at least 10ms to do something.
+        long budget = Math.max(TICK_NANOS - elapsed, TimeUnit.MILLISECONDS.toNanos(MIN_BUDGET_MILLIS));
+        long deadline = now + budget;
 
-        while (System.currentTimeMillis() < time && task != null) {
-            boolean again = task.doWork();
+        // Rotate the first worker, so that each worker eventually gets the time left by others
+        firstWorker = (firstWorker + 1) % count;
+        List<WorkerEntry> order = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            order.add(mainThreadWorkers.get((firstWorker + i) % count));
+        }
+
+        for (int i = 0; i < count; i++) {
+            WorkerEntry entry = order.get(i);
+            now = System.nanoTime();
+            if (now >= deadline)
+                break;
 
-            if (!task.hasWork()) {
-                remove(task);
-                task = getNext();
-            } else if (!again) {
-                task = getNext();
+            long sliceEnd = now + (deadline - now) / (count - i);
+            if (!runSlice(entry, sliceEnd)) {
+                mainThreadWorkers.remove(entry);
             }
         }
     }
 
-    public static synchronized void addWorker(IWorker worker) {
-        workers.add(worker);
+    /**
+     * Runs a worker until its slice is over, or it doesn't want to run again this tick.
+     *
+     * @return {@code true} if the worker still has work
+     */
+    private static boolean runSlice(WorkerEntry entry, long sliceEnd) {
+        long start = System.nanoTime();
+        long now = start;
+        boolean again = true;
+        while (again && now < sliceEnd && !entry.cancelled && entry.worker.hasWork()) {
+            again = entry.worker.doWork();
+            now = System.nanoTime();
+        }
+        entry.record(now - start);
+        return !entry.cancelled && entry.worker.hasWork();
+    }
+
+    private static void submit(WorkerEntry entry) {
+        getPool().execute(() -> runOffThread(entry));
     }
 
-    private static synchronized IWorker getNext() {
-        return workers.size() > index ? workers.get(index++) : null;
+    private static void runOffThread(WorkerEntry entry) {
+        if (entry.cancelled)
+            return;
+
+        long start = System.nanoTime();
+        long sliceEnd = start + TimeUnit.MILLISECONDS.toNanos(OFF_THREAD_SLICE_MILLIS);
+        long now = start;
+        boolean again = true;
+        try {
+            while (again && now < sliceEnd && !entry.cancelled && entry.worker.hasWork()) {
+                again = entry.worker.doWork();
+                now = System.nanoTime();
+            }
+        } catch (Throwable throwable) {
+            LOGGER.error("World worker {} failed and was removed", entry.worker, throwable);
+            entry.cancelled = true;
+        }
+        entry.record(System.nanoTime() - start);
+
+        if (entry.cancelled || !entry.worker.hasWork()) {
+            offThreadWorkers.remove(entry);
+        } else if (again) {
+            // Go to the back of the queue, behind the other off-thread workers
+            submit(entry);
+        } else {
+            parked.add(entry);
+        }
+    }
+
+    private static synchronized ExecutorService getPool() {
+        if (pool == null) {
+            pool = Executors.newFixedThreadPool(POOL_SIZE, new ThreadFactoryBuilder()
+                    .setNameFormat("World Worker #%d")
+                    .setDaemon(true)
+                    .setPriority(Thread.NORM_PRIORITY - 1)
+                    .build());
+        }
+        return pool;
     }
 
-    private static synchronized void remove(IWorker worker) {
-        workers.remove(worker);
-        index--;
+    /**
+     * Adds a worker. It starts running on the next tick.
+     */
+    public static void addWorker(IWorker worker) {
+        added.add(new WorkerEntry(worker, worker.isThreadSafe()));
+    }
+
+    /**
+     * {@return the time spent by each worker that is still running}
+     * Must be called from the server thread.
+     */
+    public static List<WorkerTime> getWorkerTimes() {
+        List<WorkerTime> times = new ArrayList<>();
+        for (WorkerEntry entry : mainThreadWorkers) {
+            times.add(entry.toWorkerTime());
+        }
+        for (WorkerEntry entry : offThreadWorkers) {
+            times.add(entry.toWorkerTime());
+        }
+        return times;
     }
 
     //Internal only, used to clear everything when the server shuts down.
-    public static synchronized void clear() {
-        workers.clear();
+    public static void clear() {
+        for (WorkerEntry entry : offThreadWorkers) {
+            entry.cancelled = true;
+        }
+        offThreadWorkers.clear();
+        mainThreadWorkers.clear();
+        added.clear();
+        parked.clear();
+    }
+
+    /**
+     * The time spent by a worker.
+     *
+     * @param worker     the worker
+     * @param offThread  whether the worker runs on the background threads
+     * @param totalNanos the total time spent in {@link IWorker#doWork()}, in nanoseconds
+     * @param slices     the number of times the worker got to run
+     */
+    public record WorkerTime(IWorker worker, boolean offThread, long totalNanos, long slices) {}
+
+    private static final class WorkerEntry {
+        private final IWorker worker;
+        private final boolean offThread;
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong slices = new AtomicLong();
+        private volatile boolean cancelled;
+
+        private WorkerEntry(IWorker worker, boolean offThread) {
+            this.worker = worker;
+            this.offThread = offThread;
+        }
+
+        private void record(long nanos) {
+            totalNanos.addAndGet(nanos);
+            slices.incrementAndGet();
+        }
+
+        private WorkerTime toWorkerTime() {
+            return new WorkerTime(worker, offThread, totalNanos.get(), slices.get());
+        }
     }
 
     public static interface IWorker {
@@ -67,5 +239,14 @@ public class WorldWorkerManager {
          * Returning false will skip calling this worker until next tick.
          */
         boolean doWork();
+
+        /**
+         * {@return {@code true} if this worker can run on a background thread}
+         * Thread-safe workers must not access the level or any other server state that is not thread-safe.
+         * Other workers run on the server thread.
+         */
+        default boolean isThreadSafe() {
+            return false;
+        }
     }
 }
@@ -6,17 +6,50 @@
 package net.neoforged.neoforge.common.util;
 
 import it.unimi.dsi.fastutil.objects.Object2ObjectLinkedOpenCustomHashMap;
+import it.unimi.dsi.fastutil.objects.Object2ObjectLinkedOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenCustomHashMap;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 import java.util.Map;
+import java.util.Set;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.ItemStackLinkedSet;
 
 public class ItemStackMap {
+    /**
+     * Creates a linked map keyed by the item and data components of stacks.
+     * Every lookup hashes all the data components of the stack. {@link #createVariantLinkedMap()} avoids this for callers that keep and reuse the {@link ItemVariant}s of their stacks.
+     */
     public static <V> Map<ItemStack, V> createTypeAndTagLinkedMap() {
         return new Object2ObjectLinkedOpenCustomHashMap<>(ItemStackLinkedSet.TYPE_AND_TAG);
     }
 
+    /**
+     * Creates a map keyed by the item and data components of stacks.
+     * Every lookup hashes all the data components of the stack. {@link #createVariantMap()} avoids this for callers that keep and reuse the {@link ItemVariant}s of their stacks.
+     */
     public static <V> Map<ItemStack, V> createTypeAndTagMap() {
         return new Object2ObjectOpenCustomHashMap<>(ItemStackLinkedSet.TYPE_AND_TAG);
     }
+
+    /**
+     * Creates a map keyed by {@link ItemVariant}s, which compares the interned keys by their cached hash code and identity.
+     */
+    public static <V> Map<ItemVariant, V> createVariantMap() {
+        return new Object2ObjectOpenHashMap<>();
+    }
+
+    /**
+     * Creates a linked map keyed by {@link ItemVariant}s, which compares the interned keys by their cached hash code and identity.
+     */
+    public static <V> Map<ItemVariant, V> createVariantLinkedMap() {
+        return new Object2ObjectLinkedOpenHashMap<>();
+    }
+
+    /**
+     * Creates a set of {@link ItemVariant}s, which compares the interned elements by their cached hash code and identity.
+     */
+    public static Set<ItemVariant> createVariantSet() {
+        return new ObjectOpenHashSet<>();
+    }
 }
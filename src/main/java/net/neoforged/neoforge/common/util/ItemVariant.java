@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.common.util;
+
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import net.minecraft.core.component.DataComponentMap;
+import net.minecraft.core.component.DataComponentPatch;
+import net.minecraft.core.component.DataComponentType;
+import net.minecraft.core.component.PatchedDataComponentMap;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.level.ItemLike;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An immutable item and data components pair, identifying the stacks that {@link ItemStack#isSameItemSameComponents stack with each other}.
+ * <p>
+ * Variants are interned: equal variants are the same instance, and their hash code is only computed once.
+ * Getting the variant of a stack hashes all of its data components, like looking up the stack in a map does.
+ * Variants are therefore only cheaper keys than item stacks when they are kept and reused, for example by storage indexes
+ * that remember the variant of each of their slots. See {@link ItemStackMap#createVariantMap()}.
+ * <p>
+ * Interned variants are only kept while they are in use.
+ */
+public final class ItemVariant {
+    private static final int SHARD_BITS = 6;
+    /**
+     * The interned variants, sharded by hash such that variants are looked up concurrently. Each shard is guarded by itself.
+     * The keys and values are weak, such that the variants are only kept while they are in use.
+     * Stacks look up their variant with a {@link StackLookup}, without copying their data components.
+     */
+    @SuppressWarnings("unchecked")
+    private static final Map<Object, WeakReference<ItemVariant>>[] INTERNED = new Map[1 << SHARD_BITS];
+
+    static {
+        for (int i = 0; i < INTERNED.length; i++) {
+            INTERNED[i] = new WeakHashMap<>();
+        }
+    }
+
+    public static final ItemVariant EMPTY = intern(new ItemVariant(Items.AIR, PatchedDataComponentMap.fromPatch(Items.AIR.components(), DataComponentPatch.EMPTY)));
+    public static final Codec<ItemVariant> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+            BuiltInRegistries.ITEM.byNameCodec().fieldOf("id").forGetter(ItemVariant::item),
+            DataComponentPatch.CODEC.optionalFieldOf("components", DataComponentPatch.EMPTY).forGetter(ItemVariant::components)).apply(instance, ItemVariant::of));
+    public static final StreamCodec<RegistryFriendlyByteBuf, ItemVariant> STREAM_CODEC = StreamCodec.composite(
+            ByteBufCodecs.registry(Registries.ITEM),
+            ItemVariant::item,
+            DataComponentPatch.STREAM_CODEC,
+            ItemVariant::components,
+            ItemVariant::of);
+
+    private final Item item;
+    /**
+     * All the data components of the variant, compared with the components of stacks.
+     * Never modified, and never exposed such that it could be.
+     */
+    private final PatchedDataComponentMap componentMap;
+    private final DataComponentPatch components;
+    private final int hash;
+
+    private ItemVariant(Item item, PatchedDataComponentMap componentMap) {
+        this.item = item;
+        this.componentMap = componentMap;
+        this.components = componentMap.asPatch();
+        this.hash = hash(item, componentMap);
+    }
+
+    /**
+     * {@return the variant of the given item, with the given changes to its default data components}
+     * Air is always {@link #EMPTY}, as for stacks.
+     */
+    public static ItemVariant of(Item item, DataComponentPatch components) {
+        if (item == Items.AIR) {
+            return EMPTY;
+        }
+        return intern(new ItemVariant(item, PatchedDataComponentMap.fromPatch(item.components(), components)));
+    }
+
+    /**
+     * {@return the variant of the given item, with its default data components}
+     */
+    public static ItemVariant of(ItemLike item) {
+        return of(item.asItem(), DataComponentPatch.EMPTY);
+    }
+
+    /**
+     * {@return the variant of the given stack, ignoring its count}
+     */
+    public static ItemVariant of(ItemStack stack) {
+        if (stack.isEmpty()) {
+            return EMPTY;
+        }
+        // Stack#getComponentsPatch would allocate a patch, and make the next change to the stack copy its components
+        Item item = stack.getItem();
+        DataComponentMap componentMap = stack.getComponents();
+        int hash = hash(item, componentMap);
+        Map<Object, WeakReference<ItemVariant>> shard = shard(hash);
+        synchronized (shard) {
+            ItemVariant interned = get(shard, new StackLookup(item, componentMap, hash));
+            if (interned != null) {
+                return interned;
+            }
+        }
+        return intern(new ItemVariant(item, copyComponents(item, componentMap)));
+    }
+
+    private static ItemVariant intern(ItemVariant variant) {
+        Map<Object, WeakReference<ItemVariant>> shard = shard(variant.hash);
+        synchronized (shard) {
+            ItemVariant interned = get(shard, variant);
+            if (interned != null) {
+                return interned;
+            }
+            shard.put(variant, new WeakReference<>(variant));
+            return variant;
+        }
+    }
+
+    private static Map<Object, WeakReference<ItemVariant>> shard(int hash) {
+        // The high bits of the mixed hash, the shards use the low bits
+        return INTERNED[(hash * 0x9E3779B9) >>> (Integer.SIZE - SHARD_BITS)];
+    }
+
+    @Nullable
+    private static ItemVariant get(Map<Object, WeakReference<ItemVariant>> shard, Object key) {
+        WeakReference<ItemVariant> reference = shard.get(key);
+        return reference != null ? reference.get() : null;
+    }
+
+    private static int hash(Item item, DataComponentMap componentMap) {
+        return 31 * item.hashCode() + componentMap.hashCode();
+    }
+
+    /**
+     * Copies the data components of a stack component by component, as copying the map would also make the next change to the stack copy it.
+     */
+    private static PatchedDataComponentMap copyComponents(Item item, DataComponentMap componentMap) {
+        PatchedDataComponentMap copy = new PatchedDataComponentMap(item.components());
+        for (DataComponentType<?> type : item.components().keySet()) {
+            if (!componentMap.has(type)) {
+                copy.remove(type);
+            }
+        }
+        copy.setAll(componentMap);
+        return copy;
+    }
+
+    public Item item() {
+        return item;
+    }
+
+    /**
+     * {@return the changes to the default data components of the item}
+     */
+    public DataComponentPatch components() {
+        return components;
+    }
+
+    public boolean isEmpty() {
+        return this == EMPTY;
+    }
+
+    /**
+     * {@return true if the given stack is of this variant}
+     */
+    public boolean matches(ItemStack stack) {
+        if (stack.isEmpty()) {
+            return isEmpty();
+        }
+        return stack.getItem() == item && stack.getComponents().equals(componentMap);
+    }
+
+    /**
+     * {@return a new stack of this variant}
+     */
+    public ItemStack toStack(int count) {
+        if (isEmpty() || count <= 0) {
+            return ItemStack.EMPTY;
+        }
+        return new ItemStack(BuiltInRegistries.ITEM.wrapAsHolder(item), count, components);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        // Only reached while interning, or for variants of different items
+        return o instanceof ItemVariant other && hash == other.hash && item == other.item && componentMap.equals(other.componentMap);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "ItemVariant[" + BuiltInRegistries.ITEM.getKey(item) + components + "]";
+    }
+
+    /**
+     * Finds the interned variant of a stack, comparing the data components of the stack as they are.
+     */
+    private record StackLookup(Item item, DataComponentMap componentMap, int hash) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ItemVariant variant && hash == variant.hash && item == variant.item && componentMap.equals(variant.componentMap);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -178,6 +178,7 @@ import net.neoforged.neoforge.event.tick.EntityTickEvent;
 import net.neoforged.neoforge.event.tick.LevelTickEvent;
 import net.neoforged.neoforge.event.tick.PlayerTickEvent;
 import net.neoforged.neoforge.event.tick.ServerTickEvent;
+import net.neoforged.neoforge.server.timings.TickProfiler;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.Nullable;
 
@@ -968,7 +969,9 @@ public class EventHooks {
      * @param haveTime The time supplier, indicating if there is remaining time to do work in the current tick.
      */
     public static void fireLevelTickPre(Level level, BooleanSupplier haveTime) {
+        long start = TickProfiler.start();
         NeoForge.EVENT_BUS.post(new LevelTickEvent.Pre(haveTime, level));
+        TickProfiler.endLevelTickEvent(level, LevelTickEvent.Pre.class, start);
     }
 
     /**
@@ -978,7 +981,9 @@ public class EventHooks {
      * @param haveTime The time supplier, indicating if there is remaining time to do work in the current tick.
      */
     public static void fireLevelTickPost(Level level, BooleanSupplier haveTime) {
+        long start = TickProfiler.start();
         NeoForge.EVENT_BUS.post(new LevelTickEvent.Post(haveTime, level));
+        TickProfiler.endLevelTickEvent(level, LevelTickEvent.Post.class, start);
     }
 
     /**
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.items;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2LongOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import java.util.Map;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.util.Mth;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.level.Level;
+import net.neoforged.bus.api.SubscribeEvent;
+import net.neoforged.fml.common.EventBusSubscriber;
+import net.neoforged.neoforge.capabilities.Capabilities;
+import net.neoforged.neoforge.event.entity.EntityEvent;
+import net.neoforged.neoforge.event.level.LevelEvent;
+import net.neoforged.neoforge.internal.versions.neoforge.NeoForgeVersion;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Counts the entities that may provide an {@link Capabilities.ItemHandler#ENTITY_AUTOMATION} capability in each section of the server levels,
+ * such that hoppers only search for entities in the sections that contain some.
+ */
+@ApiStatus.Internal
+@EventBusSubscriber(modid = NeoForgeVersion.MOD_ID)
+public final class AutomationEntityIndex {
+    /**
+     * Entities are found by their position, but their bounding box may extend into the neighboring sections.
+     * Matches the margin of the entity section storage.
+     */
+    private static final double MARGIN = 2.0;
+    private static final Map<Level, SectionCounts> SECTION_COUNTS = new Reference2ObjectOpenHashMap<>();
+
+    private AutomationEntityIndex() {}
+
+    /**
+     * {@return false if there is no entity that may provide an automation item handler in the sections around the given box}
+     */
+    static boolean mayContainEntities(Level level, double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        // Client levels are not indexed, and their entities are not accessed from the server thread
+        Long2IntOpenHashMap counts = getCounts(level);
+        if (counts == null) {
+            return true;
+        }
+        if (counts.isEmpty()) {
+            return false;
+        }
+
+        int minSectionX = SectionPos.blockToSectionCoord(Mth.floor(minX - MARGIN));
+        int minSectionY = SectionPos.blockToSectionCoord(Mth.floor(minY - MARGIN));
+        int minSectionZ = SectionPos.blockToSectionCoord(Mth.floor(minZ - MARGIN));
+        int maxSectionX = SectionPos.blockToSectionCoord(Mth.floor(maxX + MARGIN));
+        int maxSectionY = SectionPos.blockToSectionCoord(Mth.floor(maxY + MARGIN));
+        int maxSectionZ = SectionPos.blockToSectionCoord(Mth.floor(maxZ + MARGIN));
+        for (int x = minSectionX; x <= maxSectionX; x++) {
+            for (int y = minSectionY; y <= maxSectionY; y++) {
+                for (int z = minSectionZ; z <= maxSectionZ; z++) {
+                    if (counts.containsKey(SectionPos.asLong(x, y, z))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    @Nullable
+    private static Long2IntOpenHashMap getCounts(Level level) {
+        if (level.isClientSide) {
+            return null;
+        }
+        SectionCounts counts = SECTION_COUNTS.get(level);
+        return counts != null ? counts.sections : null;
+    }
+
+    private static boolean isIndexed(Entity entity) {
+        return Capabilities.ItemHandler.ENTITY_AUTOMATION.hasProviders(entity.getType());
+    }
+
+    /**
+     * Called when an entity starts being tracked, that is when it becomes visible to the entity searches of the level.
+     */
+    public static void onTrackingStart(ServerLevel level, Entity entity) {
+        SectionCounts counts = SECTION_COUNTS.get(level);
+        if (counts != null && isIndexed(entity)) {
+            counts.add(entity, SectionPos.asLong(entity.blockPosition()));
+        }
+    }
+
+    /**
+     * Called when an entity stops being tracked, either because it was removed or because its section is no longer accessible.
+     */
+    public static void onTrackingEnd(ServerLevel level, Entity entity) {
+        SectionCounts counts = SECTION_COUNTS.get(level);
+        if (counts != null) {
+            counts.remove(entity);
+        }
+    }
+
+    @SubscribeEvent
+    private static void onLevelLoad(LevelEvent.Load event) {
+        if (event.getLevel() instanceof ServerLevel level) {
+            SECTION_COUNTS.put(level, new SectionCounts());
+        }
+    }
+
+    @SubscribeEvent
+    private static void onLevelUnload(LevelEvent.Unload event) {
+        if (event.getLevel() instanceof ServerLevel level) {
+            SECTION_COUNTS.remove(level);
+        }
+    }
+
+    @SubscribeEvent
+    private static void onEntityEnterSection(EntityEvent.EnteringSection event) {
+        if (!event.getEntity().level().isClientSide) {
+            SectionCounts counts = SECTION_COUNTS.get(event.getEntity().level());
+            if (counts != null) {
+                counts.move(event.getEntity(), event.getPackedNewPos());
+            }
+        }
+    }
+
+    /**
+     * The entity counts of a level.
+     * Each counted entity remembers the section it was counted in, such that it is only ever uncounted once, and from that section.
+     */
+    private static final class SectionCounts {
+        private final Long2IntOpenHashMap sections = new Long2IntOpenHashMap();
+        private final Reference2LongOpenHashMap<Entity> counted = new Reference2LongOpenHashMap<>();
+
+        private void add(Entity entity, long section) {
+            if (!counted.containsKey(entity)) {
+                counted.put(entity, section);
+                sections.addTo(section, 1);
+            }
+        }
+
+        private void remove(Entity entity) {
+            if (counted.containsKey(entity)) {
+                decrement(counted.removeLong(entity));
+            }
+        }
+
+        private void move(Entity entity, long section) {
+            // Entities that are not tracked are not counted, they are counted again once they start being tracked
+            if (counted.containsKey(entity)) {
+                long previous = counted.put(entity, section);
+                if (previous != section) {
+                    decrement(previous);
+                    sections.addTo(section, 1);
+                }
+            }
+        }
+
+        private void decrement(long section) {
+            if (sections.addTo(section, -1) <= 1) {
+                sections.remove(section);
+            }
+        }
+    }
+}
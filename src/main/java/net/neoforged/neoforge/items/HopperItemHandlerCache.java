@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.items;
+
+import net.minecraft.core.Direction;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.block.HopperBlock;
+import net.minecraft.world.level.block.entity.HopperBlockEntity;
+import net.neoforged.neoforge.capabilities.BlockCapabilityCache;
+import net.neoforged.neoforge.capabilities.Capabilities;
+import net.neoforged.neoforge.items.wrapper.InvWrapper;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Caches the item handlers a hopper block entity moves items from and to, such that
+ * the hopper hooks in {@link VanillaInventoryCodeHooks} do not query the capabilities every tick.
+ */
+@ApiStatus.Internal
+public final class HopperItemHandlerCache {
+    private final HopperBlockEntity hopper;
+    private final InvWrapper hopperHandler;
+    @Nullable
+    private BlockCapabilityCache<IItemHandler, @Nullable Direction> source;
+    @Nullable
+    private BlockCapabilityCache<IItemHandler, @Nullable Direction> destination;
+
+    public HopperItemHandlerCache(HopperBlockEntity hopper) {
+        this.hopper = hopper;
+        this.hopperHandler = new InvWrapper(hopper);
+    }
+
+    /**
+     * {@return a handler for the inventory of the hopper itself}
+     */
+    InvWrapper getHopperHandler() {
+        return hopperHandler;
+    }
+
+    /**
+     * {@return the cache of the block above the hopper, which the hopper extracts from}
+     */
+    BlockCapabilityCache<IItemHandler, @Nullable Direction> getSource(ServerLevel level) {
+        if (source == null || source.level() != level) {
+            source = BlockCapabilityCache.create(Capabilities.ItemHandler.BLOCK, level, hopper.getBlockPos().above(), Direction.DOWN, () -> !hopper.isRemoved(), () -> {});
+        }
+        return source;
+    }
+
+    /**
+     * {@return the cache of the block the hopper is facing, which the hopper inserts into}
+     */
+    BlockCapabilityCache<IItemHandler, @Nullable Direction> getDestination(ServerLevel level) {
+        Direction facing = hopper.getBlockState().getValue(HopperBlock.FACING);
+        // The facing only changes if the block state is replaced without replacing the block entity
+        if (destination == null || destination.level() != level || destination.context() != facing.getOpposite()) {
+            destination = BlockCapabilityCache.create(Capabilities.ItemHandler.BLOCK, level, hopper.getBlockPos().relative(facing), facing.getOpposite(), () -> !hopper.isRemoved(), () -> {});
+        }
+        return destination;
+    }
+}
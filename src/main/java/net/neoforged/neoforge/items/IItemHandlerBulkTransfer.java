@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.items;
+
+import java.util.function.Predicate;
+import net.minecraft.world.item.ItemStack;
+
+/**
+ * An {@link IItemHandler} that can move many items to or from another handler at once,
+ * for example directly between two handlers backed by the same storage network.
+ * <p>
+ * {@link ItemHandlerHelper#transfer} asks the source handler first, then the destination handler,
+ * and falls back to moving the items slot by slot if neither of them handled the transfer.
+ * Implementations may call {@link ItemHandlerHelper#transferSlots} themselves to handle the transfers they have no fast path for.
+ */
+public interface IItemHandlerBulkTransfer extends IItemHandler {
+    /**
+     * Returned by the transfer methods to let the transfer be handled by the other handler, or slot by slot.
+     */
+    int UNHANDLED = -1;
+
+    /**
+     * Moves items from this handler to the given handler.
+     *
+     * @param destination The handler to move the items to
+     * @param filter      The stacks that may be moved. The stacks passed to the filter must not be modified
+     * @param maxCount    The maximum number of items to move, in total
+     * @return The number of items moved, or {@link #UNHANDLED}
+     */
+    default int transferTo(IItemHandler destination, Predicate<ItemStack> filter, int maxCount) {
+        return UNHANDLED;
+    }
+
+    /**
+     * Moves items from the given handler to this handler.
+     *
+     * @param source   The handler to move the items from
+     * @param filter   The stacks that may be moved. The stacks passed to the filter must not be modified
+     * @param maxCount The maximum number of items to move, in total
+     * @return The number of items moved, or {@link #UNHANDLED}
+     */
+    default int transferFrom(IItemHandler source, Predicate<ItemStack> filter, int maxCount) {
+        return UNHANDLED;
+    }
+}
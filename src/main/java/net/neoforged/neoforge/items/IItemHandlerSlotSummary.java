@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.items;
+
+import net.minecraft.world.item.Item;
+
+/**
+ * An {@link IItemHandler} that keeps a summary of its slots, such that automation does not have to scan every slot.
+ * <p>
+ * Large inventories should implement this interface, which allows the hopper hooks in {@link VanillaInventoryCodeHooks} and
+ * {@link ItemHandlerHelper#insertItemStacked} to only visit the slots that matter. {@link SlotSummary} can be used to maintain the summary.
+ * <p>
+ * The summary must reflect every change made through the handler. It is not required to reflect changes made
+ * to the stacks returned by {@link #getStackInSlot(int)}, as these must not be modified.
+ * Handlers whose contents may change in other ways, or whose {@linkplain #getSlotLimit(int) slot limits} change while they hold items,
+ * must not implement this interface, as automation would skip slots or misjudge whether the handler is full.
+ *
+ * @see TrackingItemStackHandler
+ */
+public interface IItemHandlerSlotSummary extends IItemHandler {
+    /**
+     * {@return true if every slot is empty}
+     */
+    boolean areAllSlotsEmpty();
+
+    /**
+     * {@return true if no slot is empty, and every slot holds at least its {@linkplain #getSlotLimit(int) slot limit}}
+     */
+    boolean areAllSlotsFull();
+
+    /**
+     * Returns the first slot at or after the given slot that is not empty.
+     *
+     * @param fromSlot The slot to start at, inclusive
+     * @return The slot, or {@code -1} if all the remaining slots are empty
+     */
+    int getNextNonEmptySlot(int fromSlot);
+
+    /**
+     * Returns the first slot at or after the given slot that is empty.
+     *
+     * @param fromSlot The slot to start at, inclusive
+     * @return The slot, or {@code -1} if none of the remaining slots is empty
+     */
+    int getNextEmptySlot(int fromSlot);
+
+    /**
+     * Returns the first slot at or after the given slot that holds the given item.
+     * <p>
+     * The stack in the slot may have different data components than the stack the caller is looking for.
+     *
+     * @param item     The item to look for
+     * @param fromSlot The slot to start at, inclusive
+     * @return The slot, or {@code -1} if none of the remaining slots holds the item
+     */
+    int getNextSlotWithItem(Item item, int fromSlot);
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.items;
+
+import com.mojang.logging.LogUtils;
+import java.util.ArrayList;
+import java.util.List;
+import net.minecraft.server.MinecraftServer;
+import net.neoforged.bus.api.EventPriority;
+import net.neoforged.bus.api.SubscribeEvent;
+import net.neoforged.fml.common.EventBusSubscriber;
+import net.neoforged.neoforge.event.server.ServerStoppedEvent;
+import net.neoforged.neoforge.event.tick.ServerTickEvent;
+import net.neoforged.neoforge.internal.versions.neoforge.NeoForgeVersion;
+import net.neoforged.neoforge.server.ServerLifecycleHooks;
+import org.jetbrains.annotations.ApiStatus;
+import org.slf4j.Logger;
+
+/**
+ * Calls {@link TrackingItemStackHandler#onContentsChangedBatch()} at the end of the server tick for the handlers that changed during the tick.
+ */
+@ApiStatus.Internal
+@EventBusSubscriber(modid = NeoForgeVersion.MOD_ID)
+public final class ItemHandlerChangeBatcher {
+    private static final Logger LOGGER = LogUtils.getLogger();
+    /**
+     * The handlers that changed during the current tick. Only accessed on the server thread.
+     */
+    private static List<TrackingItemStackHandler> pending = new ArrayList<>();
+    private static List<TrackingItemStackHandler> flushing = new ArrayList<>();
+
+    private ItemHandlerChangeBatcher() {}
+
+    /**
+     * Queues the handler to be notified at the end of the tick.
+     *
+     * @return false if the handler was not queued, because the current thread is not the server thread
+     */
+    static boolean queue(TrackingItemStackHandler handler) {
+        MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+        if (server == null || !server.isSameThread()) {
+            return false;
+        }
+        pending.add(handler);
+        return true;
+    }
+
+    // Last, such that the changes made by the other listeners are part of the tick
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    private static void onServerTick(ServerTickEvent.Post event) {
+        flush();
+    }
+
+    @SubscribeEvent
+    private static void onServerStopped(ServerStoppedEvent event) {
+        flush();
+    }
+
+    private static void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        // Handlers changed by the callbacks are notified at the end of the next tick
+        List<TrackingItemStackHandler> handlers = pending;
+        pending = flushing;
+        flushing = handlers;
+        for (TrackingItemStackHandler handler : handlers) {
+            // A failing callback must not keep the other handlers from being notified, and queued again once they change
+            try {
+                handler.flushBatch();
+            } catch (RuntimeException e) {
+                LOGGER.error("Failed to notify {} of the changes made during the tick", handler, e);
+            }
+        }
+        handlers.clear();
+    }
+}
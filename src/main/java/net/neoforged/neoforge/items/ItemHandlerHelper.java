@@ -5,21 +5,44 @@
 
 package net.neoforged.neoforge.items;
 
+import com.mojang.logging.LogUtils;
+import java.util.function.Predicate;
 import net.minecraft.sounds.SoundEvents;
 import net.minecraft.sounds.SoundSource;
 import net.minecraft.util.Mth;
 import net.minecraft.world.entity.item.ItemEntity;
 import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.Level;
 import net.neoforged.neoforge.items.wrapper.PlayerMainInvWrapper;
 import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
 
 public class ItemHandlerHelper {
+    private static final Logger LOGGER = LogUtils.getLogger();
+
     public static ItemStack insertItem(IItemHandler dest, ItemStack stack, boolean simulate) {
         if (dest == null || stack.isEmpty())
             return stack;
 
+        if (dest instanceof IItemHandlerSlotSummary summary) {
+            // Only empty slots and slots holding the same item can accept the stack, visit them in order
+            Item item = stack.getItem();
+            int emptySlot = summary.getNextEmptySlot(0);
+            int itemSlot = summary.getNextSlotWithItem(item, 0);
+            while (emptySlot >= 0 || itemSlot >= 0) {
+                int slot = emptySlot < 0 ? itemSlot : itemSlot < 0 ? emptySlot : Math.min(emptySlot, itemSlot);
+                stack = dest.insertItem(slot, stack, simulate);
+                if (stack.isEmpty()) {
+                    return ItemStack.EMPTY;
+                }
+                emptySlot = summary.getNextEmptySlot(slot + 1);
+                itemSlot = summary.getNextSlotWithItem(item, slot + 1);
+            }
+            return stack;
+        }
+
         for (int i = 0; i < dest.getSlots(); i++) {
             stack = dest.insertItem(i, stack, simulate);
             if (stack.isEmpty()) {
@@ -30,6 +53,103 @@ public class ItemHandlerHelper {
         return stack;
     }
 
+    /**
+     * Moves up to {@code maxCount} items matching the filter from one handler to another.
+     * <p>
+     * The transfer is handled by the source or the destination if they implement {@link IItemHandlerBulkTransfer},
+     * and by {@link #transferSlots} otherwise.
+     *
+     * @param source      The handler to move the items from
+     * @param destination The handler to move the items to
+     * @param filter      The stacks that may be moved. The stacks passed to the filter must not be modified
+     * @param maxCount    The maximum number of items to move, in total
+     * @return The number of items moved
+     */
+    public static int transfer(IItemHandler source, IItemHandler destination, Predicate<ItemStack> filter, int maxCount) {
+        if (maxCount <= 0)
+            return 0;
+
+        if (source instanceof IItemHandlerBulkTransfer bulkSource) {
+            int moved = bulkSource.transferTo(destination, filter, maxCount);
+            if (moved != IItemHandlerBulkTransfer.UNHANDLED)
+                return moved;
+        }
+        if (destination instanceof IItemHandlerBulkTransfer bulkDestination) {
+            int moved = bulkDestination.transferFrom(source, filter, maxCount);
+            if (moved != IItemHandlerBulkTransfer.UNHANDLED)
+                return moved;
+        }
+        return transferSlots(source, destination, filter, maxCount);
+    }
+
+    /**
+     * Moves up to {@code maxCount} items matching the filter from one handler to another, slot by slot.
+     * The source slots are emptied in order, and their items are inserted in the first destination slots that accept them,
+     * as {@link #insertItem} does.
+     * <p>
+     * The insertion of the items in the source slot is simulated first, to only extract the items the destination accepts.
+     * The extraction is not simulated, the items that are actually extracted are inserted instead,
+     * and the items the destination does not accept after all are put back in the source.
+     * Moving items from a slot thus takes a simulated insertion, an extraction and an insertion, which matters for the hoppers that move an item every few ticks.
+     *
+     * @return The number of items moved
+     * @see #transfer
+     */
+    public static int transferSlots(IItemHandler source, IItemHandler destination, Predicate<ItemStack> filter, int maxCount) {
+        int moved = 0;
+        for (int slot = nextNonEmptySlot(source, 0); slot >= 0 && moved < maxCount; slot = nextNonEmptySlot(source, slot + 1)) {
+            // A slot may hold more items than can be extracted at once, keep extracting until the destination is full
+            while (moved < maxCount) {
+                ItemStack stack = source.getStackInSlot(slot);
+                if (stack.isEmpty() || !filter.test(stack))
+                    break;
+
+                int count = Math.min(stack.getCount(), maxCount - moved);
+                int accepted = count - insertItem(destination, stack.copyWithCount(count), true).getCount();
+                if (accepted <= 0)
+                    break;
+
+                // Only insert what was actually extracted, the source may hand out fewer items than it holds
+                ItemStack taken = source.extractItem(slot, accepted, false);
+                if (taken.isEmpty())
+                    break;
+                int taking = taken.getCount();
+                ItemStack remainder = insertItem(destination, taken, false);
+                int inserted = taking - remainder.getCount();
+                moved += inserted;
+                if (!remainder.isEmpty()) {
+                    putBack(source, slot, remainder);
+                    break;
+                }
+                // The destination is full, otherwise the source handed out fewer items than requested and is asked again
+                if (accepted < count)
+                    break;
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Puts items that were extracted from a slot but could not be moved back in the source, preferably in the slot they were extracted from.
+     */
+    private static void putBack(IItemHandler source, int slot, ItemStack stack) {
+        stack = source.insertItem(slot, stack, false);
+        if (!stack.isEmpty())
+            stack = insertItem(source, stack, false);
+        if (!stack.isEmpty())
+            LOGGER.error("Failed to put {} back in {} after a transfer, the items are lost", stack, source);
+    }
+
+    /**
+     * {@return the first slot at or after the given slot that may not be empty, or {@code -1}}
+     */
+    static int nextNonEmptySlot(IItemHandler handler, int fromSlot) {
+        if (handler instanceof IItemHandlerSlotSummary summary) {
+            return summary.getNextNonEmptySlot(fromSlot);
+        }
+        return fromSlot < handler.getSlots() ? fromSlot : -1;
+    }
+
     /**
      * Inserts the ItemStack into the inventory, filling up already present stacks first.
      * This is equivalent to the behaviour of a player picking up an item.
@@ -44,6 +164,10 @@ public class ItemHandlerHelper {
             return insertItem(inventory, stack, simulate);
         }
 
+        if (inventory instanceof IItemHandlerSlotSummary summary) {
+            return insertItemStacked(summary, stack, simulate);
+        }
+
         int sizeInventory = inventory.getSlots();
 
         // go through the inventory and try to fill up already existing items
@@ -74,6 +198,33 @@ public class ItemHandlerHelper {
         return stack;
     }
 
+    /**
+     * Same as {@link #insertItemStacked(IItemHandler, ItemStack, boolean)}, but only visits the slots holding the same item and the empty slots.
+     */
+    private static ItemStack insertItemStacked(IItemHandlerSlotSummary inventory, ItemStack stack, boolean simulate) {
+        Item item = stack.getItem();
+        for (int i = inventory.getNextSlotWithItem(item, 0); i >= 0; i = inventory.getNextSlotWithItem(item, i + 1)) {
+            if (ItemStack.isSameItemSameComponents(inventory.getStackInSlot(i), stack)) {
+                stack = inventory.insertItem(i, stack, simulate);
+
+                if (stack.isEmpty()) {
+                    return ItemStack.EMPTY;
+                }
+            }
+        }
+
+        for (int i = inventory.getNextEmptySlot(0); i >= 0; i = inventory.getNextEmptySlot(i + 1)) {
+            if (inventory.getStackInSlot(i).isEmpty()) {
+                stack = inventory.insertItem(i, stack, simulate);
+                if (stack.isEmpty()) {
+                    return ItemStack.EMPTY;
+                }
+            }
+        }
+
+        return stack;
+    }
+
     /** giveItemToPlayer without preferred slot */
     public static void giveItemToPlayer(Player player, ItemStack stack) {
         giveItemToPlayer(player, stack, -1);
@@ -129,6 +280,8 @@ public class ItemHandlerHelper {
     public static int calcRedstoneFromInventory(@Nullable IItemHandler inv) {
         if (inv == null) {
             return 0;
+        } else if (inv instanceof TrackingItemStackHandler tracking) {
+            return tracking.getRedstoneSignal();
         } else {
             int itemsFound = 0;
             float proportion = 0.0F;
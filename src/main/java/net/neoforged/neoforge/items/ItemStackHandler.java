@@ -13,9 +13,17 @@ import net.minecraft.nbt.Tag;
 import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
 import net.neoforged.neoforge.common.util.INBTSerializable;
+import org.jetbrains.annotations.Nullable;
 
 public class ItemStackHandler implements IItemHandler, IItemHandlerModifiable, INBTSerializable<CompoundTag> {
     protected NonNullList<ItemStack> stacks;
+    /**
+     * The summary of the {@link #stacks}, created when a subclass first queries it with {@link #getSlotSummary()}.
+     */
+    @Nullable
+    private SlotSummary slotSummary;
+    @Nullable
+    private NonNullList<ItemStack> summarizedStacks;
 
     public ItemStackHandler() {
         this(1);
@@ -31,12 +39,14 @@ public class ItemStackHandler implements IItemHandler, IItemHandlerModifiable, I
 
     public void setSize(int size) {
         stacks = NonNullList.withSize(size, ItemStack.EMPTY);
+        invalidateSlotSummary();
     }
 
     @Override
     public void setStackInSlot(int slot, ItemStack stack) {
         validateSlotIndex(slot);
         this.stacks.set(slot, stack);
+        updateSlotSummary(slot);
         onContentsChanged(slot);
     }
 
@@ -83,6 +93,7 @@ public class ItemStackHandler implements IItemHandler, IItemHandlerModifiable, I
             } else {
                 existing.grow(reachedLimit ? limit : stack.getCount());
             }
+            updateSlotSummary(slot);
             onContentsChanged(slot);
         }
 
@@ -106,6 +117,7 @@ public class ItemStackHandler implements IItemHandler, IItemHandlerModifiable, I
         if (existing.getCount() <= toExtract) {
             if (!simulate) {
                 this.stacks.set(slot, ItemStack.EMPTY);
+                updateSlotSummary(slot);
                 onContentsChanged(slot);
                 return existing;
             } else {
@@ -114,6 +126,7 @@ public class ItemStackHandler implements IItemHandler, IItemHandlerModifiable, I
         } else {
             if (!simulate) {
                 this.stacks.set(slot, existing.copyWithCount(existing.getCount() - toExtract));
+                updateSlotSummary(slot);
                 onContentsChanged(slot);
             }
 
@@ -163,6 +176,7 @@ public class ItemStackHandler implements IItemHandler, IItemHandlerModifiable, I
                 ItemStack.parse(provider, itemTags).ifPresent(stack -> stacks.set(slot, stack));
             }
         }
+        invalidateSlotSummary();
         onLoad();
     }
 
@@ -171,6 +185,39 @@ public class ItemStackHandler implements IItemHandler, IItemHandlerModifiable, I
             throw new RuntimeException("Slot " + slot + " not in valid range - [0," + stacks.size() + ")");
     }
 
+    /**
+     * {@return the summary of the slots, created if it does not exist yet}
+     * Once created, the summary is updated by every change made through this handler.
+     * <p>
+     * Subclasses that use the summary must call {@link #invalidateSlotSummary()} when they modify the {@link #stacks} directly,
+     * must not modify the stacks in place, and must not change their {@linkplain #getSlotLimit(int) slot limits} while they hold items.
+     *
+     * @see TrackingItemStackHandler
+     */
+    protected SlotSummary getSlotSummary() {
+        if (slotSummary == null || summarizedStacks != stacks) {
+            // Also recreated if a subclass replaced the stacks
+            summarizedStacks = stacks;
+            slotSummary = new SlotSummary(this);
+        }
+        return slotSummary;
+    }
+
+    private void updateSlotSummary(int slot) {
+        if (slotSummary != null && summarizedStacks == stacks) {
+            slotSummary.update(slot);
+        }
+    }
+
+    /**
+     * Discards the summary of the slots, such that it is recreated when it is next queried.
+     * Must be called by subclasses that use the summary when they modify the {@link #stacks} directly.
+     */
+    protected void invalidateSlotSummary() {
+        slotSummary = null;
+        summarizedStacks = null;
+    }
+
     protected void onLoad() {}
 
     protected void onContentsChanged(int slot) {}
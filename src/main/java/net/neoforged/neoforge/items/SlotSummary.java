@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.items;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import net.minecraft.util.Mth;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+
+/**
+ * Maintains the summary of the slots of an {@link IItemHandlerSlotSummary}, updated one slot at a time.
+ * <p>
+ * The owner must call {@link #update(int)} whenever the stack in a slot changes, or its count changes.
+ * Queries are answered without visiting the slots: empty slots are tracked in a bit set, the slots of each item
+ * in sorted arrays, and the fill level of the slots in a running total.
+ */
+public final class SlotSummary {
+    private static final long FILL_SCALE = 1L << 32;
+
+    private final IItemHandler handler;
+    /**
+     * The item each slot was summarized with, or {@code null} if the slot was empty.
+     */
+    private final Item[] items;
+    private final BitSet nonEmpty;
+    private final BitSet full;
+    private int fullSlots;
+    private int nonEmptySlots;
+    /**
+     * The fill level of each slot, as a fixed point fraction of {@link #FILL_SCALE}, and their sum.
+     */
+    private final long[] fills;
+    private long totalFill;
+    /**
+     * The sorted slots holding each item.
+     */
+    private final Map<Item, IntArrayList> slotsByItem = new Reference2ObjectOpenHashMap<>();
+
+    /**
+     * Creates the summary of the current slots of the given handler. The summary must be recreated if the number of slots changes.
+     */
+    public SlotSummary(IItemHandler handler) {
+        this.handler = handler;
+        int slots = handler.getSlots();
+        this.items = new Item[slots];
+        this.nonEmpty = new BitSet(slots);
+        this.full = new BitSet(slots);
+        this.fills = new long[slots];
+        for (int slot = 0; slot < slots; slot++) {
+            update(slot);
+        }
+    }
+
+    /**
+     * {@return the number of slots this summary was created for}
+     */
+    public int getSlots() {
+        return items.length;
+    }
+
+    /**
+     * Updates the summary of the given slot from the stack the handler currently holds in it.
+     */
+    public void update(int slot) {
+        ItemStack stack = handler.getStackInSlot(slot);
+        Item item = stack.isEmpty() ? null : stack.getItem();
+        Item previous = items[slot];
+        if (previous != item) {
+            if (previous != null) {
+                IntArrayList slots = slotsByItem.get(previous);
+                slots.removeInt(Arrays.binarySearch(slots.elements(), 0, slots.size(), slot));
+                if (slots.isEmpty()) {
+                    slotsByItem.remove(previous);
+                }
+            }
+            if (item != null) {
+                IntArrayList slots = slotsByItem.computeIfAbsent(item, k -> new IntArrayList(1));
+                slots.add(-Arrays.binarySearch(slots.elements(), 0, slots.size(), slot) - 1, slot);
+            }
+            items[slot] = item;
+            nonEmpty.set(slot, item != null);
+            nonEmptySlots += (item != null ? 1 : 0) - (previous != null ? 1 : 0);
+        }
+        int slotLimit = handler.getSlotLimit(slot);
+        boolean isFull = item != null && stack.getCount() >= slotLimit;
+        if (isFull != full.get(slot)) {
+            full.set(slot, isFull);
+            fullSlots += isFull ? 1 : -1;
+        }
+
+        // Same fill level as ItemHandlerHelper#calcRedstoneFromInventory, rounded to the nearest fixed point value
+        long fill = 0;
+        if (item != null) {
+            int limit = Math.max(1, Math.min(slotLimit, stack.getMaxStackSize()));
+            fill = (stack.getCount() * FILL_SCALE + limit / 2) / limit;
+        }
+        totalFill += fill - fills[slot];
+        fills[slot] = fill;
+    }
+
+    /**
+     * @see IItemHandlerSlotSummary#areAllSlotsEmpty()
+     */
+    public boolean areAllSlotsEmpty() {
+        return nonEmptySlots == 0;
+    }
+
+    /**
+     * @see IItemHandlerSlotSummary#areAllSlotsFull()
+     */
+    public boolean areAllSlotsFull() {
+        return fullSlots == items.length;
+    }
+
+    /**
+     * {@return the number of slots that are not empty}
+     */
+    public int getNonEmptySlots() {
+        return nonEmptySlots;
+    }
+
+    /**
+     * {@return how full the slots are on average, where 1 means that every slot is full}
+     * Slots holding more items than their limit count as more than full, so the fill level can exceed 1.
+     */
+    public float getFillLevel() {
+        return items.length == 0 ? 0.0F : (float) ((double) totalFill / FILL_SCALE) / (float) items.length;
+    }
+
+    /**
+     * {@return the comparator signal for the slots, in the range [0,15]}
+     *
+     * @see ItemHandlerHelper#calcRedstoneFromInventory
+     */
+    public int getRedstoneSignal() {
+        return Mth.floor(getFillLevel() * 14.0F) + (nonEmptySlots > 0 ? 1 : 0);
+    }
+
+    /**
+     * @see IItemHandlerSlotSummary#getNextNonEmptySlot(int)
+     */
+    public int getNextNonEmptySlot(int fromSlot) {
+        return nonEmpty.nextSetBit(fromSlot);
+    }
+
+    /**
+     * @see IItemHandlerSlotSummary#getNextEmptySlot(int)
+     */
+    public int getNextEmptySlot(int fromSlot) {
+        int slot = nonEmpty.nextClearBit(fromSlot);
+        return slot < items.length ? slot : -1;
+    }
+
+    /**
+     * @see IItemHandlerSlotSummary#getNextSlotWithItem(Item, int)
+     */
+    public int getNextSlotWithItem(Item item, int fromSlot) {
+        IntArrayList slots = slotsByItem.get(item);
+        if (slots == null) {
+            return -1;
+        }
+        int index = Arrays.binarySearch(slots.elements(), 0, slots.size(), fromSlot);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return index < slots.size() ? slots.getInt(index) : -1;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.items;
+
+import net.minecraft.core.NonNullList;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+
+/**
+ * An {@link ItemStackHandler} that keeps running totals of its slots, and counts its modifications.
+ * <p>
+ * The comparator signal, the number of non-empty slots and whether the handler changed since a previous check
+ * are available without visiting the slots, and the handler provides a {@linkplain IItemHandlerSlotSummary slot summary} to automation.
+ * <p>
+ * The totals are only updated by the changes made through the handler. Subclasses must call {@link #invalidateSlotSummary()}
+ * when they modify the {@link #stacks} directly, must not modify the stacks in place,
+ * and must not change their {@linkplain #getSlotLimit(int) slot limits} while they hold items.
+ * <p>
+ * Instead of {@link #onContentsChanged(int)}, subclasses override {@link #onSlotChanged(int)}, called for every change,
+ * and {@link #onContentsChangedBatch()}, called once at the end of the server tick in which the contents changed,
+ * for example to mark a block entity as changed once per tick.
+ */
+public class TrackingItemStackHandler extends ItemStackHandler implements IItemHandlerSlotSummary {
+    private long modificationCount;
+    private boolean batchPending;
+
+    public TrackingItemStackHandler() {
+        super();
+    }
+
+    public TrackingItemStackHandler(int size) {
+        super(size);
+    }
+
+    public TrackingItemStackHandler(NonNullList<ItemStack> stacks) {
+        super(stacks);
+    }
+
+    @Override
+    public void setSize(int size) {
+        super.setSize(size);
+        modificationCount++;
+    }
+
+    /**
+     * {@return the number of modifications of the contents so far}
+     * Compare it with a previously returned value to check if the contents changed since.
+     */
+    public long getModificationCount() {
+        return modificationCount;
+    }
+
+    /**
+     * {@return true if every slot is empty}
+     */
+    public boolean isEmpty() {
+        return areAllSlotsEmpty();
+    }
+
+    @Override
+    public boolean areAllSlotsEmpty() {
+        return getSlotSummary().areAllSlotsEmpty();
+    }
+
+    @Override
+    public boolean areAllSlotsFull() {
+        return getSlotSummary().areAllSlotsFull();
+    }
+
+    @Override
+    public int getNextNonEmptySlot(int fromSlot) {
+        return getSlotSummary().getNextNonEmptySlot(fromSlot);
+    }
+
+    @Override
+    public int getNextEmptySlot(int fromSlot) {
+        return getSlotSummary().getNextEmptySlot(fromSlot);
+    }
+
+    @Override
+    public int getNextSlotWithItem(Item item, int fromSlot) {
+        return getSlotSummary().getNextSlotWithItem(item, fromSlot);
+    }
+
+    /**
+     * {@return the number of slots that are not empty}
+     */
+    public int getNonEmptySlots() {
+        return getSlotSummary().getNonEmptySlots();
+    }
+
+    /**
+     * {@return the comparator signal of this handler, in the range [0,15]}
+     *
+     * @see ItemHandlerHelper#calcRedstoneFromInventory
+     */
+    public int getRedstoneSignal() {
+        return getSlotSummary().getRedstoneSignal();
+    }
+
+    @Override
+    protected final void onContentsChanged(int slot) {
+        modificationCount++;
+        onSlotChanged(slot);
+        if (!batchPending) {
+            batchPending = true;
+            if (!ItemHandlerChangeBatcher.queue(this)) {
+                // Not on the server thread, there is no tick to batch the changes in
+                flushBatch();
+            }
+        }
+    }
+
+    /**
+     * Called every time the stack in a slot changes.
+     */
+    protected void onSlotChanged(int slot) {}
+
+    /**
+     * Called once at the end of the server tick in which the contents changed, or right away if they did not change on the server thread.
+     */
+    protected void onContentsChangedBatch() {}
+
+    void flushBatch() {
+        batchPending = false;
+        onContentsChangedBatch();
+    }
+}
@@ -7,12 +7,13 @@ package net.neoforged.neoforge.items;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.core.FrontAndTop;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.EntitySelector;
+import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.DropperBlock;
@@ -25,9 +26,9 @@ import net.minecraft.world.level.block.entity.HopperBlockEntity;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.block.state.properties.BlockStateProperties;
 import net.minecraft.world.phys.AABB;
+import net.neoforged.neoforge.capabilities.BlockCapabilityCache;
 import net.neoforged.neoforge.capabilities.Capabilities;
-import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
+import net.neoforged.neoforge.items.wrapper.InvWrapper;
 import org.jetbrains.annotations.Nullable;
 
 public class VanillaInventoryCodeHooks {
@@ -38,33 +39,13 @@ public class VanillaInventoryCodeHooks {
      */
     @Nullable
     public static Boolean extractHook(Level level, Hopper dest) {
-        return getSourceItemHandler(level, dest)
-                .map(itemHandlerResult -> {
-                    IItemHandler handler = itemHandlerResult.getKey();
-
-                    for (int i = 0; i < handler.getSlots(); i++) {
-                        ItemStack extractItem = handler.extractItem(i, 1, true);
-                        if (!extractItem.isEmpty()) {
-                            for (int j = 0; j < dest.getContainerSize(); j++) {
-                                ItemStack destStack = dest.getItem(j);
-                                if (dest.canPlaceItem(j, extractItem) && (destStack.isEmpty() || destStack.getCount() < destStack.getMaxStackSize() && destStack.getCount() < dest.getMaxStackSize() && ItemStack.isSameItemSameComponents(extractItem, destStack))) {
-                                    extractItem = handler.extractItem(i, 1, false);
-                                    if (destStack.isEmpty())
-                                        dest.setItem(j, extractItem);
-                                    else {
-                                        destStack.grow(1);
-                                        dest.setItem(j, destStack);
-                                    }
-                                    dest.setChanged();
-                                    return true;
-                                }
-                            }
-                        }
-                    }
-
-                    return false;
-                })
-                .orElse(null); // TODO bad null
+        IItemHandler handler = getSourceItemHandler(level, dest);
+        if (handler == null)
+            return null; // TODO bad null
+
+        IItemHandler destHandler = dest instanceof HopperBlockEntity hopper && level instanceof ServerLevel ? hopper.getItemHandlerCache().getHopperHandler() : new InvWrapper(dest);
+        // Moves the first item that fits in the hopper, to the first hopper slot that accepts it
+        return ItemHandlerHelper.transfer(handler, destHandler, stack -> true, 1) > 0;
     }
 
     /**
@@ -72,56 +53,63 @@ public class VanillaInventoryCodeHooks {
      */
     public static boolean dropperInsertHook(Level level, BlockPos pos, DispenserBlockEntity dropper, int slot, ItemStack stack) {
         Direction facing = level.getBlockState(pos).getValue(DropperBlock.FACING);
-        return getAttachedItemHandler(level, pos, facing)
-                .map(destinationResult -> {
-                    IItemHandler itemHandler = destinationResult.getKey();
-                    Object destination = destinationResult.getValue();
-                    ItemStack dispensedStack = stack.copy().split(1);
-                    ItemStack remainder = putStackInInventoryAllSlots(dropper, destination, itemHandler, dispensedStack);
-
-                    if (remainder.isEmpty()) {
-                        remainder = stack.copy();
-                        remainder.shrink(1);
-                    } else {
-                        remainder = stack.copy();
-                    }
-
-                    dropper.setItem(slot, remainder);
-                    return false;
-                })
-                .orElse(true);
+        BlockPos destinationPos = pos.relative(facing);
+        IItemHandler itemHandler = getItemHandlerAt(level, destinationPos, facing.getOpposite());
+        if (itemHandler == null)
+            return true;
+
+        ItemStack dispensedStack = stack.copy().split(1);
+        ItemStack remainder = putStackInInventoryAllSlots(dropper, getHopperAt(level, destinationPos), itemHandler, dispensedStack);
+
+        if (remainder.isEmpty()) {
+            remainder = stack.copy();
+            remainder.shrink(1);
+        } else {
+            remainder = stack.copy();
+        }
+
+        dropper.setItem(slot, remainder);
+        return false;
     }
 
     /**
      * Copied from TileEntityHopper#transferItemsOut and added capability support
      */
     public static boolean insertHook(HopperBlockEntity hopper) {
-        Direction hopperFacing = hopper.getBlockState().getValue(HopperBlock.FACING);
-        return getAttachedItemHandler(hopper.getLevel(), hopper.getBlockPos(), hopperFacing)
-                .map(destinationResult -> {
-                    IItemHandler itemHandler = destinationResult.getKey();
-                    Object destination = destinationResult.getValue();
-                    if (isFull(itemHandler)) {
-                        return false;
-                    } else {
-                        for (int i = 0; i < hopper.getContainerSize(); ++i) {
-                            if (!hopper.getItem(i).isEmpty()) {
-                                ItemStack originalSlotContents = hopper.getItem(i).copy();
-                                ItemStack insertStack = hopper.removeItem(i, 1);
-                                ItemStack remainder = putStackInInventoryAllSlots(hopper, destination, itemHandler, insertStack);
-
-                                if (remainder.isEmpty()) {
-                                    return true;
-                                }
-
-                                hopper.setItem(i, originalSlotContents);
-                            }
-                        }
-
-                        return false;
-                    }
-                })
-                .orElse(false);
+        Level level = hopper.getLevel();
+        IItemHandler itemHandler;
+        BlockPos destinationPos;
+        IItemHandler hopperHandler;
+        if (level instanceof ServerLevel serverLevel) {
+            // Allocation free lookup, as this runs every tick for every hopper
+            HopperItemHandlerCache cache = hopper.getItemHandlerCache();
+            BlockCapabilityCache<IItemHandler, @Nullable Direction> destinationCache = cache.getDestination(serverLevel);
+            destinationPos = destinationCache.pos();
+            itemHandler = destinationCache.getCapability();
+            if (itemHandler == null)
+                itemHandler = getEntityItemHandlerAt(level, destinationPos, destinationCache.context());
+            hopperHandler = cache.getHopperHandler();
+        } else {
+            Direction hopperFacing = hopper.getBlockState().getValue(HopperBlock.FACING);
+            destinationPos = hopper.getBlockPos().relative(hopperFacing);
+            itemHandler = getItemHandlerAt(level, destinationPos, hopperFacing.getOpposite());
+            hopperHandler = new InvWrapper(hopper);
+        }
+
+        if (itemHandler == null || isFull(itemHandler))
+            return false;
+
+        HopperBlockEntity destinationHopper = getHopperAt(level, destinationPos);
+        boolean destinationWasEmpty = destinationHopper != null && isEmpty(itemHandler);
+        // Moves the first item of the hopper that fits in the destination
+        if (ItemHandlerHelper.transfer(hopperHandler, itemHandler, stack -> true, 1) > 0) {
+            if (destinationWasEmpty) {
+                setDestinationCooldown(hopper, destinationHopper);
+            }
+            return true;
+        }
+
+        return false;
     }
 
     /**
@@ -129,17 +117,29 @@ public class VanillaInventoryCodeHooks {
      */
     public static ItemStack insertCrafterOutput(Level level, BlockPos pos, CrafterBlockEntity crafterBlockEntity, ItemStack stack) {
         FrontAndTop frontAndTop = level.getBlockState(pos).getValue(BlockStateProperties.ORIENTATION);
-        return getAttachedItemHandler(level, pos, frontAndTop.front())
-                .map(destinationResult -> {
-                    IItemHandler itemHandler = destinationResult.getKey();
-                    Object destination = destinationResult.getValue();
-                    ItemStack remainder = putStackInInventoryAllSlots(crafterBlockEntity, destination, itemHandler, stack);
-                    return remainder;
-                })
-                .orElse(stack);
+        BlockPos destinationPos = pos.relative(frontAndTop.front());
+        IItemHandler itemHandler = getItemHandlerAt(level, destinationPos, frontAndTop.front().getOpposite());
+        if (itemHandler == null)
+            return stack;
+
+        return putStackInInventoryAllSlots(crafterBlockEntity, getHopperAt(level, destinationPos), itemHandler, stack);
     }
 
-    private static ItemStack putStackInInventoryAllSlots(BlockEntity source, Object destination, IItemHandler destInventory, ItemStack stack) {
+    private static ItemStack putStackInInventoryAllSlots(BlockEntity source, @Nullable HopperBlockEntity destination, IItemHandler destInventory, ItemStack stack) {
+        if (destInventory instanceof IItemHandlerSlotSummary summary) {
+            // Only empty slots and slots holding the same item can accept the stack, visit them in order
+            Item item = stack.getItem();
+            int emptySlot = summary.getNextEmptySlot(0);
+            int itemSlot = summary.getNextSlotWithItem(item, 0);
+            while ((emptySlot >= 0 || itemSlot >= 0) && !stack.isEmpty()) {
+                int slot = emptySlot < 0 ? itemSlot : itemSlot < 0 ? emptySlot : Math.min(emptySlot, itemSlot);
+                stack = insertStack(source, destination, destInventory, stack, slot);
+                emptySlot = summary.getNextEmptySlot(slot + 1);
+                itemSlot = summary.getNextSlotWithItem(item, slot + 1);
+            }
+            return stack;
+        }
+
         for (int slot = 0; slot < destInventory.getSlots() && !stack.isEmpty(); slot++) {
             stack = insertStack(source, destination, destInventory, stack, slot);
         }
@@ -149,7 +149,7 @@ public class VanillaInventoryCodeHooks {
     /**
      * Copied from TileEntityHopper#insertStack and added capability support
      */
-    private static ItemStack insertStack(BlockEntity source, Object destination, IItemHandler destInventory, ItemStack stack, int slot) {
+    private static ItemStack insertStack(BlockEntity source, @Nullable HopperBlockEntity destination, IItemHandler destInventory, ItemStack stack, int slot) {
         ItemStack itemstack = destInventory.getStackInSlot(slot);
 
         if (destInventory.insertItem(slot, stack, true).isEmpty()) {
@@ -167,18 +167,8 @@ public class VanillaInventoryCodeHooks {
             }
 
             if (insertedItem) {
-                if (inventoryWasEmpty && destination instanceof HopperBlockEntity) {
-                    HopperBlockEntity destinationHopper = (HopperBlockEntity) destination;
-
-                    if (!destinationHopper.isOnCustomCooldown()) {
-                        int k = 0;
-                        if (source instanceof HopperBlockEntity) {
-                            if (destinationHopper.getLastUpdateTime() >= ((HopperBlockEntity) source).getLastUpdateTime()) {
-                                k = 1;
-                            }
-                        }
-                        destinationHopper.setCooldown(8 - k);
-                    }
+                if (inventoryWasEmpty && destination != null) {
+                    setDestinationCooldown(source, destination);
                 }
             }
         }
@@ -186,7 +176,25 @@ public class VanillaInventoryCodeHooks {
         return stack;
     }
 
+    /**
+     * Copied from HopperBlockEntity#tryMoveInItem, sets the cooldown of a hopper that received its first item
+     */
+    private static void setDestinationCooldown(BlockEntity source, HopperBlockEntity destinationHopper) {
+        if (!destinationHopper.isOnCustomCooldown()) {
+            int k = 0;
+            if (source instanceof HopperBlockEntity) {
+                if (destinationHopper.getLastUpdateTime() >= ((HopperBlockEntity) source).getLastUpdateTime()) {
+                    k = 1;
+                }
+            }
+            destinationHopper.setCooldown(8 - k);
+        }
+    }
+
     private static boolean isFull(IItemHandler itemHandler) {
+        if (itemHandler instanceof IItemHandlerSlotSummary summary) {
+            return summary.areAllSlotsFull();
+        }
         for (int slot = 0; slot < itemHandler.getSlots(); slot++) {
             ItemStack stackInSlot = itemHandler.getStackInSlot(slot);
             if (stackInSlot.isEmpty() || stackInSlot.getCount() < itemHandler.getSlotLimit(slot)) {
@@ -197,6 +205,9 @@ public class VanillaInventoryCodeHooks {
     }
 
     private static boolean isEmpty(IItemHandler itemHandler) {
+        if (itemHandler instanceof IItemHandlerSlotSummary summary) {
+            return summary.areAllSlotsEmpty();
+        }
         for (int slot = 0; slot < itemHandler.getSlots(); slot++) {
             ItemStack stackInSlot = itemHandler.getStackInSlot(slot);
             if (stackInSlot.getCount() > 0) {
@@ -206,36 +217,67 @@ public class VanillaInventoryCodeHooks {
         return true;
     }
 
-    private static Optional<Pair<IItemHandler, Object>> getAttachedItemHandler(Level level, BlockPos pos, Direction direction) {
-        return getItemHandlerAt(level, pos.getX() + direction.getStepX() + 0.5, pos.getY() + direction.getStepY() + 0.5, pos.getZ() + direction.getStepZ() + 0.5, direction.getOpposite());
+    @Nullable
+    private static IItemHandler getSourceItemHandler(Level level, Hopper hopper) {
+        if (hopper instanceof HopperBlockEntity hopperBlockEntity && level instanceof ServerLevel serverLevel) {
+            // Allocation free lookup, as this runs every tick for every hopper
+            BlockCapabilityCache<IItemHandler, @Nullable Direction> sourceCache = hopperBlockEntity.getItemHandlerCache().getSource(serverLevel);
+            IItemHandler blockCap = sourceCache.getCapability();
+            return blockCap != null ? blockCap : getEntityItemHandlerAt(level, sourceCache.pos(), Direction.DOWN);
+        }
+
+        double x = hopper.getLevelX();
+        double y = hopper.getLevelY() + 1.0;
+        double z = hopper.getLevelZ();
+        BlockPos blockpos = BlockPos.containing(x, y, z);
+        IItemHandler blockCap = getBlockItemHandlerAt(level, blockpos, Direction.DOWN);
+        return blockCap != null ? blockCap : getEntityItemHandlerAt(level, x, y, z, Direction.DOWN);
     }
 
-    private static Optional<Pair<IItemHandler, Object>> getSourceItemHandler(Level level, Hopper hopper) {
-        return getItemHandlerAt(level, hopper.getLevelX(), hopper.getLevelY() + 1.0, hopper.getLevelZ(), Direction.DOWN);
+    @Nullable
+    private static IItemHandler getItemHandlerAt(Level level, BlockPos pos, Direction side) {
+        IItemHandler blockCap = getBlockItemHandlerAt(level, pos, side);
+        return blockCap != null ? blockCap : getEntityItemHandlerAt(level, pos, side);
     }
 
-    private static Optional<Pair<IItemHandler, Object>> getItemHandlerAt(Level worldIn, double x, double y, double z, final Direction side) {
-        BlockPos blockpos = BlockPos.containing(x, y, z);
-        BlockState state = worldIn.getBlockState(blockpos);
-        BlockEntity blockEntity = state.hasBlockEntity() ? worldIn.getBlockEntity(blockpos) : null;
+    @Nullable
+    private static IItemHandler getBlockItemHandlerAt(Level level, BlockPos pos, Direction side) {
+        BlockState state = level.getBlockState(pos);
+        BlockEntity blockEntity = state.hasBlockEntity() ? level.getBlockEntity(pos) : null;
+        return level.getCapability(Capabilities.ItemHandler.BLOCK, pos, state, blockEntity, side);
+    }
 
-        // Look for block capability first
-        var blockCap = worldIn.getCapability(Capabilities.ItemHandler.BLOCK, blockpos, state, blockEntity, side);
-        if (blockCap != null)
-            return Optional.of(ImmutablePair.of(blockCap, blockEntity));
+    @Nullable
+    private static IItemHandler getEntityItemHandlerAt(Level level, BlockPos pos, @Nullable Direction side) {
+        return getEntityItemHandlerAt(level, pos.getX() + 0.5, pos.getY() + 0.5, pos.getZ() + 0.5, side);
+    }
+
+    @Nullable
+    private static IItemHandler getEntityItemHandlerAt(Level level, double x, double y, double z, @Nullable Direction side) {
+        // Skip the entity search in the sections without any entity that may provide the capability
+        if (!AutomationEntityIndex.mayContainEntities(level, x - 0.5D, y - 0.5D, z - 0.5D, x + 0.5D, y + 0.5D, z + 0.5D))
+            return null;
 
-        // Otherwise fallback to automation entity capability
+        // Fallback to automation entity capability
         // Note: the isAlive check matches what vanilla does for hoppers in EntitySelector.CONTAINER_ENTITY_SELECTOR
-        List<Entity> list = worldIn.getEntities((Entity) null, new AABB(x - 0.5D, y - 0.5D, z - 0.5D, x + 0.5D, y + 0.5D, z + 0.5D), EntitySelector.ENTITY_STILL_ALIVE);
+        List<Entity> list = level.getEntities((Entity) null, new AABB(x - 0.5D, y - 0.5D, z - 0.5D, x + 0.5D, y + 0.5D, z + 0.5D), EntitySelector.ENTITY_STILL_ALIVE);
         if (!list.isEmpty()) {
             Collections.shuffle(list);
             for (Entity entity : list) {
                 IItemHandler entityCap = entity.getCapability(Capabilities.ItemHandler.ENTITY_AUTOMATION, side);
                 if (entityCap != null)
-                    return Optional.of(ImmutablePair.of(entityCap, entity));
+                    return entityCap;
             }
         }
 
-        return Optional.empty();
+        return null;
+    }
+
+    /**
+     * {@return the hopper at the given position, whose cooldown is set when it receives its first item}
+     */
+    @Nullable
+    private static HopperBlockEntity getHopperAt(Level level, BlockPos pos) {
+        return level.getBlockEntity(pos) instanceof HopperBlockEntity hopper ? hopper : null;
     }
 }
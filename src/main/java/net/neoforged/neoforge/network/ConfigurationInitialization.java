@@ -6,6 +6,7 @@
 package net.neoforged.neoforge.network;
 
 import java.util.function.Consumer;
+import net.minecraft.network.ConnectionProtocol;
 import net.minecraft.network.protocol.configuration.ServerConfigurationPacketListener;
 import net.minecraft.server.network.ConfigurationTask;
 import net.minecraft.server.network.config.SynchronizeRegistriesTask;
@@ -14,16 +15,25 @@ import net.neoforged.fml.common.EventBusSubscriber;
 import net.neoforged.neoforge.network.configuration.CheckExtensibleEnums;
 import net.neoforged.neoforge.network.configuration.CommonRegisterTask;
 import net.neoforged.neoforge.network.configuration.CommonVersionTask;
+import net.neoforged.neoforge.network.configuration.QueryCachedContents;
 import net.neoforged.neoforge.network.configuration.RegistryDataMapNegotiation;
 import net.neoforged.neoforge.network.configuration.SyncConfig;
+import net.neoforged.neoforge.network.configuration.SyncPayloadDictionary;
 import net.neoforged.neoforge.network.configuration.SyncRegistries;
 import net.neoforged.neoforge.network.event.RegisterConfigurationTasksEvent;
+import net.neoforged.neoforge.network.payload.CachedConfigFilesPayload;
+import net.neoforged.neoforge.network.payload.CachedContentsPayload;
+import net.neoforged.neoforge.network.payload.CachedContentsReplyPayload;
 import net.neoforged.neoforge.network.payload.CommonRegisterPayload;
 import net.neoforged.neoforge.network.payload.CommonVersionPayload;
+import net.neoforged.neoforge.network.payload.CompressedPayload;
 import net.neoforged.neoforge.network.payload.ConfigFilePayload;
 import net.neoforged.neoforge.network.payload.FrozenRegistryPayload;
 import net.neoforged.neoforge.network.payload.FrozenRegistrySyncCompletedPayload;
 import net.neoforged.neoforge.network.payload.FrozenRegistrySyncStartPayload;
+import net.neoforged.neoforge.network.payload.MissingCachedContentsPayload;
+import net.neoforged.neoforge.network.payload.PayloadDictionaryPayload;
+import net.neoforged.neoforge.network.registration.NetworkRegistry;
 import org.jetbrains.annotations.ApiStatus;
 
 @ApiStatus.Internal
@@ -34,10 +44,18 @@ public class ConfigurationInitialization {
      * and most importantly before vanilla's own {@link SynchronizeRegistriesTask}.
      */
     public static void configureEarlyTasks(ServerConfigurationPacketListener listener, Consumer<ConfigurationTask> tasks) {
+        // Runs first, such that the other tasks know what the client has cached
+        if (listener.hasChannel(CachedContentsPayload.TYPE) &&
+                listener.hasChannel(CachedContentsReplyPayload.TYPE) &&
+                listener.hasChannel(CachedConfigFilesPayload.TYPE) &&
+                listener.hasChannel(MissingCachedContentsPayload.TYPE)) {
+            tasks.accept(new QueryCachedContents(listener));
+        }
+
         if (listener.hasChannel(FrozenRegistrySyncStartPayload.TYPE) &&
                 listener.hasChannel(FrozenRegistryPayload.TYPE) &&
                 listener.hasChannel(FrozenRegistrySyncCompletedPayload.TYPE)) {
-            tasks.accept(new SyncRegistries());
+            tasks.accept(new SyncRegistries(listener));
         }
     }
 
@@ -53,6 +71,10 @@ public class ConfigurationInitialization {
             event.register(new SyncConfig(listener));
         }
 
+        if (listener.hasChannel(PayloadDictionaryPayload.TYPE) && NetworkRegistry.hasChannel(listener.getConnection(), ConnectionProtocol.PLAY, CompressedPayload.TYPE.id())) {
+            event.register(new SyncPayloadDictionary(listener));
+        }
+
         //These two can always be registered they detect the listener connection type internally and will skip themselves.
         event.register(new RegistryDataMapNegotiation(listener));
         event.register(new CheckExtensibleEnums(listener));
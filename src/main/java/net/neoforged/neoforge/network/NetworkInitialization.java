@@ -9,6 +9,7 @@ import net.neoforged.bus.api.SubscribeEvent;
 import net.neoforged.fml.common.EventBusSubscriber;
 import net.neoforged.neoforge.internal.versions.neoforge.NeoForgeVersion;
 import net.neoforged.neoforge.network.configuration.CheckExtensibleEnums;
+import net.neoforged.neoforge.network.configuration.QueryCachedContents;
 import net.neoforged.neoforge.network.event.RegisterPayloadHandlersEvent;
 import net.neoforged.neoforge.network.handlers.ClientPayloadHandler;
 import net.neoforged.neoforge.network.handlers.ServerPayloadHandler;
@@ -17,7 +18,11 @@ import net.neoforged.neoforge.network.payload.AdvancedAddEntityPayload;
 import net.neoforged.neoforge.network.payload.AdvancedContainerSetDataPayload;
 import net.neoforged.neoforge.network.payload.AdvancedOpenScreenPayload;
 import net.neoforged.neoforge.network.payload.AuxiliaryLightDataPayload;
+import net.neoforged.neoforge.network.payload.CachedConfigFilesPayload;
+import net.neoforged.neoforge.network.payload.CachedContentsPayload;
+import net.neoforged.neoforge.network.payload.CachedContentsReplyPayload;
 import net.neoforged.neoforge.network.payload.ClientboundCustomSetTimePayload;
+import net.neoforged.neoforge.network.payload.CoalescedPayload;
 import net.neoforged.neoforge.network.payload.ConfigFilePayload;
 import net.neoforged.neoforge.network.payload.ExtensibleEnumAcknowledgePayload;
 import net.neoforged.neoforge.network.payload.ExtensibleEnumDataPayload;
@@ -26,9 +31,16 @@ import net.neoforged.neoforge.network.payload.FrozenRegistrySyncCompletedPayload
 import net.neoforged.neoforge.network.payload.FrozenRegistrySyncStartPayload;
 import net.neoforged.neoforge.network.payload.KnownRegistryDataMapsPayload;
 import net.neoforged.neoforge.network.payload.KnownRegistryDataMapsReplyPayload;
+import net.neoforged.neoforge.network.payload.MissingCachedContentsPayload;
+import net.neoforged.neoforge.network.payload.PayloadDictionaryPayload;
+import net.neoforged.neoforge.network.payload.RegistryDataMapResyncPayload;
 import net.neoforged.neoforge.network.payload.RegistryDataMapSyncPayload;
+import net.neoforged.neoforge.network.payload.SyncChunkAttachmentsPayload;
+import net.neoforged.neoforge.network.payload.SyncEntityAttachmentsPayload;
+import net.neoforged.neoforge.network.registration.HandlerThread;
 import net.neoforged.neoforge.network.registration.PayloadRegistrar;
 import net.neoforged.neoforge.registries.ClientRegistryManager;
+import net.neoforged.neoforge.registries.DataMapSync;
 import net.neoforged.neoforge.registries.RegistryManager;
 import org.jetbrains.annotations.ApiStatus;
 
@@ -44,14 +56,6 @@ public class NetworkInitialization {
                         ConfigFilePayload.TYPE,
                         ConfigFilePayload.STREAM_CODEC,
                         ClientPayloadHandler::handle)
-                .configurationToClient(
-                        FrozenRegistrySyncStartPayload.TYPE,
-                        FrozenRegistrySyncStartPayload.STREAM_CODEC,
-                        ClientPayloadHandler::handle)
-                .configurationToClient(
-                        FrozenRegistryPayload.TYPE,
-                        FrozenRegistryPayload.STREAM_CODEC,
-                        ClientPayloadHandler::handle)
                 .configurationBidirectional(
                         FrozenRegistrySyncCompletedPayload.TYPE,
                         FrozenRegistrySyncCompletedPayload.STREAM_CODEC,
@@ -80,20 +84,72 @@ public class NetworkInitialization {
                         AdvancedOpenScreenPayload.TYPE,
                         AdvancedOpenScreenPayload.STREAM_CODEC,
                         ClientPayloadHandler::handle)
+                .playToClient(AdvancedContainerSetDataPayload.TYPE,
+                        AdvancedContainerSetDataPayload.STREAM_CODEC,
+                        ClientPayloadHandler::handle)
+                .playToClient(
+                        SyncEntityAttachmentsPayload.TYPE,
+                        SyncEntityAttachmentsPayload.STREAM_CODEC,
+                        ClientPayloadHandler::handle)
+                .playToClient(
+                        SyncChunkAttachmentsPayload.TYPE,
+                        SyncChunkAttachmentsPayload.STREAM_CODEC,
+                        ClientPayloadHandler::handle);
+        registrar
+                .dictionarySampled() // The same for every player that receives them, so they may be part of the compression dictionary.
                 .playToClient(
                         AuxiliaryLightDataPayload.TYPE,
                         AuxiliaryLightDataPayload.STREAM_CODEC,
                         ClientPayloadHandler::handle)
+                .playToClient(
+                        ClientboundCustomSetTimePayload.TYPE,
+                        ClientboundCustomSetTimePayload.STREAM_CODEC,
+                        ClientPayloadHandler::handle);
+        registrar
+                .versioned("2") // Registry snapshots use a compact format, and configuration data is cached by the client.
+                .configurationToClient(
+                        FrozenRegistrySyncStartPayload.TYPE,
+                        FrozenRegistrySyncStartPayload.STREAM_CODEC,
+                        ClientPayloadHandler::handle)
+                .configurationToClient(
+                        FrozenRegistryPayload.TYPE,
+                        FrozenRegistryPayload.STREAM_CODEC,
+                        ClientPayloadHandler::handle)
+                .configurationToClient(
+                        CachedContentsPayload.TYPE,
+                        CachedContentsPayload.STREAM_CODEC,
+                        ClientPayloadHandler::handle)
+                .configurationToServer(
+                        CachedContentsReplyPayload.TYPE,
+                        CachedContentsReplyPayload.STREAM_CODEC,
+                        QueryCachedContents::handleReply)
+                .configurationToClient(
+                        CachedConfigFilesPayload.TYPE,
+                        CachedConfigFilesPayload.STREAM_CODEC,
+                        ClientPayloadHandler::handle)
+                .configurationToServer(
+                        MissingCachedContentsPayload.TYPE,
+                        MissingCachedContentsPayload.STREAM_CODEC,
+                        ServerPayloadHandler::handle)
+                .configurationToClient(
+                        PayloadDictionaryPayload.TYPE,
+                        PayloadDictionaryPayload.STREAM_CODEC,
+                        ClientPayloadHandler::handle);
+        registrar
+                .versioned("2") // Data maps are synced as deltas.
                 .playToClient(
                         RegistryDataMapSyncPayload.TYPE,
                         RegistryDataMapSyncPayload.STREAM_CODEC,
                         ClientRegistryManager::handleDataMapSync)
-                .playToClient(AdvancedContainerSetDataPayload.TYPE,
-                        AdvancedContainerSetDataPayload.STREAM_CODEC,
-                        ClientPayloadHandler::handle)
+                .playToServer(
+                        RegistryDataMapResyncPayload.TYPE,
+                        RegistryDataMapResyncPayload.STREAM_CODEC,
+                        DataMapSync::handleResyncRequest);
+        registrar
+                .executesOn(HandlerThread.NETWORK) // The coalesced payloads are dispatched to their own handlers.
                 .playToClient(
-                        ClientboundCustomSetTimePayload.TYPE,
-                        ClientboundCustomSetTimePayload.STREAM_CODEC,
+                        CoalescedPayload.TYPE,
+                        CoalescedPayload.STREAM_CODEC,
                         ClientPayloadHandler::handle);
     }
 }
@@ -9,6 +9,7 @@ import com.google.common.base.Preconditions;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.multiplayer.ClientPacketListener;
 import net.minecraft.network.protocol.Packet;
@@ -23,6 +24,9 @@ import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.level.ChunkPos;
 import net.neoforged.fml.loading.FMLEnvironment;
+import net.neoforged.neoforge.network.bundle.PayloadCoalescer;
+import net.neoforged.neoforge.network.filters.SharedEncodedPacket;
+import net.neoforged.neoforge.network.registration.NetworkRegistry;
 import net.neoforged.neoforge.server.ServerLifecycleHooks;
 import org.jetbrains.annotations.Nullable;
 
@@ -55,7 +59,7 @@ public final class PacketDistributor {
      * Send the given payload(s) to all players in the given dimension
      */
     public static void sendToPlayersInDimension(ServerLevel level, CustomPacketPayload payload, CustomPacketPayload... payloads) {
-        level.getServer().getPlayerList().broadcastAll(makeClientboundPacket(payload, payloads), level.dimension());
+        broadcast(level.getServer().getPlayerCount(), packet -> level.getServer().getPlayerList().broadcastAll(packet, level.dimension()), payload, payloads);
     }
 
     /**
@@ -71,8 +75,7 @@ public final class PacketDistributor {
             double radius,
             CustomPacketPayload payload,
             CustomPacketPayload... payloads) {
-        Packet<?> packet = makeClientboundPacket(payload, payloads);
-        level.getServer().getPlayerList().broadcast(excluded, x, y, z, radius, level.dimension(), packet);
+        broadcast(level.getServer().getPlayerCount(), packet -> level.getServer().getPlayerList().broadcast(excluded, x, y, z, radius, level.dimension(), packet), payload, payloads);
     }
 
     /**
@@ -80,7 +83,7 @@ public final class PacketDistributor {
      */
     public static void sendToAllPlayers(CustomPacketPayload payload, CustomPacketPayload... payloads) {
         MinecraftServer server = Objects.requireNonNull(ServerLifecycleHooks.getCurrentServer(), "Cannot send clientbound payloads on the client");
-        server.getPlayerList().broadcastAll(makeClientboundPacket(payload, payloads));
+        broadcast(server.getPlayerCount(), packet -> server.getPlayerList().broadcastAll(packet), payload, payloads);
     }
 
     /**
@@ -88,7 +91,7 @@ public final class PacketDistributor {
      */
     public static void sendToPlayersTrackingEntity(Entity entity, CustomPacketPayload payload, CustomPacketPayload... payloads) {
         if (entity.level().getChunkSource() instanceof ServerChunkCache chunkCache) {
-            chunkCache.broadcast(entity, makeClientboundPacket(payload, payloads));
+            broadcast(chunkCache.getLevel().getServer().getPlayerCount(), packet -> chunkCache.broadcast(entity, packet), payload, payloads);
         } else {
             throw new IllegalStateException("Cannot send clientbound payloads on the client");
         }
@@ -99,7 +102,7 @@ public final class PacketDistributor {
      */
     public static void sendToPlayersTrackingEntityAndSelf(Entity entity, CustomPacketPayload payload, CustomPacketPayload... payloads) {
         if (entity.level().getChunkSource() instanceof ServerChunkCache chunkCache) {
-            chunkCache.broadcastAndSend(entity, makeClientboundPacket(payload, payloads));
+            broadcast(chunkCache.getLevel().getServer().getPlayerCount(), packet -> chunkCache.broadcastAndSend(entity, packet), payload, payloads);
         } else {
             throw new IllegalStateException("Cannot send clientbound payloads on the client");
         }
@@ -109,9 +112,33 @@ public final class PacketDistributor {
      * Send the given payload(s) to all players tracking the chunk at the given position in the given level
      */
     public static void sendToPlayersTrackingChunk(ServerLevel level, ChunkPos chunkPos, CustomPacketPayload payload, CustomPacketPayload... payloads) {
-        Packet<?> packet = makeClientboundPacket(payload, payloads);
-        for (ServerPlayer player : level.getChunkSource().chunkMap.getPlayers(chunkPos, false)) {
-            player.connection.send(packet);
+        List<ServerPlayer> players = level.getChunkSource().chunkMap.getPlayers(chunkPos, false);
+        broadcast(players.size(), packet -> {
+            for (ServerPlayer player : players) {
+                player.connection.send(packet);
+            }
+        }, payload, payloads);
+    }
+
+    /**
+     * Creates the packet for payload(s) that are sent to multiple players, and passes it to the sender.
+     * <p>
+     * Single payloads are wrapped in a {@link SharedEncodedPacket}, such that they are only encoded once for all the players,
+     * unless they are coalesced by the {@link PayloadCoalescer} or there are not several players to share the encoding.
+     *
+     * @param maxRecipients the maximum number of players the packet may be sent to
+     */
+    private static void broadcast(int maxRecipients, Consumer<Packet<?>> sender, CustomPacketPayload payload, CustomPacketPayload... payloads) {
+        if (maxRecipients > 1 && payloads.length == 0 && !NetworkRegistry.isCoalesced(payload)) {
+            SharedEncodedPacket packet = new SharedEncodedPacket(new ClientboundCustomPayloadPacket(payload));
+            try {
+                sender.accept(packet);
+            } finally {
+                // The connections hold their own reference until the packet is written
+                packet.release();
+            }
+        } else {
+            sender.accept(makeClientboundPacket(payload, payloads));
         }
     }
 
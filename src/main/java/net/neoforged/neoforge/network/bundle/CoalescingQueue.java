@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.network.bundle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.common.ClientboundCustomPayloadPacket;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.neoforged.neoforge.network.payload.CoalescedPayload;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * The coalesced payloads of a connection that wait for the end of the tick.
+ * <p>
+ * The frames sent by {@link #flush} go through the coalescer of the connection again.
+ * The queue refuses payloads while it is flushing, such that they are sent right away instead of being queued behind the frame they belong to.
+ * </p>
+ */
+@ApiStatus.Internal
+public final class CoalescingQueue {
+    private final List<CustomPacketPayload> queued = new ArrayList<>();
+    private boolean flushing = false;
+
+    /**
+     * Queues a payload, unless the queue is being flushed.
+     *
+     * @return {@code true} if the payload was queued, and must not be sent now
+     */
+    public boolean offer(CustomPacketPayload payload) {
+        if (flushing) {
+            return false;
+        }
+        queued.add(payload);
+        return true;
+    }
+
+    public boolean isEmpty() {
+        return queued.isEmpty();
+    }
+
+    /**
+     * Drops the queued payloads without sending them.
+     */
+    public void clear() {
+        queued.clear();
+    }
+
+    /**
+     * Sends the queued payloads in frames of up to {@link PayloadCoalescer#MAX_PAYLOADS_PER_FRAME} payloads, in the order they were queued.
+     * A frame holding a single payload is sent as that payload.
+     *
+     * @return the number of frames that were sent
+     */
+    public int flush(Consumer<Packet<?>> sender) {
+        List<CustomPacketPayload> payloads = List.copyOf(queued);
+        queued.clear();
+        flushing = true;
+        try {
+            int frames = 0;
+            for (int start = 0; start < payloads.size(); start += PayloadCoalescer.MAX_PAYLOADS_PER_FRAME) {
+                List<CustomPacketPayload> frame = payloads.subList(start, Math.min(start + PayloadCoalescer.MAX_PAYLOADS_PER_FRAME, payloads.size()));
+                if (frame.size() == 1) {
+                    sender.accept(new ClientboundCustomPayloadPacket(frame.getFirst()));
+                } else {
+                    sender.accept(new ClientboundCustomPayloadPacket(new CoalescedPayload(frame)));
+                }
+                frames++;
+            }
+            return frames;
+        } finally {
+            flushing = false;
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.network.bundle;
+
+import io.netty.util.AttributeKey;
+import it.unimi.dsi.fastutil.objects.ReferenceLinkedOpenHashSet;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import net.minecraft.network.Connection;
+import net.minecraft.network.ConnectionProtocol;
+import net.minecraft.network.PacketSendListener;
+import net.minecraft.network.VarInt;
+import net.minecraft.network.protocol.BundlePacket;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.common.ClientboundCustomPayloadPacket;
+import net.minecraft.network.protocol.common.ServerCommonPacketListener;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.neoforged.bus.api.EventPriority;
+import net.neoforged.bus.api.SubscribeEvent;
+import net.neoforged.fml.common.EventBusSubscriber;
+import net.neoforged.neoforge.event.server.ServerStoppedEvent;
+import net.neoforged.neoforge.event.tick.ServerTickEvent;
+import net.neoforged.neoforge.internal.versions.neoforge.NeoForgeVersion;
+import net.neoforged.neoforge.network.payload.CoalescedPayload;
+import net.neoforged.neoforge.network.registration.NetworkRegistry;
+import net.neoforged.neoforge.network.registration.PayloadRegistrar;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Coalesces the client-bound play payloads registered with {@link PayloadRegistrar#coalesced()}.
+ *
+ * <p>Coalesced payloads sent from the server thread are queued per connection, and sent at the end of the tick
+ * in {@link CoalescedPayload}s, such that a single frame carries all the payloads of the tick.
+ * Payloads that cannot be queued (sent from another thread, or with a send listener) flush the queue of their connection first,
+ * and so do terminal packets, such that payloads are always received in the order they were sent.
+ * The frames sent by a flush are never queued again, see {@link CoalescingQueue}.
+ *
+ * <p>Connections whose client does not know {@link CoalescedPayload}, and in-memory connections, are never coalesced.
+ */
+@ApiStatus.Internal
+@EventBusSubscriber(modid = NeoForgeVersion.MOD_ID)
+public final class PayloadCoalescer {
+    /**
+     * Maximum number of payloads in a single {@link CoalescedPayload}.
+     * Larger frames are still split by the packet splitter if needed.
+     */
+    public static final int MAX_PAYLOADS_PER_FRAME = 512;
+
+    private static final AttributeKey<PayloadCoalescer> COALESCER = AttributeKey.valueOf("neoforge:payload_coalescer");
+    private static final int COALESCED_ID_SIZE = idSize();
+
+    /**
+     * Coalescers that have queued payloads. Only accessed from the server thread.
+     */
+    private static final Set<PayloadCoalescer> pending = new ReferenceLinkedOpenHashSet<>();
+
+    // Metrics, updated on the server thread
+    private static long ticks = 0;
+    private static long payloadsCoalesced = 0;
+    private static long framesSent = 0;
+    // Updated on the network threads
+    private static final AtomicLong bytesSaved = new AtomicLong();
+
+    private final ServerCommonPacketListener listener;
+    private final CoalescingQueue queue = new CoalescingQueue();
+
+    private PayloadCoalescer(ServerCommonPacketListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Called for every packet sent by a server listener, before it is sent.
+     *
+     * @return {@code true} if the packet was queued, and must not be sent now
+     */
+    public static boolean offer(Packet<?> packet, ServerCommonPacketListener listener, @Nullable PacketSendListener sendListener) {
+        Connection connection = listener.getConnection();
+        if (!listener.getMainThreadEventLoop().isSameThread()) {
+            // Queues are only accessed from the server thread
+            return false;
+        }
+
+        PayloadCoalescer coalescer = connection.channel().attr(COALESCER).get();
+        if (sendListener == null && packet instanceof ClientboundCustomPayloadPacket customPayloadPacket && canCoalesce(listener, customPayloadPacket.payload())) {
+            if (coalescer == null || coalescer.listener != listener) {
+                coalescer = new PayloadCoalescer(listener);
+                connection.channel().attr(COALESCER).set(coalescer);
+            }
+            boolean wasEmpty = coalescer.queue.isEmpty();
+            // Refused while the queue is flushing, the payloads of the frames being sent go out right away
+            if (!coalescer.queue.offer(customPayloadPacket.payload())) {
+                return false;
+            }
+            if (wasEmpty) {
+                pending.add(coalescer);
+            }
+            payloadsCoalesced++;
+            return true;
+        }
+
+        if (coalescer != null && !coalescer.queue.isEmpty() && (packet.isTerminal() || containsCoalesced(packet))) {
+            pending.remove(coalescer);
+            coalescer.flush();
+        }
+        return false;
+    }
+
+    private static boolean canCoalesce(ServerCommonPacketListener listener, CustomPacketPayload payload) {
+        return listener.protocol() == ConnectionProtocol.PLAY
+                && NetworkRegistry.isCoalesced(payload)
+                && !listener.getConnection().isMemoryConnection()
+                && NetworkRegistry.hasChannel(listener, CoalescedPayload.TYPE.id());
+    }
+
+    private static boolean containsCoalesced(Packet<?> packet) {
+        if (packet instanceof ClientboundCustomPayloadPacket customPayloadPacket) {
+            return NetworkRegistry.isCoalesced(customPayloadPacket.payload());
+        } else if (packet instanceof BundlePacket<?> bundlePacket) {
+            for (var subPacket : bundlePacket.subPackets()) {
+                if (containsCoalesced(subPacket)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void flush() {
+        if (!listener.getConnection().isConnected()) {
+            queue.clear();
+            return;
+        }
+        framesSent += queue.flush(listener::send);
+    }
+
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public static void flushAll(ServerTickEvent.Post event) {
+        ticks++;
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<PayloadCoalescer> coalescers = new ArrayList<>(pending);
+        pending.clear();
+        for (PayloadCoalescer coalescer : coalescers) {
+            coalescer.flush();
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerStopped(ServerStoppedEvent event) {
+        for (PayloadCoalescer coalescer : pending) {
+            coalescer.queue.clear();
+        }
+        pending.clear();
+    }
+
+    /**
+     * Records the size of an encoded {@link CoalescedPayload}.
+     *
+     * @param separateSize the size of the frames that the payloads would have used if they were sent separately
+     * @param payloadSize  the size of the encoded coalesced payload, without its id
+     */
+    public static void recordEncoded(int separateSize, int payloadSize) {
+        int packetSize = 1 + COALESCED_ID_SIZE + payloadSize;
+        bytesSaved.addAndGet(separateSize - (VarInt.getByteSize(packetSize) + packetSize));
+    }
+
+    private static int idSize() {
+        int length = CoalescedPayload.TYPE.id().toString().getBytes(StandardCharsets.UTF_8).length;
+        return VarInt.getByteSize(length) + length;
+    }
+
+    /**
+     * {@return a snapshot of the coalescing metrics}
+     * Must be called from the server thread.
+     */
+    public static Metrics getMetrics() {
+        return new Metrics(ticks, payloadsCoalesced, framesSent, bytesSaved.get());
+    }
+
+    /**
+     * Metrics of the {@link PayloadCoalescer}, since the game started.
+     *
+     * @param ticks             the number of server ticks
+     * @param payloadsCoalesced the number of payloads that were queued
+     * @param framesSent        the number of frames that were used to send the queued payloads
+     * @param bytesSaved        the number of bytes saved on the wire by coalescing, before compression
+     */
+    public record Metrics(long ticks, long payloadsCoalesced, long framesSent, long bytesSaved) {
+        /**
+         * {@return the number of frames saved by coalescing}
+         */
+        public long framesSaved() {
+            return payloadsCoalesced - framesSent;
+        }
+
+        /**
+         * {@return the average number of frames saved per tick}
+         */
+        public double framesSavedPerTick() {
+            return ticks == 0 ? 0 : (double) framesSaved() / ticks;
+        }
+
+        /**
+         * {@return the average number of bytes saved per tick}
+         */
+        public double bytesSavedPerTick() {
+            return ticks == 0 ? 0 : (double) bytesSaved / ticks;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.network.codec;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraft.network.codec.StreamCodec;
+import net.neoforged.neoforge.network.filters.GenericPacketSplitter;
+
+/**
+ * A payload codec that can decode a payload while its parts are being received.
+ * <p>
+ * Payloads that are too large to be sent in a single packet are split by the {@link GenericPacketSplitter},
+ * and their parts are normally reassembled before the payload is decoded.
+ * When the codec of the payload implements this interface, each part is given to a {@link Decoder} as it is received instead,
+ * such that the whole payload never has to be held in memory.
+ * <p>
+ * Decoders receive the raw bytes of the payload, without access to the registries.
+ * Codecs that need a {@link net.minecraft.network.RegistryFriendlyByteBuf} should not implement this interface.
+ *
+ * @param <B> the type of buffer the codec uses when the payload is not split
+ * @param <V> the type of the payload
+ */
+public interface IncrementalStreamCodec<B extends ByteBuf, V> extends StreamCodec<B, V> {
+    /**
+     * {@return a new decoder for a payload that is received in multiple parts}
+     */
+    Decoder<V> createDecoder();
+
+    /**
+     * Decodes a payload from the parts it is received in. Called on the network thread.
+     *
+     * @param <V> the type of the payload
+     */
+    interface Decoder<V> {
+        /**
+         * Reads the next bytes of the payload.
+         * <p>
+         * Parts are not aligned with the values of the payload: the bytes that are not read are kept,
+         * and given again with the bytes of the next part.
+         *
+         * @param buf the bytes received since the last call, after the bytes that were not read
+         */
+        void decodePart(ByteBuf buf);
+
+        /**
+         * Called once all the bytes of the payload were given to {@link #decodePart(ByteBuf)}, and read.
+         *
+         * @return the payload
+         */
+        V finish();
+
+        /**
+         * Called if the payload will not be received completely, for example because the connection was closed.
+         */
+        default void discard() {}
+    }
+}
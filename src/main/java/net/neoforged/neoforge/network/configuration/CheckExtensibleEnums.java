@@ -9,10 +9,13 @@ import com.google.common.base.Preconditions;
 import com.google.common.collect.Sets;
 import com.mojang.logging.LogUtils;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -45,6 +48,7 @@ public record CheckExtensibleEnums(ServerConfigurationPacketListener listener) i
     private static final org.objectweb.asm.Type NETWORKED_ENUM = org.objectweb.asm.Type.getType(NetworkedEnum.class);
     private static final List<? extends Class<? extends Enum<?>>> NETWORKED_EXTENSIBLE_ENUM_CLASSES = collectNetworkedEnumClasses();
     private static Map<String, EnumEntry> enumEntries = null;
+    private static Long enumEntriesHash = null;
 
     @Override
     public void start(Consumer<Packet<?>> packetSender) {
@@ -68,6 +72,12 @@ public record CheckExtensibleEnums(ServerConfigurationPacketListener listener) i
             return;
         }
 
+        if (QueryCachedContents.getCachedKeys(listener.getConnection(), ConfigurationCache.EXTENSIBLE_ENUMS).contains(getEnumEntriesHash())) {
+            // The client has the same enum entries as the server
+            listener.finishCurrentTask(TYPE);
+            return;
+        }
+
         packetSender.accept(new ExtensibleEnumDataPayload(enumEntries).toVanillaClientbound());
     }
 
@@ -186,6 +196,24 @@ public record CheckExtensibleEnums(ServerConfigurationPacketListener listener) i
         return enumEntries;
     }
 
+    /**
+     * {@return the hash of the encoded enum entries, which is the same on both sides if they have the same enum entries}
+     */
+    public static synchronized long getEnumEntriesHash() {
+        if (enumEntriesHash == null) {
+            ByteBuf buf = Unpooled.buffer();
+            try {
+                getEnumEntries().values().stream()
+                        .sorted(Comparator.comparing(EnumEntry::className))
+                        .forEach(entry -> EnumEntry.STREAM_CODEC.encode(buf, entry));
+                enumEntriesHash = ConfigurationCache.hash(ByteBufUtil.getBytes(buf));
+            } finally {
+                buf.release();
+            }
+        }
+        return enumEntriesHash;
+    }
+
     private static ExtensionInfo getEnumExtensionInfo(Class<? extends Enum<?>> enumClass) {
         try {
             Method mth = enumClass.getDeclaredMethod("getExtensionInfo");
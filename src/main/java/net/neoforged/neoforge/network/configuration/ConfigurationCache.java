@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.network.configuration;
+
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Bytes;
+import com.google.common.primitives.Longs;
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import net.minecraft.Util;
+import net.minecraft.network.Connection;
+import net.neoforged.fml.loading.FMLPaths;
+import net.neoforged.neoforge.common.NeoForgeConfig;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A cache of the data received from servers, used on the client to skip sending data that did not change since the last time it joined a server.
+ *
+ * <p>Entries are stored in {@code .cache/neoforge/<kind>} in the game directory, in files named after their key,
+ * which is the {@linkplain #hash(byte[]) hash} of their contents unless stated otherwise.
+ * The least recently used entries of a kind are removed when there are more than {@value #MAX_ENTRIES_PER_KIND} of them,
+ * once per kind and game session.
+ *
+ * <p>Entries and the index are written on the {@linkplain Util#ioPool() IO pool}, such that payload handlers do not wait for the disk.
+ *
+ * <p>The client also keeps an index of the entries it received from each server, and advertises them to that server
+ * when joining it again with a {@link QueryCachedContents} task. Configuration tasks then skip the data that the client has.
+ */
+@ApiStatus.Internal
+public final class ConfigurationCache {
+    /**
+     * Registry snapshots.
+     */
+    public static final String REGISTRIES = "registries";
+    /**
+     * Server config files.
+     */
+    public static final String CONFIGS = "configs";
+    /**
+     * Synced data maps, keyed by {@link DataMapCache#getKey}.
+     */
+    public static final String DATA_MAPS = "data_maps";
+    /**
+     * Payload compression dictionaries.
+     */
+    public static final String PAYLOAD_DICTIONARIES = "payload_dictionaries";
+    /**
+     * Not a kind of entries, but the hash of the extensible enum data of the client.
+     * The server skips checking the extensible enums if it matches its own.
+     */
+    public static final String EXTENSIBLE_ENUMS = "extensible_enums";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConfigurationCache.class);
+    private static final int MAX_ENTRIES_PER_KIND = 512;
+    private static final int MAX_INDEXED_ENTRIES_PER_KIND = 256;
+    /**
+     * The kinds of entries that were pruned during this session.
+     */
+    private static final Set<String> PRUNED_KINDS = ConcurrentHashMap.newKeySet();
+
+    private ConfigurationCache() {}
+
+    /**
+     * {@return whether the client caches the data received from servers}
+     */
+    public static boolean isEnabled() {
+        return NeoForgeConfig.CLIENT.cacheConfigurationData.getAsBoolean();
+    }
+
+    /**
+     * {@return the hash of the given data, used as its key in the cache}
+     */
+    public static long hash(byte[] data) {
+        return Hashing.murmur3_128().hashBytes(data).asLong();
+    }
+
+    /**
+     * {@return whether an entry with the given key is cached}
+     */
+    public static boolean contains(String kind, long key) {
+        return isEnabled() && Files.isRegularFile(getPath(kind, key));
+    }
+
+    /**
+     * {@return the cached data with the given key, or {@code null} if it is not cached or is corrupted}
+     */
+    @Nullable
+    public static byte[] get(String kind, long key) {
+        if (!isEnabled()) {
+            return null;
+        }
+
+        Path path = getPath(kind, key);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try {
+            // Entries start with the hash of their contents
+            byte[] entry = Files.readAllBytes(path);
+            byte[] data = entry.length < Long.BYTES ? null : Arrays.copyOfRange(entry, Long.BYTES, entry.length);
+            if (data == null || hash(data) != Longs.fromByteArray(entry)) {
+                LOGGER.warn("Removing corrupted configuration cache entry {}", path);
+                Files.deleteIfExists(path);
+                return null;
+            }
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+            return data;
+        } catch (IOException e) {
+            LOGGER.warn("Failed to read configuration cache entry {}", path, e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the given data in the cache, keyed by its hash, and remembers that it was received from the server of the connection.
+     *
+     * @return the hash of the data
+     */
+    public static long put(Connection connection, String kind, byte[] data) {
+        long key = hash(data);
+        put(connection, kind, key, data);
+        return key;
+    }
+
+    /**
+     * Stores the given data in the cache, and remembers that it was received from the server of the connection.
+     * The data is written asynchronously.
+     */
+    public static void put(Connection connection, String kind, long key, byte[] data) {
+        if (!isEnabled() || connection.isMemoryConnection()) {
+            return;
+        }
+
+        Path path = getPath(kind, key);
+        Path indexPath = getIndexPath(connection);
+        Util.ioPool().execute(() -> {
+            try {
+                if (Files.isRegularFile(path)) {
+                    Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+                } else {
+                    Files.createDirectories(path.getParent());
+                    // Write to a temporary file first, such that a crash does not leave a partial entry behind
+                    Path temp = Files.createTempFile(path.getParent(), "entry", ".tmp");
+                    try {
+                        Files.write(temp, Bytes.concat(Longs.toByteArray(hash(data)), data));
+                        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    } finally {
+                        Files.deleteIfExists(temp);
+                    }
+                    // Listing the entries is costly, and the cache only grows by what is received in a session
+                    if (PRUNED_KINDS.add(kind)) {
+                        prune(path.getParent());
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Failed to write configuration cache entry {}", path, e);
+                return;
+            }
+            addToIndex(indexPath, kind, key);
+        });
+    }
+
+    /**
+     * Marks the entry with the given key as used, and remembers that it was received from the server of the connection.
+     * The entry and the index are updated asynchronously.
+     *
+     * @return {@code true} if the entry is cached, or {@code false} if it must be {@linkplain #put(Connection, String, long, byte[]) put} in the cache
+     */
+    public static boolean touch(Connection connection, String kind, long key) {
+        if (!isEnabled() || connection.isMemoryConnection()) {
+            return false;
+        }
+
+        Path path = getPath(kind, key);
+        if (!Files.isRegularFile(path)) {
+            return false;
+        }
+        Path indexPath = getIndexPath(connection);
+        Util.ioPool().execute(() -> {
+            try {
+                Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+            } catch (IOException e) {
+                // The entry was removed in the meantime
+                return;
+            }
+            addToIndex(indexPath, kind, key);
+        });
+        return true;
+    }
+
+    /**
+     * {@return the keys of the cached entries that were received from the server of the connection, by kind}
+     */
+    public static Map<String, List<Long>> getCachedKeys(Connection connection) {
+        if (!isEnabled() || connection.isMemoryConnection()) {
+            return Map.of();
+        }
+
+        Map<String, List<Long>> keys = new HashMap<>();
+        readIndex(getIndexPath(connection)).forEach((kind, indexed) -> {
+            List<Long> cached = new ArrayList<>();
+            for (long key : indexed) {
+                Path path = getPath(kind, key);
+                try {
+                    // Mark the entry as used, such that it is not removed while joining
+                    Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+                    cached.add(key);
+                } catch (IOException e) {
+                    // The entry was removed
+                }
+            }
+            if (!cached.isEmpty()) {
+                keys.put(kind, cached);
+            }
+        });
+        return keys;
+    }
+
+    private static synchronized void addToIndex(Path path, String kind, long key) {
+        Map<String, LongLinkedOpenHashSet> index = readIndex(path);
+        LongLinkedOpenHashSet keys = index.computeIfAbsent(kind, k -> new LongLinkedOpenHashSet());
+        keys.addAndMoveToLast(key);
+        while (keys.size() > MAX_INDEXED_ENTRIES_PER_KIND) {
+            keys.removeFirstLong();
+        }
+
+        List<String> lines = new ArrayList<>();
+        index.forEach((k, indexed) -> indexed.forEach(indexedKey -> lines.add(k + " " + Long.toHexString(indexedKey))));
+        try {
+            Files.createDirectories(path.getParent());
+            Files.write(path, lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to write configuration cache index {}", path, e);
+        }
+    }
+
+    private static synchronized Map<String, LongLinkedOpenHashSet> readIndex(Path path) {
+        Map<String, LongLinkedOpenHashSet> index = new HashMap<>();
+        if (!Files.isRegularFile(path)) {
+            return index;
+        }
+        try {
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                String[] parts = line.split(" ");
+                if (parts.length == 2) {
+                    index.computeIfAbsent(parts[0], k -> new LongLinkedOpenHashSet()).add(Long.parseUnsignedLong(parts[1], 16));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            LOGGER.warn("Failed to read configuration cache index {}", path, e);
+        }
+        return index;
+    }
+
+    private static void prune(Path directory) throws IOException {
+        List<Path> entries;
+        try (Stream<Path> files = Files.list(directory)) {
+            entries = files.filter(file -> file.getFileName().toString().endsWith(".bin")).toList();
+        }
+        if (entries.size() <= MAX_ENTRIES_PER_KIND) {
+            return;
+        }
+
+        List<Path> oldest = entries.stream()
+                .sorted(Comparator.comparing(ConfigurationCache::getLastModifiedTime))
+                .limit(entries.size() - MAX_ENTRIES_PER_KIND)
+                .toList();
+        for (Path entry : oldest) {
+            Files.deleteIfExists(entry);
+        }
+    }
+
+    private static FileTime getLastModifiedTime(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static Path getRoot() {
+        return FMLPaths.GAMEDIR.get().resolve(".cache").resolve("neoforge");
+    }
+
+    private static Path getPath(String kind, long key) {
+        return getRoot().resolve(kind).resolve(String.format("%016x.bin", key));
+    }
+
+    private static Path getIndexPath(Connection connection) {
+        // The remote address includes the host name the client connected to
+        long server = hash(String.valueOf(connection.getRemoteAddress()).getBytes(StandardCharsets.UTF_8));
+        return getRoot().resolve("servers").resolve(String.format("%016x.txt", server));
+    }
+}
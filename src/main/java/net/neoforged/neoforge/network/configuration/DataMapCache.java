@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.network.configuration;
+
+import com.google.common.hash.Hashing;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import net.minecraft.core.Registry;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.network.Connection;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.neoforged.neoforge.network.handling.IPayloadContext;
+import net.neoforged.neoforge.network.payload.RegistryDataMapSyncPayload;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores the contents of synced data maps in the {@link ConfigurationCache}, as full {@link RegistryDataMapSyncPayload}s.
+ *
+ * <p>Entries are keyed by the registry, the id of the data map and the hash of its contents,
+ * since different data maps may have contents with the same hash.
+ */
+@ApiStatus.Internal
+public final class DataMapCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DataMapCache.class);
+
+    private DataMapCache() {}
+
+    /**
+     * {@return the key of the contents of a data map in the cache}
+     *
+     * @param hash the hash of the contents, as computed by the server
+     */
+    public static long getKey(ResourceKey<? extends Registry<?>> registryKey, ResourceLocation id, long hash) {
+        return Hashing.murmur3_128().newHasher()
+                .putString(registryKey.location().toString(), StandardCharsets.UTF_8)
+                .putString(id.toString(), StandardCharsets.UTF_8)
+                .putLong(hash)
+                .hash()
+                .asLong();
+    }
+
+    /**
+     * {@return whether the client of the connection advertised the contents of a data map as cached}
+     */
+    public static boolean isCached(Connection connection, ResourceKey<? extends Registry<?>> registryKey, ResourceLocation id, long hash) {
+        return QueryCachedContents.getCachedKeys(connection, ConfigurationCache.DATA_MAPS).contains(getKey(registryKey, id, hash));
+    }
+
+    /**
+     * Stores the contents of a data map in the cache, unless they are cached already.
+     */
+    public static <R> void store(IPayloadContext context, RegistryAccess registryAccess, ResourceKey<? extends Registry<R>> registryKey, ResourceLocation id, long hash, Map<ResourceKey<R>, ?> values) {
+        if (!ConfigurationCache.isEnabled()) {
+            return;
+        }
+
+        final long key = getKey(registryKey, id, hash);
+        if (ConfigurationCache.touch(context.connection(), ConfigurationCache.DATA_MAPS, key)) {
+            return;
+        }
+
+        final RegistryFriendlyByteBuf buf = new RegistryFriendlyByteBuf(Unpooled.buffer(), registryAccess, context.listener().getConnectionType());
+        try {
+            RegistryDataMapSyncPayload.STREAM_CODEC.encode(buf, new RegistryDataMapSyncPayload<>(registryKey, Map.of(id, RegistryDataMapSyncPayload.Contents.full(hash, values))));
+            ConfigurationCache.put(context.connection(), ConfigurationCache.DATA_MAPS, key, ByteBufUtil.getBytes(buf));
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to cache data map {} of registry {}", id, registryKey.location(), e);
+        } finally {
+            buf.release();
+        }
+    }
+
+    /**
+     * {@return the cached contents of a data map with the given hash, or {@code null} if they are not cached}
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public static <R> Map<ResourceKey<R>, ?> load(IPayloadContext context, RegistryAccess registryAccess, ResourceKey<? extends Registry<R>> registryKey, ResourceLocation id, long hash) {
+        final byte[] data = ConfigurationCache.get(ConfigurationCache.DATA_MAPS, getKey(registryKey, id, hash));
+        if (data == null) {
+            return null;
+        }
+
+        final RegistryFriendlyByteBuf buf = new RegistryFriendlyByteBuf(Unpooled.wrappedBuffer(data), registryAccess, context.listener().getConnectionType());
+        try {
+            final RegistryDataMapSyncPayload<?> cached = RegistryDataMapSyncPayload.STREAM_CODEC.decode(buf);
+            final RegistryDataMapSyncPayload.Contents<?> contents = cached.dataMaps().get(id);
+            if (!cached.registryKey().equals(registryKey) || contents == null || !contents.full() || contents.hash() != hash) {
+                return null;
+            }
+            return ((RegistryDataMapSyncPayload.Contents<R>) contents).values();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to read cached data map {} of registry {}", id, registryKey.location(), e);
+            return null;
+        } finally {
+            buf.release();
+        }
+    }
+}
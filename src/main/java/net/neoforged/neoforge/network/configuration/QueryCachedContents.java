@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.network.configuration;
+
+import io.netty.util.AttributeKey;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.longs.LongSets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import net.minecraft.network.Connection;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.network.protocol.configuration.ServerConfigurationPacketListener;
+import net.minecraft.resources.ResourceLocation;
+import net.neoforged.neoforge.internal.versions.neoforge.NeoForgeVersion;
+import net.neoforged.neoforge.network.handling.IPayloadContext;
+import net.neoforged.neoforge.network.payload.CachedContentsPayload;
+import net.neoforged.neoforge.network.payload.CachedContentsReplyPayload;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Configuration task that asks the client which data it has in its {@link ConfigurationCache}.
+ * <p>
+ * The other configuration tasks use {@link #getCachedKeys(Connection, String)} to skip sending the data the client has.
+ * </p>
+ *
+ * @param listener the listener of the connection to query
+ */
+@ApiStatus.Internal
+public record QueryCachedContents(ServerConfigurationPacketListener listener) implements ICustomConfigurationTask {
+    private static final ResourceLocation ID = ResourceLocation.fromNamespaceAndPath(NeoForgeVersion.MOD_ID, "query_cached_contents");
+    public static final Type TYPE = new Type(ID);
+    private static final AttributeKey<Map<String, LongSet>> CACHED_KEYS = AttributeKey.valueOf("neoforge:cached_contents");
+
+    @Override
+    public void run(Consumer<CustomPacketPayload> sender) {
+        sender.accept(CachedContentsPayload.INSTANCE);
+    }
+
+    public static void handleReply(CachedContentsReplyPayload payload, IPayloadContext context) {
+        Map<String, LongSet> keys = new HashMap<>();
+        payload.keys().forEach((kind, kindKeys) -> keys.put(kind, LongSets.unmodifiable(new LongOpenHashSet(kindKeys))));
+        context.connection().channel().attr(CACHED_KEYS).set(keys);
+        context.finishCurrentTask(TYPE);
+    }
+
+    /**
+     * {@return the keys of the entries of the given kind that the client of the connection has cached}
+     * Empty if the client did not reply to the query, or does not cache data.
+     */
+    public static LongSet getCachedKeys(Connection connection, String kind) {
+        Map<String, LongSet> keys = connection.channel().attr(CACHED_KEYS).get();
+        return keys == null ? LongSets.EMPTY_SET : keys.getOrDefault(kind, LongSets.EMPTY_SET);
+    }
+
+    @Override
+    public Type type() {
+        return TYPE;
+    }
+}
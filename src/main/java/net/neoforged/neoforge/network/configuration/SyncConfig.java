@@ -5,16 +5,28 @@
 
 package net.neoforged.neoforge.network.configuration;
 
+import it.unimi.dsi.fastutil.longs.LongSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Consumer;
 import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
 import net.minecraft.network.protocol.configuration.ServerConfigurationPacketListener;
 import net.minecraft.resources.ResourceLocation;
 import net.neoforged.neoforge.internal.versions.neoforge.NeoForgeVersion;
 import net.neoforged.neoforge.network.ConfigSync;
+import net.neoforged.neoforge.network.handling.IPayloadContext;
+import net.neoforged.neoforge.network.payload.CachedConfigFilesPayload;
+import net.neoforged.neoforge.network.payload.ConfigFilePayload;
 import org.jetbrains.annotations.ApiStatus;
 
 /**
  * Configuration task that syncs the config files to the client
+ * <p>
+ * Config files that the client has {@linkplain QueryCachedContents cached} are only referred to by their hash.
+ * The task then waits for the client to name the files it could not find in its cache, and sends those in full.
+ * </p>
  * 
  * @param listener the listener to indicate to that the task is complete
  */
@@ -25,8 +37,38 @@ public record SyncConfig(ServerConfigurationPacketListener listener) implements
 
     @Override
     public void run(Consumer<CustomPacketPayload> sender) {
-        ConfigSync.syncConfigs().forEach(sender);
-        listener().finishCurrentTask(type());
+        LongSet cached = QueryCachedContents.getCachedKeys(listener.getConnection(), ConfigurationCache.CONFIGS);
+        Map<String, Long> fromCache = new HashMap<>();
+        for (ConfigFilePayload payload : ConfigSync.syncConfigs()) {
+            long hash = ConfigurationCache.hash(payload.contents());
+            if (cached.contains(hash)) {
+                fromCache.put(payload.fileName(), hash);
+            } else {
+                sender.accept(payload);
+            }
+        }
+
+        if (fromCache.isEmpty()) {
+            listener().finishCurrentTask(type());
+        } else {
+            // Finished once the client replied with the files missing from its cache
+            sender.accept(new CachedConfigFilesPayload(fromCache));
+        }
+    }
+
+    /**
+     * Sends the config files that the client could not find in its cache, and finishes the task.
+     */
+    public static void handleMissing(List<String> fileNames, IPayloadContext context) {
+        if (!fileNames.isEmpty()) {
+            Set<String> missing = Set.copyOf(fileNames);
+            for (ConfigFilePayload payload : ConfigSync.syncConfigs()) {
+                if (missing.contains(payload.fileName())) {
+                    context.reply(payload);
+                }
+            }
+        }
+        context.finishCurrentTask(TYPE);
     }
 
     @Override
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.network.configuration;
+
+import io.netty.util.AttributeKey;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.network.protocol.configuration.ServerConfigurationPacketListener;
+import net.minecraft.resources.ResourceLocation;
+import net.neoforged.neoforge.internal.versions.neoforge.NeoForgeVersion;
+import net.neoforged.neoforge.network.filters.PayloadCompressor;
+import net.neoforged.neoforge.network.filters.PayloadDictionary;
+import net.neoforged.neoforge.network.handling.IPayloadContext;
+import net.neoforged.neoforge.network.payload.PayloadDictionaryPayload;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Configuration task that sends the {@link PayloadDictionary} to the client, and starts compressing the payloads of the connection with it.
+ * <p>
+ * Skipped if the compression is disabled, or if the server did not build a dictionary yet.
+ * The dictionary is only referred to by its hash if the client has {@linkplain QueryCachedContents cached} it.
+ * The task then waits for the client to confirm that it found the dictionary in its cache, or sends it in full otherwise.
+ * </p>
+ *
+ * @param listener the listener to indicate to that the task is complete
+ */
+@ApiStatus.Internal
+public record SyncPayloadDictionary(ServerConfigurationPacketListener listener) implements ICustomConfigurationTask {
+    private static final ResourceLocation ID = ResourceLocation.fromNamespaceAndPath(NeoForgeVersion.MOD_ID, "sync_payload_dictionary");
+    public static final Type TYPE = new Type(ID);
+    /**
+     * The dictionary that was referred to by its hash, while waiting for the client to reply.
+     */
+    private static final AttributeKey<byte[]> ATTRIBUTE_OFFERED_DICTIONARY = AttributeKey.valueOf("neoforge:offered_payload_dictionary");
+
+    @Override
+    public void run(Consumer<CustomPacketPayload> sender) {
+        byte[] dictionary = PayloadDictionary.get();
+        if (dictionary == null) {
+            listener.finishCurrentTask(TYPE);
+            return;
+        }
+
+        long hash = ConfigurationCache.hash(dictionary);
+        if (QueryCachedContents.getCachedKeys(listener.getConnection(), ConfigurationCache.PAYLOAD_DICTIONARIES).contains(hash)) {
+            // Finished once the client replied whether it found the dictionary in its cache
+            listener.getConnection().channel().attr(ATTRIBUTE_OFFERED_DICTIONARY).set(dictionary);
+            sender.accept(new PayloadDictionaryPayload(hash, Optional.empty()));
+        } else {
+            sender.accept(new PayloadDictionaryPayload(hash, Optional.of(dictionary)));
+            PayloadCompressor.install(listener.getConnection(), dictionary);
+            listener.finishCurrentTask(TYPE);
+        }
+    }
+
+    /**
+     * Sends the dictionary if the client could not find it in its cache, starts compressing the payloads of the connection with it, and finishes the task.
+     */
+    public static void handleMissing(List<String> hashes, IPayloadContext context) {
+        byte[] dictionary = context.connection().channel().attr(ATTRIBUTE_OFFERED_DICTIONARY).getAndSet(null);
+        if (dictionary == null) {
+            context.disconnect(Component.translatable("neoforge.network.payload_compressor.not_offered"));
+            return;
+        }
+        if (!hashes.isEmpty()) {
+            context.reply(new PayloadDictionaryPayload(ConfigurationCache.hash(dictionary), Optional.of(dictionary)));
+        }
+        PayloadCompressor.install(context.connection(), dictionary);
+        context.finishCurrentTask(TYPE);
+    }
+
+    @Override
+    public Type type() {
+        return TYPE;
+    }
+}
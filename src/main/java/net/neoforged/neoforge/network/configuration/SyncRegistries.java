@@ -5,10 +5,17 @@
 
 package net.neoforged.neoforge.network.configuration;
 
+import it.unimi.dsi.fastutil.longs.LongSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Consumer;
 import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.network.protocol.configuration.ServerConfigurationPacketListener;
 import net.minecraft.resources.ResourceLocation;
 import net.neoforged.neoforge.internal.versions.neoforge.NeoForgeVersion;
+import net.neoforged.neoforge.network.handling.IPayloadContext;
 import net.neoforged.neoforge.network.payload.FrozenRegistrySyncCompletedPayload;
 import net.neoforged.neoforge.network.payload.FrozenRegistrySyncStartPayload;
 import net.neoforged.neoforge.registries.RegistryManager;
@@ -16,19 +23,54 @@ import org.jetbrains.annotations.ApiStatus;
 
 /**
  * Syncs registries to the client
+ * <p>
+ * Snapshots that the client has {@linkplain QueryCachedContents cached} are not sent,
+ * the client takes them from its {@link ConfigurationCache} instead.
+ * If some of them are missing from the cache, the client requests those before completing the sync.
+ * </p>
+ *
+ * @param listener the listener of the connection the registries are synced to
  */
 @ApiStatus.Internal
-public record SyncRegistries() implements ICustomConfigurationTask {
+public record SyncRegistries(ServerConfigurationPacketListener listener) implements ICustomConfigurationTask {
     private static final ResourceLocation ID = ResourceLocation.fromNamespaceAndPath(NeoForgeVersion.MOD_ID, "sync_registries");
     public static final Type TYPE = new Type(ID);
 
     @Override
     public void run(Consumer<CustomPacketPayload> sender) {
-        sender.accept(new FrozenRegistrySyncStartPayload(RegistryManager.getRegistryNamesForSyncToClient()));
-        RegistryManager.generateRegistryPackets(false).forEach(sender);
+        LongSet cached = QueryCachedContents.getCachedKeys(listener.getConnection(), ConfigurationCache.REGISTRIES);
+        Map<ResourceLocation, Long> fromCache = new HashMap<>();
+        var packets = RegistryManager.generateRegistryPackets(false).stream()
+                .filter(packet -> {
+                    if (cached.isEmpty()) {
+                        return true;
+                    }
+                    long hash = packet.snapshot().getHash();
+                    if (cached.contains(hash)) {
+                        fromCache.put(packet.registryName(), hash);
+                        return false;
+                    }
+                    return true;
+                })
+                .toList();
+
+        sender.accept(new FrozenRegistrySyncStartPayload(RegistryManager.getRegistryNamesForSyncToClient(), fromCache));
+        packets.forEach(sender);
         sender.accept(FrozenRegistrySyncCompletedPayload.INSTANCE);
     }
 
+    /**
+     * Sends the snapshots of the registries that the client could not find in its cache,
+     * followed by another {@link FrozenRegistrySyncCompletedPayload}.
+     */
+    public static void handleMissing(List<String> registryNames, IPayloadContext context) {
+        Set<String> missing = Set.copyOf(registryNames);
+        RegistryManager.generateRegistryPackets(false).stream()
+                .filter(packet -> missing.contains(packet.registryName().toString()))
+                .forEach(context::reply);
+        context.reply(FrozenRegistrySyncCompletedPayload.INSTANCE);
+    }
+
     @Override
     public Type type() {
         return TYPE;
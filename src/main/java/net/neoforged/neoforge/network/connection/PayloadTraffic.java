@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.network.connection;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.FastThreadLocal;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import jdk.jfr.EventType;
+import net.minecraft.network.Connection;
+import net.minecraft.resources.ResourceLocation;
+import net.neoforged.neoforge.network.filters.PayloadTrafficMonitor;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Counts the payloads sent and received on a connection, per payload type and direction:
+ * the number of payloads, the size of their encoding, including their id, and the time spent encoding or decoding them.
+ *
+ * <p>Payloads are measured by their codec, and attributed to the connection by the {@link PayloadTrafficMonitor} of its pipeline.
+ * In-memory connections do not encode payloads, and are not measured.
+ * Payloads that are received in multiple parts are counted once they are reassembled, with the size of the reassembled packet.
+ * Payloads carried by another payload, such as coalesced payloads, are counted under their own type, and only the overhead is counted for the carrying payload.
+ *
+ * <p>The counters of all the connections are also summed in the {@linkplain #total() total}, and every payload is reported to JFR as a {@link PayloadTrafficEvent}.
+ */
+public final class PayloadTraffic {
+    private static final AttributeKey<PayloadTraffic> ATTRIBUTE_PAYLOAD_TRAFFIC = AttributeKey.valueOf("neoforge:payload_traffic");
+    private static final PayloadTraffic TOTAL = new PayloadTraffic();
+    private static final EventType EVENT_TYPE = EventType.getEventType(PayloadTrafficEvent.class);
+    /**
+     * The last payload encoded or decoded on the current thread.
+     */
+    private static final FastThreadLocal<Measurement> MEASUREMENT = new FastThreadLocal<>() {
+        @Override
+        protected Measurement initialValue() {
+            return new Measurement();
+        }
+    };
+
+    private final Map<ResourceLocation, Counters> sent = new ConcurrentHashMap<>();
+    private final Map<ResourceLocation, Counters> received = new ConcurrentHashMap<>();
+
+    private PayloadTraffic() {}
+
+    /**
+     * {@return the payload traffic of the given connection}
+     */
+    public static PayloadTraffic get(Connection connection) {
+        return get(connection.channel());
+    }
+
+    private static PayloadTraffic get(Channel channel) {
+        PayloadTraffic traffic = channel.attr(ATTRIBUTE_PAYLOAD_TRAFFIC).get();
+        if (traffic == null) {
+            traffic = new PayloadTraffic();
+            PayloadTraffic existing = channel.attr(ATTRIBUTE_PAYLOAD_TRAFFIC).setIfAbsent(traffic);
+            if (existing != null) {
+                traffic = existing;
+            }
+        }
+        return traffic;
+    }
+
+    /**
+     * {@return the payload traffic of all the connections since the game started, or since it was {@linkplain #reset() reset}}
+     */
+    public static PayloadTraffic total() {
+        return TOTAL;
+    }
+
+    /**
+     * {@return a snapshot of the counters of each payload type in the given direction}
+     */
+    public Map<ResourceLocation, Summary> getSummaries(Direction direction) {
+        return counters(direction).entrySet().stream().collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, entry -> entry.getValue().summarize()));
+    }
+
+    /**
+     * Resets the counters of all payload types.
+     */
+    public void reset() {
+        sent.clear();
+        received.clear();
+    }
+
+    private Map<ResourceLocation, Counters> counters(Direction direction) {
+        return direction == Direction.SENT ? sent : received;
+    }
+
+    private void add(Direction direction, ResourceLocation id, int bytes, long nanos) {
+        Counters counters = counters(direction).computeIfAbsent(id, k -> new Counters());
+        counters.packets.increment();
+        counters.bytes.add(bytes);
+        counters.nanos.add(nanos);
+    }
+
+    /**
+     * Records a payload sent or received on the given channel.
+     */
+    @ApiStatus.Internal
+    public static void record(Channel channel, Direction direction, ResourceLocation id, int bytes, long nanos) {
+        get(channel).add(direction, id, bytes, nanos);
+        TOTAL.add(direction, id, bytes, nanos);
+
+        if (EVENT_TYPE.isEnabled()) {
+            PayloadTrafficEvent event = new PayloadTrafficEvent(channel.remoteAddress(), direction, id, bytes, nanos);
+            event.commit();
+        }
+    }
+
+    /**
+     * Called by the payload codec after it encoded or decoded a payload.
+     * The payload includes the {@linkplain #measuredNested nested payloads} measured on the current thread since the previous payload.
+     */
+    @ApiStatus.Internal
+    public static void measured(ResourceLocation id, int bytes, long nanos) {
+        Measurement measurement = MEASUREMENT.get();
+        measurement.id = id;
+        measurement.bytes = bytes;
+        measurement.nanos = nanos;
+        measurement.claimNested();
+    }
+
+    /**
+     * Called by the codecs of payloads that carry other payloads, such as coalesced payloads, after they encoded or decoded one of them.
+     * Nested payloads are recorded under their own id, and their size and time are deducted from the payload that carries them.
+     */
+    @ApiStatus.Internal
+    public static void measuredNested(ResourceLocation id, int bytes, long nanos) {
+        MEASUREMENT.get().pending.add(id, bytes, nanos);
+    }
+
+    /**
+     * Forgets the last payload encoded or decoded on the current thread.
+     */
+    @ApiStatus.Internal
+    public static void clearMeasurement() {
+        Measurement measurement = MEASUREMENT.get();
+        measurement.id = null;
+        measurement.pending.clear();
+        measurement.nested.clear();
+    }
+
+    /**
+     * {@return the size of the last payload encoded or decoded on the current thread, or {@code -1} if there is none}
+     */
+    @ApiStatus.Internal
+    public static int getMeasuredBytes() {
+        Measurement measurement = MEASUREMENT.get();
+        return measurement.id != null ? measurement.bytes : -1;
+    }
+
+    /**
+     * Records the last payload encoded or decoded on the current thread, if it has the given id, and forgets it.
+     *
+     * @return {@code true} if the payload was recorded
+     */
+    @ApiStatus.Internal
+    public static boolean recordMeasurement(Channel channel, Direction direction, ResourceLocation id) {
+        Measurement measurement = MEASUREMENT.get();
+        if (!id.equals(measurement.id)) {
+            return false;
+        }
+        measurement.id = null;
+        NestedMeasurements nested = measurement.nested;
+        int bytes = measurement.bytes;
+        long nanos = measurement.nanos;
+        for (int i = 0; i < nested.size; i++) {
+            record(channel, direction, nested.ids[i], nested.bytes[i], nested.nanos[i]);
+            bytes -= nested.bytes[i];
+            nanos -= nested.nanos[i];
+        }
+        nested.clear();
+        // Only the overhead of the carrying payload is left
+        record(channel, direction, id, bytes, nanos);
+        return true;
+    }
+
+    public enum Direction {
+        SENT,
+        RECEIVED
+    }
+
+    /**
+     * The traffic of a payload type in one direction.
+     *
+     * @param packets the number of payloads
+     * @param bytes   the size of the encoded payloads, including their id
+     * @param nanos   the time spent encoding or decoding the payloads, in nanoseconds
+     */
+    public record Summary(long packets, long bytes, long nanos) {}
+
+    private static final class Counters {
+        private final LongAdder packets = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        private Summary summarize() {
+            return new Summary(packets.sum(), bytes.sum(), nanos.sum());
+        }
+    }
+
+    private static final class Measurement {
+        @Nullable
+        private ResourceLocation id;
+        private int bytes;
+        private long nanos;
+        /**
+         * The nested payloads measured since the last payload, and the nested payloads of the last payload.
+         */
+        private NestedMeasurements pending = new NestedMeasurements();
+        private NestedMeasurements nested = new NestedMeasurements();
+
+        private void claimNested() {
+            NestedMeasurements claimed = pending;
+            pending = nested;
+            pending.clear();
+            nested = claimed;
+        }
+    }
+
+    private static final class NestedMeasurements {
+        private ResourceLocation[] ids = new ResourceLocation[8];
+        private int[] bytes = new int[8];
+        private long[] nanos = new long[8];
+        private int size;
+
+        private void add(ResourceLocation id, int bytes, long nanos) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                this.bytes = Arrays.copyOf(this.bytes, size * 2);
+                this.nanos = Arrays.copyOf(this.nanos, size * 2);
+            }
+            ids[size] = id;
+            this.bytes[size] = bytes;
+            this.nanos[size] = nanos;
+            size++;
+        }
+
+        private void clear() {
+            Arrays.fill(ids, 0, size, null);
+            size = 0;
+        }
+    }
+}
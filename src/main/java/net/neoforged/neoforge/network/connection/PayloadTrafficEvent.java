@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.network.connection;
+
+import java.net.SocketAddress;
+import java.util.Locale;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import net.minecraft.resources.ResourceLocation;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * JFR event recorded for every payload sent or received on a connection.
+ *
+ * @see PayloadTraffic
+ */
+@ApiStatus.Internal
+@Name(PayloadTrafficEvent.NAME)
+@Label("Payload Traffic")
+@Category({ "Minecraft", "Network" })
+@StackTrace(false)
+public class PayloadTrafficEvent extends Event {
+    public static final String NAME = "neoforge.PayloadTraffic";
+
+    @Name("remoteAddress")
+    @Label("Remote Address")
+    public final String remoteAddress;
+    @Name("direction")
+    @Label("Direction")
+    public final String direction;
+    @Name("payloadId")
+    @Label("Payload Id")
+    public final String payloadId;
+    @Name("bytes")
+    @Label("Bytes")
+    @DataAmount
+    public final int bytes;
+    @Name("codecTime")
+    @Label("Encoding or Decoding Time")
+    @Timespan
+    public final long codecTime;
+
+    public PayloadTrafficEvent(SocketAddress remoteAddress, PayloadTraffic.Direction direction, ResourceLocation payloadId, int bytes, long codecTime) {
+        this.remoteAddress = String.valueOf(remoteAddress);
+        this.direction = direction.name().toLowerCase(Locale.ROOT);
+        this.payloadId = payloadId.toString();
+        this.bytes = bytes;
+        this.codecTime = codecTime;
+    }
+}
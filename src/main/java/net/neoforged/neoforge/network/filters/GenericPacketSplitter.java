@@ -6,35 +6,57 @@
 package net.neoforged.neoforge.network.filters;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToMessageEncoder;
-import java.util.ArrayList;
 import java.util.List;
 import net.minecraft.network.CompressionDecoder;
 import net.minecraft.network.Connection;
 import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.network.HandlerNames;
 import net.minecraft.network.PacketEncoder;
+import net.minecraft.network.ProtocolInfo;
+import net.minecraft.network.VarInt;
 import net.minecraft.network.chat.Component;
 import net.minecraft.network.codec.StreamCodec;
 import net.minecraft.network.protocol.Packet;
 import net.minecraft.network.protocol.PacketFlow;
 import net.minecraft.network.protocol.common.ClientboundCustomPayloadPacket;
 import net.minecraft.network.protocol.common.ServerboundCustomPayloadPacket;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.util.profiling.jfr.JvmProfiler;
 import net.neoforged.bus.api.SubscribeEvent;
 import net.neoforged.fml.common.EventBusSubscriber;
+import net.neoforged.neoforge.common.NeoForgeConfig;
 import net.neoforged.neoforge.internal.versions.neoforge.NeoForgeVersion;
+import net.neoforged.neoforge.network.codec.IncrementalStreamCodec;
+import net.neoforged.neoforge.network.connection.ConnectionType;
+import net.neoforged.neoforge.network.connection.PayloadTraffic;
 import net.neoforged.neoforge.network.event.RegisterPayloadHandlersEvent;
 import net.neoforged.neoforge.network.handling.IPayloadContext;
 import net.neoforged.neoforge.network.payload.SplitPacketPayload;
+import net.neoforged.neoforge.network.registration.ChannelAttributes;
+import net.neoforged.neoforge.network.registration.HandlerThread;
 import net.neoforged.neoforge.network.registration.NetworkRegistry;
+import net.neoforged.neoforge.network.registration.PayloadRegistrar;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * A generic packet splitter that can be used to split packets that are too large to be sent in one go.
+ *
+ * <p>Outbound packets are encoded once into a pooled buffer, which is forwarded as is if it is small enough,
+ * or sent as retained slices otherwise. {@link SharedEncodedPacket}s reuse the buffer encoded for another connection.
+ *
+ * <p>Inbound parts are reassembled into a composite buffer without copying, or decoded as they are received if the codec of the payload
+ * is an {@link IncrementalStreamCodec}. The size of a split payload is limited per channel, see {@link PayloadRegistrar#maxSplitSize(int)},
+ * and the size of the split packets a connection buffers is limited as well. Reading from the connection is paused while
+ * too many reassembled packets are waiting to be handled.
  */
 @ApiStatus.Internal
 @EventBusSubscriber(modid = NeoForgeVersion.MOD_ID, bus = EventBusSubscriber.Bus.MOD)
@@ -55,12 +77,22 @@ public class GenericPacketSplitter extends MessageToMessageEncoder<Packet<?>> im
     private static final byte STATE_FIRST = 1;
     private static final byte STATE_LAST = 2;
 
+    private static final long MEBIBYTE = 1024 * 1024;
+
     public static final String CHANNEL_HANDLER_NAME = "neoforge:splitter";
 
+    /**
+     * The protocol the {@link #prefix} was encoded for.
+     */
+    @Nullable
+    private ProtocolInfo<?> prefixProtocol;
+    private byte[] prefix = new byte[0];
+
     @SubscribeEvent
     private static void register(final RegisterPayloadHandlersEvent event) {
         event.registrar("1")
                 .optional()
+                .executesOn(HandlerThread.NETWORK) // Parts are reassembled on the network thread, and the reassembled packet is handled on the main thread.
                 .commonBidirectional(SplitPacketPayload.TYPE, SplitPacketPayload.STREAM_CODEC, GenericPacketSplitter::handle);
     }
 
@@ -68,6 +100,7 @@ public class GenericPacketSplitter extends MessageToMessageEncoder<Packet<?>> im
         if (context.channelHandlerContext().pipeline().get(CHANNEL_HANDLER_NAME) instanceof GenericPacketSplitter splitter) {
             splitter.receivedPacket(payload, context);
         } else {
+            payload.payload().release();
             LOGGER.error("Received split packet without a splitter");
             context.disconnect(Component.translatable("neoforge.network.packet_splitter.unknown"));
         }
@@ -87,9 +120,15 @@ public class GenericPacketSplitter extends MessageToMessageEncoder<Packet<?>> im
             return;
         }
 
+        if (packet.isTerminal()) {
+            // The encoder must see terminal packets to switch the protocol
+            out.add(packet);
+            return;
+        }
+
         if (!((ctx.pipeline().get(HandlerNames.ENCODER) instanceof PacketEncoder<?> encoder))) {
             // No encoder in pipeline, pipeline is probably unbound
-            out.add(packet);
+            out.add(packet instanceof SharedEncodedPacket shared ? shared.packet() : packet);
             return;
         }
 
@@ -97,72 +136,193 @@ public class GenericPacketSplitter extends MessageToMessageEncoder<Packet<?>> im
         // If there IS a compressor, use the NON-compressed limit since the compressor will compress after us!
         var sizeLimits = hasCompressor ? uncompressedSizeLimits : compressedSizeLimits;
 
-        FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
-        try {
-            @SuppressWarnings({ "unchecked", "rawtypes" }) // Eclipse requires the extra rawtype cast first.
-            var codec = (StreamCodec<ByteBuf, Packet<?>>) (StreamCodec) encoder.getProtocolInfo().codec();
-            codec.encode(buf, packet);
-            if (buf.readableBytes() <= sizeLimits.packet()) {
+        @SuppressWarnings({ "unchecked", "rawtypes" }) // Eclipse requires the extra rawtype cast first.
+        var codec = (StreamCodec<ByteBuf, Packet<?>>) (StreamCodec) encoder.getProtocolInfo().codec();
+        // Before encoding the packet, such that the packet is the last payload measured for the PayloadTraffic
+        byte[] prefix = getPrefix(encoder.getProtocolInfo(), codec);
+
+        ByteBuf buf;
+        if (packet instanceof SharedEncodedPacket shared) {
+            packet = shared.packet();
+            ConnectionType connectionType = ctx.channel().attr(ChannelAttributes.CONNECTION_TYPE).get();
+            try {
+                // Encoded by the first connection that writes the packet, and shared with the others
+                buf = shared.getOrEncode(connectionType != null ? connectionType : ConnectionType.OTHER, codec, ctx.alloc()).retainedDuplicate();
+            } catch (Throwable throwable) {
                 out.add(packet);
                 return;
             }
-
-            int parts = (int) Math.ceil(((double) buf.readableBytes()) / sizeLimits.part());
-            if (parts == 1) {
+        } else {
+            // Encode the packet only once, into a pooled buffer
+            buf = ctx.alloc().ioBuffer();
+            try {
+                codec.encode(buf, packet);
+            } catch (Throwable throwable) {
+                // Let the encoder encode it again, and report the error as usual
+                buf.release();
                 out.add(packet);
                 return;
             }
+        }
 
-            final byte[] packetData = buf.array();
-            for (int part = 0; part < parts; part++) {
-                final int partSize = Math.min(sizeLimits.part(), packetData.length - (part * sizeLimits.part()));
-                final byte[] payloadSlice = new byte[partSize + 1];
-
-                byte prefix = part == 0 ? STATE_FIRST : part == parts - 1 ? STATE_LAST : 0;
-                payloadSlice[0] = prefix;
-                System.arraycopy(packetData, part * sizeLimits.part(), payloadSlice, 1, partSize);
+        try {
+            int size = buf.readableBytes();
+            int parts = (int) Math.ceil(((double) size) / sizeLimits.part());
+            if (size <= sizeLimits.packet() || parts == 1) {
+                // The encoder forwards buffers as is, so the packet is not encoded a second time
+                JvmProfiler.INSTANCE.onPacketSent(encoder.getProtocolInfo().id(), packet.type(), ctx.channel().remoteAddress(), size);
+                out.add(buf.retain());
+                return;
+            }
 
-                out.add(createPacket(encoder.getProtocolInfo().flow(), payloadSlice));
+            for (int part = 0; part < parts; part++) {
+                final int partSize = Math.min(sizeLimits.part(), size - (part * sizeLimits.part()));
+                byte state = part == 0 ? STATE_FIRST : part == parts - 1 ? STATE_LAST : 0;
+
+                // Same layout as an encoded split packet: packet id, payload id, payload length, state, then the slice
+                ByteBuf header = ctx.alloc().ioBuffer(prefix.length + VarInt.MAX_VARINT_SIZE + 1);
+                header.writeBytes(prefix);
+                VarInt.write(header, partSize + 1);
+                header.writeByte(state);
+
+                CompositeByteBuf partBuf = ctx.alloc().compositeBuffer(2);
+                partBuf.addComponents(true, header, buf.retainedSlice(buf.readerIndex() + part * sizeLimits.part(), partSize));
+                out.add(partBuf);
             }
         } finally {
             buf.release();
         }
     }
 
-    private final List<byte[]> receivedBuffers = new ArrayList<>();
+    /**
+     * {@return the encoded split packet prefix for the given protocol} Only encoded again when the protocol changes.
+     */
+    private byte[] getPrefix(ProtocolInfo<?> protocol, StreamCodec<ByteBuf, Packet<?>> codec) {
+        if (protocol != prefixProtocol) {
+            ByteBuf buf = encodePrefix(codec, protocol.flow(), SplitPacketPayload.EMPTY);
+            prefix = ByteBufUtil.getBytes(buf);
+            buf.release();
+            prefixProtocol = protocol;
+        }
+        return prefix;
+    }
+
+    /**
+     * {@return the encoded prefix of a packet with the given payload: the packet id and payload id, without the payload length}
+     *
+     * @param empty an empty payload, that is encoded as a length of zero
+     */
+    static ByteBuf encodePrefix(StreamCodec<ByteBuf, Packet<?>> codec, PacketFlow flow, CustomPacketPayload empty) {
+        ByteBuf prefix = Unpooled.buffer();
+        codec.encode(prefix, createPacket(flow, empty));
+        // Remove the length of the empty payload, which is a single byte
+        prefix.writerIndex(prefix.writerIndex() - 1);
+        return prefix;
+    }
+
+    /**
+     * The split packet being received, or {@code null} if no split packet is being received.
+     */
+    @Nullable
+    private SplitPacketReassembly reassembly;
+    /**
+     * The reassembled packets that are waiting to be handled on the main thread.
+     */
+    private final SplitPacketBacklog backlog = new SplitPacketBacklog();
 
     private void receivedPacket(SplitPacketPayload payload, IPayloadContext context) {
-        byte state = payload.payload()[0];
+        ByteBuf slice = payload.payload();
+        byte state = slice.readByte(); // We cut of the initial byte here that indicates the state
         if (state == STATE_FIRST) {
-            if (!receivedBuffers.isEmpty()) {
+            if (reassembly != null) {
                 LOGGER.warn("neoforge:split received out of order - inbound buffer not empty when receiving first");
-                receivedBuffers.clear();
+                reassembly.discard();
+                reassembly = null;
             }
         }
 
-        int contentSize = payload.payload().length - 1;
-        byte[] buffer = new byte[contentSize];
-        System.arraycopy(payload.payload(), 1, buffer, 0, contentSize); // We cut of the initial byte here that indicates the state
-        receivedBuffers.add(buffer);
+        long maxBuffered = getMaxBufferedBytes();
+        if (reassembly == null) {
+            reassembly = SplitPacketReassembly.start(slice, context.connection().getInboundProtocol(), maxBuffered);
+        }
+        SplitPacketReassembly current = reassembly;
+        current.count(slice);
 
-        if (state == STATE_LAST) {
-            final byte[][] buffers = receivedBuffers.toArray(new byte[0][]);
-            FriendlyByteBuf full = new FriendlyByteBuf(Unpooled.wrappedBuffer(buffers));
+        if (current.exceedsLimit()) {
+            slice.release();
+            failReassembly(context, Component.translatable("neoforge.network.packet_splitter.too_large", current.channelName(), current.limit()));
+            return;
+        }
+        if (!backlog.canBuffer(current.size(), maxBuffered)) {
+            slice.release();
+            failReassembly(context, Component.translatable("neoforge.network.packet_splitter.buffer_exhausted"));
+            return;
+        }
 
-            try {
-                Packet<?> packet = context.connection().getInboundProtocol().codec().decode(full);
-                context.enqueueWork(() -> context.handle(packet));
-            } finally {
-                receivedBuffers.clear();
-                full.release();
+        try {
+            current.add(slice);
+            if (state == STATE_LAST) {
+                reassembly = null;
+                ProtocolInfo<?> protocol = context.connection().getInboundProtocol();
+                Packet<?> packet = current.finish(protocol.codec(), protocol.flow());
+                // Payloads decoded incrementally are not measured by their codec
+                Channel channel = context.connection().channel();
+                if (current.channel() != null && !PayloadTraffic.recordMeasurement(channel, PayloadTraffic.Direction.RECEIVED, current.channel())) {
+                    PayloadTraffic.record(channel, PayloadTraffic.Direction.RECEIVED, current.channel(), (int) current.size(), 0);
+                }
+                handleReassembled(packet, current.size(), maxBuffered, context);
             }
+        } catch (Throwable throwable) {
+            LOGGER.error("Failed to decode split packet on channel {}", current.channelName(), throwable);
+            failReassembly(context, Component.translatable("neoforge.network.packet_splitter.failed", throwable.toString()));
+        }
+    }
+
+    private void failReassembly(IPayloadContext context, Component reason) {
+        if (reassembly != null) {
+            reassembly.discard();
+            reassembly = null;
+        }
+        context.disconnect(reason);
+    }
+
+    /**
+     * Hands a reassembled packet to the main thread. Reading from the channel is paused while too many bytes are waiting to be handled.
+     */
+    private void handleReassembled(Packet<?> packet, long size, long maxBuffered, IPayloadContext context) {
+        Channel channel = context.channelHandlerContext().channel();
+        if (backlog.enqueued(size, maxBuffered)) {
+            channel.config().setAutoRead(false);
+        }
+
+        context.enqueueWork(() -> context.handle(packet)).whenComplete((result, throwable) -> {
+            if (backlog.handled(size, maxBuffered)) {
+                channel.eventLoop().execute(() -> {
+                    if (backlog.resume(maxBuffered)) {
+                        channel.config().setAutoRead(true);
+                    }
+                });
+            }
+        });
+    }
+
+    private static long getMaxBufferedBytes() {
+        return NeoForgeConfig.COMMON.maxBufferedSplitPacketSize.getAsInt() * MEBIBYTE;
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        if (reassembly != null) {
+            reassembly.discard();
+            reassembly = null;
         }
+        super.handlerRemoved(ctx);
     }
 
-    private static Packet<?> createPacket(PacketFlow flow, byte[] payload) {
+    static Packet<?> createPacket(PacketFlow flow, CustomPacketPayload payload) {
         return switch (flow) {
-            case SERVERBOUND -> new ServerboundCustomPayloadPacket(new SplitPacketPayload(payload));
-            case CLIENTBOUND -> new ClientboundCustomPayloadPacket(new SplitPacketPayload(payload));
+            case SERVERBOUND -> new ServerboundCustomPayloadPacket(payload);
+            case CLIENTBOUND -> new ClientboundCustomPayloadPacket(payload);
         };
     }
 
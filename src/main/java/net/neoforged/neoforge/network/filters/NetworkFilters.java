@@ -23,8 +23,12 @@ public class NetworkFilters {
     private static final Logger LOGGER = LogManager.getLogger();
 
     // TODO: Expose custom packet filters to mods
+    // Filters injected first see outbound packets first: the traffic monitor must see the packets before they are encoded,
+    // and the compressor must see them before the splitter.
     private static final Map<String, Function<ConnectionType, DynamicChannelHandler>> instances = ImmutableMap.of(
+            PayloadTrafficMonitor.CHANNEL_HANDLER_NAME, connectionType -> new PayloadTrafficMonitor(),
             "neoforge:vanilla_filter", VanillaConnectionNetworkFilter::new,
+            PayloadCompressor.CHANNEL_HANDLER_NAME, connectionType -> new PayloadCompressor(),
             GenericPacketSplitter.CHANNEL_HANDLER_NAME, connectionType -> new GenericPacketSplitter());
 
     public static void injectIfNecessary(Connection manager) {
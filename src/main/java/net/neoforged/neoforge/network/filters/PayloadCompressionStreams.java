@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.network.filters;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import net.minecraft.network.VarInt;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * The compression streams of a connection, used by the {@link PayloadCompressor}. Both streams start with the same {@link PayloadDictionary},
+ * and remember the packets they compressed or decompressed before, so each side must process the packets in the order they were sent.
+ * <p>
+ * The deflater is only used on the event loop when sending packets,
+ * and the inflater is only used on the network thread when receiving packets.
+ * </p>
+ */
+@ApiStatus.Internal
+public final class PayloadCompressionStreams {
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final Inflater inflater = new Inflater(true);
+    private byte[] output = new byte[1024];
+
+    public PayloadCompressionStreams(byte[] dictionary) {
+        deflater.setDictionary(dictionary);
+        inflater.setDictionary(dictionary);
+    }
+
+    /**
+     * {@return the given encoded packet, compressed into an encoded compressed packet}
+     *
+     * @param prefix the encoded packet id and payload id of the compressed packet, which are followed by the length of the data, and the data
+     */
+    public ByteBuf deflate(ByteBufAllocator alloc, ByteBuf packet, byte[] prefix) {
+        deflater.setInput(packet.nioBuffer());
+        int length = 0;
+        while (true) {
+            // The output is flushed once the deflater does not fill the available space
+            length += deflater.deflate(output, length, output.length - length, Deflater.SYNC_FLUSH);
+            if (length < output.length) {
+                break;
+            }
+            output = Arrays.copyOf(output, output.length * 2);
+        }
+
+        // Same layout as an encoded compressed packet: packet id, payload id, data length, then the data
+        ByteBuf compressed = alloc.ioBuffer(prefix.length + VarInt.MAX_VARINT_SIZE + length);
+        compressed.writeBytes(prefix);
+        VarInt.write(compressed, length);
+        compressed.writeBytes(output, 0, length);
+        return compressed;
+    }
+
+    /**
+     * {@return the packet decompressed from the given data}
+     *
+     * @param maxSize the maximum size of the decompressed packet
+     * @throws DataFormatException if the data is corrupted, or decompresses to more than the maximum size
+     */
+    public ByteBuf inflate(ByteBuf data, int maxSize) throws DataFormatException {
+        inflater.setInput(data.nioBuffer());
+        ByteBuf decompressed = Unpooled.buffer();
+        try {
+            byte[] chunk = new byte[1024];
+            while (!inflater.needsInput()) {
+                int read = inflater.inflate(chunk);
+                if (read == 0 && !inflater.needsInput()) {
+                    throw new DataFormatException("Compressed packet stream is corrupted");
+                }
+                decompressed.writeBytes(chunk, 0, read);
+                if (decompressed.readableBytes() > maxSize) {
+                    throw new DataFormatException("Compressed packet is larger than " + maxSize + " bytes");
+                }
+            }
+        } catch (Throwable throwable) {
+            decompressed.release();
+            throw throwable;
+        }
+        return decompressed;
+    }
+
+    public void end() {
+        deflater.end();
+        inflater.end();
+    }
+}
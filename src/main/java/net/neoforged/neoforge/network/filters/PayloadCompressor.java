@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.network.filters;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.DecoderException;
+import io.netty.handler.codec.MessageToMessageEncoder;
+import io.netty.util.AttributeKey;
+import java.util.List;
+import net.minecraft.network.Connection;
+import net.minecraft.network.ConnectionProtocol;
+import net.minecraft.network.HandlerNames;
+import net.minecraft.network.PacketEncoder;
+import net.minecraft.network.ProtocolInfo;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.PacketFlow;
+import net.minecraft.network.protocol.common.ClientboundCustomPayloadPacket;
+import net.minecraft.network.protocol.common.ServerboundCustomPayloadPacket;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.util.profiling.jfr.JvmProfiler;
+import net.neoforged.bus.api.SubscribeEvent;
+import net.neoforged.fml.common.EventBusSubscriber;
+import net.neoforged.neoforge.internal.versions.neoforge.NeoForgeVersion;
+import net.neoforged.neoforge.network.connection.ConnectionType;
+import net.neoforged.neoforge.network.connection.PayloadTraffic;
+import net.neoforged.neoforge.network.event.RegisterPayloadHandlersEvent;
+import net.neoforged.neoforge.network.handling.IPayloadContext;
+import net.neoforged.neoforge.network.payload.CompressedPayload;
+import net.neoforged.neoforge.network.payload.SplitPacketPayload;
+import net.neoforged.neoforge.network.registration.ChannelAttributes;
+import net.neoforged.neoforge.network.registration.HandlerThread;
+import net.neoforged.neoforge.network.registration.NetworkRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Compresses the modded payloads sent in the play phase with a deflate stream primed with a {@link PayloadDictionary}.
+ *
+ * <p>The vanilla compression compresses each packet on its own, and only packets larger than the compression threshold,
+ * so small and repetitive payloads are barely compressed. Instead, connections that agreed on a dictionary during the configuration
+ * keep a deflate stream per direction, which starts with the dictionary and remembers the previous payloads,
+ * such that repetitive payloads are compressed to a few bytes. Compressed packets are sent as {@link CompressedPayload}s,
+ * and are decompressed in the order they were sent, on the network thread of the receiver.
+ *
+ * <p>Payloads larger than {@value #MAX_PAYLOAD_SIZE} bytes are left to the vanilla compression.
+ * Until the server has built a dictionary, connections that support the compression sample the payloads the server sends instead.
+ */
+@ApiStatus.Internal
+@EventBusSubscriber(modid = NeoForgeVersion.MOD_ID, bus = EventBusSubscriber.Bus.MOD)
+public class PayloadCompressor extends MessageToMessageEncoder<Packet<?>> implements DynamicChannelHandler {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final AttributeKey<PayloadCompressionStreams> ATTRIBUTE_STREAMS = AttributeKey.valueOf("neoforge:payload_compression");
+    private static final int MAX_PAYLOAD_SIZE = 16 * 1024;
+
+    public static final String CHANNEL_HANDLER_NAME = "neoforge:payload_compressor";
+
+    /**
+     * The protocol the {@link #prefix} was encoded for.
+     */
+    @Nullable
+    private ProtocolInfo<?> prefixProtocol;
+    private byte[] prefix = new byte[0];
+
+    @SubscribeEvent
+    private static void register(final RegisterPayloadHandlersEvent event) {
+        event.registrar("1")
+                .optional()
+                .executesOn(HandlerThread.NETWORK) // Compressed packets must be decompressed in the order they were sent.
+                .playBidirectional(CompressedPayload.TYPE, CompressedPayload.STREAM_CODEC, PayloadCompressor::handle);
+    }
+
+    /**
+     * Starts compressing the payloads sent and received on the connection with the given dictionary,
+     * discarding the previous compression streams of the connection.
+     */
+    public static void install(Connection connection, byte[] dictionary) {
+        Channel channel = connection.channel();
+        PayloadCompressionStreams streams = new PayloadCompressionStreams(dictionary);
+        PayloadCompressionStreams previous = channel.attr(ATTRIBUTE_STREAMS).getAndSet(streams);
+        if (previous != null) {
+            previous.end();
+        }
+        channel.closeFuture().addListener(future -> streams.end());
+    }
+
+    private static void handle(CompressedPayload payload, IPayloadContext context) {
+        ByteBuf data = payload.data();
+        try {
+            PayloadCompressionStreams streams = context.connection().channel().attr(ATTRIBUTE_STREAMS).get();
+            if (streams == null) {
+                throw new DecoderException("Received a compressed packet before agreeing on a dictionary");
+            }
+
+            ByteBuf decompressed = streams.inflate(data, MAX_PAYLOAD_SIZE);
+            try {
+                Packet<?> packet = context.connection().getInboundProtocol().codec().decode(decompressed);
+                CustomPacketPayload decoded = getPayload(packet);
+                if (decoded == null) {
+                    throw new DecoderException("Compressed packet " + packet.type() + " is not a payload");
+                }
+                PayloadTraffic.recordMeasurement(context.connection().channel(), PayloadTraffic.Direction.RECEIVED, decoded.type().id());
+                context.handle(decoded);
+            } finally {
+                decompressed.release();
+            }
+        } catch (Throwable throwable) {
+            LOGGER.error("Failed to decompress a packet", throwable);
+            context.disconnect(Component.translatable("neoforge.network.payload_compressor.failed", throwable.toString()));
+        } finally {
+            data.release();
+        }
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, Packet<?> packet, List<Object> out) throws Exception {
+        CustomPacketPayload payload = getPayload(packet);
+        if (payload == null || payload instanceof SplitPacketPayload || payload instanceof CompressedPayload || !NetworkRegistry.isModdedPayload(payload)
+                || !(ctx.pipeline().get(HandlerNames.ENCODER) instanceof PacketEncoder<?> encoder) || encoder.getProtocolInfo().id() != ConnectionProtocol.PLAY) {
+            out.add(packet);
+            return;
+        }
+
+        PayloadCompressionStreams streams = ctx.channel().attr(ATTRIBUTE_STREAMS).get();
+        boolean sampling = streams == null && encoder.getProtocolInfo().flow() == PacketFlow.CLIENTBOUND && PayloadDictionary.isSampling() && NetworkRegistry.isDictionarySampled(payload);
+        if (streams == null && !sampling) {
+            out.add(packet);
+            return;
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" }) // Eclipse requires the extra rawtype cast first.
+        var codec = (StreamCodec<ByteBuf, Packet<?>>) (StreamCodec) encoder.getProtocolInfo().codec();
+        // Before encoding the packet, such that the packet is the last payload measured for the PayloadTraffic
+        byte[] prefix = getPrefix(encoder.getProtocolInfo(), codec);
+
+        ByteBuf buf;
+        if (packet instanceof SharedEncodedPacket shared) {
+            ConnectionType connectionType = ctx.channel().attr(ChannelAttributes.CONNECTION_TYPE).get();
+            try {
+                buf = shared.getOrEncode(connectionType != null ? connectionType : ConnectionType.OTHER, codec, ctx.alloc()).retainedDuplicate();
+            } catch (Throwable throwable) {
+                out.add(packet);
+                return;
+            }
+        } else {
+            buf = ctx.alloc().ioBuffer();
+            try {
+                codec.encode(buf, packet);
+            } catch (Throwable throwable) {
+                // Let the encoder encode it again, and report the error as usual
+                buf.release();
+                out.add(packet);
+                return;
+            }
+        }
+
+        int size = buf.readableBytes();
+        if (size > MAX_PAYLOAD_SIZE) {
+            // Large packets may have to be split, which is done by the splitter when it encodes the packet again
+            buf.release();
+            out.add(packet);
+            return;
+        }
+
+        if (streams == null) {
+            PayloadDictionary.sample(payload.type().id(), buf);
+            out.add(buf);
+        } else {
+            try {
+                out.add(streams.deflate(ctx.alloc(), buf, prefix));
+            } finally {
+                buf.release();
+            }
+        }
+        // The encoder forwards buffers as is, so the packet is not encoded a second time
+        JvmProfiler.INSTANCE.onPacketSent(encoder.getProtocolInfo().id(), packet.type(), ctx.channel().remoteAddress(), size);
+    }
+
+    /**
+     * {@return the encoded compressed packet prefix for the given protocol} Only encoded again when the protocol changes.
+     */
+    private byte[] getPrefix(ProtocolInfo<?> protocol, StreamCodec<ByteBuf, Packet<?>> codec) {
+        if (protocol != prefixProtocol) {
+            ByteBuf buf = GenericPacketSplitter.encodePrefix(codec, protocol.flow(), CompressedPayload.EMPTY);
+            prefix = ByteBufUtil.getBytes(buf);
+            buf.release();
+            prefixProtocol = protocol;
+        }
+        return prefix;
+    }
+
+    @Nullable
+    private static CustomPacketPayload getPayload(Packet<?> packet) {
+        if (packet instanceof ClientboundCustomPayloadPacket clientbound) {
+            return clientbound.payload();
+        } else if (packet instanceof ServerboundCustomPayloadPacket serverbound) {
+            return serverbound.payload();
+        } else if (packet instanceof SharedEncodedPacket shared) {
+            return shared.packet().payload();
+        }
+        return null;
+    }
+
+    @Override
+    public boolean isNecessary(Connection manager) {
+        return !manager.isMemoryConnection() && NetworkRegistry.hasChannel(manager, ConnectionProtocol.PLAY, CompressedPayload.TYPE.id());
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.network.filters;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.minecraft.Util;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.storage.LevelResource;
+import net.neoforged.bus.api.SubscribeEvent;
+import net.neoforged.fml.common.EventBusSubscriber;
+import net.neoforged.neoforge.common.NeoForgeConfig;
+import net.neoforged.neoforge.event.server.ServerStartingEvent;
+import net.neoforged.neoforge.event.server.ServerStoppedEvent;
+import net.neoforged.neoforge.internal.versions.neoforge.NeoForgeVersion;
+import net.neoforged.neoforge.network.registration.PayloadRegistrar;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The dictionary the {@link PayloadCompressor} primes its deflate streams with, built by the server from the modded payloads it sends.
+ *
+ * <p>Until the dictionary is built, the server samples the small payloads it sends on connections that support the compression,
+ * keeping the last few distinct payloads of each type. Once enough payloads were sampled, the dictionary is built from these samples,
+ * with the samples of the most frequent payload types last, as deflate encodes the closest matches with the fewest bits.
+ * Each network thread keeps its own samples, which are only merged when the dictionary is built.
+ *
+ * <p>The dictionary is sent to every player, so only the payload types that {@linkplain PayloadRegistrar#dictionarySampled() opted in}
+ * are sampled, as they do not carry data that is private to the player they are sent to.
+ *
+ * <p>The dictionary is saved in the world, such that it stays the same across restarts, and clients can keep it in their cache.
+ * Delete {@code neoforge/payload_dictionary.bin} from the world to sample the payloads again.
+ */
+@ApiStatus.Internal
+@EventBusSubscriber(modid = NeoForgeVersion.MOD_ID)
+public final class PayloadDictionary {
+    private static final Logger LOGGER = LogManager.getLogger();
+    /**
+     * The size of the deflate window: a larger dictionary cannot be referenced.
+     */
+    public static final int MAX_SIZE = 32 * 1024;
+    private static final int MAX_SAMPLE_SIZE = 1024;
+    private static final int SAMPLES_PER_TYPE = 4;
+    private static final int SAMPLES_TO_BUILD = 4096;
+    private static final LevelResource DICTIONARY_PATH = new LevelResource("neoforge/payload_dictionary.bin");
+
+    @Nullable
+    private static volatile byte[] dictionary;
+    /**
+     * The file the dictionary is saved to, or {@code null} if no server is running.
+     */
+    @Nullable
+    private static volatile Path path;
+    /**
+     * The samples of the network threads, in the current {@link #generation}.
+     */
+    private static final Set<ThreadSamples> threadSamples = ConcurrentHashMap.newKeySet();
+    private static final ThreadLocal<ThreadSamples> localSamples = ThreadLocal.withInitial(ThreadSamples::new);
+    private static final AtomicInteger sampleCount = new AtomicInteger();
+    /**
+     * Incremented whenever the samples are discarded, such that the threads start sampling again from scratch.
+     */
+    private static volatile int generation = 0;
+
+    private PayloadDictionary() {}
+
+    /**
+     * {@return the dictionary new connections use, or {@code null} if the compression is disabled or the dictionary is not built yet}
+     */
+    @Nullable
+    public static byte[] get() {
+        return NeoForgeConfig.COMMON.payloadDictionaryCompression.getAsBoolean() ? dictionary : null;
+    }
+
+    /**
+     * {@return whether the payloads sent by the server should be {@linkplain #sample(ResourceLocation, ByteBuf) sampled}}
+     */
+    static boolean isSampling() {
+        return path != null && dictionary == null && NeoForgeConfig.COMMON.payloadDictionaryCompression.getAsBoolean();
+    }
+
+    /**
+     * Samples an encoded payload sent by the server. Builds the dictionary once enough payloads were sampled.
+     * Called on the network thread of the connection.
+     */
+    static void sample(ResourceLocation id, ByteBuf encoded) {
+        if (!isSampling() || encoded.readableBytes() > MAX_SAMPLE_SIZE) {
+            return;
+        }
+
+        ThreadSamples local = localSamples.get();
+        int currentGeneration = generation;
+        synchronized (local) {
+            if (local.generation != currentGeneration) {
+                // Samples of a previous server, or the first sample of this thread
+                local.samples.clear();
+                local.generation = currentGeneration;
+                threadSamples.add(local);
+            }
+            local.samples.computeIfAbsent(id, k -> new Samples()).add(ByteBufUtil.getBytes(encoded));
+        }
+
+        // Only the thread that takes the last sample builds the dictionary
+        if (sampleCount.incrementAndGet() == SAMPLES_TO_BUILD) {
+            build(currentGeneration);
+        }
+    }
+
+    private static void build(int buildGeneration) {
+        Map<ResourceLocation, Samples> merged = new HashMap<>();
+        for (ThreadSamples local : threadSamples) {
+            synchronized (local) {
+                if (local.generation == buildGeneration) {
+                    local.samples.forEach((id, typeSamples) -> merged.computeIfAbsent(id, k -> new Samples()).addAll(typeSamples));
+                }
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        merged.values().stream()
+                .sorted(Comparator.comparingInt(typeSamples -> typeSamples.count))
+                .forEach(typeSamples -> typeSamples.samples.forEach(out::writeBytes));
+        byte[] built = out.toByteArray();
+        // Only the end of the dictionary is within the window
+        byte[] trimmed = built.length > MAX_SIZE ? Arrays.copyOfRange(built, built.length - MAX_SIZE, built.length) : built;
+
+        synchronized (PayloadDictionary.class) {
+            if (generation != buildGeneration) {
+                // The server stopped while the dictionary was built
+                return;
+            }
+            discardSamples();
+            dictionary = trimmed;
+        }
+        LOGGER.info("Built a payload compression dictionary of {} bytes", trimmed.length);
+
+        Path target = path;
+        Util.ioPool().execute(() -> save(target, trimmed));
+    }
+
+    /**
+     * Discards the samples of all threads. Must be called while holding the lock of the class.
+     */
+    private static void discardSamples() {
+        generation++;
+        threadSamples.clear();
+        sampleCount.set(0);
+    }
+
+    private static void save(@Nullable Path target, byte[] built) {
+        if (target == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), "payload_dictionary", ".tmp");
+            try {
+                Files.write(temp, built);
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Failed to save the payload compression dictionary to {}", target, e);
+        }
+    }
+
+    @SubscribeEvent
+    private static void onServerStarting(ServerStartingEvent event) {
+        Path target = event.getServer().getWorldPath(DICTIONARY_PATH);
+        byte[] loaded = null;
+        if (Files.isRegularFile(target)) {
+            try {
+                loaded = Files.readAllBytes(target);
+                if (loaded.length == 0 || loaded.length > MAX_SIZE) {
+                    LOGGER.warn("Ignoring invalid payload compression dictionary {}", target);
+                    loaded = null;
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Failed to read the payload compression dictionary from {}", target, e);
+            }
+        }
+        synchronized (PayloadDictionary.class) {
+            discardSamples();
+            dictionary = loaded;
+            path = target;
+        }
+    }
+
+    @SubscribeEvent
+    private static void onServerStopped(ServerStoppedEvent event) {
+        synchronized (PayloadDictionary.class) {
+            discardSamples();
+            dictionary = null;
+            path = null;
+        }
+    }
+
+    /**
+     * The samples taken by a network thread. Guarded by the instance, which only the thread building the dictionary contends for.
+     */
+    private static final class ThreadSamples {
+        private final Map<ResourceLocation, Samples> samples = new HashMap<>();
+        private int generation = -1;
+    }
+
+    private static final class Samples {
+        private final ArrayDeque<byte[]> samples = new ArrayDeque<>(SAMPLES_PER_TYPE);
+        private int count;
+
+        private void add(byte[] sample) {
+            count++;
+            keep(sample);
+        }
+
+        private void addAll(Samples other) {
+            count += other.count;
+            other.samples.forEach(this::keep);
+        }
+
+        private void keep(byte[] sample) {
+            for (byte[] existing : samples) {
+                if (Arrays.equals(existing, sample)) {
+                    return;
+                }
+            }
+            if (samples.size() == SAMPLES_PER_TYPE) {
+                samples.removeFirst();
+            }
+            samples.addLast(sample);
+        }
+    }
+}
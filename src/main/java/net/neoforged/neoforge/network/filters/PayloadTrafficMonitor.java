@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.network.filters;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import net.minecraft.network.Connection;
+import net.minecraft.network.protocol.common.ClientboundCustomPayloadPacket;
+import net.minecraft.network.protocol.common.ServerboundCustomPayloadPacket;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.neoforged.neoforge.network.connection.PayloadTraffic;
+import net.neoforged.neoforge.network.payload.CompressedPayload;
+import net.neoforged.neoforge.network.payload.SplitPacketPayload;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Attributes the payloads measured by their codec to the connection of the pipeline, see {@link PayloadTraffic}.
+ *
+ * <p>Payloads are encoded while they are written through this handler, and decoded right before they are read by it,
+ * on the event loop of the connection, so the last payload measured on the thread is the one being written or read.
+ */
+@ApiStatus.Internal
+public class PayloadTrafficMonitor extends ChannelDuplexHandler implements DynamicChannelHandler {
+    public static final String CHANNEL_HANDLER_NAME = "neoforge:payload_traffic";
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        CustomPacketPayload payload = getPayload(msg);
+        // Split and compressed payloads are counted once they are reassembled or decompressed
+        if (payload != null && !(payload instanceof SplitPacketPayload) && !(payload instanceof CompressedPayload)) {
+            PayloadTraffic.recordMeasurement(ctx.channel(), PayloadTraffic.Direction.RECEIVED, payload.type().id());
+        }
+        super.channelRead(ctx, msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        CustomPacketPayload payload = getPayload(msg);
+        if (payload == null) {
+            super.write(ctx, msg, promise);
+            return;
+        }
+
+        PayloadTraffic.clearMeasurement();
+        super.write(ctx, msg, promise);
+        if (!PayloadTraffic.recordMeasurement(ctx.channel(), PayloadTraffic.Direction.SENT, payload.type().id())
+                && msg instanceof SharedEncodedPacket shared && shared.getPayloadSize() >= 0) {
+            // Written from the buffer encoded for another connection
+            PayloadTraffic.record(ctx.channel(), PayloadTraffic.Direction.SENT, payload.type().id(), shared.getPayloadSize(), 0);
+        }
+    }
+
+    @Nullable
+    private static CustomPacketPayload getPayload(Object msg) {
+        if (msg instanceof ClientboundCustomPayloadPacket packet) {
+            return packet.payload();
+        } else if (msg instanceof ServerboundCustomPayloadPacket packet) {
+            return packet.payload();
+        } else if (msg instanceof SharedEncodedPacket shared) {
+            return shared.packet().payload();
+        }
+        return null;
+    }
+
+    @Override
+    public boolean isNecessary(Connection manager) {
+        return !manager.isMemoryConnection();
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.network.filters;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import net.minecraft.network.Connection;
+import net.minecraft.network.PacketSendListener;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.PacketType;
+import net.minecraft.network.protocol.common.ClientCommonPacketListener;
+import net.minecraft.network.protocol.common.ClientboundCustomPayloadPacket;
+import net.minecraft.network.protocol.common.ServerCommonPacketListener;
+import net.neoforged.neoforge.network.PacketDistributor;
+import net.neoforged.neoforge.network.connection.ConnectionType;
+import net.neoforged.neoforge.network.connection.PayloadTraffic;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A payload packet that is broadcast to many connections, and that is only encoded once per {@link ConnectionType}.
+ *
+ * <p>The first connection that writes the packet encodes it into a shared buffer,
+ * and the other connections write a duplicate of that buffer instead of encoding the packet again.
+ * The encoding is done by the {@link GenericPacketSplitter}, so connections without a splitter,
+ * and in-memory connections, get the {@linkplain #packet() wrapped packet} instead.
+ *
+ * <p>This assumes that payload codecs only depend on the registry access and the connection type of the buffer,
+ * and not on the connection the payload is sent to.
+ *
+ * <p>The shared buffers are pooled, and released once the packet is no longer referenced.
+ * The sender holds one reference while broadcasting, and each connection holds one from the moment the packet is sent to it
+ * until the write completes or fails. This is not a Netty {@link io.netty.util.ReferenceCounted},
+ * since the pipeline would otherwise release it on the way through the vanilla encoders.
+ *
+ * @see PacketDistributor
+ */
+@ApiStatus.Internal
+public final class SharedEncodedPacket implements Packet<ClientCommonPacketListener> {
+    private static final AtomicLong encodes = new AtomicLong();
+    private static final AtomicLong reuses = new AtomicLong();
+
+    private final ClientboundCustomPayloadPacket packet;
+    /**
+     * The encoded packet for each connection type. Guarded by {@code this}.
+     */
+    private final Map<ConnectionType, ByteBuf> encoded = new EnumMap<>(ConnectionType.class);
+    /**
+     * The number of references to this packet, starting with the one of the sender.
+     */
+    private final AtomicInteger refCnt = new AtomicInteger(1);
+    /**
+     * Whether the encoded buffers were released. Guarded by {@code this}.
+     */
+    private boolean released;
+    /**
+     * The size of the encoded payload, as measured for {@link PayloadTraffic}, or {@code -1} if it is not known.
+     */
+    private volatile int payloadSize = -1;
+
+    public SharedEncodedPacket(ClientboundCustomPayloadPacket packet) {
+        this.packet = packet;
+    }
+
+    public ClientboundCustomPayloadPacket packet() {
+        return packet;
+    }
+
+    /**
+     * Called for every packet sent by a server listener, before it is sent.
+     *
+     * @return the wrapped packet if the connection cannot use the shared encoding, or the packet itself otherwise
+     */
+    public static Packet<?> unwrapIfUnsupported(Packet<?> packet, ServerCommonPacketListener listener) {
+        if (packet instanceof SharedEncodedPacket shared) {
+            Connection connection = listener.getConnection();
+            // Disconnected connections queue packets that may never be written, so they do not get a reference
+            if (connection.isMemoryConnection() || !connection.isConnected() || connection.channel().pipeline().get(GenericPacketSplitter.CHANNEL_HANDLER_NAME) == null) {
+                return shared.packet();
+            }
+        }
+        return packet;
+    }
+
+    /**
+     * Called for every packet sent by a server listener, after {@link #unwrapIfUnsupported}.
+     * Takes a reference to shared packets for the connection, which is released once the write completes or fails.
+     *
+     * @return the listener to send the packet with
+     */
+    @Nullable
+    public static PacketSendListener releaseWhenSent(Packet<?> packet, @Nullable PacketSendListener listener) {
+        if (!(packet instanceof SharedEncodedPacket shared)) {
+            return listener;
+        }
+        shared.retain();
+        return new PacketSendListener() {
+            @Override
+            public void onSuccess() {
+                shared.release();
+                if (listener != null) {
+                    listener.onSuccess();
+                }
+            }
+
+            @Nullable
+            @Override
+            public Packet<?> onFailure() {
+                shared.release();
+                return listener != null ? listener.onFailure() : null;
+            }
+        };
+    }
+
+    private void retain() {
+        if (refCnt.getAndIncrement() <= 0) {
+            refCnt.getAndDecrement();
+            throw new IllegalStateException("Shared packet was already released");
+        }
+    }
+
+    /**
+     * Releases a reference to this packet, and the encoded buffers if it was the last one.
+     */
+    public void release() {
+        if (refCnt.decrementAndGet() == 0) {
+            synchronized (this) {
+                released = true;
+                for (ByteBuf buf : encoded.values()) {
+                    buf.release();
+                }
+                encoded.clear();
+            }
+        }
+    }
+
+    /**
+     * {@return the encoded packet, which must not be modified} Encodes it with the given codec if it was not encoded yet for the connection type.
+     */
+    ByteBuf getOrEncode(ConnectionType connectionType, StreamCodec<ByteBuf, Packet<?>> codec, ByteBufAllocator alloc) {
+        synchronized (this) {
+            if (released) {
+                throw new IllegalStateException("Shared packet was already released");
+            }
+            ByteBuf buf = encoded.get(connectionType);
+            if (buf != null) {
+                reuses.incrementAndGet();
+                return buf;
+            }
+
+            buf = alloc.ioBuffer();
+            try {
+                codec.encode(buf, packet);
+            } catch (Throwable throwable) {
+                buf.release();
+                throw throwable;
+            }
+            payloadSize = PayloadTraffic.getMeasuredBytes();
+            encoded.put(connectionType, buf);
+            encodes.incrementAndGet();
+            return buf;
+        }
+    }
+
+    /**
+     * {@return the size of the encoded payload, or {@code -1} if it was not encoded yet}
+     */
+    int getPayloadSize() {
+        return payloadSize;
+    }
+
+    /**
+     * {@return the number of times a broadcast payload was encoded}
+     */
+    public static long getEncodeCount() {
+        return encodes.get();
+    }
+
+    /**
+     * {@return the number of times a broadcast payload was written without being encoded again}
+     */
+    public static long getReuseCount() {
+        return reuses.get();
+    }
+
+    @Override
+    public PacketType<ClientboundCustomPayloadPacket> type() {
+        return packet.type();
+    }
+
+    @Override
+    public void handle(ClientCommonPacketListener listener) {
+        packet.handle(listener);
+    }
+}
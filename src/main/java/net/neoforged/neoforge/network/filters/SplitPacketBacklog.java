@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.network.filters;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Tracks the size of the reassembled split packets of a connection that are waiting to be handled on the main thread.
+ * <p>
+ * Reading from the connection is paused once more than half of the buffer limit is waiting,
+ * and resumed once the backlog drained to a quarter of it.
+ * </p>
+ */
+@ApiStatus.Internal
+public final class SplitPacketBacklog {
+    private final AtomicLong pendingBytes = new AtomicLong();
+    /**
+     * Whether reading from the connection is paused. Only accessed on the event loop.
+     */
+    private boolean readingPaused = false;
+
+    /**
+     * {@return the size in bytes of the packets waiting to be handled}
+     */
+    public long pendingBytes() {
+        return pendingBytes.get();
+    }
+
+    /**
+     * {@return whether a packet of the given size can be buffered on top of the packets waiting to be handled}
+     */
+    public boolean canBuffer(long size, long maxBuffered) {
+        return size + pendingBytes.get() <= maxBuffered;
+    }
+
+    /**
+     * Records a packet that waits to be handled. Called on the event loop.
+     *
+     * @return whether reading from the connection must be paused now
+     */
+    public boolean enqueued(long size, long maxBuffered) {
+        if (pendingBytes.addAndGet(size) > maxBuffered / 2 && !readingPaused) {
+            readingPaused = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records that a packet was handled. Called on any thread.
+     *
+     * @return whether the backlog drained enough for reading to {@linkplain #resume(long) resume}
+     */
+    public boolean handled(long size, long maxBuffered) {
+        return pendingBytes.addAndGet(-size) <= maxBuffered / 4;
+    }
+
+    /**
+     * Called on the event loop after {@link #handled(long, long)} allowed reading to resume.
+     *
+     * @return whether reading from the connection was paused, and must be resumed now
+     */
+    public boolean resume(long maxBuffered) {
+        // More packets may have been enqueued since the backlog drained
+        if (readingPaused && pendingBytes.get() <= maxBuffered / 4) {
+            readingPaused = false;
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.network.filters;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.DecoderException;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.ProtocolInfo;
+import net.minecraft.network.VarInt;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.PacketFlow;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+import net.neoforged.neoforge.common.NeoForgeConfig;
+import net.neoforged.neoforge.network.codec.IncrementalStreamCodec;
+import net.neoforged.neoforge.network.payload.SplitPacketPayload;
+import net.neoforged.neoforge.network.registration.NetworkRegistry;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A split packet that is being received by the {@link GenericPacketSplitter}.
+ * <p>
+ * The parts are either kept in a composite buffer without copying them, and decoded once the last part is received,
+ * or given to the {@link IncrementalStreamCodec.Decoder} of the payload as they are received.
+ * </p>
+ */
+@ApiStatus.Internal
+public final class SplitPacketReassembly {
+    private static final long MEBIBYTE = 1024 * 1024;
+
+    /**
+     * The id of the split payload, or {@code null} if the split packet is not a custom payload packet.
+     */
+    @Nullable
+    private final ResourceLocation channel;
+    private final long limit;
+    @Nullable
+    private final IncrementalStreamCodec.Decoder<? extends CustomPacketPayload> decoder;
+    /**
+     * The parts of the packet, or the bytes that the decoder did not read yet.
+     */
+    private final CompositeByteBuf bytes = Unpooled.compositeBuffer(Integer.MAX_VALUE);
+    private long size;
+
+    /**
+     * @param channel the id of the split payload, or {@code null} if the split packet is not a custom payload packet
+     * @param limit   the maximum size in bytes of the split packet
+     * @param decoder the decoder of the payload if it is decoded as its parts are received, in which case the parts must not contain the packet and payload ids
+     */
+    public SplitPacketReassembly(@Nullable ResourceLocation channel, long limit, @Nullable IncrementalStreamCodec.Decoder<? extends CustomPacketPayload> decoder) {
+        this.channel = channel;
+        this.limit = limit;
+        this.decoder = decoder;
+    }
+
+    /**
+     * Starts the reassembly of a packet from its first part.
+     * If the payload of the packet is decoded incrementally, the packet and payload ids are skipped from the part.
+     */
+    @SuppressWarnings("unchecked")
+    static SplitPacketReassembly start(ByteBuf first, ProtocolInfo<?> protocol, long maxBuffered) {
+        ByteBuf header = first.duplicate();
+        ResourceLocation channel = readPayloadId(header, protocol);
+        if (channel == null) {
+            return new SplitPacketReassembly(null, maxBuffered, null);
+        }
+
+        int maxSplitSize = NetworkRegistry.getMaxSplitSize(channel, protocol.id());
+        long limit = maxSplitSize > 0 ? maxSplitSize : NeoForgeConfig.COMMON.maxSplitPayloadSize.getAsInt() * MEBIBYTE;
+        IncrementalStreamCodec.Decoder<? extends CustomPacketPayload> decoder = null;
+        if (NetworkRegistry.getCodec(channel, protocol.id(), protocol.flow()) instanceof IncrementalStreamCodec<?, ?> incremental) {
+            decoder = (IncrementalStreamCodec.Decoder<? extends CustomPacketPayload>) incremental.createDecoder();
+            first.readerIndex(header.readerIndex());
+        }
+        return new SplitPacketReassembly(channel, limit, decoder);
+    }
+
+    /**
+     * {@return the id of the payload of the given packet, or {@code null} if it is not a custom payload packet}
+     */
+    @Nullable
+    private static ResourceLocation readPayloadId(ByteBuf packet, ProtocolInfo<?> protocol) {
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        ByteBuf prefix = GenericPacketSplitter.encodePrefix((StreamCodec<ByteBuf, Packet<?>>) (StreamCodec) protocol.codec(), protocol.flow(), SplitPacketPayload.EMPTY);
+        try {
+            if (VarInt.read(packet) != VarInt.read(prefix)) {
+                return null;
+            }
+            return new FriendlyByteBuf(packet).readResourceLocation();
+        } catch (RuntimeException e) {
+            return null;
+        } finally {
+            prefix.release();
+        }
+    }
+
+    /**
+     * {@return the id of the split payload, or {@code null} if the split packet is not a custom payload packet}
+     */
+    @Nullable
+    public ResourceLocation channel() {
+        return channel;
+    }
+
+    public String channelName() {
+        return channel != null ? channel.toString() : "minecraft";
+    }
+
+    /**
+     * {@return the maximum size in bytes of the split packet}
+     */
+    public long limit() {
+        return limit;
+    }
+
+    /**
+     * {@return the number of bytes received so far}
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * {@return whether the bytes received so far exceed the {@linkplain #limit() limit}}
+     */
+    public boolean exceedsLimit() {
+        return size > limit;
+    }
+
+    /**
+     * Counts the bytes of the next part towards the {@linkplain #size() size} of the packet, before it is {@linkplain #add(ByteBuf) added}.
+     */
+    public void count(ByteBuf part) {
+        size += part.readableBytes();
+    }
+
+    /**
+     * Adds the next part of the packet, and decodes it if the payload is decoded incrementally.
+     * The reassembly takes ownership of the part.
+     */
+    public void add(ByteBuf part) {
+        bytes.addComponent(true, part);
+        if (decoder != null) {
+            decoder.decodePart(bytes);
+            bytes.discardReadComponents();
+        }
+    }
+
+    /**
+     * Decodes the packet once all its parts were added, and releases the parts.
+     *
+     * @param codec the codec of the packets of the protocol, used if the payload is not decoded incrementally
+     * @param flow  the flow of the packet, used to wrap an incrementally decoded payload
+     */
+    public Packet<?> finish(StreamCodec<? super FriendlyByteBuf, ? extends Packet<?>> codec, PacketFlow flow) {
+        try {
+            if (decoder == null) {
+                return codec.decode(new FriendlyByteBuf(bytes));
+            }
+
+            CustomPacketPayload payload = decoder.finish();
+            if (bytes.isReadable()) {
+                throw new DecoderException("Payload " + channel + " was larger than expected, found " + bytes.readableBytes() + " bytes extra");
+            }
+            return GenericPacketSplitter.createPacket(flow, payload);
+        } finally {
+            bytes.release();
+        }
+    }
+
+    /**
+     * Releases the parts of a packet that will not be received completely.
+     */
+    public void discard() {
+        bytes.release();
+        if (decoder != null) {
+            decoder.discard();
+        }
+    }
+}
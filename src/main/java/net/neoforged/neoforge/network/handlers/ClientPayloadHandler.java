@@ -8,6 +8,9 @@ package net.neoforged.neoforge.network.handlers;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import io.netty.buffer.Unpooled;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -17,27 +20,45 @@ import net.minecraft.client.gui.screens.Screen;
 import net.minecraft.client.gui.screens.inventory.MenuAccess;
 import net.minecraft.client.multiplayer.ClientLevel;
 import net.minecraft.core.RegistryAccess;
+import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.network.RegistryFriendlyByteBuf;
 import net.minecraft.network.chat.Component;
+import net.minecraft.network.protocol.common.ClientCommonPacketListener;
+import net.minecraft.network.protocol.common.ClientboundCustomPayloadPacket;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
 import net.minecraft.resources.ResourceKey;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.inventory.AbstractContainerMenu;
 import net.minecraft.world.inventory.MenuType;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.neoforged.neoforge.attachment.AttachmentSync;
 import net.neoforged.neoforge.common.world.AuxiliaryLightManager;
 import net.neoforged.neoforge.common.world.LevelChunkAuxiliaryLightManager;
 import net.neoforged.neoforge.entity.IEntityWithComplexSpawn;
 import net.neoforged.neoforge.network.ConfigSync;
+import net.neoforged.neoforge.network.configuration.CheckExtensibleEnums;
+import net.neoforged.neoforge.network.configuration.ConfigurationCache;
+import net.neoforged.neoforge.network.filters.PayloadCompressor;
 import net.neoforged.neoforge.network.handling.IPayloadContext;
 import net.neoforged.neoforge.network.payload.AdvancedAddEntityPayload;
 import net.neoforged.neoforge.network.payload.AdvancedContainerSetDataPayload;
 import net.neoforged.neoforge.network.payload.AdvancedOpenScreenPayload;
 import net.neoforged.neoforge.network.payload.AuxiliaryLightDataPayload;
+import net.neoforged.neoforge.network.payload.CachedConfigFilesPayload;
+import net.neoforged.neoforge.network.payload.CachedContentsPayload;
+import net.neoforged.neoforge.network.payload.CachedContentsReplyPayload;
 import net.neoforged.neoforge.network.payload.ClientboundCustomSetTimePayload;
+import net.neoforged.neoforge.network.payload.CoalescedPayload;
 import net.neoforged.neoforge.network.payload.ConfigFilePayload;
 import net.neoforged.neoforge.network.payload.FrozenRegistryPayload;
 import net.neoforged.neoforge.network.payload.FrozenRegistrySyncCompletedPayload;
 import net.neoforged.neoforge.network.payload.FrozenRegistrySyncStartPayload;
+import net.neoforged.neoforge.network.payload.MissingCachedContentsPayload;
+import net.neoforged.neoforge.network.payload.PayloadDictionaryPayload;
+import net.neoforged.neoforge.network.payload.SyncChunkAttachmentsPayload;
+import net.neoforged.neoforge.network.payload.SyncEntityAttachmentsPayload;
+import net.neoforged.neoforge.network.registration.NetworkRegistry;
 import net.neoforged.neoforge.registries.RegistryManager;
 import net.neoforged.neoforge.registries.RegistrySnapshot;
 import org.jetbrains.annotations.ApiStatus;
@@ -49,20 +70,57 @@ public final class ClientPayloadHandler {
     private static final Logger LOGGER = LoggerFactory.getLogger(ClientPayloadHandler.class);
     private static final Set<ResourceLocation> toSynchronize = Sets.newConcurrentHashSet();
     private static final Map<ResourceLocation, RegistrySnapshot> synchronizedRegistries = Maps.newConcurrentMap();
+    private static final Set<ResourceLocation> missingFromCache = Sets.newConcurrentHashSet();
 
     private ClientPayloadHandler() {}
 
     public static void handle(FrozenRegistryPayload payload, IPayloadContext context) {
         synchronizedRegistries.put(payload.registryName(), payload.snapshot());
         toSynchronize.remove(payload.registryName());
+        ConfigurationCache.put(context.connection(), ConfigurationCache.REGISTRIES, payload.snapshot().getBinary());
     }
 
     public static void handle(FrozenRegistrySyncStartPayload payload, IPayloadContext context) {
         toSynchronize.addAll(payload.toAccess());
         synchronizedRegistries.clear();
+        missingFromCache.clear();
+
+        // Snapshots that are not found in the cache are requested from the server once the sync completes
+        payload.hashes().forEach((registryName, hash) -> {
+            byte[] data = ConfigurationCache.get(ConfigurationCache.REGISTRIES, hash);
+            if (data == null) {
+                LOGGER.debug("The snapshot of registry {} is missing from the configuration cache", registryName);
+                missingFromCache.add(registryName);
+                return;
+            }
+
+            FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.wrappedBuffer(data));
+            try {
+                RegistrySnapshot snapshot = RegistrySnapshot.STREAM_CODEC.decode(buf);
+                if (snapshot.getHash() == hash) {
+                    synchronizedRegistries.put(registryName, snapshot);
+                    toSynchronize.remove(registryName);
+                } else {
+                    missingFromCache.add(registryName);
+                }
+            } catch (RuntimeException e) {
+                LOGGER.warn("Failed to read the cached snapshot of registry {}", registryName, e);
+                missingFromCache.add(registryName);
+            } finally {
+                buf.release();
+            }
+        });
     }
 
     public static void handle(FrozenRegistrySyncCompletedPayload payload, IPayloadContext context) {
+        // Request the snapshots that the server expected to be cached once; if they are still missing afterward, the sync fails
+        List<String> requested = toSynchronize.stream().filter(missingFromCache::contains).map(Object::toString).toList();
+        missingFromCache.clear();
+        if (!requested.isEmpty()) {
+            context.reply(new MissingCachedContentsPayload(ConfigurationCache.REGISTRIES, requested));
+            return;
+        }
+
         if (!toSynchronize.isEmpty()) {
             context.disconnect(Component.translatable("neoforge.network.registries.sync.missing", toSynchronize.stream().map(Object::toString).collect(Collectors.joining(", "))));
             return;
@@ -87,6 +145,46 @@ public final class ClientPayloadHandler {
 
     public static void handle(ConfigFilePayload payload, IPayloadContext context) {
         ConfigSync.receiveSyncedConfig(payload.contents(), payload.fileName());
+        ConfigurationCache.put(context.connection(), ConfigurationCache.CONFIGS, payload.contents());
+    }
+
+    public static void handle(CachedConfigFilesPayload payload, IPayloadContext context) {
+        List<String> missing = new ArrayList<>();
+        payload.files().forEach((fileName, hash) -> {
+            byte[] contents = ConfigurationCache.get(ConfigurationCache.CONFIGS, hash);
+            if (contents == null) {
+                missing.add(fileName);
+            } else {
+                ConfigSync.receiveSyncedConfig(contents, fileName);
+            }
+        });
+        // Always replied to, as the server waits for the reply to finish syncing the configs
+        context.reply(new MissingCachedContentsPayload(ConfigurationCache.CONFIGS, missing));
+    }
+
+    public static void handle(PayloadDictionaryPayload payload, IPayloadContext context) {
+        if (payload.dictionary().isPresent()) {
+            ConfigurationCache.put(context.connection(), ConfigurationCache.PAYLOAD_DICTIONARIES, payload.hash(), payload.dictionary().get());
+            PayloadCompressor.install(context.connection(), payload.dictionary().get());
+            return;
+        }
+
+        byte[] dictionary = ConfigurationCache.get(ConfigurationCache.PAYLOAD_DICTIONARIES, payload.hash());
+        if (dictionary == null) {
+            // The server sends the dictionary in full, and starts compressing once it did
+            context.reply(new MissingCachedContentsPayload(ConfigurationCache.PAYLOAD_DICTIONARIES, List.of(Long.toString(payload.hash()))));
+            return;
+        }
+        ConfigurationCache.touch(context.connection(), ConfigurationCache.PAYLOAD_DICTIONARIES, payload.hash());
+        PayloadCompressor.install(context.connection(), dictionary);
+        // Always replied to, as the server waits for the reply to start compressing
+        context.reply(new MissingCachedContentsPayload(ConfigurationCache.PAYLOAD_DICTIONARIES, List.of()));
+    }
+
+    public static void handle(CachedContentsPayload payload, IPayloadContext context) {
+        Map<String, List<Long>> keys = new HashMap<>(ConfigurationCache.getCachedKeys(context.connection()));
+        keys.put(ConfigurationCache.EXTENSIBLE_ENUMS, List.of(CheckExtensibleEnums.getEnumEntriesHash()));
+        context.reply(new CachedContentsReplyPayload(keys));
     }
 
     public static void handle(AdvancedAddEntityPayload advancedAddEntityPayload, IPayloadContext context) {
@@ -155,4 +253,27 @@ public final class ClientPayloadHandler {
         level.setDayTimeFraction(payload.dayTimeFraction());
         level.setDayTimePerTick(payload.dayTimePerTick());
     }
+
+    public static void handle(SyncEntityAttachmentsPayload payload, IPayloadContext context) {
+        ClientLevel level = Minecraft.getInstance().level;
+        Entity entity = level == null ? null : level.getEntity(payload.entityId());
+        if (entity != null) {
+            AttachmentSync.apply(entity, payload.entries());
+        }
+    }
+
+    public static void handle(SyncChunkAttachmentsPayload payload, IPayloadContext context) {
+        ClientLevel level = Minecraft.getInstance().level;
+        LevelChunk chunk = level == null ? null : level.getChunkSource().getChunk(payload.pos().x, payload.pos().z, false);
+        if (chunk != null) {
+            AttachmentSync.apply(chunk, payload.entries());
+        }
+    }
+
+    public static void handle(CoalescedPayload payload, IPayloadContext context) {
+        ClientCommonPacketListener listener = (ClientCommonPacketListener) context.listener();
+        for (CustomPacketPayload coalesced : payload.payloads()) {
+            NetworkRegistry.handleModdedPayload(listener, new ClientboundCustomPayloadPacket(coalesced));
+        }
+    }
 }
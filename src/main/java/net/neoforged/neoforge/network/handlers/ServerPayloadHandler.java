@@ -5,9 +5,14 @@
 
 package net.neoforged.neoforge.network.handlers;
 
+import net.minecraft.network.chat.Component;
+import net.neoforged.neoforge.network.configuration.ConfigurationCache;
+import net.neoforged.neoforge.network.configuration.SyncConfig;
+import net.neoforged.neoforge.network.configuration.SyncPayloadDictionary;
 import net.neoforged.neoforge.network.configuration.SyncRegistries;
 import net.neoforged.neoforge.network.handling.IPayloadContext;
 import net.neoforged.neoforge.network.payload.FrozenRegistrySyncCompletedPayload;
+import net.neoforged.neoforge.network.payload.MissingCachedContentsPayload;
 import org.jetbrains.annotations.ApiStatus;
 
 @ApiStatus.Internal
@@ -17,4 +22,13 @@ public final class ServerPayloadHandler {
     public static void handle(FrozenRegistrySyncCompletedPayload payload, IPayloadContext context) {
         context.finishCurrentTask(SyncRegistries.TYPE);
     }
+
+    public static void handle(MissingCachedContentsPayload payload, IPayloadContext context) {
+        switch (payload.kind()) {
+            case ConfigurationCache.REGISTRIES -> SyncRegistries.handleMissing(payload.names(), context);
+            case ConfigurationCache.CONFIGS -> SyncConfig.handleMissing(payload.names(), context);
+            case ConfigurationCache.PAYLOAD_DICTIONARIES -> SyncPayloadDictionary.handleMissing(payload.names(), context);
+            default -> context.disconnect(Component.translatable("neoforge.network.cached_contents.unknown_kind", payload.kind()));
+        }
+    }
 }
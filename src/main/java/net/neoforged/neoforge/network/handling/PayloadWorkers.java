@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.network.handling;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.netty.util.AttributeKey;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.minecraft.network.Connection;
+import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceLocation;
+import net.neoforged.neoforge.common.NeoForgeConfig;
+import net.neoforged.neoforge.network.registration.HandlerThread;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the handlers of payloads registered with {@link HandlerThread#WORKER}.
+ *
+ * <p>All connections share a fixed pool of daemon threads. Each connection has one queue per payload type,
+ * which is drained by at most one thread at a time, so that payloads of the same type are handled in order.
+ * Queues give their thread back to the pool after a few payloads, such that a busy channel does not starve the others.
+ *
+ * <p>Connections that have too many payloads waiting to be handled are disconnected.
+ */
+@ApiStatus.Internal
+public final class PayloadWorkers {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PayloadWorkers.class);
+    /**
+     * Maximum number of payloads of a single connection that are waiting to be handled.
+     */
+    private static final int MAX_PENDING_PER_CONNECTION = 1024;
+    /**
+     * Number of payloads handled by a queue before it goes to the back of the pool's queue.
+     */
+    private static final int BATCH_SIZE = 16;
+
+    private static final AttributeKey<ConnectionQueues> QUEUES = AttributeKey.valueOf("neoforge:payload_worker_queues");
+
+    @Nullable
+    private static ExecutorService pool;
+
+    private PayloadWorkers() {}
+
+    /**
+     * Queues the handling of a payload, after the payloads of the same type that were received before it on the same connection.
+     * The connection is disconnected if the handler throws, or if too many payloads are waiting to be handled.
+     */
+    public static void submit(IPayloadContext context, ResourceLocation payloadId, Runnable task) {
+        Connection connection = context.connection();
+        ConnectionQueues queues = connection.channel().attr(QUEUES).setIfAbsent(new ConnectionQueues());
+        if (queues == null) {
+            // setIfAbsent returns null if the new value was set
+            queues = connection.channel().attr(QUEUES).get();
+        }
+
+        if (queues.pending.incrementAndGet() > MAX_PENDING_PER_CONNECTION) {
+            queues.pending.decrementAndGet();
+            LOGGER.warn("Too many payloads waiting to be handled for connection {}; disconnecting.", connection.getLoggableAddress(true));
+            context.disconnect(Component.translatable("neoforge.network.payload_workers.overloaded"));
+            return;
+        }
+
+        queues.byPayload.computeIfAbsent(payloadId, id -> new SerialQueue(id, connection, queues.pending)).submit(new Task(context, task));
+    }
+
+    private static int getPoolSize() {
+        int configured = NeoForgeConfig.COMMON.payloadWorkerThreads.getAsInt();
+        if (configured > 0) {
+            return configured;
+        }
+        return Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    private static synchronized ExecutorService getPool() {
+        if (pool == null) {
+            pool = Executors.newFixedThreadPool(getPoolSize(), new ThreadFactoryBuilder()
+                    .setNameFormat("Payload Worker #%d")
+                    .setDaemon(true)
+                    .build());
+        }
+        return pool;
+    }
+
+    private static final class ConnectionQueues {
+        private final Map<ResourceLocation, SerialQueue> byPayload = new ConcurrentHashMap<>();
+        private final AtomicInteger pending = new AtomicInteger();
+    }
+
+    private record Task(IPayloadContext context, Runnable handler) {}
+
+    private static final class SerialQueue {
+        private final ResourceLocation payloadId;
+        private final Connection connection;
+        private final AtomicInteger pending;
+        private final Queue<Task> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private SerialQueue(ResourceLocation payloadId, Connection connection, AtomicInteger pending) {
+            this.payloadId = payloadId;
+            this.connection = connection;
+            this.pending = pending;
+        }
+
+        private void submit(Task task) {
+            tasks.add(task);
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                getPool().execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                Task task = tasks.poll();
+                if (task == null) {
+                    break;
+                }
+
+                pending.decrementAndGet();
+                // Payloads of closed connections are dropped
+                if (!connection.isConnected()) {
+                    continue;
+                }
+
+                try {
+                    task.handler().run();
+                } catch (Throwable throwable) {
+                    // Like the other handler threads, the connection cannot be trusted to be in a consistent state anymore
+                    LOGGER.error("Failed to process a payload on a worker thread: {}", payloadId, throwable);
+                    task.context().disconnect(Component.translatable("neoforge.network.payload_workers.failed", payloadId.toString()));
+                }
+            }
+
+            scheduled.set(false);
+            // Tasks may have been added after the last poll, but before the flag was cleared
+            if (!tasks.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.network.payload;
+
+import java.util.HashMap;
+import java.util.Map;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+import net.neoforged.neoforge.internal.versions.neoforge.NeoForgeVersion;
+import net.neoforged.neoforge.network.configuration.ConfigurationCache;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * A payload that refers to the config files that the client has in its {@link ConfigurationCache}.
+ * <p>
+ * This is sent instead of {@link ConfigFilePayload}s when the client already has the contents of the config files.
+ * The client replies with a {@link MissingCachedContentsPayload} listing the files it could not find in its cache.
+ * </p>
+ *
+ * @param files The hash of the contents of each config file, by file name.
+ */
+@ApiStatus.Internal
+public record CachedConfigFilesPayload(Map<String, Long> files) implements CustomPacketPayload {
+    private static final int MAX_FILES = 1024;
+
+    public static final Type<CachedConfigFilesPayload> TYPE = new Type<>(ResourceLocation.fromNamespaceAndPath(NeoForgeVersion.MOD_ID, "cached_config_files"));
+    public static final StreamCodec<FriendlyByteBuf, CachedConfigFilesPayload> STREAM_CODEC = StreamCodec.composite(
+            ByteBufCodecs.map(HashMap::new, ByteBufCodecs.STRING_UTF8, ByteBufCodecs.LONG, MAX_FILES),
+            CachedConfigFilesPayload::files,
+            CachedConfigFilesPayload::new);
+
+    @Override
+    public Type<CachedConfigFilesPayload> type() {
+        return TYPE;
+    }
+}
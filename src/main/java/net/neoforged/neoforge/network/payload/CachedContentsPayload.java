@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.network.payload;
+
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+import net.neoforged.neoforge.internal.versions.neoforge.NeoForgeVersion;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * This payload is sent to the client to ask for the data it has cached from the server.
+ * The client replies with a {@link CachedContentsReplyPayload}.
+ */
+@ApiStatus.Internal
+public final class CachedContentsPayload implements CustomPacketPayload {
+    public static final Type<CachedContentsPayload> TYPE = new Type<>(ResourceLocation.fromNamespaceAndPath(NeoForgeVersion.MOD_ID, "cached_contents"));
+    public static final CachedContentsPayload INSTANCE = new CachedContentsPayload();
+    public static final StreamCodec<FriendlyByteBuf, CachedContentsPayload> STREAM_CODEC = StreamCodec.unit(INSTANCE);
+
+    private CachedContentsPayload() {}
+
+    @Override
+    public Type<CachedContentsPayload> type() {
+        return TYPE;
+    }
+}
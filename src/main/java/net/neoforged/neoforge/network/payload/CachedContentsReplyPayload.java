@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.network.payload;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+import net.neoforged.neoforge.internal.versions.neoforge.NeoForgeVersion;
+import net.neoforged.neoforge.network.configuration.ConfigurationCache;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Packet payload sent to the server in reply to the {@link CachedContentsPayload}.
+ *
+ * @param keys The keys of the entries of the {@link ConfigurationCache} that the client received from the server, by kind.
+ */
+@ApiStatus.Internal
+public record CachedContentsReplyPayload(Map<String, List<Long>> keys) implements CustomPacketPayload {
+    private static final int MAX_KINDS = 64;
+    private static final int MAX_KEYS_PER_KIND = 1024;
+
+    public static final Type<CachedContentsReplyPayload> TYPE = new Type<>(ResourceLocation.fromNamespaceAndPath(NeoForgeVersion.MOD_ID, "cached_contents_reply"));
+    public static final StreamCodec<FriendlyByteBuf, CachedContentsReplyPayload> STREAM_CODEC = StreamCodec.composite(
+            ByteBufCodecs.map(HashMap::new, ByteBufCodecs.STRING_UTF8, ByteBufCodecs.LONG.apply(ByteBufCodecs.list(MAX_KEYS_PER_KIND)), MAX_KINDS),
+            CachedContentsReplyPayload::keys,
+            CachedContentsReplyPayload::new);
+
+    @Override
+    public Type<CachedContentsReplyPayload> type() {
+        return TYPE;
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.network.payload;
+
+import io.netty.handler.codec.DecoderException;
+import io.netty.handler.codec.EncoderException;
+import java.util.ArrayList;
+import java.util.List;
+import net.minecraft.network.ConnectionProtocol;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.VarInt;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.PacketFlow;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+import net.neoforged.neoforge.internal.versions.neoforge.NeoForgeVersion;
+import net.neoforged.neoforge.network.bundle.PayloadCoalescer;
+import net.neoforged.neoforge.network.connection.PayloadTraffic;
+import net.neoforged.neoforge.network.registration.NetworkRegistry;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * A payload that carries multiple client-bound play payloads in a single frame.
+ * <p>
+ * Each payload is written as its id followed by its data, the same way it would be written in its own packet.
+ * The payloads are handled in order, as if they were received one after the other.
+ * </p>
+ *
+ * @param payloads The coalesced payloads.
+ * @see PayloadCoalescer
+ */
+@ApiStatus.Internal
+public record CoalescedPayload(List<CustomPacketPayload> payloads) implements CustomPacketPayload {
+    public static final Type<CoalescedPayload> TYPE = new Type<>(ResourceLocation.fromNamespaceAndPath(NeoForgeVersion.MOD_ID, "coalesced"));
+    public static final StreamCodec<RegistryFriendlyByteBuf, CoalescedPayload> STREAM_CODEC = StreamCodec.of(CoalescedPayload::encode, CoalescedPayload::decode);
+
+    @Override
+    public Type<CoalescedPayload> type() {
+        return TYPE;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void encode(RegistryFriendlyByteBuf buf, CoalescedPayload coalesced) {
+        int start = buf.writerIndex();
+        buf.writeVarInt(coalesced.payloads().size());
+        // Size of the frames that would have been written if each payload was sent on its own
+        int separateSize = 0;
+        for (CustomPacketPayload payload : coalesced.payloads()) {
+            ResourceLocation id = payload.type().id();
+            var codec = (StreamCodec<FriendlyByteBuf, CustomPacketPayload>) NetworkRegistry.getCodec(id, ConnectionProtocol.PLAY, PacketFlow.CLIENTBOUND);
+            if (codec == null) {
+                throw new EncoderException("Cannot coalesce payload " + id + " without a registered codec");
+            }
+
+            int payloadStart = buf.writerIndex();
+            long startTime = System.nanoTime();
+            buf.writeResourceLocation(id);
+            codec.encode(buf, payload);
+            PayloadTraffic.measuredNested(id, buf.writerIndex() - payloadStart, System.nanoTime() - startTime);
+            // Packet id and payload, preceded by the frame length
+            int packetSize = 1 + buf.writerIndex() - payloadStart;
+            separateSize += VarInt.getByteSize(packetSize) + packetSize;
+        }
+        PayloadCoalescer.recordEncoded(separateSize, buf.writerIndex() - start);
+    }
+
+    private static CoalescedPayload decode(RegistryFriendlyByteBuf buf) {
+        int count = buf.readVarInt();
+        if (count < 0 || count > PayloadCoalescer.MAX_PAYLOADS_PER_FRAME) {
+            throw new DecoderException("Invalid coalesced payload count: " + count);
+        }
+
+        List<CustomPacketPayload> payloads = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int payloadStart = buf.readerIndex();
+            long startTime = System.nanoTime();
+            ResourceLocation id = buf.readResourceLocation();
+            var codec = NetworkRegistry.getCodec(id, ConnectionProtocol.PLAY, PacketFlow.CLIENTBOUND);
+            if (codec == null) {
+                throw new DecoderException("Received unknown coalesced payload " + id);
+            }
+            payloads.add(codec.decode(buf));
+            PayloadTraffic.measuredNested(id, buf.readerIndex() - payloadStart, System.nanoTime() - startTime);
+        }
+        return new CoalescedPayload(payloads);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.network.payload;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+import net.neoforged.neoforge.internal.versions.neoforge.NeoForgeVersion;
+import net.neoforged.neoforge.network.filters.PayloadCompressor;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * A payload that contains a packet compressed by the {@link PayloadCompressor}.
+ * <p>
+ * The data is a retained slice of the received buffer, which must be released by the receiver.
+ * The id of the payload is kept short, as it is sent uncompressed with every compressed packet.
+ * </p>
+ *
+ * @param data The compressed packet.
+ */
+@ApiStatus.Internal
+public record CompressedPayload(ByteBuf data) implements CustomPacketPayload {
+    public static final Type<CompressedPayload> TYPE = new Type<>(ResourceLocation.fromNamespaceAndPath(NeoForgeVersion.MOD_ID, "z"));
+    /**
+     * Same format as a byte array: the length as a var int, followed by the bytes.
+     */
+    public static final StreamCodec<FriendlyByteBuf, CompressedPayload> STREAM_CODEC = StreamCodec.of(
+            (buf, compressed) -> {
+                ByteBuf data = compressed.data();
+                buf.writeVarInt(data.readableBytes());
+                buf.writeBytes(data, data.readerIndex(), data.readableBytes());
+            },
+            buf -> new CompressedPayload(buf.readRetainedSlice(buf.readVarInt())));
+    /**
+     * An empty payload, only used to measure the size of the compressed packet prefix.
+     */
+    public static final CompressedPayload EMPTY = new CompressedPayload(Unpooled.EMPTY_BUFFER);
+
+    @Override
+    public Type<CompressedPayload> type() {
+        return TYPE;
+    }
+}
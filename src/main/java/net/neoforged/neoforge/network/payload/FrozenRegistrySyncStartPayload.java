@@ -5,29 +5,37 @@
 
 package net.neoforged.neoforge.network.payload;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.network.codec.ByteBufCodecs;
 import net.minecraft.network.codec.StreamCodec;
 import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
 import net.minecraft.resources.ResourceLocation;
 import net.neoforged.neoforge.internal.versions.neoforge.NeoForgeVersion;
+import net.neoforged.neoforge.network.configuration.ConfigurationCache;
+import net.neoforged.neoforge.registries.RegistrySnapshot;
 import org.jetbrains.annotations.ApiStatus;
 
 /**
  * Packet payload sent to the client to start the frozen registry sync.
  * <p>
- * It indicates to the client which registries it should expect to receive.
+ * It indicates to the client which registries it should expect to receive,
+ * and which of them it should take from its {@link ConfigurationCache} instead.
  * </p>
  * 
  * @param toAccess The registries to access.
+ * @param hashes   The {@linkplain RegistrySnapshot#getHash() hashes} of the snapshots that are not sent, because the client has them cached.
  */
 @ApiStatus.Internal
-public record FrozenRegistrySyncStartPayload(List<ResourceLocation> toAccess) implements CustomPacketPayload {
+public record FrozenRegistrySyncStartPayload(List<ResourceLocation> toAccess, Map<ResourceLocation, Long> hashes) implements CustomPacketPayload {
     public static final Type<FrozenRegistrySyncStartPayload> TYPE = new Type<>(ResourceLocation.fromNamespaceAndPath(NeoForgeVersion.MOD_ID, "frozen_registry_sync_start"));
     public static final StreamCodec<FriendlyByteBuf, FrozenRegistrySyncStartPayload> STREAM_CODEC = StreamCodec.composite(
             ResourceLocation.STREAM_CODEC.apply(ByteBufCodecs.list()),
             FrozenRegistrySyncStartPayload::toAccess,
+            ByteBufCodecs.map(HashMap::new, ResourceLocation.STREAM_CODEC, ByteBufCodecs.VAR_LONG),
+            FrozenRegistrySyncStartPayload::hashes,
             FrozenRegistrySyncStartPayload::new);
 
     @Override
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.network.payload;
+
+import java.util.List;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+import net.neoforged.neoforge.internal.versions.neoforge.NeoForgeVersion;
+import net.neoforged.neoforge.network.configuration.ConfigurationCache;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Sent by the client when data that the server skipped sending is missing from its {@link ConfigurationCache},
+ * to request the data in full.
+ *
+ * @param kind  The kind of the missing entries, {@link ConfigurationCache#REGISTRIES}, {@link ConfigurationCache#CONFIGS} or {@link ConfigurationCache#PAYLOAD_DICTIONARIES}.
+ * @param names The names of the missing registries or config files, or the hash of the missing dictionary.
+ *              May be empty in reply to a {@link CachedConfigFilesPayload} or a {@link PayloadDictionaryPayload}.
+ */
+@ApiStatus.Internal
+public record MissingCachedContentsPayload(String kind, List<String> names) implements CustomPacketPayload {
+    private static final int MAX_NAMES = 1024;
+
+    public static final Type<MissingCachedContentsPayload> TYPE = new Type<>(ResourceLocation.fromNamespaceAndPath(NeoForgeVersion.MOD_ID, "missing_cached_contents"));
+    public static final StreamCodec<FriendlyByteBuf, MissingCachedContentsPayload> STREAM_CODEC = StreamCodec.composite(
+            ByteBufCodecs.STRING_UTF8,
+            MissingCachedContentsPayload::kind,
+            ByteBufCodecs.STRING_UTF8.apply(ByteBufCodecs.list(MAX_NAMES)),
+            MissingCachedContentsPayload::names,
+            MissingCachedContentsPayload::new);
+
+    @Override
+    public Type<MissingCachedContentsPayload> type() {
+        return TYPE;
+    }
+}
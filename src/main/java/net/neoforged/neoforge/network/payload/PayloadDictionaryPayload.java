@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.network.payload;
+
+import java.util.Optional;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+import net.neoforged.neoforge.internal.versions.neoforge.NeoForgeVersion;
+import net.neoforged.neoforge.network.configuration.ConfigurationCache;
+import net.neoforged.neoforge.network.filters.PayloadCompressor;
+import net.neoforged.neoforge.network.filters.PayloadDictionary;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * A payload that sends the {@link PayloadDictionary} the {@link PayloadCompressor} uses to the client.
+ * <p>
+ * The dictionary is omitted if the client has it in its {@link ConfigurationCache}.
+ * </p>
+ *
+ * @param hash       The hash of the dictionary.
+ * @param dictionary The dictionary, or empty if the client has it cached.
+ */
+@ApiStatus.Internal
+public record PayloadDictionaryPayload(long hash, Optional<byte[]> dictionary) implements CustomPacketPayload {
+    public static final Type<PayloadDictionaryPayload> TYPE = new Type<>(ResourceLocation.fromNamespaceAndPath(NeoForgeVersion.MOD_ID, "payload_dictionary"));
+    public static final StreamCodec<FriendlyByteBuf, PayloadDictionaryPayload> STREAM_CODEC = StreamCodec.composite(
+            ByteBufCodecs.LONG,
+            PayloadDictionaryPayload::hash,
+            ByteBufCodecs.optional(ByteBufCodecs.byteArray(PayloadDictionary.MAX_SIZE)),
+            PayloadDictionaryPayload::dictionary,
+            PayloadDictionaryPayload::new);
+
+    @Override
+    public Type<PayloadDictionaryPayload> type() {
+        return TYPE;
+    }
+}
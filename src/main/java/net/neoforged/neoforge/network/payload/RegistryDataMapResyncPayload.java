@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.network.payload;
+
+import net.minecraft.core.Registry;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Sent by the client when it cannot apply a data map delta from a {@link RegistryDataMapSyncPayload},
+ * to request the full contents of the data maps of a registry.
+ *
+ * @param registryKey The key of the registry
+ */
+@ApiStatus.Internal
+public record RegistryDataMapResyncPayload(ResourceKey<? extends Registry<?>> registryKey) implements CustomPacketPayload {
+    public static final Type<RegistryDataMapResyncPayload> TYPE = new Type<>(ResourceLocation.fromNamespaceAndPath("neoforge", "registry_data_map_resync"));
+    public static final StreamCodec<FriendlyByteBuf, RegistryDataMapResyncPayload> STREAM_CODEC = StreamCodec.of(
+            (buf, payload) -> buf.writeResourceKey(payload.registryKey()),
+            buf -> new RegistryDataMapResyncPayload(buf.readRegistryKey()));
+
+    @Override
+    public Type<RegistryDataMapResyncPayload> type() {
+        return TYPE;
+    }
+}
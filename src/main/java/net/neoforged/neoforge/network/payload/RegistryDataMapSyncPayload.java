@@ -12,7 +12,10 @@ import com.mojang.serialization.DataResult;
 import com.mojang.serialization.JsonOps;
 import io.netty.handler.codec.DecoderException;
 import io.netty.handler.codec.EncoderException;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import net.minecraft.core.HolderLookup;
 import net.minecraft.core.Registry;
 import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.network.RegistryFriendlyByteBuf;
@@ -25,30 +28,74 @@ import net.neoforged.neoforge.registries.RegistryManager;
 import net.neoforged.neoforge.registries.datamaps.DataMapType;
 import org.jetbrains.annotations.ApiStatus;
 
+/**
+ * Syncs the data maps of a registry to the client.
+ * <p>
+ * Each data map is either sent in full, or as a delta against the contents that the client received previously,
+ * identified by their hash.
+ *
+ * @param registryKey The key of the registry
+ * @param dataMaps    The contents of the synced data maps. Data maps that are not present are cleared on the client.
+ */
 @ApiStatus.Internal
 @SuppressWarnings({ "unchecked", "rawtypes" })
 public record RegistryDataMapSyncPayload<T>(ResourceKey<? extends Registry<T>> registryKey,
-        Map<ResourceLocation, Map<ResourceKey<T>, ?>> dataMaps) implements CustomPacketPayload {
+        Map<ResourceLocation, Contents<T>> dataMaps) implements CustomPacketPayload {
     public static final CustomPacketPayload.Type<RegistryDataMapSyncPayload<?>> TYPE = new Type<>(ResourceLocation.fromNamespaceAndPath("neoforge", "registry_data_map_sync"));
     public static final StreamCodec<RegistryFriendlyByteBuf, RegistryDataMapSyncPayload<?>> STREAM_CODEC = StreamCodec.ofMember(
             RegistryDataMapSyncPayload::write, RegistryDataMapSyncPayload::decode);
 
+    /**
+     * The synced contents of a data map.
+     *
+     * @param full     Whether the values are all the values of the data map, or only the values that were added or changed since the base contents
+     * @param baseHash The hash of the contents that this delta applies to. Unused if {@code full} is {@code true}
+     * @param hash     The hash of the contents after applying this delta
+     * @param values   The values that were added or changed, or all the values
+     * @param removed  The keys whose value was removed. Always empty if {@code full} is {@code true}
+     */
+    public record Contents<T>(boolean full, long baseHash, long hash, Map<ResourceKey<T>, ?> values, Set<ResourceKey<T>> removed) {
+        public static <T> Contents<T> full(long hash, Map<ResourceKey<T>, ?> values) {
+            return new Contents<>(true, 0, hash, values, Set.of());
+        }
+
+        public static <T> Contents<T> delta(long baseHash, long hash, Map<ResourceKey<T>, ?> values, Set<ResourceKey<T>> removed) {
+            return new Contents<>(false, baseHash, hash, values, removed);
+        }
+    }
+
     public static <T> RegistryDataMapSyncPayload<T> decode(RegistryFriendlyByteBuf buf) {
         //noinspection RedundantCast javac complains about this cast
         final ResourceKey<Registry<T>> registryKey = (ResourceKey<Registry<T>>) (Object) buf.readRegistryKey();
-        final Map<ResourceLocation, Map<ResourceKey<T>, ?>> attach = buf.readMap(FriendlyByteBuf::readResourceLocation, (b1, key) -> {
+        final Map<ResourceLocation, Contents<T>> attach = buf.readMap(FriendlyByteBuf::readResourceLocation, (b1, key) -> {
             final DataMapType<T, ?> dataMap = RegistryManager.getDataMap(registryKey, key);
-            return b1.readMap(bf -> bf.readResourceKey(registryKey), bf -> readJsonWithRegistryCodec((RegistryFriendlyByteBuf) bf, dataMap.networkCodec()));
+            final boolean full = b1.readBoolean();
+            final long baseHash = full ? 0 : b1.readLong();
+            final long hash = b1.readLong();
+            final Map<ResourceKey<T>, ?> values = b1.readMap(bf -> bf.readResourceKey(registryKey), bf -> readJsonWithRegistryCodec((RegistryFriendlyByteBuf) bf, dataMap.networkCodec()));
+            if (full) {
+                return Contents.full(hash, values);
+            }
+            final Set<ResourceKey<T>> removed = b1.readCollection(HashSet::new, bf -> bf.readResourceKey(registryKey));
+            return Contents.delta(baseHash, hash, values, removed);
         });
         return new RegistryDataMapSyncPayload<>(registryKey, attach);
     }
 
     public void write(RegistryFriendlyByteBuf buf) {
         buf.writeResourceKey(registryKey);
-        buf.writeMap(dataMaps, FriendlyByteBuf::writeResourceLocation, (b1, key, attach) -> {
+        buf.writeMap(dataMaps, FriendlyByteBuf::writeResourceLocation, (b1, key, contents) -> {
             final DataMapType<T, ?> dataMap = RegistryManager.getDataMap(registryKey, key);
+            b1.writeBoolean(contents.full());
+            if (!contents.full()) {
+                b1.writeLong(contents.baseHash());
+            }
+            b1.writeLong(contents.hash());
             // TODO - make datamaps use stream codecs once datapack registries use them too
-            b1.writeMap(attach, FriendlyByteBuf::writeResourceKey, (bf, value) -> writeJsonWithRegistryCodec((RegistryFriendlyByteBuf) bf, (Codec) dataMap.networkCodec(), value));
+            b1.writeMap(contents.values(), FriendlyByteBuf::writeResourceKey, (bf, value) -> writeJsonWithRegistryCodec((RegistryFriendlyByteBuf) bf, (Codec) dataMap.networkCodec(), value));
+            if (!contents.full()) {
+                b1.writeCollection(contents.removed(), FriendlyByteBuf::writeResourceKey);
+            }
         });
     }
 
@@ -66,7 +113,14 @@ public record RegistryDataMapSyncPayload<T>(ResourceKey<? extends Registry<T>> r
     }
 
     private static <T> void writeJsonWithRegistryCodec(RegistryFriendlyByteBuf buf, Codec<T> codec, T value) {
-        DataResult<JsonElement> dataresult = codec.encodeStart(buf.registryAccess().createSerializationContext(JsonOps.INSTANCE), value);
-        buf.writeUtf(GSON.toJson(dataresult.getOrThrow(message -> new EncoderException("Failed to encode: " + message + " " + value))));
+        buf.writeUtf(toJson(buf.registryAccess(), codec, value));
+    }
+
+    /**
+     * {@return the value encoded to a JSON string, as it is sent to the client}
+     */
+    public static <T> String toJson(HolderLookup.Provider registries, Codec<T> codec, T value) {
+        DataResult<JsonElement> dataresult = codec.encodeStart(registries.createSerializationContext(JsonOps.INSTANCE), value);
+        return GSON.toJson(dataresult.getOrThrow(message -> new EncoderException("Failed to encode: " + message + " " + value)));
     }
 }
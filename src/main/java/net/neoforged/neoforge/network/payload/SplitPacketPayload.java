@@ -5,29 +5,41 @@
 
 package net.neoforged.neoforge.network.payload;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import net.minecraft.network.FriendlyByteBuf;
 import net.minecraft.network.codec.StreamCodec;
 import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
 import net.minecraft.resources.ResourceLocation;
 import net.neoforged.neoforge.internal.versions.neoforge.NeoForgeVersion;
-import net.neoforged.neoforge.network.codec.NeoForgeStreamCodecs;
 import org.jetbrains.annotations.ApiStatus;
 
 /**
  * A payload that is used to split a packet into multiple payloads.
  * <p>
  * This single payload will contain a slice of the original packet.
+ * The slice is a retained slice of the received buffer, which must be released by the receiver.
  * </p>
  * 
  * @param payload The slice of the original packet.
  */
 @ApiStatus.Internal
-public record SplitPacketPayload(byte[] payload) implements CustomPacketPayload {
+public record SplitPacketPayload(ByteBuf payload) implements CustomPacketPayload {
     public static final Type<SplitPacketPayload> TYPE = new Type<>(ResourceLocation.fromNamespaceAndPath(NeoForgeVersion.MOD_ID, "split"));
-    public static final StreamCodec<FriendlyByteBuf, SplitPacketPayload> STREAM_CODEC = StreamCodec.composite(
-            NeoForgeStreamCodecs.UNBOUNDED_BYTE_ARRAY,
-            SplitPacketPayload::payload,
-            SplitPacketPayload::new);
+    /**
+     * Same format as a byte array: the length as a var int, followed by the bytes.
+     */
+    public static final StreamCodec<FriendlyByteBuf, SplitPacketPayload> STREAM_CODEC = StreamCodec.of(
+            (buf, split) -> {
+                ByteBuf payload = split.payload();
+                buf.writeVarInt(payload.readableBytes());
+                buf.writeBytes(payload, payload.readerIndex(), payload.readableBytes());
+            },
+            buf -> new SplitPacketPayload(buf.readRetainedSlice(buf.readVarInt())));
+    /**
+     * An empty payload, only used to measure the size of the split packet prefix.
+     */
+    public static final SplitPacketPayload EMPTY = new SplitPacketPayload(Unpooled.EMPTY_BUFFER);
 
     @Override
     public Type<SplitPacketPayload> type() {
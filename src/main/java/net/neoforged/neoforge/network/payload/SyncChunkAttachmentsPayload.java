@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.network.payload;
+
+import java.util.List;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.ChunkPos;
+import net.neoforged.neoforge.attachment.AttachmentSync;
+import net.neoforged.neoforge.internal.versions.neoforge.NeoForgeVersion;
+import net.neoforged.neoforge.network.codec.NeoForgeStreamCodecs;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Syncs changed data attachments of a level chunk to the client.
+ *
+ * @param pos     the position of the chunk
+ * @param entries the changed attachments
+ */
+@ApiStatus.Internal
+public record SyncChunkAttachmentsPayload(ChunkPos pos, List<AttachmentSync.Entry> entries) implements CustomPacketPayload {
+    public static final Type<SyncChunkAttachmentsPayload> TYPE = new Type<>(ResourceLocation.fromNamespaceAndPath(NeoForgeVersion.MOD_ID, "sync_chunk_attachments"));
+    public static final StreamCodec<RegistryFriendlyByteBuf, SyncChunkAttachmentsPayload> STREAM_CODEC = StreamCodec.composite(
+            NeoForgeStreamCodecs.CHUNK_POS,
+            SyncChunkAttachmentsPayload::pos,
+            AttachmentSync.ENTRIES_STREAM_CODEC,
+            SyncChunkAttachmentsPayload::entries,
+            SyncChunkAttachmentsPayload::new);
+
+    @Override
+    public Type<SyncChunkAttachmentsPayload> type() {
+        return TYPE;
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.network.payload;
+
+import java.util.List;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+import net.neoforged.neoforge.attachment.AttachmentSync;
+import net.neoforged.neoforge.internal.versions.neoforge.NeoForgeVersion;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Syncs changed data attachments of an entity to the client.
+ *
+ * @param entityId the id of the entity
+ * @param entries  the changed attachments
+ */
+@ApiStatus.Internal
+public record SyncEntityAttachmentsPayload(int entityId, List<AttachmentSync.Entry> entries) implements CustomPacketPayload {
+    public static final Type<SyncEntityAttachmentsPayload> TYPE = new Type<>(ResourceLocation.fromNamespaceAndPath(NeoForgeVersion.MOD_ID, "sync_entity_attachments"));
+    public static final StreamCodec<RegistryFriendlyByteBuf, SyncEntityAttachmentsPayload> STREAM_CODEC = StreamCodec.composite(
+            ByteBufCodecs.VAR_INT,
+            SyncEntityAttachmentsPayload::entityId,
+            AttachmentSync.ENTRIES_STREAM_CODEC,
+            SyncEntityAttachmentsPayload::entries,
+            SyncEntityAttachmentsPayload::new);
+
+    @Override
+    public Type<SyncEntityAttachmentsPayload> type() {
+        return TYPE;
+    }
+}
@@ -5,6 +5,7 @@
 
 package net.neoforged.neoforge.network.registration;
 
+import net.neoforged.neoforge.network.handling.IPayloadContext;
 import net.neoforged.neoforge.network.handling.IPayloadHandler;
 
 /**
@@ -23,5 +24,15 @@ public enum HandlerThread {
     /**
      * The network thread, which executes concurrently to the main thread.
      */
-    NETWORK;
+    NETWORK,
+
+    /**
+     * A bounded pool of worker threads, shared by all connections, which executes concurrently to the main thread and the network thread.
+     * <p>
+     * Payloads of the same type received from the same connection are handled one at a time, in the order they were received.
+     * Use {@link IPayloadContext#enqueueWork} to hand the results over to the main thread.
+     * <p>
+     * This is meant for payloads that are expensive to parse or validate.
+     */
+    WORKER;
 }
@@ -47,12 +47,16 @@ import net.neoforged.fml.ModLoader;
 import net.neoforged.fml.config.ConfigTracker;
 import net.neoforged.neoforge.common.extensions.ICommonPacketListener;
 import net.neoforged.neoforge.internal.versions.neoforge.NeoForgeVersion;
+import net.neoforged.neoforge.network.bundle.PayloadCoalescer;
 import net.neoforged.neoforge.network.configuration.CheckExtensibleEnums;
 import net.neoforged.neoforge.network.configuration.CommonRegisterTask;
 import net.neoforged.neoforge.network.configuration.CommonVersionTask;
 import net.neoforged.neoforge.network.connection.ConnectionType;
 import net.neoforged.neoforge.network.event.RegisterPayloadHandlersEvent;
+import net.neoforged.neoforge.network.filters.GenericPacketSplitter;
 import net.neoforged.neoforge.network.filters.NetworkFilters;
+import net.neoforged.neoforge.network.filters.PayloadDictionary;
+import net.neoforged.neoforge.network.filters.SharedEncodedPacket;
 import net.neoforged.neoforge.network.handling.ClientPayloadContext;
 import net.neoforged.neoforge.network.handling.IPayloadContext;
 import net.neoforged.neoforge.network.handling.IPayloadHandler;
@@ -144,9 +148,33 @@ public class NetworkRegistry {
      * @param version   The version of the payload. Increase the payload version if the codec logic or handler logic changes. Neo-Neo connections with mismatched versions are denied.
      * @param optional  If the payload is optional. Any connection with missing non-optional payloads is denied.
      */
-    @SuppressWarnings({ "unchecked", "rawtypes" })
     public static <T extends CustomPacketPayload, B extends FriendlyByteBuf> void register(CustomPacketPayload.Type<T> type, StreamCodec<? super B, T> codec, IPayloadHandler<T> handler,
             List<ConnectionProtocol> protocols, Optional<PacketFlow> flow, String version, boolean optional) {
+        register(type, codec, handler, protocols, flow, version, optional, false);
+    }
+
+    /**
+     * Registers a new payload.
+     *
+     * @param coalesced If client-bound play payloads of this type may be coalesced with other payloads, see {@link PayloadCoalescer}.
+     * @see #register(CustomPacketPayload.Type, StreamCodec, IPayloadHandler, List, Optional, String, boolean)
+     */
+    public static <T extends CustomPacketPayload, B extends FriendlyByteBuf> void register(CustomPacketPayload.Type<T> type, StreamCodec<? super B, T> codec, IPayloadHandler<T> handler,
+            List<ConnectionProtocol> protocols, Optional<PacketFlow> flow, String version, boolean optional, boolean coalesced) {
+        register(type, codec, handler, protocols, flow, version, optional, coalesced, 0, false);
+    }
+
+    /**
+     * Registers a new payload.
+     *
+     * @param coalesced         If client-bound play payloads of this type may be coalesced with other payloads, see {@link PayloadCoalescer}.
+     * @param maxSplitSize      The maximum size in bytes of the payload when it is received in multiple parts, or 0 to use the configured default, see {@link GenericPacketSplitter}.
+     * @param dictionarySampled If client-bound play payloads of this type may be sampled for the payload compression dictionary, see {@link PayloadDictionary}.
+     * @see #register(CustomPacketPayload.Type, StreamCodec, IPayloadHandler, List, Optional, String, boolean)
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static <T extends CustomPacketPayload, B extends FriendlyByteBuf> void register(CustomPacketPayload.Type<T> type, StreamCodec<? super B, T> codec, IPayloadHandler<T> handler,
+            List<ConnectionProtocol> protocols, Optional<PacketFlow> flow, String version, boolean optional, boolean coalesced, int maxSplitSize, boolean dictionarySampled) {
         if (setup) {
             throw new UnsupportedOperationException("Cannot register payload " + type.id() + " after registration phase.");
         }
@@ -163,7 +191,7 @@ public class NetworkRegistry {
             throw new UnsupportedOperationException("Cannot register payload " + type.id() + " using the domain \"minecraft\".");
         }
 
-        PayloadRegistration<T> reg = new PayloadRegistration(type, codec, handler, protocols, flow, version.strip(), optional);
+        PayloadRegistration<T> reg = new PayloadRegistration(type, codec, handler, protocols, flow, version.strip(), optional, coalesced, maxSplitSize, dictionarySampled);
 
         for (ConnectionProtocol protocol : protocols) {
             Map<ResourceLocation, PayloadRegistration<?>> byProtocol = PAYLOAD_REGISTRATIONS.get(protocol);
@@ -424,6 +452,31 @@ public class NetworkRegistry {
         return true;
     }
 
+    /**
+     * {@return the maximum size in bytes of the given payload when it is received in multiple parts, or 0 if it uses the configured default}
+     */
+    public static int getMaxSplitSize(ResourceLocation id, ConnectionProtocol protocol) {
+        Map<ResourceLocation, PayloadRegistration<?>> byProtocol = PAYLOAD_REGISTRATIONS.get(protocol);
+        PayloadRegistration<?> registration = byProtocol != null ? byProtocol.get(id) : null;
+        return registration != null ? registration.maxSplitSize() : 0;
+    }
+
+    /**
+     * {@return true if the payload is registered as a play payload that may be sampled for the payload compression dictionary}
+     */
+    public static boolean isDictionarySampled(CustomPacketPayload payload) {
+        PayloadRegistration<?> registration = PAYLOAD_REGISTRATIONS.get(ConnectionProtocol.PLAY).get(payload.type().id());
+        return registration != null && registration.dictionarySampled();
+    }
+
+    /**
+     * {@return true if the payload is registered as a coalesced play payload}
+     */
+    public static boolean isCoalesced(CustomPacketPayload payload) {
+        PayloadRegistration<?> registration = PAYLOAD_REGISTRATIONS.get(ConnectionProtocol.PLAY).get(payload.type().id());
+        return registration != null && registration.coalesced();
+    }
+
     /**
      * Validates that a {@link ClientboundCustomPayloadPacket} may be sent to the client.
      *
@@ -432,6 +485,10 @@ public class NetworkRegistry {
      * @throws UnsupportedOperationException if the packet may not be sent.
      */
     public static void checkPacket(Packet<?> packet, ServerCommonPacketListener listener) {
+        if (packet instanceof SharedEncodedPacket sharedEncodedPacket) {
+            packet = sharedEncodedPacket.packet();
+        }
+
         if (packet instanceof ClientboundCustomPayloadPacket customPayloadPacket) {
             ResourceLocation id = customPayloadPacket.payload().type().id();
             if (BUILTIN_PAYLOADS.containsKey(id) || "minecraft".equals(id.getNamespace())) {
@@ -16,6 +16,7 @@ import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
 import net.neoforged.neoforge.network.handling.DirectionalPayloadHandler;
 import net.neoforged.neoforge.network.handling.IPayloadHandler;
 import net.neoforged.neoforge.network.handling.MainThreadPayloadHandler;
+import net.neoforged.neoforge.network.handling.WorkerPayloadHandler;
 
 /**
  * Builder-style helper for registering {@link CustomPacketPayload}s, used for modded networking.
@@ -27,6 +28,9 @@ public class PayloadRegistrar {
     private String version;
     private boolean optional = false;
     private HandlerThread thread = HandlerThread.MAIN;
+    private boolean coalesced = false;
+    private int maxSplitSize = 0;
+    private boolean dictionarySampled = false;
 
     public PayloadRegistrar(String version) {
         this.version = version;
@@ -36,6 +40,9 @@ public class PayloadRegistrar {
         this.version = source.version;
         this.optional = source.optional;
         this.thread = source.thread;
+        this.coalesced = source.coalesced;
+        this.maxSplitSize = source.maxSplitSize;
+        this.dictionarySampled = source.dictionarySampled;
     }
 
     /**
@@ -120,6 +127,7 @@ public class PayloadRegistrar {
      * Creates a copy of this registrar with a different default handling thread.
      * <p>
      * When the handling thread is set to {@link HandlerThread#MAIN}, all registered handlers will be wrapped in {@link MainThreadPayloadHandler}.
+     * When it is set to {@link HandlerThread#WORKER}, they will be wrapped in {@link WorkerPayloadHandler}.
      * <p>
      * The initial handling thread is {@link HandlerThread#MAIN}.
      * 
@@ -161,11 +169,64 @@ public class PayloadRegistrar {
         return clone;
     }
 
+    /**
+     * Creates a copy of this registrar with coalescing enabled. Client-bound play payloads registered with the returned copy
+     * may be held back when they are sent from the server thread, and sent at the end of the tick
+     * together with the other coalesced payloads of the same connection, in a single frame.
+     * <p>
+     * Coalesced payloads are always received in the order they were sent.
+     * Use this for payloads that are sent often and do not need to arrive before the end of the tick.
+     *
+     * @return A new registrar, ready to configure payloads as coalesced.
+     */
+    public PayloadRegistrar coalesced() {
+        PayloadRegistrar clone = new PayloadRegistrar(this);
+        clone.coalesced = true;
+        return clone;
+    }
+
+    /**
+     * Creates a copy of this registrar with a different limit for the size of the payloads received in multiple parts.
+     * Payloads that are too large to be sent in a single packet are split, and the receiving side disconnects
+     * if the parts of a payload registered with the returned copy add up to more than the given size.
+     * <p>
+     * The initial limit is set in the NeoForge common config.
+     *
+     * @param maxSplitSize The maximum size of a payload in bytes.
+     * @return A new registrar, ready to configure payloads with that limit.
+     */
+    public PayloadRegistrar maxSplitSize(int maxSplitSize) {
+        if (maxSplitSize <= 0) {
+            throw new IllegalArgumentException("The maximum split size must be positive, got " + maxSplitSize);
+        }
+        PayloadRegistrar clone = new PayloadRegistrar(this);
+        clone.maxSplitSize = maxSplitSize;
+        return clone;
+    }
+
+    /**
+     * Creates a copy of this registrar that allows sampling client-bound play payloads for the payload compression dictionary.
+     * The server builds the dictionary from the payloads it sends, and sends the dictionary to every player,
+     * so only use this for payloads that do not carry data that is private to the player they are sent to,
+     * such as the contents of their inventory, their messages or their position.
+     * <p>
+     * Payloads are compressed with the dictionary whether they are sampled or not.
+     *
+     * @return A new registrar, ready to configure payloads as sampled for the dictionary.
+     */
+    public PayloadRegistrar dictionarySampled() {
+        PayloadRegistrar clone = new PayloadRegistrar(this);
+        clone.dictionarySampled = true;
+        return clone;
+    }
+
     private <T extends CustomPacketPayload, B extends FriendlyByteBuf> void register(CustomPacketPayload.Type<T> type, StreamCodec<? super B, T> codec, IPayloadHandler<T> handler,
             List<ConnectionProtocol> protocols, Optional<PacketFlow> flow, String version, boolean optional) {
         if (this.thread == HandlerThread.MAIN) {
             handler = new MainThreadPayloadHandler<>(handler);
+        } else if (this.thread == HandlerThread.WORKER) {
+            handler = new WorkerPayloadHandler<>(handler);
         }
-        NetworkRegistry.register(type, codec, handler, protocols, flow, version, optional);
+        NetworkRegistry.register(type, codec, handler, protocols, flow, version, optional, coalesced, maxSplitSize, dictionarySampled);
     }
 }
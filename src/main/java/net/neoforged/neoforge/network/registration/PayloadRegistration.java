@@ -19,14 +19,17 @@ import org.jetbrains.annotations.ApiStatus;
 /**
  * Holds the information needed to describe a registered payload.
  * 
- * @param type      The type of the payload
- * @param codec     The codec for the payload
- * @param handler   The handler for the payload
- * @param protocols The protocols this payload supports
- * @param flow      The flow this payload supports (empty if both)
- * @param version   The version of the payload
- * @param optional  If the payload is optional
- * @param <T>       The type of the payload
+ * @param type              The type of the payload
+ * @param codec             The codec for the payload
+ * @param handler           The handler for the payload
+ * @param protocols         The protocols this payload supports
+ * @param flow              The flow this payload supports (empty if both)
+ * @param version           The version of the payload
+ * @param optional          If the payload is optional
+ * @param coalesced         If the payload may be coalesced with other payloads when sent to the client
+ * @param maxSplitSize      The maximum size in bytes of the payload when it is received in multiple parts, or 0 to use the configured default
+ * @param dictionarySampled If the payload may be sampled for the payload compression dictionary when sent to the client
+ * @param <T>               The type of the payload
  */
 @ApiStatus.Internal
 public record PayloadRegistration<T extends CustomPacketPayload>(
@@ -36,7 +39,10 @@ public record PayloadRegistration<T extends CustomPacketPayload>(
         List<ConnectionProtocol> protocols,
         Optional<PacketFlow> flow,
         String version,
-        boolean optional) {
+        boolean optional,
+        boolean coalesced,
+        int maxSplitSize,
+        boolean dictionarySampled) {
     public ResourceLocation id() {
         return this.type().id();
     }
@@ -12,7 +12,9 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import net.minecraft.ChatFormatting;
@@ -23,10 +25,13 @@ import net.minecraft.network.chat.MutableComponent;
 import net.minecraft.resources.ResourceKey;
 import net.minecraft.resources.ResourceLocation;
 import net.neoforged.neoforge.common.NeoForge;
+import net.neoforged.neoforge.network.configuration.DataMapCache;
 import net.neoforged.neoforge.network.handling.IPayloadContext;
 import net.neoforged.neoforge.network.payload.KnownRegistryDataMapsPayload;
 import net.neoforged.neoforge.network.payload.KnownRegistryDataMapsReplyPayload;
+import net.neoforged.neoforge.network.payload.RegistryDataMapResyncPayload;
 import net.neoforged.neoforge.network.payload.RegistryDataMapSyncPayload;
+import net.neoforged.neoforge.registries.datamaps.DataMapType;
 import net.neoforged.neoforge.registries.datamaps.DataMapsUpdatedEvent;
 import org.jetbrains.annotations.ApiStatus;
 import org.slf4j.Logger;
@@ -41,8 +46,45 @@ public class ClientRegistryManager {
                 var regAccess = Minecraft.getInstance().level.registryAccess();
                 final BaseMappedRegistry<R> registry = (BaseMappedRegistry<R>) regAccess
                         .lookupOrThrow(payload.registryKey());
+                final Map<ResourceLocation, Long> knownHashes = DataMapSync.getKnownHashes(context.connection(), payload.registryKey());
+
+                final Map<DataMapType<R, ?>, Map<ResourceKey<R>, ?>> dataMaps = new IdentityHashMap<>();
+                for (var entry : payload.dataMaps().entrySet()) {
+                    final DataMapType<R, ?> type = RegistryManager.getDataMap(payload.registryKey(), entry.getKey());
+                    final var contents = entry.getValue();
+                    if (contents.full()) {
+                        dataMaps.put(type, Collections.unmodifiableMap(contents.values()));
+                        continue;
+                    }
+
+                    final Long knownHash = knownHashes.get(entry.getKey());
+                    final Map<ResourceKey<R>, ?> base;
+                    if (knownHash != null && knownHash == contents.baseHash()) {
+                        base = registry.getDataMap(type);
+                    } else {
+                        // The server may have sent a delta against contents we received in an earlier session
+                        base = DataMapCache.load(context, regAccess, payload.registryKey(), entry.getKey(), contents.baseHash());
+                    }
+                    if (base == null) {
+                        // We do not have the contents the delta applies to, ask for all the data maps again
+                        LOGGER.warn("Received a data map delta for {} in registry {} that does not apply to the local contents; requesting a full sync.", entry.getKey(), payload.registryKey().location());
+                        knownHashes.clear();
+                        context.reply(new RegistryDataMapResyncPayload(payload.registryKey()));
+                        return;
+                    }
+
+                    final Map<ResourceKey<R>, Object> values = new HashMap<>(base);
+                    contents.removed().forEach(values::remove);
+                    values.putAll(contents.values());
+                    dataMaps.put(type, Collections.unmodifiableMap(values));
+                }
+
                 registry.dataMaps.clear();
-                payload.dataMaps().forEach((attachKey, maps) -> registry.dataMaps.put(RegistryManager.getDataMap(payload.registryKey(), attachKey), Collections.unmodifiableMap(maps)));
+                registry.dataMaps.putAll(dataMaps);
+                knownHashes.clear();
+                payload.dataMaps().forEach((attachKey, contents) -> knownHashes.put(attachKey, contents.hash()));
+                payload.dataMaps().forEach((attachKey, contents) -> DataMapCache.store(context, regAccess, payload.registryKey(), attachKey, contents.hash(),
+                        dataMaps.get(RegistryManager.getDataMap(payload.registryKey(), attachKey))));
                 NeoForge.EVENT_BUS.post(new DataMapsUpdatedEvent(regAccess, registry, DataMapsUpdatedEvent.UpdateCause.CLIENT_SYNC));
             } catch (Throwable t) {
                 LOGGER.error("Failed to handle registry data map sync: ", t);
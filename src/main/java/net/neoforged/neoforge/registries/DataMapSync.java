@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.registries;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.mojang.serialization.Codec;
+import io.netty.util.AttributeKey;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongPredicate;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.core.Registry;
+import net.minecraft.network.Connection;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerPlayer;
+import net.neoforged.neoforge.network.PacketDistributor;
+import net.neoforged.neoforge.network.configuration.DataMapCache;
+import net.neoforged.neoforge.network.handling.IPayloadContext;
+import net.neoforged.neoforge.network.payload.RegistryDataMapResyncPayload;
+import net.neoforged.neoforge.network.payload.RegistryDataMapSyncPayload;
+import net.neoforged.neoforge.registries.datamaps.DataMapType;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Syncs the data maps with a {@linkplain DataMapType#networkCodec() network codec} to the clients.
+ *
+ * <p>The server keeps a hash of the contents of each data map, computed from the encoded values, and the hashes of the previous reload.
+ * Each connection remembers the hashes of the contents it was sent. When the data maps are synced again,
+ * clients that have the contents of the previous reload only receive the values that were added, changed or removed,
+ * and clients that already have the current contents receive an empty delta. Other clients receive the full contents.
+ *
+ * <p>Clients also keep the contents they received in their configuration cache, see {@link DataMapCache}.
+ * On the first sync of a connection, the contents that the client has cached are treated as if the client had received them on that connection.
+ *
+ * <p>Clients that cannot apply a delta request the full contents with a {@link RegistryDataMapResyncPayload}.
+ * The contents are then sent in full, regardless of what the client advertised as cached.
+ */
+@ApiStatus.Internal
+public final class DataMapSync {
+    /**
+     * The hashes of the data map contents the client has, per registry and data map.
+     * Set on both sides of the connection.
+     */
+    public static final AttributeKey<Map<ResourceKey<? extends Registry<?>>, Map<ResourceLocation, Long>>> ATTRIBUTE_DATA_MAP_HASHES = AttributeKey.valueOf("neoforge:data_map_hashes");
+
+    /**
+     * Only accessed from the server thread.
+     */
+    private static final Map<DataMapType<?, ?>, State<?>> states = new IdentityHashMap<>();
+    private static int generation = 0;
+
+    private DataMapSync() {}
+
+    /**
+     * Called when the data maps were reloaded. The contents are hashed again on the next sync.
+     */
+    public static void onDataMapsReloaded() {
+        generation++;
+    }
+
+    /**
+     * Called when the server stops.
+     */
+    public static void clear() {
+        states.clear();
+    }
+
+    /**
+     * Syncs the given data maps of a registry to a player.
+     */
+    public static <T> void sync(ServerPlayer player, Registry<T> registry, Collection<ResourceLocation> attachments) {
+        sync(player, registry, attachments, false);
+    }
+
+    /**
+     * Syncs the given data maps of a registry to a player.
+     *
+     * @param forceFull whether to send the full contents, even if the client has them or may apply a delta
+     */
+    private static <T> void sync(ServerPlayer player, Registry<T> registry, Collection<ResourceLocation> attachments, boolean forceFull) {
+        if (attachments.isEmpty()) return;
+        final Connection connection = player.connection.getConnection();
+        final Map<ResourceLocation, Long> knownHashes = getKnownHashes(connection, registry.key());
+        final Map<ResourceLocation, RegistryDataMapSyncPayload.Contents<T>> att = new HashMap<>();
+        attachments.forEach(key -> {
+            final DataMapType<T, ?> attach = RegistryManager.getDataMap(registry.key(), key);
+            if (attach == null || attach.networkCodec() == null) return;
+            final LongPredicate isCached = forceFull ? hash -> false : hash -> DataMapCache.isCached(connection, registry.key(), key, hash);
+            final var contents = getContents(registry, attach, player.server.registryAccess(), forceFull ? null : knownHashes.get(key), isCached);
+            knownHashes.put(key, contents.hash());
+            att.put(key, contents);
+        });
+        if (!att.isEmpty()) {
+            PacketDistributor.sendToPlayer(player, new RegistryDataMapSyncPayload<>(registry.key(), att));
+        }
+    }
+
+    /**
+     * {@return the mutable map of the hashes of the data map contents the client has}
+     */
+    public static Map<ResourceLocation, Long> getKnownHashes(Connection connection, ResourceKey<? extends Registry<?>> registryKey) {
+        var hashes = connection.channel().attr(ATTRIBUTE_DATA_MAP_HASHES).get();
+        if (hashes == null) {
+            hashes = new HashMap<>();
+            connection.channel().attr(ATTRIBUTE_DATA_MAP_HASHES).set(hashes);
+        }
+        return hashes.computeIfAbsent(registryKey, k -> new HashMap<>());
+    }
+
+    public static void handleResyncRequest(final RegistryDataMapResyncPayload payload, final IPayloadContext context) {
+        final ServerPlayer player = (ServerPlayer) context.player();
+        final Connection connection = context.connection();
+        getKnownHashes(connection, payload.registryKey()).clear();
+
+        final var playerMaps = connection.channel().attr(RegistryManager.ATTRIBUTE_KNOWN_DATA_MAPS).get();
+        if (playerMaps == null) return;
+        // The client could not apply what it was sent, so it must not be assumed to have any contents
+        player.server.registryAccess().lookup(payload.registryKey()).ifPresent(registry -> sync(player, registry, playerMaps.getOrDefault(payload.registryKey(), List.of()), true));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> RegistryDataMapSyncPayload.Contents<T> getContents(Registry<T> registry, DataMapType<T, ?> type, HolderLookup.Provider registries, @Nullable Long knownHash, LongPredicate isCached) {
+        final Map<ResourceKey<T>, ?> values = registry.getDataMap(type);
+        State<T> state = (State<T>) states.get(type);
+        if (state == null || state.generation != generation) {
+            final Snapshot<T> snapshot = Snapshot.of(values, (Codec<Object>) type.networkCodec(), registries);
+            if (state == null) {
+                state = new State<>(generation, null, snapshot);
+            } else if (state.current.hash == snapshot.hash) {
+                // Unchanged by the reload: keep the delta against the previous contents
+                state = new State<>(generation, state.previous, state.current);
+            } else {
+                state = new State<>(generation, state.current, snapshot);
+            }
+            states.put(type, state);
+        }
+
+        if (knownHash == null) {
+            // The first sync of the connection: the client may have the contents in its cache
+            if (isCached.test(state.current.hash)) {
+                knownHash = state.current.hash;
+            } else if (state.previous != null && isCached.test(state.previous.hash)) {
+                knownHash = state.previous.hash;
+            }
+        }
+
+        if (knownHash != null) {
+            if (knownHash == state.current.hash) {
+                return RegistryDataMapSyncPayload.Contents.delta(knownHash, knownHash, Map.of(), Set.of());
+            } else if (state.previous != null && knownHash == state.previous.hash) {
+                return state.getDelta(values);
+            }
+        }
+        return RegistryDataMapSyncPayload.Contents.full(state.current.hash, values);
+    }
+
+    private static final class State<T> {
+        private final int generation;
+        @Nullable
+        private final Snapshot<T> previous;
+        private final Snapshot<T> current;
+        @Nullable
+        private RegistryDataMapSyncPayload.Contents<T> delta;
+
+        private State(int generation, @Nullable Snapshot<T> previous, Snapshot<T> current) {
+            this.generation = generation;
+            this.previous = previous;
+            this.current = current;
+        }
+
+        private RegistryDataMapSyncPayload.Contents<T> getDelta(Map<ResourceKey<T>, ?> values) {
+            if (delta == null) {
+                final Map<ResourceKey<T>, Object> changed = new HashMap<>();
+                final Set<ResourceKey<T>> removed = new HashSet<>();
+                for (Object2LongMap.Entry<ResourceKey<T>> entry : current.entryHashes.object2LongEntrySet()) {
+                    final ResourceKey<T> key = entry.getKey();
+                    if (!previous.entryHashes.containsKey(key) || previous.entryHashes.getLong(key) != entry.getLongValue()) {
+                        changed.put(key, values.get(key));
+                    }
+                }
+                for (ResourceKey<T> key : previous.entryHashes.keySet()) {
+                    if (!current.entryHashes.containsKey(key)) {
+                        removed.add(key);
+                    }
+                }
+                delta = RegistryDataMapSyncPayload.Contents.delta(previous.hash, current.hash, changed, removed);
+            }
+            return delta;
+        }
+    }
+
+    /**
+     * The hashes of the encoded values of a data map.
+     *
+     * @param hash        the hash of all the entries, which does not depend on their order
+     * @param entryHashes the 64-bit content hash of the encoded value of each entry
+     */
+    private record Snapshot<T>(long hash, Object2LongMap<ResourceKey<T>> entryHashes) {
+        private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+        private static <T> Snapshot<T> of(Map<ResourceKey<T>, ?> values, Codec<Object> codec, HolderLookup.Provider registries) {
+            final Object2LongMap<ResourceKey<T>> entryHashes = new Object2LongOpenHashMap<>(values.size());
+            long hash = values.size();
+            for (var entry : values.entrySet()) {
+                // A collision would make the client keep a stale value, so a strong hash is used instead of String#hashCode
+                final String json = RegistryDataMapSyncPayload.toJson(registries, codec, entry.getValue());
+                final long valueHash = HASH_FUNCTION.hashString(json, StandardCharsets.UTF_8).asLong();
+                entryHashes.put(entry.getKey(), valueHash);
+                hash += HASH_FUNCTION.newHasher()
+                        .putString(entry.getKey().location().toString(), StandardCharsets.UTF_8)
+                        .putLong(valueHash)
+                        .hash()
+                        .asLong();
+            }
+            return new Snapshot<>(hash, entryHashes);
+        }
+    }
+}
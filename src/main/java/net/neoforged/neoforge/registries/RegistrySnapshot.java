@@ -5,10 +5,16 @@
 
 package net.neoforged.neoforge.registries;
 
+import com.google.common.hash.Hashing;
 import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.DecoderException;
 import it.unimi.dsi.fastutil.ints.Int2ObjectRBTreeMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectSortedMap;
 import it.unimi.dsi.fastutil.ints.Int2ObjectSortedMaps;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.objects.Object2IntLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Map;
@@ -24,32 +30,60 @@ import org.jetbrains.annotations.Nullable;
 
 public class RegistrySnapshot {
     private static final Comparator<ResourceLocation> SORTER = ResourceLocation::compareNamespaced;
+    /**
+     * The snapshots are encoded in a compact format:
+     * <ul>
+     * <li>the namespaces of all the keys, in order of first use;</li>
+     * <li>the ids, as runs of contiguous ids, each run being its distance to the end of the previous run and its length,
+     * followed by the index of the namespace and the path of each key;</li>
+     * <li>the aliases, as pairs of keys written as the index of their namespace and their path.</li>
+     * </ul>
+     */
     public static final StreamCodec<FriendlyByteBuf, RegistrySnapshot> STREAM_CODEC = new StreamCodec<>() {
         @Override
         public RegistrySnapshot decode(FriendlyByteBuf buf) {
             RegistrySnapshot snapshot = new RegistrySnapshot();
-            buf.readMap(size -> snapshot.ids, FriendlyByteBuf::readVarInt, FriendlyByteBuf::readResourceLocation);
-            buf.readMap(size -> snapshot.aliases, FriendlyByteBuf::readResourceLocation, FriendlyByteBuf::readResourceLocation);
+            String[] namespaces = new String[buf.readVarInt()];
+            for (int i = 0; i < namespaces.length; i++) {
+                namespaces[i] = buf.readUtf();
+            }
+
+            int runs = buf.readVarInt();
+            int id = 0;
+            for (int run = 0; run < runs; run++) {
+                id += buf.readVarInt();
+                int length = buf.readVarInt();
+                for (int i = 0; i < length; i++) {
+                    snapshot.ids.put(id++, readLocation(buf, namespaces));
+                }
+            }
+
+            int aliases = buf.readVarInt();
+            for (int i = 0; i < aliases; i++) {
+                snapshot.aliases.put(readLocation(buf, namespaces), readLocation(buf, namespaces));
+            }
             return snapshot;
         }
 
         @Override
-        public synchronized void encode(FriendlyByteBuf buf, RegistrySnapshot snapshot) {
-            if (snapshot.binary == null) {
-                FriendlyByteBuf pkt = new FriendlyByteBuf(Unpooled.buffer());
-                try {
-                    pkt.writeMap(snapshot.ids, FriendlyByteBuf::writeVarInt, FriendlyByteBuf::writeResourceLocation);
-                    pkt.writeMap(snapshot.aliases, FriendlyByteBuf::writeResourceLocation, FriendlyByteBuf::writeResourceLocation);
-                    snapshot.binary = new byte[pkt.readableBytes()];
-                    pkt.readBytes(snapshot.binary);
-                } finally {
-                    pkt.release();
-                }
-            }
-            buf.writeBytes(snapshot.binary);
+        public void encode(FriendlyByteBuf buf, RegistrySnapshot snapshot) {
+            buf.writeBytes(snapshot.getBinary());
         }
     };
 
+    private static ResourceLocation readLocation(FriendlyByteBuf buf, String[] namespaces) {
+        int namespace = buf.readVarInt();
+        if (namespace < 0 || namespace >= namespaces.length) {
+            throw new DecoderException("Invalid namespace index " + namespace + " in registry snapshot");
+        }
+        return ResourceLocation.fromNamespaceAndPath(namespaces[namespace], buf.readUtf());
+    }
+
+    private static void writeLocation(FriendlyByteBuf buf, Object2IntMap<String> namespaces, ResourceLocation location) {
+        buf.writeVarInt(namespaces.getInt(location.getNamespace()));
+        buf.writeUtf(location.getPath());
+    }
+
     // Use a sorted map with the ID as the key.
     // We need the entries to be sorted by increasing order for client-side application of the snapshot to work.
     private final Int2ObjectSortedMap<ResourceLocation> ids = new Int2ObjectRBTreeMap<>();
@@ -60,6 +94,7 @@ public class RegistrySnapshot {
     private final Registry<?> fullBackup;
     @Nullable
     private byte[] binary = null;
+    private long hash;
 
     /**
      * Creates a blank snapshot to populate.
@@ -94,6 +129,73 @@ public class RegistrySnapshot {
         }
     }
 
+    /**
+     * {@return the encoded snapshot, which must not be modified} The snapshot is only encoded once.
+     */
+    public synchronized byte[] getBinary() {
+        if (this.binary == null) {
+            FriendlyByteBuf pkt = new FriendlyByteBuf(Unpooled.buffer());
+            try {
+                Object2IntMap<String> namespaces = new Object2IntLinkedOpenHashMap<>();
+                this.ids.values().forEach(key -> namespaces.putIfAbsent(key.getNamespace(), namespaces.size()));
+                this.aliases.forEach((from, to) -> {
+                    namespaces.putIfAbsent(from.getNamespace(), namespaces.size());
+                    namespaces.putIfAbsent(to.getNamespace(), namespaces.size());
+                });
+                pkt.writeVarInt(namespaces.size());
+                namespaces.keySet().forEach(pkt::writeUtf);
+
+                // Ids are mostly contiguous, so they are written as runs instead of one by one
+                IntList runs = new IntArrayList();
+                int previous = Integer.MIN_VALUE;
+                for (int id : this.ids.keySet()) {
+                    if (runs.isEmpty() || id != previous + 1) {
+                        runs.add(id);
+                        runs.add(1);
+                    } else {
+                        runs.set(runs.size() - 1, runs.getInt(runs.size() - 1) + 1);
+                    }
+                    previous = id;
+                }
+                pkt.writeVarInt(runs.size() / 2);
+                var keys = this.ids.values().iterator();
+                int end = 0;
+                for (int i = 0; i < runs.size(); i += 2) {
+                    int start = runs.getInt(i);
+                    int length = runs.getInt(i + 1);
+                    pkt.writeVarInt(start - end);
+                    pkt.writeVarInt(length);
+                    for (int j = 0; j < length; j++) {
+                        writeLocation(pkt, namespaces, keys.next());
+                    }
+                    end = start + length;
+                }
+
+                pkt.writeVarInt(this.aliases.size());
+                this.aliases.forEach((from, to) -> {
+                    writeLocation(pkt, namespaces, from);
+                    writeLocation(pkt, namespaces, to);
+                });
+
+                this.binary = new byte[pkt.readableBytes()];
+                pkt.readBytes(this.binary);
+                this.hash = Hashing.murmur3_128().hashBytes(this.binary).asLong();
+            } finally {
+                pkt.release();
+            }
+        }
+        return this.binary;
+    }
+
+    /**
+     * {@return the hash of the encoded snapshot}
+     * Two snapshots with the same ids and aliases have the same hash.
+     */
+    public synchronized long getHash() {
+        getBinary();
+        return this.hash;
+    }
+
     public Int2ObjectSortedMap<ResourceLocation> getIds() {
         return this.idsView;
     }
@@ -11,23 +11,47 @@ import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.builder.ArgumentBuilder;
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import com.mojang.brigadier.context.CommandContext;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.commands.Commands;
 import net.minecraft.commands.arguments.coordinates.BlockPosArgument;
 import net.minecraft.core.BlockPos;
 import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.neoforged.bus.api.SubscribeEvent;
+import net.neoforged.fml.common.EventBusSubscriber;
+import net.neoforged.neoforge.event.server.ServerStartedEvent;
+import net.neoforged.neoforge.event.server.ServerStoppingEvent;
+import net.neoforged.neoforge.internal.versions.neoforge.NeoForgeVersion;
 import net.neoforged.neoforge.server.command.generation.GenerationBar;
 import net.neoforged.neoforge.server.command.generation.GenerationTask;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Special thanks to Jasmine and Gegy for allowing us to use their pregenerator mod as a model to use in NeoForge!
  * Original code: <a href="https://github.com/jaskarth/fabric-chunkpregenerator">https://github.com/jaskarth/fabric-chunkpregenerator</a>
  */
-class GenerateCommand {
-    private static GenerationTask activeTask;
-    private static GenerationBar generationBar;
+@ApiStatus.Internal
+@EventBusSubscriber(modid = NeoForgeVersion.MOD_ID)
+public class GenerateCommand {
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    /**
+     * Running generations, at most one per dimension. Generations in different dimensions run concurrently.
+     */
+    private static final Map<ResourceKey<Level>, ActiveGeneration> activeGenerations = new ConcurrentHashMap<>();
+
+    private record ActiveGeneration(GenerationTask task, @Nullable GenerationBar bar) {}
 
     static ArgumentBuilder<CommandSourceStack, ?> register() {
         LiteralArgumentBuilder<CommandSourceStack> builder = Commands.literal("generate").requires(cs -> cs.hasPermission(4)); //permission
@@ -60,16 +84,22 @@ class GenerateCommand {
     }
 
     private static int executeGeneration(CommandSourceStack source, BlockPos pos, int chunkRadius, boolean progressBar) {
-        if (activeTask != null) {
-            source.sendSuccess(() -> Component.translatable("commands.neoforge.chunkgen.already_running"), true);
+        ResourceKey<Level> dimension = source.getLevel().dimension();
+        if (activeGenerations.containsKey(dimension)) {
+            source.sendSuccess(() -> Component.translatable("commands.neoforge.chunkgen.already_running", dimension.location().toString()), true);
             return Command.SINGLE_SUCCESS;
         }
 
         ChunkPos origin = new ChunkPos(pos);
 
-        activeTask = new GenerationTask(source.getLevel(), origin.x, origin.z, chunkRadius);
+        GenerationTask task = new GenerationTask(source.getLevel(), origin.x, origin.z, chunkRadius);
         int diameter = chunkRadius * 2 + 1;
 
+        if (task.getResumedCount() > 0) {
+            source.sendSuccess(() -> Component.translatable("commands.neoforge.chunkgen.resumed", task.getResumedCount(), task.getTotalCount()), true);
+        }
+
+        GenerationBar generationBar = null;
         if (progressBar) {
             generationBar = new GenerationBar();
 
@@ -78,29 +108,35 @@ class GenerateCommand {
             }
         }
 
+        ActiveGeneration generation = new ActiveGeneration(task, generationBar);
+        activeGenerations.put(dimension, generation);
+
         source.sendSuccess(() -> Component.translatable("commands.neoforge.chunkgen.started",
-                activeTask.getTotalCount(), diameter, diameter, diameter * 16, diameter * 16), true);
+                task.getTotalCount(), diameter, diameter, diameter * 16, diameter * 16), true);
 
-        activeTask.run(createPregenListener(source));
+        task.run(createPregenListener(source, dimension, generation));
 
         return Command.SINGLE_SUCCESS;
     }
 
     private static int stopGeneration(CommandSourceStack source) {
-        if (activeTask != null) {
-            activeTask.stop();
+        if (!activeGenerations.isEmpty()) {
+            for (var entry : activeGenerations.entrySet()) {
+                GenerationTask task = entry.getValue().task();
+                task.stop();
 
-            int count = activeTask.getOkCount() + activeTask.getErrorCount() + activeTask.getSkippedCount();
-            int total = activeTask.getTotalCount();
+                int count = task.getOkCount() + task.getErrorCount() + task.getSkippedCount();
+                int total = task.getTotalCount();
 
-            double percent = (double) count / total * 100.0;
-            source.sendSuccess(() -> Component.translatable("commands.neoforge.chunkgen.stopped", count, total, percent), true);
+                double percent = (double) count / total * 100.0;
+                String dimension = entry.getKey().location().toString();
+                source.sendSuccess(() -> Component.translatable("commands.neoforge.chunkgen.stopped", count, total, percent, dimension), true);
 
-            if (generationBar != null) {
-                generationBar.close();
-                generationBar = null;
+                if (entry.getValue().bar() != null) {
+                    entry.getValue().bar().close();
+                }
             }
-            activeTask = null;
+            activeGenerations.clear();
         } else {
             source.sendSuccess(() -> Component.translatable("commands.neoforge.chunkgen.not_running"), false);
         }
@@ -109,12 +145,23 @@ class GenerateCommand {
     }
 
     private static int getGenerationStatus(CommandSourceStack source) {
-        if (activeTask != null) {
-            int count = activeTask.getOkCount() + activeTask.getErrorCount() + activeTask.getSkippedCount();
-            int total = activeTask.getTotalCount();
-
-            double percent = (double) count / total * 100.0;
-            source.sendSuccess(() -> Component.translatable("commands.neoforge.chunkgen.status", count, total, percent), true);
+        if (!activeGenerations.isEmpty()) {
+            for (var entry : activeGenerations.entrySet()) {
+                GenerationTask task = entry.getValue().task();
+                int count = task.getOkCount() + task.getErrorCount() + task.getSkippedCount();
+                int total = task.getTotalCount();
+
+                double percent = (double) count / total * 100.0;
+                String dimension = entry.getKey().location().toString();
+                source.sendSuccess(() -> Component.translatable("commands.neoforge.chunkgen.status", count, total, percent, dimension), true);
+
+                double rate = task.getChunksPerSecond();
+                long secondsLeft = task.getEstimatedSecondsLeft();
+                if (secondsLeft >= 0) {
+                    String eta = String.format(Locale.ROOT, "%d:%02d:%02d", secondsLeft / 3600, (secondsLeft / 60) % 60, secondsLeft % 60);
+                    source.sendSuccess(() -> Component.translatable("commands.neoforge.chunkgen.status.rate", String.format(Locale.ROOT, "%.1f", rate), eta), true);
+                }
+            }
         } else {
             source.sendSuccess(() -> Component.translatable("commands.neoforge.chunkgen.not_running"), false);
         }
@@ -122,17 +169,52 @@ class GenerateCommand {
         return Command.SINGLE_SUCCESS;
     }
 
+    /**
+     * Resumes the generations that were still running when the server was last stopped.
+     */
+    @SubscribeEvent
+    public static void resumeGenerations(ServerStartedEvent event) {
+        MinecraftServer server = event.getServer();
+        CommandSourceStack source = server.createCommandSourceStack();
+        for (ServerLevel level : server.getAllLevels()) {
+            GenerationTask task = GenerationTask.resume(level);
+            if (task == null) {
+                continue;
+            }
+
+            LOGGER.info("Resuming generation of {} chunks in {}, {} chunks were already completed", task.getTotalCount(), level.dimension().location(), task.getResumedCount());
+            ResourceKey<Level> dimension = level.dimension();
+            ActiveGeneration generation = new ActiveGeneration(task, null);
+            activeGenerations.put(dimension, generation);
+            task.run(createPregenListener(source, dimension, generation));
+        }
+    }
+
+    /**
+     * Pauses the running generations, keeping their progress so that they are resumed on the next start.
+     */
+    @SubscribeEvent
+    public static void pauseGenerations(ServerStoppingEvent event) {
+        for (ActiveGeneration generation : activeGenerations.values()) {
+            generation.task().pause();
+            if (generation.bar() != null) {
+                generation.bar().close();
+            }
+        }
+        activeGenerations.clear();
+    }
+
     private static int getGenerationHelp(CommandSourceStack source) {
         source.sendSuccess(() -> Component.translatable("commands.neoforge.chunkgen.help_line"), false);
         return Command.SINGLE_SUCCESS;
     }
 
-    private static GenerationTask.Listener createPregenListener(CommandSourceStack source) {
+    private static GenerationTask.Listener createPregenListener(CommandSourceStack source, ResourceKey<Level> dimension, ActiveGeneration generation) {
         return new GenerationTask.Listener() {
             @Override
             public void update(int ok, int error, int skipped, int total) {
-                if (generationBar != null) {
-                    generationBar.update(ok, error, skipped, total);
+                if (generation.bar() != null) {
+                    generation.bar().update(ok, error, skipped, total);
                 }
             }
 
@@ -141,14 +223,13 @@ class GenerateCommand {
                 source.sendSuccess(() -> Component.translatable("commands.neoforge.chunkgen.success"), true);
 
                 if (error > 0) {
-                    source.sendFailure(Component.translatable("commands.neoforge.chunkgen.error"));
+                    source.sendFailure(Component.translatable("commands.neoforge.chunkgen.error", error));
                 }
 
-                if (generationBar != null) {
-                    generationBar.close();
-                    generationBar = null;
+                if (generation.bar() != null) {
+                    generation.bar().close();
                 }
-                activeTask = null;
+                activeGenerations.remove(dimension, generation);
             }
         };
     }
@@ -24,6 +24,7 @@ public class NeoForgeCommand {
                         .then(TagsCommand.register())
                         .then(DumpCommand.register())
                         .then(TimeSpeedCommand.register())
-                        .then(DataComponentCommand.register()));
+                        .then(DataComponentCommand.register())
+                        .then(TrafficCommand.register()));
     }
 }
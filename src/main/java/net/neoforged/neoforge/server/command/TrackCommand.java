@@ -12,15 +12,23 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
 import java.util.function.Function;
 import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.commands.Commands;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.entity.BlockEntityType;
+import net.minecraft.world.level.material.Fluid;
+import net.neoforged.neoforge.server.timings.LatencyHistogram;
 import net.neoforged.neoforge.server.timings.ObjectTimings;
+import net.neoforged.neoforge.server.timings.TickProfiler;
 import net.neoforged.neoforge.server.timings.TimeTracker;
 
 class TrackCommand {
@@ -32,6 +40,7 @@ class TrackCommand {
                 .then(ResetTrackingCommand.register())
                 .then(TrackResultsEntity.register())
                 .then(TrackResultsBlockEntity.register())
+                .then(TrackResultsTicks.register())
                 .then(StartTrackingCommand.register());
     }
 
@@ -56,6 +65,14 @@ class TrackCommand {
                                         TimeTracker.ENTITY_UPDATE.enable(duration);
                                         ctx.getSource().sendSuccess(() -> Component.translatable("commands.neoforge.tracking.entity.enabled", duration), true);
                                         return 0;
+                                    })))
+                    .then(Commands.literal("ticks")
+                            .then(Commands.argument("duration", IntegerArgumentType.integer(1))
+                                    .executes(ctx -> {
+                                        int duration = IntegerArgumentType.getInteger(ctx, "duration");
+                                        TickProfiler.enable(duration);
+                                        ctx.getSource().sendSuccess(() -> Component.translatable("commands.neoforge.tracking.ticks.enabled", duration), true);
+                                        return 0;
                                     })));
         }
     }
@@ -75,6 +92,12 @@ class TrackCommand {
                                 TimeTracker.ENTITY_UPDATE.reset();
                                 ctx.getSource().sendSuccess(() -> Component.translatable("commands.neoforge.tracking.entity.reset"), true);
                                 return 0;
+                            }))
+                    .then(Commands.literal("ticks")
+                            .executes(ctx -> {
+                                TickProfiler.reset();
+                                ctx.getSource().sendSuccess(() -> Component.translatable("commands.neoforge.tracking.ticks.reset"), true);
+                                return 0;
                             }));
         }
     }
@@ -140,4 +163,53 @@ class TrackCommand {
             }));
         }
     }
+
+    private static class TrackResultsTicks {
+        static ArgumentBuilder<CommandSourceStack, ?> register() {
+            return Commands.literal("ticks")
+                    .then(Commands.literal("types").executes(ctx -> execute(ctx.getSource(), TickProfiler.getTypeTimings(), TickProfiler.TypeTimings::histogram,
+                            data -> Component.translatable("commands.neoforge.tracking.ticks.type_entry", getTypeName(data.type()), data.tickType().name().toLowerCase(Locale.ROOT)))))
+                    .then(Commands.literal("chunks").executes(ctx -> execute(ctx.getSource(), TickProfiler.getChunkTimings(), TickProfiler.ChunkTimings::histogram,
+                            data -> Component.translatable("commands.neoforge.tracking.ticks.chunk_entry", data.dimension().location().toString(), data.pos().x, data.pos().z))));
+        }
+
+        /**
+         * Displays the 10 entries that spent the most time ticking in total, with their percentiles.
+         */
+        private static <T> int execute(CommandSourceStack source, List<T> timings, Function<T, LatencyHistogram> getHistogram, Function<T, Component> getName) {
+            if (timings.isEmpty()) {
+                source.sendSuccess(() -> Component.translatable("commands.neoforge.tracking.no_data"), true);
+                return 0;
+            }
+
+            timings.sort(Comparator.comparingLong((T data) -> getHistogram.apply(data).getTotalNanos()).reversed());
+            timings.stream().limit(10).forEach(data -> {
+                LatencyHistogram histogram = getHistogram.apply(data);
+                source.sendSuccess(() -> Component.translatable("commands.neoforge.tracking.ticks.timings", getName.apply(data), histogram.getCount(),
+                        formatNanos(histogram.getPercentileNanos(50)), formatNanos(histogram.getPercentileNanos(99)), formatNanos(histogram.getMaxNanos())), true);
+            });
+            return 0;
+        }
+
+        private static String getTypeName(Object type) {
+            ResourceLocation key = null;
+            if (type instanceof BlockEntityType<?> blockEntityType) {
+                key = BuiltInRegistries.BLOCK_ENTITY_TYPE.getKey(blockEntityType);
+            } else if (type instanceof EntityType<?> entityType) {
+                key = BuiltInRegistries.ENTITY_TYPE.getKey(entityType);
+            } else if (type instanceof Block block) {
+                key = BuiltInRegistries.BLOCK.getKey(block);
+            } else if (type instanceof Fluid fluid) {
+                key = BuiltInRegistries.FLUID.getKey(fluid);
+            } else if (type instanceof Class<?> clazz) {
+                return clazz.getName();
+            }
+            return key != null ? key.toString() : String.valueOf(type);
+        }
+
+        private static String formatNanos(long nanos) {
+            double micros = nanos / 1000.0;
+            return micros < 1000 ? TIME_FORMAT.format(micros) + "\u03bcs" : TIME_FORMAT.format(micros / 1000) + "ms";
+        }
+    }
 }
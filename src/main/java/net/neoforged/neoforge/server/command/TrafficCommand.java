@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.server.command;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.builder.ArgumentBuilder;
+import java.text.DecimalFormat;
+import java.util.Comparator;
+import java.util.Map;
+import net.minecraft.ChatFormatting;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.commands.arguments.EntityArgument;
+import net.minecraft.network.chat.Component;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.util.TimeUtil;
+import net.neoforged.neoforge.network.connection.PayloadTraffic;
+
+class TrafficCommand {
+    private static final DecimalFormat TIME_FORMAT = new DecimalFormat("#####0.00");
+    private static final int MAX_ENTRIES = 10;
+
+    static ArgumentBuilder<CommandSourceStack, ?> register() {
+        return Commands.literal("traffic")
+                .requires(cs -> cs.hasPermission(2)) //permission
+                .then(Commands.literal("reset")
+                        .executes(ctx -> {
+                            PayloadTraffic.total().reset();
+                            for (ServerPlayer player : ctx.getSource().getServer().getPlayerList().getPlayers()) {
+                                PayloadTraffic.get(player.connection.getConnection()).reset();
+                            }
+                            ctx.getSource().sendSuccess(() -> Component.translatable("commands.neoforge.traffic.reset"), true);
+                            return Command.SINGLE_SUCCESS;
+                        }))
+                .then(Commands.argument("player", EntityArgument.player())
+                        .executes(ctx -> {
+                            ServerPlayer player = EntityArgument.getPlayer(ctx, "player");
+                            Component header = Component.translatable("commands.neoforge.traffic.player", player.getDisplayName());
+                            return sendTraffic(ctx.getSource(), header, PayloadTraffic.get(player.connection.getConnection()));
+                        }))
+                .executes(ctx -> sendTraffic(ctx.getSource(), Component.translatable("commands.neoforge.traffic.total"), PayloadTraffic.total()));
+    }
+
+    private static int sendTraffic(CommandSourceStack source, Component header, PayloadTraffic traffic) {
+        source.sendSuccess(() -> header, false);
+        sendDirection(source, traffic, PayloadTraffic.Direction.SENT, "commands.neoforge.traffic.sent");
+        sendDirection(source, traffic, PayloadTraffic.Direction.RECEIVED, "commands.neoforge.traffic.received");
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private static void sendDirection(CommandSourceStack source, PayloadTraffic traffic, PayloadTraffic.Direction direction, String translationKey) {
+        Map<ResourceLocation, PayloadTraffic.Summary> summaries = traffic.getSummaries(direction);
+        long bytes = summaries.values().stream().mapToLong(PayloadTraffic.Summary::bytes).sum();
+        source.sendSuccess(() -> Component.translatable(translationKey, summaries.size(), bytes).withStyle(ChatFormatting.GOLD), false);
+        if (summaries.isEmpty()) {
+            source.sendSuccess(() -> Component.translatable("commands.neoforge.traffic.none"), false);
+            return;
+        }
+
+        // The payload types that used the most bandwidth first
+        summaries.entrySet().stream()
+                .sorted(Map.Entry.<ResourceLocation, PayloadTraffic.Summary>comparingByValue(Comparator.comparingLong(PayloadTraffic.Summary::bytes)).reversed())
+                .limit(MAX_ENTRIES)
+                .forEach(entry -> {
+                    PayloadTraffic.Summary summary = entry.getValue();
+                    String time = TIME_FORMAT.format((double) summary.nanos() / TimeUtil.NANOSECONDS_PER_MILLISECOND);
+                    source.sendSuccess(() -> Component.translatable("commands.neoforge.traffic.entry", entry.getKey().toString(), summary.packets(), summary.bytes(), time), false);
+                });
+    }
+}
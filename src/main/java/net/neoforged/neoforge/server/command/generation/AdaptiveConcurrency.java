@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.server.command.generation;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.minecraft.server.MinecraftServer;
+
+/**
+ * Limits the number of chunks that all the running {@link GenerationTask}s keep in flight.
+ *
+ * <p>The limit is re-evaluated after every window of completed chunks:
+ * <ul>
+ * <li>If the average tick time is over budget, the limit shrinks multiplicatively.</li>
+ * <li>If the average chunk latency grew noticeably since the limit was last raised,
+ * the worldgen workers are saturated and the limit is kept as is.</li>
+ * <li>Otherwise, the limit grows additively.</li>
+ * </ul>
+ */
+class AdaptiveConcurrency {
+    private static final int MIN_LIMIT = 8;
+    private static final int MAX_LIMIT = 1024;
+    private static final int INITIAL_LIMIT = 32;
+    private static final int LIMIT_STEP = 8;
+    private static final int WINDOW_SIZE = 64;
+    private static final long TICK_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(45);
+    /**
+     * Allowed latency growth over the best observed latency before the workers are considered saturated.
+     */
+    private static final double SATURATION_FACTOR = 1.5;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit = INITIAL_LIMIT;
+
+    // Guarded by this
+    private int windowCount;
+    private long windowLatencyNanos;
+    private long bestLatencyNanos = Long.MAX_VALUE;
+
+    /**
+     * {@return how many more chunks can be put in flight}
+     */
+    int available() {
+        return this.limit - this.inFlight.get();
+    }
+
+    int getLimit() {
+        return this.limit;
+    }
+
+    void onQueued(int count) {
+        this.inFlight.addAndGet(count);
+    }
+
+    /**
+     * Called when a chunk that was put in flight completes.
+     *
+     * @param latencyNanos time between queuing the chunk and its completion
+     */
+    synchronized void onCompleted(MinecraftServer server, long latencyNanos) {
+        this.inFlight.decrementAndGet();
+        this.windowLatencyNanos += latencyNanos;
+        if (++this.windowCount < WINDOW_SIZE) {
+            return;
+        }
+
+        long averageLatency = this.windowLatencyNanos / this.windowCount;
+        this.windowCount = 0;
+        this.windowLatencyNanos = 0;
+
+        if (server.getAverageTickTimeNanos() > TICK_BUDGET_NANOS) {
+            this.limit = Math.max(MIN_LIMIT, this.limit * 3 / 4);
+            // Latencies measured under a different limit are not comparable anymore
+            this.bestLatencyNanos = Long.MAX_VALUE;
+        } else if (averageLatency <= this.bestLatencyNanos * SATURATION_FACTOR) {
+            this.bestLatencyNanos = Math.min(this.bestLatencyNanos, averageLatency);
+            this.limit = Math.min(MAX_LIMIT, this.limit + LIMIT_STEP);
+        }
+    }
+}
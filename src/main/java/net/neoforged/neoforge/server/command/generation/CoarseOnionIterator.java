@@ -44,6 +44,43 @@ public class CoarseOnionIterator extends AbstractIterator<ChunkPos> {
         return cell.next();
     }
 
+    /**
+     * Skips the given number of positions without visiting them, such that a task can resume where it stopped.
+     * Runs of cells that lie entirely within the radius are skipped at once.
+     * Must be called before the iteration starts.
+     */
+    public void skip(int count) {
+        int cellArea = this.cellSize * this.cellSize;
+        OnionIterator cells = this.cells;
+        while (count > 0) {
+            CellIterator cell = this.cell;
+            if (cell != null && cell.hasNext()) {
+                count -= cell.skip(count);
+                continue;
+            }
+            if (!cells.hasNext()) {
+                return;
+            }
+
+            // Cells are laid out in a line until the spiral turns, so the run is unclipped if both its ends are
+            int run = Math.min(cells.remainingInLeg(), count / cellArea);
+            if (run > 0 && this.isUnclipped(cells.peek(0)) && this.isUnclipped(cells.peek(run - 1))) {
+                cells.skip(run);
+                count -= run * cellArea;
+            } else {
+                this.cell = this.createCellIterator(cells.next());
+            }
+        }
+    }
+
+    private boolean isUnclipped(ChunkPos cellPos) {
+        int size = this.cellSize;
+        int radius = this.radius;
+        int x0 = cellPos.x * size;
+        int z0 = cellPos.z * size;
+        return x0 >= -radius && z0 >= -radius && x0 + size - 1 <= radius && z0 + size - 1 <= radius;
+    }
+
     private CellIterator createCellIterator(ChunkPos pos) {
         int size = this.cellSize;
         int radius = this.radius;
@@ -59,6 +96,7 @@ public class CoarseOnionIterator extends AbstractIterator<ChunkPos> {
 
     private static final class CellIterator implements Iterator<ChunkPos> {
         private final int x0;
+        private final int z0;
         private final int x1;
         private final int z1;
 
@@ -69,10 +107,28 @@ public class CoarseOnionIterator extends AbstractIterator<ChunkPos> {
             this.x = x0;
             this.z = z0;
             this.x0 = x0;
+            this.z0 = z0;
             this.x1 = x1;
             this.z1 = z1;
         }
 
+        /**
+         * Skips up to the given number of positions, and returns how many were skipped.
+         */
+        private int skip(int count) {
+            if (!this.hasNext()) {
+                return 0;
+            }
+
+            int width = this.x1 - this.x0 + 1;
+            int offset = (this.z - this.z0) * width + (this.x - this.x0);
+            int skipped = Math.min(count, width * (this.z1 - this.z0 + 1) - offset);
+            offset += skipped;
+            this.x = this.x0 + offset % width;
+            this.z = this.z0 + offset / width;
+            return skipped;
+        }
+
         @Override
         public boolean hasNext() {
             return this.x <= this.x1 && this.z <= this.z1;
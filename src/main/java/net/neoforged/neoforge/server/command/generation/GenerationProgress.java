@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.server.command.generation;
+
+import net.minecraft.core.HolderLookup;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.saveddata.SavedData;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Persisted progress of the {@link GenerationTask} of a level, saved in the data folder of the level.
+ *
+ * <p>{@link #getCompleted()} is the number of chunks, in iteration order, that are all completed.
+ * Chunks completed out of order are not recorded, they are scanned again when the task is resumed.
+ */
+@ApiStatus.Internal
+public class GenerationProgress extends SavedData {
+    private static final String NAME = "neoforge_generation_progress";
+    private static final SavedData.Factory<GenerationProgress> FACTORY = new SavedData.Factory<>(GenerationProgress::new, GenerationProgress::new);
+
+    /**
+     * {@return the progress of the level, which might not be running}
+     */
+    public static GenerationProgress get(ServerLevel level) {
+        return level.getDataStorage().computeIfAbsent(FACTORY, NAME);
+    }
+
+    /**
+     * {@return the progress of an unfinished generation of the level, if any}
+     */
+    @Nullable
+    public static GenerationProgress getUnfinished(ServerLevel level) {
+        GenerationProgress progress = level.getDataStorage().get(FACTORY, NAME);
+        return progress != null && progress.running ? progress : null;
+    }
+
+    private boolean running;
+    private int x;
+    private int z;
+    private int radius;
+    private int completed;
+    private int okCount;
+    private int errorCount;
+    private int skippedCount;
+
+    private GenerationProgress() {}
+
+    private GenerationProgress(CompoundTag tag, HolderLookup.Provider provider) {
+        this.running = tag.getBoolean("running");
+        this.x = tag.getInt("x");
+        this.z = tag.getInt("z");
+        this.radius = tag.getInt("radius");
+        this.completed = tag.getInt("completed");
+        this.okCount = tag.getInt("ok");
+        this.errorCount = tag.getInt("error");
+        this.skippedCount = tag.getInt("skipped");
+    }
+
+    @Override
+    public CompoundTag save(CompoundTag tag, HolderLookup.Provider provider) {
+        tag.putBoolean("running", this.running);
+        tag.putInt("x", this.x);
+        tag.putInt("z", this.z);
+        tag.putInt("radius", this.radius);
+        tag.putInt("completed", this.completed);
+        tag.putInt("ok", this.okCount);
+        tag.putInt("error", this.errorCount);
+        tag.putInt("skipped", this.skippedCount);
+        return tag;
+    }
+
+    /**
+     * {@return {@code true} if this is the unfinished progress of a generation with the same parameters}
+     */
+    synchronized boolean matches(int x, int z, int radius) {
+        return this.running && this.x == x && this.z == z && this.radius == radius;
+    }
+
+    synchronized void start(int x, int z, int radius) {
+        this.running = true;
+        this.x = x;
+        this.z = z;
+        this.radius = radius;
+        this.completed = 0;
+        this.okCount = 0;
+        this.errorCount = 0;
+        this.skippedCount = 0;
+        this.setDirty();
+    }
+
+    /**
+     * Records that the next chunks in iteration order are completed.
+     */
+    synchronized void advance(int ok, int error, int skipped) {
+        this.completed += ok + error + skipped;
+        this.okCount += ok;
+        this.errorCount += error;
+        this.skippedCount += skipped;
+        this.setDirty();
+    }
+
+    synchronized void finish() {
+        this.running = false;
+        this.setDirty();
+    }
+
+    public synchronized int getX() {
+        return this.x;
+    }
+
+    public synchronized int getZ() {
+        return this.z;
+    }
+
+    public synchronized int getRadius() {
+        return this.radius;
+    }
+
+    public synchronized int getCompleted() {
+        return this.completed;
+    }
+
+    public synchronized int getOkCount() {
+        return this.okCount;
+    }
+
+    public synchronized int getErrorCount() {
+        return this.errorCount;
+    }
+
+    public synchronized int getSkippedCount() {
+        return this.skippedCount;
+    }
+}
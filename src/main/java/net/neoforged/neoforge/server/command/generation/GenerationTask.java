@@ -5,11 +5,19 @@
 
 package net.neoforged.neoforge.server.command.generation;
 
+import it.unimi.dsi.fastutil.ints.Int2ByteMap;
+import it.unimi.dsi.fastutil.ints.Int2ByteOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.longs.LongList;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import net.minecraft.Util;
 import net.minecraft.nbt.CompoundTag;
@@ -28,6 +36,7 @@ import net.minecraft.world.level.chunk.ChunkAccess;
 import net.minecraft.world.level.chunk.status.ChunkStatus;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Special thanks to Jasmine and Gegy for allowing us to use their pregenerator mod as a model to use in NeoForge!
@@ -35,15 +44,31 @@ import org.apache.logging.log4j.Logger;
  */
 public class GenerationTask {
     private static final Logger LOGGER = LogManager.getLogger();
-    private static final int BATCH_SIZE = 32;
-    private static final int QUEUE_THRESHOLD = 8;
+    /**
+     * Maximum number of chunks queued by a task at once, even if the shared limit allows more.
+     */
+    private static final int BATCH_SIZE = 256;
     private static final int COARSE_CELL_SIZE = 4;
+    private static final byte RESULT_OK = 0;
+    private static final byte RESULT_ERROR = 1;
+    private static final byte RESULT_SKIPPED = 2;
+
+    /**
+     * Shared by all the tasks, such that generating several dimensions at once does not overload the server.
+     */
+    private static final AdaptiveConcurrency CONCURRENCY = new AdaptiveConcurrency();
+    /**
+     * Tasks that could not queue chunks because the shared limit was reached.
+     */
+    private static final ConcurrentLinkedQueue<GenerationTask> WAITING_TASKS = new ConcurrentLinkedQueue<>();
 
     private final MinecraftServer server;
     private final ServerChunkCache chunkSource;
     private final ServerLevel serverLevel;
+    private final RegionHeaderScanner regionScanner;
+    private final GenerationProgress progress;
 
-    private final Iterator<ChunkPos> iterator;
+    private final CoarseOnionIterator iterator;
     private final int x;
     private final int z;
     private final int radius;
@@ -59,6 +84,28 @@ public class GenerationTask {
 
     private volatile Listener listener;
     private volatile boolean stopped;
+    private volatile boolean discarded;
+    // Guarded by queueLock
+    private boolean exhausted;
+    private boolean waiting;
+    /**
+     * Index of the next chunk returned by the iterator.
+     */
+    private int nextIndex;
+
+    // Guarded by completionLock
+    private final Object completionLock = new Object();
+    /**
+     * Index of the first chunk that is not completed. All the chunks before it are recorded in {@link #progress}.
+     */
+    private int completedWatermark;
+    /**
+     * Index -> result of the chunks completed after the watermark.
+     */
+    private final Int2ByteMap completedAhead = new Int2ByteOpenHashMap();
+
+    private final int resumedCount;
+    private long startNanos;
 
     public static final TicketType<ChunkPos> NEOFORGE_GENERATE_FORCED = TicketType.create("neoforge_generate_forced", Comparator.comparingLong(ChunkPos::toLong));
 
@@ -66,6 +113,7 @@ public class GenerationTask {
         this.server = serverLevel.getServer();
         this.chunkSource = serverLevel.getChunkSource();
         this.serverLevel = serverLevel;
+        this.regionScanner = new RegionHeaderScanner(serverLevel);
 
         this.iterator = new CoarseOnionIterator(radius, COARSE_CELL_SIZE);
         this.x = x;
@@ -74,6 +122,37 @@ public class GenerationTask {
 
         int diameter = radius * 2 + 1;
         this.totalCount = diameter * diameter;
+
+        this.progress = GenerationProgress.get(serverLevel);
+        if (this.progress.matches(x, z, radius)) {
+            // Resume after the last chunk completed in order, without scanning the chunks before it
+            this.resumedCount = this.progress.getCompleted();
+            this.okCount.set(this.progress.getOkCount());
+            this.errorCount.set(this.progress.getErrorCount());
+            this.skippedCount.set(this.progress.getSkippedCount());
+            this.iterator.skip(this.resumedCount);
+            this.nextIndex = this.resumedCount;
+            this.completedWatermark = this.resumedCount;
+        } else {
+            this.resumedCount = 0;
+            this.progress.start(x, z, radius);
+        }
+    }
+
+    /**
+     * Creates a task that resumes the unfinished generation of a level, if there is one.
+     */
+    @Nullable
+    public static GenerationTask resume(ServerLevel serverLevel) {
+        GenerationProgress progress = GenerationProgress.getUnfinished(serverLevel);
+        if (progress == null) {
+            return null;
+        }
+        return new GenerationTask(serverLevel, progress.getX(), progress.getZ(), progress.getRadius());
+    }
+
+    public ServerLevel getLevel() {
+        return this.serverLevel;
     }
 
     public int getOkCount() {
@@ -92,22 +171,77 @@ public class GenerationTask {
         return this.totalCount;
     }
 
+    /**
+     * {@return the number of chunks that were already completed when this task was resumed}
+     */
+    public int getResumedCount() {
+        return this.resumedCount;
+    }
+
+    public int getRadius() {
+        return this.radius;
+    }
+
+    /**
+     * {@return the average number of chunks completed per second since this task was started}
+     */
+    public double getChunksPerSecond() {
+        long elapsed = System.nanoTime() - this.startNanos;
+        if (this.startNanos == 0 || elapsed <= 0) {
+            return 0;
+        }
+
+        int completed = this.getOkCount() + this.getErrorCount() + this.getSkippedCount() - this.resumedCount;
+        return completed / (elapsed / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * {@return the estimated number of seconds before this task completes, or {@code -1} if unknown}
+     */
+    public long getEstimatedSecondsLeft() {
+        double rate = this.getChunksPerSecond();
+        if (rate <= 0) {
+            return -1;
+        }
+
+        int remaining = this.totalCount - (this.getOkCount() + this.getErrorCount() + this.getSkippedCount());
+        return (long) Math.ceil(remaining / rate);
+    }
+
     public void run(Listener listener) {
         if (this.listener != null) {
             throw new IllegalStateException("already running!");
         }
 
         this.listener = listener;
+        this.startNanos = System.nanoTime();
 
         // Off thread chunk scanning to skip already generated chunks
-        CompletableFuture.runAsync(this::tryEnqueueTasks, Util.backgroundExecutor());
+        this.scheduleEnqueue();
     }
 
+    /**
+     * Stops this task, and discards its progress.
+     */
     public void stop() {
+        this.pause();
+        this.discarded = true;
+        this.progress.finish();
+    }
+
+    /**
+     * Stops this task, but keeps its progress such that it can be {@linkplain #resume(ServerLevel) resumed} later.
+     */
+    public void pause() {
         synchronized (this.queueLock) {
             this.stopped = true;
             this.listener = null;
         }
+        WAITING_TASKS.remove(this);
+    }
+
+    private void scheduleEnqueue() {
+        CompletableFuture.runAsync(this::tryEnqueueTasks, Util.backgroundExecutor());
     }
 
     private void tryEnqueueTasks() {
@@ -116,26 +250,50 @@ public class GenerationTask {
                 return;
             }
 
-            int enqueueCount = BATCH_SIZE - this.queuedCount.get();
+            if (this.exhausted) {
+                // Only complete once the last chunks in flight are done
+                if (this.queuedCount.get() == 0) {
+                    this.complete();
+                }
+                return;
+            }
+
+            int enqueueCount = Math.min(BATCH_SIZE - this.queuedCount.get(), CONCURRENCY.available());
             if (enqueueCount <= 0) {
+                // Wait for a chunk of any task to complete, in case this task has nothing in flight anymore
+                if (!this.waiting) {
+                    this.waiting = true;
+                    WAITING_TASKS.add(this);
+                }
                 return;
             }
 
-            LongList chunks = this.collectChunks(enqueueCount);
+            IntList indices = new IntArrayList(enqueueCount);
+            LongList chunks = this.collectChunks(enqueueCount, indices);
             if (chunks.isEmpty()) {
-                this.listener.complete(this.errorCount.get());
-                this.stopped = true;
+                this.exhausted = true;
+                if (this.queuedCount.get() == 0) {
+                    this.complete();
+                }
                 return;
             }
 
             this.queuedCount.getAndAdd(chunks.size());
+            CONCURRENCY.onQueued(chunks.size());
 
             // Keep on server thread as chunk acquiring and releasing (tickets) is not thread safe.
-            this.server.submit(() -> this.enqueueChunks(chunks));
+            this.server.submit(() -> this.enqueueChunks(chunks, indices));
         }
     }
 
-    private void enqueueChunks(LongList chunks) {
+    private void complete() {
+        // Called with queueLock held, and only if not stopped
+        this.stopped = true;
+        this.progress.finish();
+        this.listener.complete(this.errorCount.get());
+    }
+
+    private void enqueueChunks(LongList chunks, IntList indices) {
         for (int i = 0; i < chunks.size(); i++) {
             long chunk = chunks.getLong(i);
             this.acquireChunk(chunk);
@@ -145,67 +303,148 @@ public class GenerationTask {
         this.chunkSource.tick(() -> false, true);
 
         ChunkMap chunkMap = this.chunkSource.chunkMap;
+        long queuedAt = System.nanoTime();
 
         for (int i = 0; i < chunks.size(); i++) {
             long chunkLongPos = chunks.getLong(i);
+            int index = indices.getInt(i);
 
             ChunkHolder holder = chunkMap.getVisibleChunkIfPresent(chunkLongPos);
             if (holder == null) {
                 LOGGER.warn("Added ticket for chunk but it was not added! ({}; {})", ChunkPos.getX(chunkLongPos), ChunkPos.getZ(chunkLongPos));
-                this.acceptChunkResult(chunkLongPos, ChunkHolder.UNLOADED_CHUNK);
+                this.acceptChunkResult(chunkLongPos, index, ChunkHolder.UNLOADED_CHUNK, queuedAt);
                 continue;
             }
 
             holder.scheduleChunkGenerationTask(ChunkStatus.FULL, chunkMap).whenCompleteAsync((result, throwable) -> {
                 if (throwable == null) {
-                    this.acceptChunkResult(chunkLongPos, result);
+                    this.acceptChunkResult(chunkLongPos, index, result, queuedAt);
                 } else {
                     LOGGER.warn("Encountered unexpected error while generating chunk", throwable);
-                    this.acceptChunkResult(chunkLongPos, ChunkHolder.UNLOADED_CHUNK);
+                    this.acceptChunkResult(chunkLongPos, index, ChunkHolder.UNLOADED_CHUNK, queuedAt);
                 }
             }, runnable -> chunkMap.scheduleOnMainThreadMailbox(runnable));
         }
     }
 
-    private void acceptChunkResult(long chunk, ChunkResult<ChunkAccess> result) {
+    private void acceptChunkResult(long chunk, int index, ChunkResult<ChunkAccess> result, long queuedAt) {
         this.server.submit(() -> this.releaseChunk(chunk));
+        CONCURRENCY.onCompleted(this.server, System.nanoTime() - queuedAt);
 
         if (result.isSuccess()) {
             this.okCount.getAndIncrement();
+            this.markCompleted(index, RESULT_OK);
         } else {
             this.errorCount.getAndIncrement();
+            this.markCompleted(index, RESULT_ERROR);
         }
 
-        this.listener.update(this.okCount.get(), this.errorCount.get(), this.skippedCount.get(), this.totalCount);
+        Listener listener = this.listener;
+        if (listener != null) {
+            listener.update(this.okCount.get(), this.errorCount.get(), this.skippedCount.get(), this.totalCount);
+        }
 
         int queuedCount = this.queuedCount.decrementAndGet();
-        if (queuedCount <= QUEUE_THRESHOLD) {
-            this.tryEnqueueTasks();
+        if (queuedCount == 0 || CONCURRENCY.available() >= CONCURRENCY.getLimit() / 4) {
+            // Scanning the next chunks can block on IO, keep it off the main thread
+            this.scheduleEnqueue();
+            wakeWaitingTask();
         }
 
         // Help make sure pregen progress does not get completely lost if game crashes/shuts down before pregen is finished.
         if (((this.okCount.get() + this.errorCount.get()) % 1000) == 999) {
             this.server.submit(() -> {
                 this.serverLevel.save(null, false, true);
+                this.serverLevel.getDataStorage().save();
             });
         }
     }
 
-    private LongList collectChunks(int count) {
+    /**
+     * Records the result of a chunk, and advances the persisted progress over the chunks that are completed in order.
+     */
+    private void markCompleted(int index, byte result) {
+        if (this.discarded) {
+            // Another task may be using the progress already
+            return;
+        }
+
+        synchronized (this.completionLock) {
+            if (index != this.completedWatermark) {
+                this.completedAhead.put(index, result);
+                return;
+            }
+
+            int[] counts = new int[3];
+            counts[result]++;
+            int next = index + 1;
+            while (this.completedAhead.containsKey(next)) {
+                counts[this.completedAhead.remove(next)]++;
+                next++;
+            }
+            this.completedWatermark = next;
+            this.progress.advance(counts[RESULT_OK], counts[RESULT_ERROR], counts[RESULT_SKIPPED]);
+        }
+    }
+
+    private static void wakeWaitingTask() {
+        GenerationTask task = WAITING_TASKS.poll();
+        if (task != null) {
+            synchronized (task.queueLock) {
+                task.waiting = false;
+            }
+            task.scheduleEnqueue();
+        }
+    }
+
+    private LongList collectChunks(int count, IntList indices) {
         LongList chunks = new LongArrayList(count);
+        List<ChunkPos> saved = new ArrayList<>();
+        IntList savedIndices = new IntArrayList();
 
         Iterator<ChunkPos> iterator = this.iterator;
-        int i = 0;
-        while (i < count && iterator.hasNext()) {
-            ChunkPos chunkPosInLocalSpace = iterator.next();
-            if (isChunkFullyGenerated(chunkPosInLocalSpace)) {
-                this.skippedCount.incrementAndGet();
-                this.listener.update(this.okCount.get(), this.errorCount.get(), this.skippedCount.get(), this.totalCount);
+        while (chunks.size() < count && iterator.hasNext()) {
+            // Chunks missing from the region headers are not generated, others need their status to be scanned
+            saved.clear();
+            savedIndices.clear();
+            while (chunks.size() + saved.size() < count && iterator.hasNext()) {
+                ChunkPos chunkPosInLocalSpace = iterator.next();
+                ChunkPos chunkPosInWorldSpace = new ChunkPos(chunkPosInLocalSpace.x + this.x, chunkPosInLocalSpace.z + this.z);
+                int index = this.nextIndex++;
+                if (this.regionScanner.mayBeSaved(chunkPosInWorldSpace)) {
+                    saved.add(chunkPosInWorldSpace);
+                    savedIndices.add(index);
+                } else {
+                    chunks.add(chunkPosInWorldSpace.toLong());
+                    indices.add(index);
+                }
+            }
+
+            if (saved.isEmpty()) {
                 continue;
             }
 
-            chunks.add(ChunkPos.asLong(chunkPosInLocalSpace.x + this.x, chunkPosInLocalSpace.z + this.z));
-            i++;
+            // Start all the scans before waiting for any of them, so that the IO can overlap
+            List<CompletableFuture<Boolean>> scans = new ArrayList<>(saved.size());
+            for (ChunkPos pos : saved) {
+                scans.add(this.isChunkFullyGenerated(pos));
+            }
+
+            int skipped = 0;
+            for (int i = 0; i < saved.size(); i++) {
+                if (scans.get(i).join()) {
+                    skipped++;
+                    this.markCompleted(savedIndices.getInt(i), RESULT_SKIPPED);
+                } else {
+                    chunks.add(saved.get(i).toLong());
+                    indices.add(savedIndices.getInt(i));
+                }
+            }
+
+            if (skipped > 0) {
+                this.skippedCount.addAndGet(skipped);
+                this.listener.update(this.okCount.get(), this.errorCount.get(), this.skippedCount.get(), this.totalCount);
+            }
         }
 
         return chunks;
@@ -221,16 +460,20 @@ public class GenerationTask {
         this.chunkSource.removeRegionTicket(NEOFORGE_GENERATE_FORCED, pos, 0, pos);
     }
 
-    private boolean isChunkFullyGenerated(ChunkPos chunkPosInLocalSpace) {
-        ChunkPos chunkPosInWorldSpace = new ChunkPos(chunkPosInLocalSpace.x + this.x, chunkPosInLocalSpace.z + this.z);
+    private CompletableFuture<Boolean> isChunkFullyGenerated(ChunkPos chunkPosInWorldSpace) {
         CollectFields collectFields = new CollectFields(new FieldSelector(StringTag.TYPE, "Status"));
-        this.chunkSource.chunkMap.chunkScanner().scanChunk(chunkPosInWorldSpace, collectFields).join();
+        return this.chunkSource.chunkMap.chunkScanner().scanChunk(chunkPosInWorldSpace, collectFields).handle((unused, throwable) -> {
+            if (throwable != null) {
+                LOGGER.warn("Failed to scan chunk {}, it will be generated again", chunkPosInWorldSpace, throwable);
+                return false;
+            }
 
-        if (collectFields.getResult() instanceof CompoundTag compoundTag) {
-            return compoundTag.getString("Status").equals("minecraft:full");
-        }
+            if (collectFields.getResult() instanceof CompoundTag compoundTag) {
+                return compoundTag.getString("Status").equals("minecraft:full");
+            }
 
-        return false;
+            return false;
+        });
     }
 
     public interface Listener {
@@ -78,4 +78,48 @@ public class OnionIterator implements Iterator<ChunkPos> {
     public boolean hasNext() {
         return this.state != STOP;
     }
+
+    /**
+     * Skips the given number of positions, moving along each side of the spiral in a single step.
+     */
+    public void skip(int count) {
+        while (count > 0 && this.hasNext()) {
+            int steps = Math.min(count, this.remainingInLeg());
+            // Move directly to the last skipped position, and let next() handle the turn if there is one
+            this.x += this.dx() * (steps - 1);
+            this.z += this.dz() * (steps - 1);
+            this.next();
+            count -= steps;
+        }
+    }
+
+    /**
+     * {@return the number of positions left before the spiral turns, including the next one}
+     */
+    int remainingInLeg() {
+        int remaining = switch (this.state) {
+            case EAST -> this.distance - this.x;
+            case SOUTH -> this.distance - this.z;
+            case WEST -> this.x + this.distance;
+            case NORTH -> this.z + this.distance;
+            default -> 0;
+        };
+        // The first position is returned before the first side starts
+        return Math.max(remaining, this.hasNext() ? 1 : 0);
+    }
+
+    /**
+     * {@return the position returned after the given number of positions, which must be less than {@link #remainingInLeg()}}
+     */
+    ChunkPos peek(int offset) {
+        return new ChunkPos(this.x + this.dx() * offset, this.z + this.dz() * offset);
+    }
+
+    private int dx() {
+        return this.state == EAST ? 1 : this.state == WEST ? -1 : 0;
+    }
+
+    private int dz() {
+        return this.state == SOUTH ? 1 : this.state == NORTH ? -1 : 0;
+    }
 }
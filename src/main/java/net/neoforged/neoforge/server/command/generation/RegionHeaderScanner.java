@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.server.command.generation;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.dimension.DimensionType;
+import net.minecraft.world.level.storage.LevelResource;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Reads the location table of region files to know which chunks were ever saved,
+ * without scanning the chunk data.
+ *
+ * <p>Chunks that are absent from their region file are not generated, unless they are still waiting to be written.
+ * Chunks that are present must still be scanned for their status.
+ */
+class RegionHeaderScanner {
+    private static final Logger LOGGER = LogManager.getLogger();
+    private static final int REGION_SHIFT = 5;
+    private static final int CHUNKS_PER_REGION = 1 << (REGION_SHIFT * 2);
+    private static final int HEADER_BYTES = CHUNKS_PER_REGION * 4;
+
+    private final Path regionFolder;
+    /**
+     * Region pos -> chunks present in the region file.
+     */
+    private final Long2ObjectMap<BitSet> presentChunks = new Long2ObjectOpenHashMap<>();
+
+    RegionHeaderScanner(ServerLevel level) {
+        Path root = level.getServer().getWorldPath(LevelResource.ROOT);
+        this.regionFolder = DimensionType.getStorageFolder(level.dimension(), root).resolve("region");
+    }
+
+    /**
+     * {@return {@code false} if the chunk is definitely absent from the region files}
+     */
+    boolean mayBeSaved(ChunkPos pos) {
+        int regionX = pos.x >> REGION_SHIFT;
+        int regionZ = pos.z >> REGION_SHIFT;
+        BitSet present = this.presentChunks.computeIfAbsent(ChunkPos.asLong(regionX, regionZ), key -> this.readHeader(regionX, regionZ));
+        return present.get(pos.getRegionLocalX() + pos.getRegionLocalZ() * 32);
+    }
+
+    private BitSet readHeader(int regionX, int regionZ) {
+        BitSet present = new BitSet(CHUNKS_PER_REGION);
+        Path file = this.regionFolder.resolve("r." + regionX + "." + regionZ + ".mca");
+        if (!Files.exists(file)) {
+            return present;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) != -1) {}
+            header.flip();
+
+            for (int i = 0; i < CHUNKS_PER_REGION && header.remaining() >= (i + 1) * 4; i++) {
+                if (header.getInt(i * 4) != 0) {
+                    present.set(i);
+                }
+            }
+        } catch (IOException exception) {
+            LOGGER.warn("Failed to read region header of {}, falling back to scanning its chunks", file, exception);
+            present.set(0, CHUNKS_PER_REGION);
+        }
+        return present;
+    }
+}
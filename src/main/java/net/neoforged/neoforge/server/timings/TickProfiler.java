@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.server.timings;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.material.Fluid;
+import net.neoforged.bus.api.Event;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Records the duration of server ticks in {@linkplain LatencyHistogram latency histograms}, per type and per chunk.
+ *
+ * <p>Unlike {@link TimeTracker}, all the ticking objects of the server are measured at once,
+ * and the memory used is bounded: one histogram per ticking type (for example per {@link net.minecraft.world.level.block.entity.BlockEntityType})
+ * and one histogram per chunk, up to {@value #MAX_CHUNKS} chunks.
+ *
+ * <p>When the profiler is disabled, the only cost of a measured tick is a static field read in {@link #start()}.
+ */
+public final class TickProfiler {
+    /**
+     * Maximum number of chunks that get their own histogram. Ticks in other chunks are only recorded per type.
+     */
+    public static final int MAX_CHUNKS = 4096;
+
+    /**
+     * The kind of tick that is measured.
+     */
+    public enum TickType {
+        BLOCK_ENTITY,
+        ENTITY,
+        SCHEDULED_BLOCK_TICK,
+        SCHEDULED_FLUID_TICK,
+        RANDOM_BLOCK_TICK,
+        RANDOM_FLUID_TICK,
+        LEVEL_TICK_EVENT
+    }
+
+    /**
+     * The histogram of a ticking type, for example a block entity type, an entity type, a block or an event class.
+     */
+    public record TypeTimings(TickType tickType, Object type, LatencyHistogram histogram) {}
+
+    /**
+     * The histogram of all the ticks that happened in a chunk.
+     */
+    public record ChunkTimings(ResourceKey<Level> dimension, ChunkPos pos, LatencyHistogram histogram) {}
+
+    @Nullable
+    private static TickProfiler active;
+
+    /**
+     * The profiler that was last enabled, which keeps its data after its duration is over.
+     */
+    @Nullable
+    private static TickProfiler lastResults;
+
+    private final long endNanos;
+    private final Map<TickType, Map<Object, LatencyHistogram>> byType = new EnumMap<>(TickType.class);
+    private final Map<ResourceKey<Level>, Long2ObjectMap<LatencyHistogram>> byChunk = new Reference2ObjectOpenHashMap<>();
+    private int chunkCount;
+
+    private TickProfiler(long endNanos) {
+        this.endNanos = endNanos;
+        for (TickType tickType : TickType.values()) {
+            this.byType.put(tickType, new Reference2ObjectOpenHashMap<>());
+        }
+    }
+
+    /**
+     * Starts profiling for the given duration, discarding previously recorded data.
+     *
+     * @param duration the duration, in seconds
+     */
+    public static void enable(int duration) {
+        active = new TickProfiler(System.nanoTime() + TimeUnit.SECONDS.toNanos(duration));
+        lastResults = active;
+    }
+
+    /**
+     * Stops profiling and discards recorded data.
+     */
+    public static void reset() {
+        active = null;
+        lastResults = null;
+    }
+
+    public static boolean isEnabled() {
+        return active != null;
+    }
+
+    /**
+     * {@return the time at which a measured tick starts, or {@code 0} if the profiler is disabled}
+     */
+    @ApiStatus.Internal
+    public static long start() {
+        return active == null ? 0 : System.nanoTime();
+    }
+
+    @ApiStatus.Internal
+    public static void endBlockEntity(BlockEntity blockEntity, long start) {
+        if (start != 0 && blockEntity.getLevel() instanceof ServerLevel level) {
+            end(TickType.BLOCK_ENTITY, blockEntity.getType(), level, blockEntity.getBlockPos(), start);
+        }
+    }
+
+    @ApiStatus.Internal
+    public static void endEntity(Entity entity, long start) {
+        if (start != 0 && entity.level() instanceof ServerLevel level) {
+            end(TickType.ENTITY, entity.getType(), level, entity.blockPosition(), start);
+        }
+    }
+
+    @ApiStatus.Internal
+    public static void endScheduledBlockTick(ServerLevel level, BlockPos pos, Block block, long start) {
+        if (start != 0) {
+            end(TickType.SCHEDULED_BLOCK_TICK, block, level, pos, start);
+        }
+    }
+
+    @ApiStatus.Internal
+    public static void endScheduledFluidTick(ServerLevel level, BlockPos pos, Fluid fluid, long start) {
+        if (start != 0) {
+            end(TickType.SCHEDULED_FLUID_TICK, fluid, level, pos, start);
+        }
+    }
+
+    @ApiStatus.Internal
+    public static void endRandomBlockTick(ServerLevel level, BlockPos pos, Block block, long start) {
+        if (start != 0) {
+            end(TickType.RANDOM_BLOCK_TICK, block, level, pos, start);
+        }
+    }
+
+    @ApiStatus.Internal
+    public static void endRandomFluidTick(ServerLevel level, BlockPos pos, Fluid fluid, long start) {
+        if (start != 0) {
+            end(TickType.RANDOM_FLUID_TICK, fluid, level, pos, start);
+        }
+    }
+
+    @ApiStatus.Internal
+    public static void endLevelTickEvent(Level level, Class<? extends Event> eventClass, long start) {
+        if (start != 0 && level instanceof ServerLevel serverLevel) {
+            end(TickType.LEVEL_TICK_EVENT, eventClass, serverLevel, null, start);
+        }
+    }
+
+    private static void end(TickType tickType, Object type, ServerLevel level, @Nullable BlockPos pos, long start) {
+        TickProfiler profiler = active;
+        // Only record ticks from the server thread, the histograms are not thread-safe
+        if (profiler == null || !level.getServer().isSameThread()) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        if (now - profiler.endNanos > 0) {
+            active = null;
+            return;
+        }
+        profiler.record(tickType, type, level, pos, now - start);
+    }
+
+    private void record(TickType tickType, Object type, ServerLevel level, @Nullable BlockPos pos, long nanos) {
+        this.byType.get(tickType).computeIfAbsent(type, t -> new LatencyHistogram()).record(nanos);
+
+        if (pos == null) {
+            return;
+        }
+
+        var chunks = this.byChunk.computeIfAbsent(level.dimension(), d -> new Long2ObjectOpenHashMap<>());
+        long chunkPos = ChunkPos.asLong(pos);
+        LatencyHistogram histogram = chunks.get(chunkPos);
+        if (histogram == null) {
+            if (this.chunkCount >= MAX_CHUNKS) {
+                return;
+            }
+            histogram = new LatencyHistogram();
+            chunks.put(chunkPos, histogram);
+            this.chunkCount++;
+        }
+        histogram.record(nanos);
+    }
+
+    /**
+     * {@return the histograms recorded per type by the last profiling session}
+     */
+    public static List<TypeTimings> getTypeTimings() {
+        List<TypeTimings> timings = new ArrayList<>();
+        TickProfiler profiler = lastResults;
+        if (profiler != null) {
+            profiler.byType.forEach((tickType, types) -> types.forEach((type, histogram) -> timings.add(new TypeTimings(tickType, type, histogram))));
+        }
+        return timings;
+    }
+
+    /**
+     * {@return the histograms recorded per chunk by the last profiling session}
+     */
+    public static List<ChunkTimings> getChunkTimings() {
+        List<ChunkTimings> timings = new ArrayList<>();
+        TickProfiler profiler = lastResults;
+        if (profiler != null) {
+            profiler.byChunk.forEach((dimension, chunks) -> chunks.long2ObjectEntrySet().forEach(entry -> timings.add(new ChunkTimings(dimension, new ChunkPos(entry.getLongKey()), entry.getValue()))));
+        }
+        return timings;
+    }
+}
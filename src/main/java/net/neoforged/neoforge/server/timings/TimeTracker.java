@@ -17,6 +17,8 @@ import net.minecraft.world.level.block.entity.BlockEntity;
 /**
  * A class to assist in the collection of data to measure the update times of ticking objects {currently Tile Entities and Entities}
  *
+ * <p>See {@link TickProfiler} for latency histograms of all the ticking objects at once.
+ *
  * @param <T>
  */
 public class TimeTracker<T> {
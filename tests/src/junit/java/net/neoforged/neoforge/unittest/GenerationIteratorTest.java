@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.unittest;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import net.minecraft.world.level.ChunkPos;
+import net.neoforged.neoforge.server.command.generation.CoarseOnionIterator;
+import net.neoforged.neoforge.server.command.generation.OnionIterator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+public class GenerationIteratorTest {
+    @ParameterizedTest
+    @ValueSource(ints = { 0, 1, 2, 3, 5, 8, 17 })
+    void onionSkipMatchesNext(int radius) {
+        List<ChunkPos> all = remaining(new OnionIterator(radius));
+        // One past the end too, skipping must stop at the end
+        for (int count = 0; count <= all.size() + 1; count++) {
+            var iterator = new OnionIterator(radius);
+            iterator.skip(count);
+            Assertions.assertEquals(all.subList(Math.min(count, all.size()), all.size()), remaining(iterator), "radius " + radius + ", skipped " + count);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = { 0, 1, 2, 3, 5, 8, 17 })
+    void coarseOnionSkipMatchesNext(int radius) {
+        for (int cellSize : new int[] { 1, 2, 3, 4, 7, 32 }) {
+            List<ChunkPos> all = remaining(new CoarseOnionIterator(radius, cellSize));
+            int chunks = (2 * radius + 1) * (2 * radius + 1);
+            Assertions.assertEquals(chunks, all.size(), "Every chunk within the radius is visited once");
+            Assertions.assertEquals(chunks, new HashSet<>(all).size(), "Every chunk within the radius is visited once");
+
+            for (int count = 0; count <= all.size() + 1; count++) {
+                var iterator = new CoarseOnionIterator(radius, cellSize);
+                iterator.skip(count);
+                Assertions.assertEquals(all.subList(Math.min(count, all.size()), all.size()), remaining(iterator), "radius " + radius + ", cell size " + cellSize + ", skipped " + count);
+            }
+        }
+    }
+
+    private static List<ChunkPos> remaining(Iterator<ChunkPos> iterator) {
+        List<ChunkPos> positions = new ArrayList<>();
+        iterator.forEachRemaining(positions::add);
+        return positions;
+    }
+}
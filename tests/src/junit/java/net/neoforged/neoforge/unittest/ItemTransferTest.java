@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.unittest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.neoforged.neoforge.items.IItemHandler;
+import net.neoforged.neoforge.items.IItemHandlerBulkTransfer;
+import net.neoforged.neoforge.items.ItemHandlerHelper;
+import net.neoforged.neoforge.items.ItemStackHandler;
+import net.neoforged.testframework.junit.EphemeralTestServerProvider;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(EphemeralTestServerProvider.class)
+public class ItemTransferTest {
+    @Test
+    void transferMovesMatchingItemsUpToMaxCount(MinecraftServer server) {
+        var source = new ItemStackHandler(3);
+        source.setStackInSlot(0, new ItemStack(Items.DIRT, 10));
+        source.setStackInSlot(1, new ItemStack(Items.STONE, 40));
+        source.setStackInSlot(2, new ItemStack(Items.STONE, 40));
+        var destination = new ItemStackHandler(2);
+
+        int moved = ItemHandlerHelper.transfer(source, destination, stack -> stack.is(Items.STONE), 50);
+        Assertions.assertEquals(50, moved);
+        Assertions.assertEquals(10, source.getStackInSlot(0).getCount());
+        Assertions.assertTrue(source.getStackInSlot(1).isEmpty());
+        Assertions.assertEquals(30, source.getStackInSlot(2).getCount());
+        Assertions.assertEquals(40, destination.getStackInSlot(0).getCount());
+        Assertions.assertEquals(10, destination.getStackInSlot(1).getCount());
+    }
+
+    @Test
+    void transferStopsWhenDestinationIsFull(MinecraftServer server) {
+        var source = new ItemStackHandler(1);
+        source.setStackInSlot(0, new ItemStack(Items.STONE, 64));
+        var destination = new ItemStackHandler(1);
+        destination.setStackInSlot(0, new ItemStack(Items.STONE, 60));
+
+        Assertions.assertEquals(4, ItemHandlerHelper.transfer(source, destination, stack -> true, 64));
+        Assertions.assertEquals(60, source.getStackInSlot(0).getCount());
+        Assertions.assertEquals(64, destination.getStackInSlot(0).getCount());
+    }
+
+    @Test
+    void transferUsesBulkTransfer(MinecraftServer server) {
+        class BulkHandler extends ItemStackHandler implements IItemHandlerBulkTransfer {
+            @Override
+            public int transferFrom(IItemHandler source, Predicate<ItemStack> filter, int maxCount) {
+                return maxCount;
+            }
+        }
+        var source = new ItemStackHandler(1);
+        source.setStackInSlot(0, new ItemStack(Items.STONE, 64));
+
+        Assertions.assertEquals(7, ItemHandlerHelper.transfer(source, new BulkHandler(), stack -> true, 7));
+        Assertions.assertEquals(64, source.getStackInSlot(0).getCount());
+    }
+
+    @Test
+    void transferOnlyInsertsWhatWasExtracted(MinecraftServer server) {
+        // Simulates extracting the whole stack, but only extracts one item at a time
+        var source = new ItemStackHandler(1) {
+            @Override
+            public ItemStack extractItem(int slot, int amount, boolean simulate) {
+                return super.extractItem(slot, simulate ? amount : Math.min(amount, 1), simulate);
+            }
+        };
+        source.setStackInSlot(0, new ItemStack(Items.STONE, 10));
+        var destination = new ItemStackHandler(1);
+
+        int moved = ItemHandlerHelper.transfer(source, destination, stack -> true, 10);
+        Assertions.assertEquals(moved, destination.getStackInSlot(0).getCount());
+        Assertions.assertEquals(10, source.getStackInSlot(0).getCount() + destination.getStackInSlot(0).getCount());
+    }
+
+    @Test
+    void transferPutsBackWhatTheDestinationRefused(MinecraftServer server) {
+        // Accepts stacks when simulating, but refuses them when inserting for real
+        var destination = new ItemStackHandler(1) {
+            @Override
+            public ItemStack insertItem(int slot, ItemStack stack, boolean simulate) {
+                return simulate ? super.insertItem(slot, stack, true) : stack;
+            }
+        };
+        var source = new ItemStackHandler(1);
+        source.setStackInSlot(0, new ItemStack(Items.STONE, 10));
+
+        Assertions.assertEquals(0, ItemHandlerHelper.transfer(source, destination, stack -> true, 10));
+        Assertions.assertEquals(10, source.getStackInSlot(0).getCount());
+        Assertions.assertTrue(destination.getStackInSlot(0).isEmpty());
+    }
+
+    @Test
+    void transferDoesNotSimulateTheExtraction(MinecraftServer server) {
+        List<String> calls = new ArrayList<>();
+        var source = new ItemStackHandler(1) {
+            @Override
+            public ItemStack extractItem(int slot, int amount, boolean simulate) {
+                calls.add(simulate ? "simulated extract" : "extract");
+                return super.extractItem(slot, amount, simulate);
+            }
+        };
+        source.setStackInSlot(0, new ItemStack(Items.STONE, 10));
+        var destination = new ItemStackHandler(1) {
+            @Override
+            public ItemStack insertItem(int slot, ItemStack stack, boolean simulate) {
+                calls.add(simulate ? "simulated insert" : "insert");
+                return super.insertItem(slot, stack, simulate);
+            }
+        };
+
+        // As a hopper does
+        Assertions.assertEquals(1, ItemHandlerHelper.transfer(source, destination, stack -> true, 1));
+        Assertions.assertEquals(List.of("simulated insert", "extract", "insert"), calls);
+        Assertions.assertEquals(9, source.getStackInSlot(0).getCount());
+        Assertions.assertEquals(1, destination.getStackInSlot(0).getCount());
+    }
+}
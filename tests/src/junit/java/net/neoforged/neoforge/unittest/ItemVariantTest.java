@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.unittest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import net.minecraft.core.component.DataComponentPatch;
+import net.minecraft.core.component.DataComponents;
+import net.minecraft.network.chat.Component;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.neoforged.neoforge.common.util.ItemStackMap;
+import net.neoforged.neoforge.common.util.ItemVariant;
+import net.neoforged.testframework.junit.EphemeralTestServerProvider;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(EphemeralTestServerProvider.class)
+public class ItemVariantTest {
+    @Test
+    void equalStacksShareVariant(MinecraftServer server) {
+        ItemStack named = new ItemStack(Items.DIAMOND, 3);
+        named.set(DataComponents.CUSTOM_NAME, Component.literal("Shiny"));
+        ItemStack copy = named.copyWithCount(64);
+
+        Assertions.assertSame(ItemVariant.of(named), ItemVariant.of(copy));
+        Assertions.assertSame(ItemVariant.of(Items.DIAMOND), ItemVariant.of(new ItemStack(Items.DIAMOND)));
+        Assertions.assertNotSame(ItemVariant.of(Items.DIAMOND), ItemVariant.of(named));
+        Assertions.assertSame(ItemVariant.EMPTY, ItemVariant.of(ItemStack.EMPTY));
+    }
+
+    @Test
+    void variantRoundTripsStacks(MinecraftServer server) {
+        ItemStack named = new ItemStack(Items.DIAMOND, 3);
+        named.set(DataComponents.CUSTOM_NAME, Component.literal("Shiny"));
+        ItemVariant variant = ItemVariant.of(named);
+
+        Assertions.assertTrue(variant.matches(named));
+        Assertions.assertFalse(variant.matches(new ItemStack(Items.DIAMOND)));
+        Assertions.assertTrue(ItemStack.matches(named.copyWithCount(5), variant.toStack(5)));
+        Assertions.assertTrue(variant.toStack(0).isEmpty());
+    }
+
+    @Test
+    void variantKeepsRemovedDefaultComponents(MinecraftServer server) {
+        ItemStack stack = new ItemStack(Items.DIAMOND);
+        stack.remove(DataComponents.RARITY);
+        ItemVariant variant = ItemVariant.of(stack);
+
+        Assertions.assertSame(ItemVariant.of(Items.DIAMOND, DataComponentPatch.builder().remove(DataComponents.RARITY).build()), variant);
+        Assertions.assertTrue(variant.matches(stack));
+        Assertions.assertFalse(variant.toStack(1).has(DataComponents.RARITY));
+    }
+
+    @Test
+    void variantIsNotChangedWithStack(MinecraftServer server) {
+        ItemStack stack = new ItemStack(Items.DIAMOND);
+        stack.set(DataComponents.CUSTOM_NAME, Component.literal("Shiny"));
+        ItemVariant variant = ItemVariant.of(stack);
+
+        stack.set(DataComponents.CUSTOM_NAME, Component.literal("Dull"));
+        Assertions.assertFalse(variant.matches(stack));
+        Assertions.assertEquals(Component.literal("Shiny"), variant.toStack(1).get(DataComponents.CUSTOM_NAME));
+        Assertions.assertNotSame(variant, ItemVariant.of(stack));
+    }
+
+    @Test
+    void variantMapFindsStacks(MinecraftServer server) {
+        var map = ItemStackMap.<Integer>createVariantMap();
+        map.put(ItemVariant.of(new ItemStack(Items.STONE, 10)), 10);
+
+        Assertions.assertEquals(10, map.get(ItemVariant.of(new ItemStack(Items.STONE, 1))));
+        Assertions.assertNull(map.get(ItemVariant.of(Items.DIRT)));
+    }
+
+    @Test
+    void airIsEmpty(MinecraftServer server) {
+        DataComponentPatch named = DataComponentPatch.builder().set(DataComponents.CUSTOM_NAME, Component.literal("Shiny")).build();
+
+        Assertions.assertSame(ItemVariant.EMPTY, ItemVariant.of(Items.AIR));
+        Assertions.assertTrue(ItemVariant.of(Items.AIR, named).isEmpty());
+        Assertions.assertTrue(ItemVariant.of(Items.AIR, named).toStack(1).isEmpty());
+    }
+
+    @Test
+    void variantsInternedConcurrentlyAreShared(MinecraftServer server) throws Exception {
+        ItemStack named = new ItemStack(Items.DIAMOND);
+        named.set(DataComponents.CUSTOM_NAME, Component.literal("Shared"));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ItemVariant>> variants = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                ItemStack stack = named.copy();
+                variants.add(executor.submit(() -> ItemVariant.of(stack)));
+            }
+            ItemVariant expected = ItemVariant.of(named);
+            for (Future<ItemVariant> variant : variants) {
+                Assertions.assertSame(expected, variant.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.unittest;
+
+import net.neoforged.neoforge.server.timings.LatencyHistogram;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+    @Test
+    public void testEmpty() {
+        var histogram = new LatencyHistogram();
+        Assertions.assertEquals(0, histogram.getCount());
+        Assertions.assertEquals(0, histogram.getPercentileNanos(50));
+        Assertions.assertEquals(0, histogram.getMaxNanos());
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        var histogram = new LatencyHistogram();
+        for (int i = 0; i < 8; i++) {
+            histogram.record(i);
+        }
+        Assertions.assertEquals(3, histogram.getPercentileNanos(50));
+        Assertions.assertEquals(7, histogram.getPercentileNanos(100));
+    }
+
+    @Test
+    public void testPercentilesWithinPrecision() {
+        var histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        Assertions.assertEquals(1000, histogram.getCount());
+        Assertions.assertEquals(1_000_000, histogram.getMaxNanos());
+        assertWithin(500_000, histogram.getPercentileNanos(50));
+        assertWithin(990_000, histogram.getPercentileNanos(99));
+        Assertions.assertEquals(1_000_000, histogram.getPercentileNanos(100));
+    }
+
+    @Test
+    public void testHugeValuesAreClamped() {
+        var histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+        Assertions.assertEquals(Long.MAX_VALUE, histogram.getMaxNanos());
+        Assertions.assertEquals(Long.MAX_VALUE, histogram.getPercentileNanos(50));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        // Buckets are 12.5% wide, and percentiles return the upper bound of the bucket
+        Assertions.assertTrue(actual >= expected && actual <= expected * 1.125, () -> "Expected about " + expected + " but got " + actual);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.unittest;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.common.ClientboundCustomPayloadPacket;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
+import net.neoforged.neoforge.network.bundle.CoalescingQueue;
+import net.neoforged.neoforge.network.bundle.PayloadCoalescer;
+import net.neoforged.neoforge.network.payload.CoalescedPayload;
+import net.neoforged.testframework.junit.EphemeralTestServerProvider;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(EphemeralTestServerProvider.class)
+public class PayloadCoalescerTest {
+    @Test
+    void singlePayloadIsDelivered(MinecraftServer server) {
+        var queue = new CoalescingQueue();
+        Assertions.assertTrue(queue.offer(new IndexPayload(0)));
+
+        List<CustomPacketPayload> delivered = new ArrayList<>();
+        Assertions.assertEquals(1, queue.flush(packet -> send(queue, packet, delivered)));
+
+        Assertions.assertEquals(List.of(new IndexPayload(0)), delivered);
+        Assertions.assertTrue(queue.isEmpty(), "The flushed payload must not be queued again");
+    }
+
+    @Test
+    void largeBatchesAreDeliveredInOrder(MinecraftServer server) {
+        var queue = new CoalescingQueue();
+        List<CustomPacketPayload> sent = new ArrayList<>();
+        // One payload more than a frame holds, such that the last frame holds a single payload
+        for (int i = 0; i <= PayloadCoalescer.MAX_PAYLOADS_PER_FRAME; i++) {
+            sent.add(new IndexPayload(i));
+            Assertions.assertTrue(queue.offer(new IndexPayload(i)));
+        }
+
+        List<CustomPacketPayload> delivered = new ArrayList<>();
+        Assertions.assertEquals(2, queue.flush(packet -> send(queue, packet, delivered)));
+
+        Assertions.assertEquals(sent, delivered);
+        Assertions.assertTrue(queue.isEmpty());
+        Assertions.assertTrue(queue.offer(new IndexPayload(0)), "Payloads are queued again once the flush is over");
+    }
+
+    /**
+     * Sends a packet the way the server listener does: coalesced payloads are offered to the queue first.
+     */
+    private static void send(CoalescingQueue queue, Packet<?> packet, List<CustomPacketPayload> delivered) {
+        var payload = ((ClientboundCustomPayloadPacket) packet).payload();
+        if (payload instanceof IndexPayload && queue.offer(payload)) {
+            return;
+        }
+        if (payload instanceof CoalescedPayload coalesced) {
+            delivered.addAll(coalesced.payloads());
+        } else {
+            delivered.add(payload);
+        }
+    }
+
+    private record IndexPayload(int index) implements CustomPacketPayload {
+        private static final Type<IndexPayload> TYPE = new Type<>(ResourceLocation.fromNamespaceAndPath("neotests", "payload_coalescer_test"));
+
+        @Override
+        public Type<IndexPayload> type() {
+            return TYPE;
+        }
+    }
+}
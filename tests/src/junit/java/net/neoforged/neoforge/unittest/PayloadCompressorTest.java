@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.unittest;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import net.minecraft.network.VarInt;
+import net.neoforged.neoforge.network.filters.PayloadCompressionStreams;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class PayloadCompressorTest {
+    private static final byte[] DICTIONARY = "neotests:payload_compressor_test {\"value\": 0, \"name\": \"sample\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PREFIX = { 1, 2, 3 };
+
+    @Test
+    public void testRoundTrip() throws DataFormatException {
+        var sender = new PayloadCompressionStreams(DICTIONARY);
+        var receiver = new PayloadCompressionStreams(DICTIONARY);
+        try {
+            byte[] random = new byte[8 * 1024];
+            new Random(42).nextBytes(random);
+            byte[][] packets = {
+                    "neotests:payload_compressor_test {\"value\": 1, \"name\": \"sample\"}".getBytes(StandardCharsets.UTF_8),
+                    new byte[0],
+                    random,
+                    "neotests:payload_compressor_test {\"value\": 1, \"name\": \"sample\"}".getBytes(StandardCharsets.UTF_8),
+                    "neotests:payload_compressor_test {\"value\": 2, \"name\": \"other\"}".getBytes(StandardCharsets.UTF_8),
+            };
+
+            for (byte[] packet : packets) {
+                Assertions.assertArrayEquals(packet, roundTrip(sender, receiver, packet));
+            }
+        } finally {
+            sender.end();
+            receiver.end();
+        }
+    }
+
+    @Test
+    public void testRepeatedPayloadsCompressWell() throws DataFormatException {
+        var sender = new PayloadCompressionStreams(DICTIONARY);
+        var receiver = new PayloadCompressionStreams(DICTIONARY);
+        try {
+            byte[] packet = "neotests:payload_compressor_test {\"value\": 7, \"name\": \"repeated\"}".getBytes(StandardCharsets.UTF_8);
+            int first = compressedLength(sender, receiver, packet);
+            int second = compressedLength(sender, receiver, packet);
+            Assertions.assertTrue(first < packet.length, "The dictionary should help compressing the first payload");
+            Assertions.assertTrue(second < first, "The stream should remember the previous payload");
+        } finally {
+            sender.end();
+            receiver.end();
+        }
+    }
+
+    @Test
+    public void testRejectsPacketsLargerThanLimit() {
+        var sender = new PayloadCompressionStreams(DICTIONARY);
+        var receiver = new PayloadCompressionStreams(DICTIONARY);
+        try {
+            ByteBuf compressed = sender.deflate(UnpooledByteBufAllocator.DEFAULT, Unpooled.wrappedBuffer(new byte[4096]), PREFIX);
+            try {
+                ByteBuf data = readData(compressed);
+                Assertions.assertThrows(DataFormatException.class, () -> receiver.inflate(data, 1024));
+            } finally {
+                compressed.release();
+            }
+        } finally {
+            sender.end();
+            receiver.end();
+        }
+    }
+
+    private static byte[] roundTrip(PayloadCompressionStreams sender, PayloadCompressionStreams receiver, byte[] packet) throws DataFormatException {
+        ByteBuf compressed = sender.deflate(UnpooledByteBufAllocator.DEFAULT, Unpooled.wrappedBuffer(packet), PREFIX);
+        try {
+            ByteBuf decompressed = receiver.inflate(readData(compressed), Integer.MAX_VALUE);
+            try {
+                return ByteBufUtil.getBytes(decompressed);
+            } finally {
+                decompressed.release();
+            }
+        } finally {
+            compressed.release();
+        }
+    }
+
+    private static int compressedLength(PayloadCompressionStreams sender, PayloadCompressionStreams receiver, byte[] packet) throws DataFormatException {
+        ByteBuf compressed = sender.deflate(UnpooledByteBufAllocator.DEFAULT, Unpooled.wrappedBuffer(packet), PREFIX);
+        try {
+            ByteBuf data = readData(compressed);
+            int length = data.readableBytes();
+            // Keeps the streams of both sides in sync
+            receiver.inflate(data, Integer.MAX_VALUE).release();
+            return length;
+        } finally {
+            compressed.release();
+        }
+    }
+
+    /**
+     * {@return the compressed data of an encoded compressed packet, after the prefix and the length}
+     */
+    private static ByteBuf readData(ByteBuf compressed) {
+        for (byte expected : PREFIX) {
+            Assertions.assertEquals(expected, compressed.readByte());
+        }
+        int length = VarInt.read(compressed);
+        Assertions.assertEquals(length, compressed.readableBytes());
+        return compressed.slice();
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.unittest;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import net.minecraft.network.Connection;
+import net.minecraft.network.chat.Component;
+import net.minecraft.network.protocol.PacketFlow;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ConfigurationTask;
+import net.minecraft.world.entity.player.Player;
+import net.neoforged.neoforge.common.extensions.ICommonPacketListener;
+import net.neoforged.neoforge.network.handling.IPayloadContext;
+import net.neoforged.neoforge.network.handling.PayloadWorkers;
+import net.neoforged.testframework.junit.EphemeralTestServerProvider;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(EphemeralTestServerProvider.class)
+public class PayloadWorkersTest {
+    private static final ResourceLocation CHANNEL = ResourceLocation.fromNamespaceAndPath("neotests", "payload_workers_test");
+    private static final ResourceLocation OTHER_CHANNEL = ResourceLocation.fromNamespaceAndPath("neotests", "payload_workers_test_other");
+
+    @Test
+    void handlesPayloadsOfAChannelInOrder(MinecraftServer server) throws InterruptedException {
+        var context = new TestContext();
+        int count = 200;
+        List<Integer> handled = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> otherHandled = Collections.synchronizedList(new ArrayList<>());
+        var done = new CountDownLatch(2 * count);
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            PayloadWorkers.submit(context, CHANNEL, () -> {
+                handled.add(index);
+                done.countDown();
+            });
+            PayloadWorkers.submit(context, OTHER_CHANNEL, () -> {
+                otherHandled.add(index);
+                done.countDown();
+            });
+        }
+
+        Assertions.assertTrue(done.await(10, TimeUnit.SECONDS), "Timed out waiting for the payloads to be handled");
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            expected.add(i);
+        }
+        Assertions.assertEquals(expected, handled);
+        Assertions.assertEquals(expected, otherHandled);
+        Assertions.assertNull(context.disconnectReason);
+    }
+
+    @Test
+    void disconnectsWhenTooManyPayloadsArePending(MinecraftServer server) throws InterruptedException {
+        var context = new TestContext();
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        PayloadWorkers.submit(context, CHANNEL, () -> {
+            started.countDown();
+            awaitQuietly(release);
+        });
+        // The blocking payload is no longer pending once it is being handled
+        Assertions.assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        try {
+            for (int i = 0; i < 1024; i++) {
+                PayloadWorkers.submit(context, CHANNEL, () -> {});
+            }
+            Assertions.assertNull(context.disconnectReason, "Up to 1024 payloads may be waiting");
+
+            PayloadWorkers.submit(context, CHANNEL, () -> {});
+            Assertions.assertNotNull(context.disconnectReason, "The 1025th waiting payload disconnects");
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void disconnectsWhenHandlerFails(MinecraftServer server) throws InterruptedException {
+        var context = new TestContext();
+        var done = new CountDownLatch(1);
+        PayloadWorkers.submit(context, CHANNEL, () -> {
+            throw new IllegalStateException("Invalid payload");
+        });
+        PayloadWorkers.submit(context, CHANNEL, done::countDown);
+
+        Assertions.assertTrue(done.await(10, TimeUnit.SECONDS));
+        Assertions.assertNotNull(context.disconnectReason);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class TestContext implements IPayloadContext {
+        private final Connection connection = new Connection(PacketFlow.SERVERBOUND);
+        private volatile Component disconnectReason;
+
+        private TestContext() {
+            // Opens the connection, and gives it a channel to store the worker queues in
+            new EmbeddedChannel(connection);
+        }
+
+        @Override
+        public ICommonPacketListener listener() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Connection connection() {
+            return connection;
+        }
+
+        @Override
+        public Player player() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void disconnect(Component reason) {
+            disconnectReason = reason;
+        }
+
+        @Override
+        public CompletableFuture<Void> enqueueWork(Runnable task) {
+            return CompletableFuture.runAsync(task);
+        }
+
+        @Override
+        public <T> CompletableFuture<T> enqueueWork(Supplier<T> task) {
+            return CompletableFuture.supplyAsync(task);
+        }
+
+        @Override
+        public PacketFlow flow() {
+            return PacketFlow.SERVERBOUND;
+        }
+
+        @Override
+        public void handle(CustomPacketPayload payload) {}
+
+        @Override
+        public void finishCurrentTask(ConfigurationTask.Type type) {}
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.unittest;
+
+import com.mojang.serialization.Lifecycle;
+import io.netty.buffer.Unpooled;
+import net.minecraft.core.MappedRegistry;
+import net.minecraft.core.RegistrationInfo;
+import net.minecraft.core.Registry;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.neoforged.neoforge.registries.RegistrySnapshot;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class RegistrySnapshotTest {
+    private static final ResourceKey<Registry<String>> REGISTRY_KEY = ResourceKey.createRegistryKey(ResourceLocation.fromNamespaceAndPath("neotests", "snapshot_test"));
+
+    @Test
+    public void testRoundTrip() {
+        var registry = new MappedRegistry<>(REGISTRY_KEY, Lifecycle.stable());
+        // Two runs of ids, with a gap between them
+        register(registry, 0, "minecraft", "a");
+        register(registry, 1, "neotests", "b");
+        register(registry, 2, "minecraft", "c");
+        register(registry, 10, "othermod", "d");
+        register(registry, 11, "neotests", "e");
+        registry.addAlias(ResourceLocation.fromNamespaceAndPath("oldmod", "a"), ResourceLocation.fromNamespaceAndPath("minecraft", "a"));
+
+        var snapshot = new RegistrySnapshot(registry, false);
+        var decoded = roundTrip(snapshot);
+
+        Assertions.assertEquals(snapshot.getIds(), decoded.getIds());
+        Assertions.assertEquals(snapshot.getAliases(), decoded.getAliases());
+        Assertions.assertEquals(snapshot.getHash(), decoded.getHash());
+    }
+
+    @Test
+    public void testHashDependsOnIds() {
+        var first = new MappedRegistry<>(REGISTRY_KEY, Lifecycle.stable());
+        register(first, 0, "minecraft", "a");
+        register(first, 1, "minecraft", "b");
+        var second = new MappedRegistry<>(REGISTRY_KEY, Lifecycle.stable());
+        register(second, 0, "minecraft", "b");
+        register(second, 1, "minecraft", "a");
+
+        Assertions.assertNotEquals(new RegistrySnapshot(first, false).getHash(), new RegistrySnapshot(second, false).getHash());
+    }
+
+    private static void register(MappedRegistry<String> registry, int id, String namespace, String path) {
+        var key = ResourceKey.create(REGISTRY_KEY, ResourceLocation.fromNamespaceAndPath(namespace, path));
+        registry.register(id, key, namespace + ":" + path, RegistrationInfo.BUILT_IN);
+    }
+
+    private static RegistrySnapshot roundTrip(RegistrySnapshot snapshot) {
+        var buf = new FriendlyByteBuf(Unpooled.buffer());
+        try {
+            RegistrySnapshot.STREAM_CODEC.encode(buf, snapshot);
+            return RegistrySnapshot.STREAM_CODEC.decode(buf);
+        } finally {
+            buf.release();
+        }
+    }
+}
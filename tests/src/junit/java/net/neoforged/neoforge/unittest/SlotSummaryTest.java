@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.unittest;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.neoforged.neoforge.items.ItemHandlerHelper;
+import net.neoforged.neoforge.items.IItemHandlerSlotSummary;
+import net.neoforged.neoforge.items.ItemStackHandler;
+import net.neoforged.neoforge.items.TrackingItemStackHandler;
+import net.neoforged.testframework.junit.EphemeralTestServerProvider;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(EphemeralTestServerProvider.class)
+public class SlotSummaryTest {
+    @Test
+    void summaryTracksInsertAndExtract(MinecraftServer server) {
+        var handler = new TrackingItemStackHandler(4);
+        Assertions.assertTrue(handler.areAllSlotsEmpty());
+        Assertions.assertEquals(-1, handler.getNextNonEmptySlot(0));
+        Assertions.assertEquals(0, handler.getNextEmptySlot(0));
+
+        handler.insertItem(2, new ItemStack(Items.STONE, 10), false);
+        handler.insertItem(3, new ItemStack(Items.DIRT, 1), false);
+        Assertions.assertFalse(handler.areAllSlotsEmpty());
+        Assertions.assertEquals(2, handler.getNextNonEmptySlot(0));
+        Assertions.assertEquals(3, handler.getNextNonEmptySlot(3));
+        Assertions.assertEquals(2, handler.getNextSlotWithItem(Items.STONE, 0));
+        Assertions.assertEquals(-1, handler.getNextSlotWithItem(Items.STONE, 3));
+        Assertions.assertEquals(-1, handler.getNextEmptySlot(2));
+
+        handler.extractItem(2, 10, false);
+        Assertions.assertEquals(-1, handler.getNextSlotWithItem(Items.STONE, 0));
+        Assertions.assertEquals(3, handler.getNextNonEmptySlot(0));
+        Assertions.assertEquals(2, handler.getNextEmptySlot(1));
+    }
+
+    @Test
+    void summaryTracksFullSlots(MinecraftServer server) {
+        var handler = new TrackingItemStackHandler(2) {
+            @Override
+            public int getSlotLimit(int slot) {
+                return 16;
+            }
+        };
+        handler.setStackInSlot(0, new ItemStack(Items.STONE, 16));
+        handler.setStackInSlot(1, new ItemStack(Items.STONE, 15));
+        Assertions.assertFalse(handler.areAllSlotsFull());
+
+        handler.insertItem(1, new ItemStack(Items.STONE), false);
+        Assertions.assertTrue(handler.areAllSlotsFull());
+
+        handler.setSize(2);
+        Assertions.assertTrue(handler.areAllSlotsEmpty());
+        Assertions.assertFalse(handler.areAllSlotsFull());
+    }
+
+    @Test
+    void insertItemStackedUsesSummaryInOrder(MinecraftServer server) {
+        var handler = new TrackingItemStackHandler(4);
+        handler.setStackInSlot(1, new ItemStack(Items.DIRT, 1));
+        handler.setStackInSlot(3, new ItemStack(Items.STONE, 60));
+
+        ItemStack remainder = ItemHandlerHelper.insertItemStacked(handler, new ItemStack(Items.STONE, 64), false);
+        Assertions.assertTrue(remainder.isEmpty());
+        Assertions.assertEquals(64, handler.getStackInSlot(3).getCount());
+        Assertions.assertEquals(60, handler.getStackInSlot(0).getCount());
+        Assertions.assertTrue(handler.getStackInSlot(2).isEmpty());
+        Assertions.assertEquals(0, handler.getNextSlotWithItem(Items.STONE, 0));
+        Assertions.assertEquals(3, handler.getNextSlotWithItem(Items.STONE, 1));
+    }
+
+    @Test
+    void plainHandlersAreScannedSlotBySlot(MinecraftServer server) {
+        // Writes the stacks directly, which a slot summary would not see
+        var handler = new ItemStackHandler(3) {
+            void putDirectly(int slot, ItemStack stack) {
+                stacks.set(slot, stack);
+            }
+        };
+        Assertions.assertFalse(handler instanceof IItemHandlerSlotSummary);
+
+        handler.putDirectly(1, new ItemStack(Items.STONE, 10));
+        ItemStack remainder = ItemHandlerHelper.insertItemStacked(handler, new ItemStack(Items.STONE, 5), false);
+        Assertions.assertTrue(remainder.isEmpty());
+        Assertions.assertEquals(15, handler.getStackInSlot(1).getCount());
+        Assertions.assertTrue(handler.getStackInSlot(0).isEmpty());
+    }
+}
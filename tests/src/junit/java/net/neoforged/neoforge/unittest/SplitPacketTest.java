@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.unittest;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.DecoderException;
+import java.util.ArrayList;
+import java.util.List;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.Packet;
+import net.minecraft.network.protocol.PacketFlow;
+import net.minecraft.network.protocol.common.ClientboundCustomPayloadPacket;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
+import net.neoforged.neoforge.network.codec.IncrementalStreamCodec;
+import net.neoforged.neoforge.network.filters.SplitPacketBacklog;
+import net.neoforged.neoforge.network.filters.SplitPacketReassembly;
+import net.neoforged.testframework.junit.EphemeralTestServerProvider;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(EphemeralTestServerProvider.class)
+public class SplitPacketTest {
+    private static final ResourceLocation CHANNEL = ResourceLocation.fromNamespaceAndPath("neotests", "split_packet_test");
+
+    @Test
+    void reassemblesPartsWithoutCopying(MinecraftServer server) {
+        ByteBuf source = Unpooled.buffer();
+        for (int i = 0; i < 12; i++) {
+            source.writeByte(i);
+        }
+
+        var reassembly = new SplitPacketReassembly(CHANNEL, 1024, null);
+        addParts(reassembly, source, 5, 5, 2);
+        source.release();
+        Assertions.assertEquals(12, reassembly.size());
+        Assertions.assertFalse(reassembly.exceedsLimit());
+
+        // Reads the reassembled bytes, in place of the packet codec of the protocol
+        List<Byte> read = new ArrayList<>();
+        StreamCodec<FriendlyByteBuf, Packet<?>> codec = StreamCodec.of((buf, packet) -> {}, buf -> {
+            while (buf.isReadable()) {
+                read.add(buf.readByte());
+            }
+            return new ClientboundCustomPayloadPacket(new IntsPayload(List.of()));
+        });
+        reassembly.finish(codec, PacketFlow.CLIENTBOUND);
+
+        Assertions.assertEquals(List.of((byte) 0, (byte) 1, (byte) 2, (byte) 3, (byte) 4, (byte) 5, (byte) 6, (byte) 7, (byte) 8, (byte) 9, (byte) 10, (byte) 11), read);
+        Assertions.assertEquals(0, source.refCnt(), "The parts must be released once the packet is decoded");
+    }
+
+    @Test
+    void decodesIncrementallyAcrossUnalignedParts(MinecraftServer server) {
+        ByteBuf source = Unpooled.buffer();
+        source.writeInt(1).writeInt(2).writeInt(3);
+
+        var reassembly = new SplitPacketReassembly(CHANNEL, 1024, new IntsDecoder());
+        addParts(reassembly, source, 3, 6, 3);
+        source.release();
+
+        Packet<?> packet = reassembly.finish(unusedCodec(), PacketFlow.CLIENTBOUND);
+        var payload = Assertions.assertInstanceOf(ClientboundCustomPayloadPacket.class, packet).payload();
+        Assertions.assertEquals(new IntsPayload(List.of(1, 2, 3)), payload);
+        Assertions.assertEquals(0, source.refCnt());
+    }
+
+    @Test
+    void rejectsBytesLeftOverByIncrementalDecoder(MinecraftServer server) {
+        ByteBuf source = Unpooled.buffer();
+        source.writeInt(1).writeByte(2);
+
+        var reassembly = new SplitPacketReassembly(CHANNEL, 1024, new IntsDecoder());
+        addParts(reassembly, source, 5);
+        source.release();
+
+        Assertions.assertThrows(DecoderException.class, () -> reassembly.finish(unusedCodec(), PacketFlow.CLIENTBOUND));
+        Assertions.assertEquals(0, source.refCnt());
+    }
+
+    @Test
+    void exceedsLimitOncePartsAreCounted() {
+        ByteBuf source = Unpooled.buffer();
+        source.writeZero(10);
+
+        var reassembly = new SplitPacketReassembly(CHANNEL, 8, null);
+        ByteBuf first = source.retainedSlice(0, 6);
+        reassembly.count(first);
+        reassembly.add(first);
+        Assertions.assertFalse(reassembly.exceedsLimit());
+
+        ByteBuf second = source.retainedSlice(6, 4);
+        reassembly.count(second);
+        Assertions.assertTrue(reassembly.exceedsLimit());
+        second.release();
+
+        reassembly.discard();
+        source.release();
+        Assertions.assertEquals(0, source.refCnt());
+    }
+
+    @Test
+    void pausesReadingAtHalfAndResumesAtQuarter() {
+        var backlog = new SplitPacketBacklog();
+        Assertions.assertFalse(backlog.enqueued(40, 100));
+        Assertions.assertTrue(backlog.enqueued(20, 100), "Reading pauses once more than half of the buffer is used");
+        Assertions.assertFalse(backlog.enqueued(10, 100), "Reading is only paused once");
+        Assertions.assertEquals(70, backlog.pendingBytes());
+
+        Assertions.assertTrue(backlog.canBuffer(30, 100));
+        Assertions.assertFalse(backlog.canBuffer(31, 100));
+
+        Assertions.assertFalse(backlog.handled(40, 100));
+        Assertions.assertTrue(backlog.handled(10, 100));
+        Assertions.assertTrue(backlog.resume(100));
+        Assertions.assertFalse(backlog.resume(100), "Reading is only resumed once");
+    }
+
+    @Test
+    void staysPausedIfBacklogGrewBeforeResuming() {
+        var backlog = new SplitPacketBacklog();
+        Assertions.assertTrue(backlog.enqueued(60, 100));
+        Assertions.assertTrue(backlog.handled(60, 100));
+        // Another packet is enqueued before the event loop resumes reading
+        Assertions.assertFalse(backlog.enqueued(40, 100));
+        Assertions.assertFalse(backlog.resume(100));
+
+        Assertions.assertTrue(backlog.handled(40, 100));
+        Assertions.assertTrue(backlog.resume(100));
+    }
+
+    private static void addParts(SplitPacketReassembly reassembly, ByteBuf source, int... sizes) {
+        int offset = 0;
+        for (int size : sizes) {
+            ByteBuf part = source.retainedSlice(offset, size);
+            reassembly.count(part);
+            reassembly.add(part);
+            offset += size;
+        }
+    }
+
+    private static StreamCodec<FriendlyByteBuf, Packet<?>> unusedCodec() {
+        return StreamCodec.of((buf, packet) -> {}, buf -> {
+            throw new AssertionError("Incrementally decoded payloads must not be decoded by the protocol codec");
+        });
+    }
+
+    private record IntsPayload(List<Integer> values) implements CustomPacketPayload {
+        private static final Type<IntsPayload> TYPE = new Type<>(CHANNEL);
+
+        @Override
+        public Type<IntsPayload> type() {
+            return TYPE;
+        }
+    }
+
+    private static final class IntsDecoder implements IncrementalStreamCodec.Decoder<IntsPayload> {
+        private final List<Integer> values = new ArrayList<>();
+
+        @Override
+        public void decodePart(ByteBuf buf) {
+            while (buf.readableBytes() >= Integer.BYTES) {
+                values.add(buf.readInt());
+            }
+        }
+
+        @Override
+        public IntsPayload finish() {
+            return new IntsPayload(List.copyOf(values));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) NeoForged and contributors
+ * SPDX-License-Identifier: LGPL-2.1-only
+ */
+
+package net.neoforged.neoforge.unittest;
+
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.neoforged.neoforge.items.ItemHandlerHelper;
+import net.neoforged.neoforge.items.ItemStackHandler;
+import net.neoforged.neoforge.items.TrackingItemStackHandler;
+import net.neoforged.testframework.junit.EphemeralTestServerProvider;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(EphemeralTestServerProvider.class)
+public class TrackingItemStackHandlerTest {
+    @Test
+    void redstoneSignalMatchesScan(MinecraftServer server) {
+        var tracking = new TrackingItemStackHandler(14);
+        var plain = new ItemStackHandler(14);
+        Assertions.assertEquals(0, tracking.getRedstoneSignal());
+
+        ItemStack[] stacks = { new ItemStack(Items.STONE, 64), new ItemStack(Items.ENDER_PEARL, 5), new ItemStack(Items.DIAMOND_SWORD), new ItemStack(Items.DIRT, 33) };
+        for (int i = 0; i < 14; i++) {
+            ItemStack stack = stacks[i % stacks.length];
+            tracking.insertItem(i, stack.copy(), false);
+            plain.insertItem(i, stack.copy(), false);
+            Assertions.assertEquals(ItemHandlerHelper.calcRedstoneFromInventory(plain), tracking.getRedstoneSignal());
+        }
+
+        for (int i = 0; i < 14; i += 3) {
+            tracking.extractItem(i, 3, false);
+            plain.extractItem(i, 3, false);
+            Assertions.assertEquals(ItemHandlerHelper.calcRedstoneFromInventory(plain), tracking.getRedstoneSignal());
+        }
+    }
+
+    @Test
+    void modificationsAreCounted(MinecraftServer server) {
+        int[] batches = { 0 };
+        var handler = new TrackingItemStackHandler(2) {
+            @Override
+            protected void onContentsChangedBatch() {
+                batches[0]++;
+            }
+        };
+        Assertions.assertTrue(handler.isEmpty());
+        long before = handler.getModificationCount();
+
+        handler.insertItem(0, new ItemStack(Items.STONE, 10), true);
+        Assertions.assertEquals(before, handler.getModificationCount());
+
+        handler.insertItem(0, new ItemStack(Items.STONE, 10), false);
+        handler.setStackInSlot(1, new ItemStack(Items.DIRT));
+        Assertions.assertEquals(before + 2, handler.getModificationCount());
+        Assertions.assertEquals(2, handler.getNonEmptySlots());
+        Assertions.assertFalse(handler.isEmpty());
+        // Changes made outside the server thread are not batched
+        Assertions.assertEquals(2, batches[0]);
+    }
+}
@@ -16,6 +16,7 @@ import net.neoforged.neoforge.capabilities.Capabilities.ItemHandler;
 import net.neoforged.neoforge.capabilities.RegisterCapabilitiesEvent;
 import net.neoforged.neoforge.items.ComponentItemHandler;
 import net.neoforged.neoforge.items.IItemHandler;
+import net.neoforged.neoforge.items.TrackingItemStackHandler;
 import net.neoforged.neoforge.registries.DeferredItem;
 import net.neoforged.testframework.DynamicTest;
 import net.neoforged.testframework.TestFramework;
@@ -23,8 +24,10 @@ import net.neoforged.testframework.annotation.ForEachTest;
 import net.neoforged.testframework.annotation.OnInit;
 import net.neoforged.testframework.annotation.TestHolder;
 import net.neoforged.testframework.gametest.EmptyTemplate;
+import net.neoforged.testframework.gametest.ExtendedGameTestHelper;
 import net.neoforged.testframework.registration.DeferredItems;
 import net.neoforged.testframework.registration.RegistrationHelper;
+import org.apache.commons.lang3.mutable.MutableInt;
 
 @ForEachTest(groups = "capabilities.iteminventory")
 public class ItemInventoryTests {
@@ -91,4 +94,62 @@ public class ItemInventoryTests {
             helper.succeed();
         });
     }
+
+    @GameTest
+    @EmptyTemplate
+    @TestHolder(description = "Tests that TrackingItemStackHandler notifies the changes made during a tick once, at the end of the tick")
+    public static void testTrackingHandlerBatchesChanges(ExtendedGameTestHelper helper) {
+        MutableInt batches = new MutableInt();
+        var items = new TrackingItemStackHandler(4) {
+            @Override
+            protected void onContentsChangedBatch() {
+                batches.increment();
+            }
+        };
+
+        helper.startSequence()
+                .thenExecute(() -> {
+                    items.insertItem(0, new ItemStack(Items.APPLE, 16), false);
+                    items.insertItem(1, new ItemStack(Items.STICK, 8), false);
+                    items.setStackInSlot(2, new ItemStack(Items.DIAMOND));
+                    items.extractItem(0, 4, false);
+                    helper.assertValueEqual(batches.intValue(), 0, "batches before the end of the tick");
+                })
+                .thenIdle(1)
+                .thenExecute(() -> helper.assertValueEqual(batches.intValue(), 1, "batches after the tick of the changes"))
+                .thenIdle(5)
+                .thenExecute(() -> helper.assertValueEqual(batches.intValue(), 1, "batches once the contents stopped changing"))
+                .thenSucceed();
+    }
+
+    @GameTest
+    @EmptyTemplate
+    @TestHolder(description = "Tests that a failing batch callback does not keep the other handlers from being notified")
+    public static void testTrackingHandlerBatchFailureIsIsolated(ExtendedGameTestHelper helper) {
+        MutableInt batches = new MutableInt();
+        var failing = new TrackingItemStackHandler(1) {
+            @Override
+            protected void onContentsChangedBatch() {
+                throw new IllegalStateException("Failing on purpose");
+            }
+        };
+        var items = new TrackingItemStackHandler(1) {
+            @Override
+            protected void onContentsChangedBatch() {
+                batches.increment();
+            }
+        };
+
+        helper.startSequence()
+                .thenExecute(() -> {
+                    failing.insertItem(0, new ItemStack(Items.APPLE), false);
+                    items.insertItem(0, new ItemStack(Items.APPLE), false);
+                })
+                .thenIdle(1)
+                .thenExecute(() -> helper.assertValueEqual(batches.intValue(), 1, "batches after the tick of the changes"))
+                .thenExecute(() -> items.insertItem(0, new ItemStack(Items.APPLE), false))
+                .thenIdle(1)
+                .thenExecute(() -> helper.assertValueEqual(batches.intValue(), 2, "batches after the handler changed again"))
+                .thenSucceed();
+    }
 }
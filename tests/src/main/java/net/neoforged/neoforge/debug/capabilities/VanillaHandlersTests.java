@@ -11,17 +11,27 @@ import static net.neoforged.neoforge.fluids.capability.IFluidHandler.FluidAction
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.gametest.framework.GameTest;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.EntitySpawnReason;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.vehicle.MinecartHopper;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
 import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.LayeredCauldronBlock;
+import net.minecraft.world.level.block.entity.HopperBlockEntity;
 import net.minecraft.world.level.material.Fluids;
 import net.neoforged.neoforge.capabilities.BlockCapabilityCache;
 import net.neoforged.neoforge.capabilities.Capabilities;
+import net.neoforged.neoforge.capabilities.SidedBlockCapabilityCache;
 import net.neoforged.neoforge.fluids.FluidStack;
 import net.neoforged.testframework.annotation.ForEachTest;
 import net.neoforged.testframework.annotation.TestHolder;
 import net.neoforged.testframework.gametest.EmptyTemplate;
 import net.neoforged.testframework.gametest.ExtendedGameTestHelper;
 import org.apache.commons.lang3.mutable.MutableInt;
+import org.apache.commons.lang3.mutable.MutableObject;
 
 @ForEachTest(groups = "capabilities.vanillahandlers")
 public class VanillaHandlersTests {
@@ -77,6 +87,40 @@ public class VanillaHandlersTests {
         helper.succeed();
     }
 
+    @GameTest
+    @EmptyTemplate
+    @TestHolder(description = "Tests that sided capability caches share a single invalidation for all sides")
+    public static void testSidedCacheInvalidation(ExtendedGameTestHelper helper) {
+        var composterPos = new BlockPos(1, 1, 1);
+
+        MutableInt invalidationCount = new MutableInt();
+        var capCache = SidedBlockCapabilityCache.create(
+                Capabilities.ItemHandler.BLOCK,
+                helper.getLevel(),
+                helper.absolutePos(composterPos),
+                () -> true,
+                invalidationCount::increment);
+
+        // Query every side, absent results are memoized too
+        for (var side : Direction.values()) {
+            helper.assertTrue(capCache.getCapability(side) == null, "Expected no capability on side " + side);
+        }
+        helper.assertTrue(capCache.getCapability(null) == null, "Expected no capability on null side");
+
+        // A single invalidation covers all the sides
+        helper.setBlock(composterPos, Blocks.COMPOSTER.defaultBlockState());
+        helper.assertTrue(invalidationCount.intValue() == 1, "Expected 1 invalidation only");
+
+        helper.assertTrue(capCache.getCapability(Direction.UP) != null, "Expected capability on side UP");
+        helper.assertTrue(capCache.getCapability(Direction.DOWN) != null, "Expected capability on side DOWN");
+
+        helper.setBlock(composterPos, Blocks.AIR.defaultBlockState());
+        helper.assertTrue(invalidationCount.intValue() == 2, "Expected a second invalidation after composter removal");
+        helper.assertTrue(capCache.getCapability(Direction.UP) == null, "Expected no capability after composter removal");
+
+        helper.succeed();
+    }
+
     @GameTest
     @EmptyTemplate
     @TestHolder(description = "Test cauldron interactions via the fluid handler capability")
@@ -145,4 +189,36 @@ public class VanillaHandlersTests {
 
         helper.succeed();
     }
+
+    @GameTest
+    @EmptyTemplate
+    @TestHolder(description = "Tests that hoppers keep filling the hopper minecart below them after its chunk is reloaded")
+    public static void testHopperFillsMinecartAcrossReload(ExtendedGameTestHelper helper) {
+        var hopperPos = new BlockPos(1, 2, 1);
+        var minecartPos = new BlockPos(1, 1, 1);
+        helper.setBlock(minecartPos, Blocks.RAIL.defaultBlockState());
+        helper.setBlock(hopperPos, Blocks.HOPPER.defaultBlockState());
+        helper.requireBlockEntity(hopperPos, HopperBlockEntity.class).setItem(0, new ItemStack(Items.DIAMOND, 2));
+
+        // Disabled, such that only the hopper above moves items into the minecart
+        MutableObject<MinecartHopper> minecart = new MutableObject<>(helper.spawn(EntityType.HOPPER_MINECART, minecartPos));
+        minecart.getValue().setEnabled(false);
+
+        helper.startSequence()
+                .thenWaitUntil(() -> helper.assertTrue(minecart.getValue().getItem(0).getCount() == 1, "Expected the hopper to fill the minecart"))
+                .thenExecute(() -> {
+                    // Unloading the chunk saves and removes the minecart, reloading it adds a new minecart from the saved data
+                    var tag = new CompoundTag();
+                    minecart.getValue().save(tag);
+                    minecart.getValue().remove(Entity.RemovalReason.UNLOADED_TO_CHUNK);
+                    var reloaded = EntityType.loadEntityRecursive(tag, helper.getLevel(), EntitySpawnReason.LOAD, entity -> entity);
+                    if (!(reloaded instanceof MinecartHopper reloadedMinecart) || !helper.getLevel().addFreshEntity(reloaded)) {
+                        helper.fail("Expected the minecart to be reloaded", minecartPos);
+                        return;
+                    }
+                    minecart.setValue(reloadedMinecart);
+                })
+                .thenWaitUntil(() -> helper.assertTrue(minecart.getValue().getItem(0).getCount() == 2, "Expected the hopper to fill the reloaded minecart"))
+                .thenSucceed();
+    }
 }